@@ -163,14 +163,24 @@ public class ExpressionServiceTest extends CommonBPMServicesTest {
         //given
         final String strContent = "return \"junit test checkGroovyScriptStrategyUsesCache\"";
         final SExpression strExpr = buildExpression(strContent, SExpression.TYPE_READ_ONLY_SCRIPT, String.class.getName(), SExpression.GROOVY, null);
-        final String cacheKey = GroovyScriptExpressionExecutorCacheStrategy.SCRIPT_KEY + strContent.hashCode();
-        assertThat(cacheService.get(GroovyScriptExpressionExecutorCacheStrategy.GROOVY_SCRIPT_CACHE_NAME, cacheKey)).as("should not contains key").isNull();
+        final String cacheKeyPrefix = GroovyScriptExpressionExecutorCacheStrategy.SCRIPT_KEY + DEFINITION_ID_VALUE + "_";
+        final int cachedScripts = getCachedScriptCount(cacheKeyPrefix);
 
         //when
         evaluate(strExpr, EMPTY_RESOLVED_EXPRESSIONS);
 
         //then
-        assertThat(cacheService.get(GroovyScriptExpressionExecutorCacheStrategy.GROOVY_SCRIPT_CACHE_NAME, cacheKey)).as("should contains key").isNotNull();
+        assertThat(getCachedScriptCount(cacheKeyPrefix)).as("should contains key").isEqualTo(cachedScripts + 1);
+    }
+
+    private int getCachedScriptCount(final String cacheKeyPrefix) throws Exception {
+        int count = 0;
+        for (final Object key : cacheService.getKeys(GroovyScriptExpressionExecutorCacheStrategy.GROOVY_SCRIPT_CACHE_NAME)) {
+            if (key.toString().startsWith(cacheKeyPrefix)) {
+                count++;
+            }
+        }
+        return count;
     }
 
     @Test
@@ -16,6 +16,7 @@ package org.bonitasoft.engine.api;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
@@ -28,26 +29,39 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
+import org.apache.http.StatusLine;
 import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.HttpResponseException;
 import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.SerializableEntity;
 import org.apache.http.entity.mime.MultipartEntity;
 import org.apache.http.entity.mime.content.ByteArrayBody;
 import org.apache.http.entity.mime.content.StringBody;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.impl.conn.PoolingClientConnectionManager;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
 import org.bonitasoft.engine.api.impl.XmlConverter;
 import org.bonitasoft.engine.api.internal.ServerAPI;
 import org.bonitasoft.engine.api.internal.ServerWrappedException;
+import org.bonitasoft.engine.api.tcp.MethodCall;
 import org.bonitasoft.engine.bpm.bar.BusinessArchive;
 import org.bonitasoft.engine.exception.StackTraceTransformer;
 import org.bonitasoft.engine.http.BonitaResponseHandler;
 
 /**
+ * Calls the server API through HTTP.
+ * <p>
+ * Parameters and results are converted to XML, unless the {@value #TRANSPORT} parameter is set to {@value #BINARY_TRANSPORT}: the call is then sent as a
+ * serialized {@link MethodCall} streamed in the request body, and the result is read from the response stream. A server not supporting the binary
+ * transport answers in XML, which is still understood.
+ *
  * @author Baptiste Mesta
  * @author Julien Mege
  * @author Elias Ricken de Medeiros
@@ -72,6 +86,10 @@ public class HTTPServerAPI implements ServerAPI {
 
     private static final String BYTE_ARRAY = "==ByteArray==";
 
+    private static final String ACCEPT = "Accept";
+
+    private static final String SERIALIZED_OBJECT_CONTENT_TYPE = "application/x-java-serialized-object";
+
     private static final char SLASH = '/';
 
     private static final String SERVER_API = "/serverAPI/";
@@ -88,6 +106,12 @@ public class HTTPServerAPI implements ServerAPI {
     // package-private for testing purpose
     static final String APPLICATION_NAME = "application.name";
 
+    // package-private for testing purpose
+    static final String TRANSPORT = "transport";
+
+    // package-private for testing purpose
+    static final String BINARY_TRANSPORT = "binary";
+
     private final String serverUrl;
 
     private final String applicationName;
@@ -98,6 +122,8 @@ public class HTTPServerAPI implements ServerAPI {
 
     private final String basicAuthenticationPassword;
 
+    private final boolean binaryTransport;
+
     private static DefaultHttpClient httpclient;
 
     private static final ResponseHandler<String> RESPONSE_HANDLER = new BonitaResponseHandler();
@@ -116,6 +142,7 @@ public class HTTPServerAPI implements ServerAPI {
         basicAuthenticationActive = "true".equalsIgnoreCase(parameters.get(BASIC_AUTHENTICATION_ACTIVE));
         basicAuthenticationUserName = parameters.get(BASIC_AUTHENTICATION_USERNAME);
         basicAuthenticationPassword = parameters.get(BASIC_AUTHENTICATION_PASSWORD);
+        binaryTransport = BINARY_TRANSPORT.equalsIgnoreCase(parameters.get(TRANSPORT));
     }
 
     @Override
@@ -123,6 +150,9 @@ public class HTTPServerAPI implements ServerAPI {
             final List<String> classNameParameters, final Object[] parametersValues) throws ServerWrappedException {
         String response = null;
         try {
+            if (binaryTransport) {
+                return checkInvokeMethodReturn(executeBinaryHttpPost(options, apiInterfaceName, methodName, classNameParameters, parametersValues));
+            }
             response = executeHttpPost(options, apiInterfaceName, methodName, classNameParameters, parametersValues);
             return checkInvokeMethodReturn(response);
         } catch (final UndeclaredThrowableException e) {
@@ -139,23 +169,42 @@ public class HTTPServerAPI implements ServerAPI {
 
     // package-private for testing purpose
     Object checkInvokeMethodReturn(final String response) throws Throwable {
-        Object invokeMethodReturn = null;
-        if (response != null && !response.isEmpty() && !"null".equals(response)) {
-            invokeMethodReturn = xmlConverter.fromXML(response);
-            if (invokeMethodReturn instanceof Throwable) {
-                throw (Throwable) invokeMethodReturn;
-            }
+        return checkInvokeMethodReturn(fromXMLResponse(response));
+    }
+
+    private Object checkInvokeMethodReturn(final Object invokeMethodReturn) throws Throwable {
+        if (invokeMethodReturn instanceof Throwable) {
+            throw (Throwable) invokeMethodReturn;
         }
         return invokeMethodReturn;
     }
 
+    private Object fromXMLResponse(final String response) {
+        if (response != null && !response.isEmpty() && !"null".equals(response)) {
+            return xmlConverter.fromXML(response);
+        }
+        return null;
+    }
+
     // package-private for testing purpose
     String executeHttpPost(final Map<String, Serializable> options, final String apiInterfaceName, final String methodName,
             final List<String> classNameParameters, final Object[] parametersValues) throws IOException {
-        final HttpPost httpost = createHttpPost(options, apiInterfaceName, methodName, classNameParameters,
-                parametersValues);
+        final HttpPost httpost = createHttpPost(buildEntity(options, classNameParameters, parametersValues), apiInterfaceName, methodName);
+        return execute(httpost, RESPONSE_HANDLER);
+    }
+
+    // package-private for testing purpose
+    Object executeBinaryHttpPost(final Map<String, Serializable> options, final String apiInterfaceName, final String methodName,
+            final List<String> classNameParameters, final Object[] parametersValues) throws IOException {
+        final HttpPost httpost = createHttpPost(buildSerializedEntity(options, apiInterfaceName, methodName, classNameParameters, parametersValues),
+                apiInterfaceName, methodName);
+        httpost.setHeader(ACCEPT, SERIALIZED_OBJECT_CONTENT_TYPE);
+        return execute(httpost, this::readResponse);
+    }
+
+    private <T> T execute(final HttpPost httpost, final ResponseHandler<T> responseHandler) throws IOException {
         try {
-            return httpclient.execute(httpost, RESPONSE_HANDLER);
+            return httpclient.execute(httpost, responseHandler);
         } catch (final ClientProtocolException e) {
             if (LOGGER.isLoggable(Level.SEVERE)) {
                 LOGGER.log(Level.SEVERE, e.getMessage() + System.getProperty("line.separator") + "httpost = <" + httpost + ">");
@@ -164,9 +213,32 @@ public class HTTPServerAPI implements ServerAPI {
         }
     }
 
-    private final HttpPost createHttpPost(final Map<String, Serializable> options, final String apiInterfaceName, final String methodName,
-            final List<String> classNameParameters, final Object[] parametersValues) throws IOException {
-        final HttpEntity httpEntity = buildEntity(options, classNameParameters, parametersValues);
+    /**
+     * Reads the result of a call made with the binary transport: the result is deserialized from the response stream, or converted from XML if the server
+     * does not support the binary transport.
+     */
+    // package-private for testing purpose
+    Object readResponse(final HttpResponse response) throws IOException {
+        final StatusLine statusLine = response.getStatusLine();
+        if (statusLine.getStatusCode() >= 300) {
+            throw new HttpResponseException(statusLine.getStatusCode(), statusLine.getReasonPhrase());
+        }
+        final HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            return null;
+        }
+        final Header contentType = entity.getContentType();
+        if (contentType == null || !contentType.getValue().startsWith(SERIALIZED_OBJECT_CONTENT_TYPE)) {
+            return fromXMLResponse(EntityUtils.toString(entity));
+        }
+        try (InputStream content = entity.getContent(); ObjectInputStream in = new ObjectInputStream(content)) {
+            return in.readObject();
+        } catch (final ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private final HttpPost createHttpPost(final HttpEntity httpEntity, final String apiInterfaceName, final String methodName) throws IOException {
         final StringBuilder sBuilder = new StringBuilder(serverUrl);
         sBuilder.append(SLASH).append(applicationName).append(SERVER_API).append(apiInterfaceName).append(SLASH).append(methodName);
         final HttpPost httpost = new HttpPost(sBuilder.toString());
@@ -220,6 +292,16 @@ public class HTTPServerAPI implements ServerAPI {
         return httpEntity;
     }
 
+    // package-private for testing purpose
+    final HttpEntity buildSerializedEntity(final Map<String, Serializable> options, final String apiInterfaceName, final String methodName,
+            final List<String> classNameParameters, final Object[] parametersValues) {
+        // not buffered: the call is serialized directly in the request stream
+        final SerializableEntity entity = new SerializableEntity(new MethodCall(options, apiInterfaceName, methodName, classNameParameters,
+                parametersValues));
+        entity.setContentType(SERIALIZED_OBJECT_CONTENT_TYPE);
+        return entity;
+    }
+
     public byte[] serialize(final Object obj) throws IOException {
         final ByteArrayOutputStream b = new ByteArrayOutputStream();
         final ObjectOutputStream o = new ObjectOutputStream(b);
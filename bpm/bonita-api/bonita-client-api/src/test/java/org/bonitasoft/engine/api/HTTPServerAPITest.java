@@ -16,10 +16,13 @@ package org.bonitasoft.engine.api;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
 import java.io.PrintStream;
 import java.io.Serializable;
 import java.lang.reflect.UndeclaredThrowableException;
@@ -34,8 +37,15 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.StringEntity;
 import org.apache.http.entity.mime.MultipartEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.bonitasoft.engine.api.impl.XmlConverter;
 import org.bonitasoft.engine.api.internal.ServerWrappedException;
+import org.bonitasoft.engine.api.tcp.MethodCall;
 import org.bonitasoft.engine.exception.BonitaException;
 import org.bonitasoft.engine.io.IOUtil;
 import org.junit.Before;
@@ -122,4 +132,39 @@ public class HTTPServerAPITest {
         assertTrue(contentAsString.contains("Välue1"));
     }
 
+    @Test
+    public void serializeMethodCallForBinaryTransport() throws Exception {
+        HttpEntity entity = httpServerAPI.buildSerializedEntity(singletonMap("option", "value"), "apiInterfaceName", "methodName",
+                asList(String.class.getName(), byte[].class.getName()),
+                new Object[] { "Välue1", new byte[] { 1, 2 } });
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        entity.writeTo(outputStream);
+        MethodCall methodCall = (MethodCall) new ObjectInputStream(new ByteArrayInputStream(outputStream.toByteArray())).readObject();
+
+        assertThat(entity.getContentType().getValue()).isEqualTo("application/x-java-serialized-object");
+        assertThat(methodCall.getOptions()).containsEntry("option", "value");
+        assertThat(methodCall.getClassNameParameters()).containsExactly(String.class.getName(), byte[].class.getName());
+        assertThat(methodCall.getParametersValues()).containsExactly("Välue1", new byte[] { 1, 2 });
+    }
+
+    @Test
+    public void readResponseShouldDeserializeSerializedObject() throws Exception {
+        ByteArrayEntity entity = new ByteArrayEntity(httpServerAPI.serialize(singletonMap("key", "välue")));
+        entity.setContentType("application/x-java-serialized-object");
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(entity);
+
+        assertThat(httpServerAPI.readResponse(response)).isEqualTo(singletonMap("key", "välue"));
+    }
+
+    @Test
+    public void readResponseShouldConvertXMLFromServerNotSupportingBinaryTransport() throws Exception {
+        StringEntity entity = new StringEntity(new XmlConverter().toXML(singletonMap("key", "value")), "UTF-8");
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(entity);
+
+        assertThat(httpServerAPI.readResponse(response)).isEqualTo(singletonMap("key", "value"));
+    }
+
 }
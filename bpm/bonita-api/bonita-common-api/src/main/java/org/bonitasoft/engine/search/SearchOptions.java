@@ -71,4 +71,27 @@ public interface SearchOptions extends Serializable {
      */
     List<Sort> getSorts();
 
+    /**
+     * Whether the results are paginated using a cursor (keyset pagination) instead of the start index.
+     * With keyset pagination, the cost of retrieving a page does not depend on its position in the results: each page starts right after the last result
+     * of the previous page, identified by {@link SearchResult#getNextPageCursor()}.
+     *
+     * @return true if the search uses keyset pagination
+     * @see SearchOptionsBuilder#searchAfter(String)
+     * @since 7.8
+     */
+    default boolean isKeysetPagination() {
+        return false;
+    }
+
+    /**
+     * Gets the cursor after which results are returned when using keyset pagination.
+     *
+     * @return the cursor returned by the previous page, or null to get the first page
+     * @since 7.8
+     */
+    default String getSearchAfter() {
+        return null;
+    }
+
 }
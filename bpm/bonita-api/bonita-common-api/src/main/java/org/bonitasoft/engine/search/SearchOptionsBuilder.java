@@ -58,6 +58,8 @@ public class SearchOptionsBuilder {
         options.setFilters(searchOptions.getFilters());
         options.setSorts(searchOptions.getSorts());
         options.setSearchTerm(searchOptions.getSearchTerm());
+        options.setKeysetPagination(searchOptions.isKeysetPagination());
+        options.setSearchAfter(searchOptions.getSearchAfter());
     }
 
     /**
@@ -202,6 +204,39 @@ public class SearchOptionsBuilder {
         return this;
     }
 
+    /**
+     * Paginates the results using a cursor instead of the start index, starting with the first page.
+     * Each {@link SearchResult} then gives the cursor of the next page using {@link SearchResult#getNextPageCursor()}, to use with
+     * {@link #searchAfter(String)}. Unlike the start index, the cost of retrieving a page does not grow with its position in the results, which makes it
+     * suitable to go through a large number of results.
+     * <p>
+     * Results are ordered by the sorts of this builder, then by id. The values of the sorted fields must not be null.
+     *
+     * @return this builder itself
+     * @since 7.8
+     */
+    public SearchOptionsBuilder keysetPagination() {
+        options.setKeysetPagination(true);
+        return this;
+    }
+
+    /**
+     * Retrieves the page of results following the given cursor, using keyset pagination (see {@link #keysetPagination()}). The start index is ignored.
+     * The other options (filters, search term and sorts) must be the same as the ones used to retrieve the previous page.
+     * <p>
+     * The total number of results is only computed for the first page: {@link SearchResult#getCount()} returns -1 for the following ones.
+     *
+     * @param cursor
+     *        the cursor given by {@link SearchResult#getNextPageCursor()} of the previous page, or null to get the first page
+     * @return this builder itself
+     * @since 7.8
+     */
+    public SearchOptionsBuilder searchAfter(final String cursor) {
+        options.setKeysetPagination(true);
+        options.setSearchAfter(cursor);
+        return this;
+    }
+
     /**
      * @param filters the filters to set
      * @return this builder itself
@@ -48,4 +48,15 @@ public interface SearchResult<T extends Serializable> extends Serializable {
      */
     List<T> getResult();
 
+    /**
+     * Get the cursor to give to {@link SearchOptionsBuilder#searchAfter(String)} to retrieve the next page of results, when the search uses keyset
+     * pagination.
+     *
+     * @return the cursor of the next page, or null if this is the last page or if the search does not use keyset pagination
+     * @since 7.8
+     */
+    default String getNextPageCursor() {
+        return null;
+    }
+
 }
@@ -42,6 +42,10 @@ public class SearchOptionsImpl implements SearchOptions {
 
     private List<Sort> sorts;
 
+    private boolean keysetPagination;
+
+    private String searchAfter;
+
     public SearchOptionsImpl(final int startIndex, final int numberOfResults) {
         filters = new ArrayList<SearchFilter>(5);
         sorts = new ArrayList<Sort>(2);
@@ -78,6 +82,24 @@ public class SearchOptionsImpl implements SearchOptions {
         return sorts;
     }
 
+    @Override
+    public boolean isKeysetPagination() {
+        return keysetPagination;
+    }
+
+    public void setKeysetPagination(final boolean keysetPagination) {
+        this.keysetPagination = keysetPagination;
+    }
+
+    @Override
+    public String getSearchAfter() {
+        return searchAfter;
+    }
+
+    public void setSearchAfter(final String searchAfter) {
+        this.searchAfter = searchAfter;
+    }
+
     public void setSearchTerm(final String value) {
         searchTerm = value;
     }
@@ -159,6 +181,8 @@ public class SearchOptionsImpl implements SearchOptions {
         result = prime * result + (searchTerm == null ? 0 : searchTerm.hashCode());
         result = prime * result + (sorts == null ? 0 : sorts.hashCode());
         result = prime * result + startIndex;
+        result = prime * result + (keysetPagination ? 1231 : 1237);
+        result = prime * result + (searchAfter == null ? 0 : searchAfter.hashCode());
         return result;
     }
 
@@ -201,6 +225,16 @@ public class SearchOptionsImpl implements SearchOptions {
         if (startIndex != other.startIndex) {
             return false;
         }
+        if (keysetPagination != other.keysetPagination) {
+            return false;
+        }
+        if (searchAfter == null) {
+            if (other.searchAfter != null) {
+                return false;
+            }
+        } else if (!searchAfter.equals(other.searchAfter)) {
+            return false;
+        }
         return true;
     }
 
@@ -29,10 +29,17 @@ public class SearchResultImpl<T extends Serializable> implements SearchResult<T>
 
     private final List<T> list;
 
+    private final String nextPageCursor;
+
     public SearchResultImpl(final long count, final List<T> list) {
+        this(count, list, null);
+    }
+
+    public SearchResultImpl(final long count, final List<T> list, final String nextPageCursor) {
         super();
         this.count = count;
         this.list = list;
+        this.nextPageCursor = nextPageCursor;
     }
 
     @Override
@@ -45,12 +52,18 @@ public class SearchResultImpl<T extends Serializable> implements SearchResult<T>
         return list;
     }
 
+    @Override
+    public String getNextPageCursor() {
+        return nextPageCursor;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
         int result = 1;
         result = prime * result + (int) (count ^ count >>> 32);
         result = prime * result + (list == null ? 0 : list.hashCode());
+        result = prime * result + (nextPageCursor == null ? 0 : nextPageCursor.hashCode());
         return result;
     }
 
@@ -76,6 +89,13 @@ public class SearchResultImpl<T extends Serializable> implements SearchResult<T>
         } else if (!list.equals(other.list)) {
             return false;
         }
+        if (nextPageCursor == null) {
+            if (other.nextPageCursor != null) {
+                return false;
+            }
+        } else if (!nextPageCursor.equals(other.nextPageCursor)) {
+            return false;
+        }
         return true;
     }
 
@@ -35,6 +35,19 @@ public class SearchOptionsImplTest {
         assertThat(options1.hashCode()).isEqualTo(options2.hashCode());
     }
 
+    @Test
+    public void equals_should_check_the_keyset_pagination_cursor() {
+        final SearchOptionsImpl options1 = buildSearchOptions();
+        options1.setKeysetPagination(true);
+        final SearchOptionsImpl options2 = buildSearchOptions();
+        options2.setKeysetPagination(true);
+        options2.setSearchAfter("TDE6Mg");
+
+        assertThat(options1).isNotEqualTo(options2);
+        options1.setSearchAfter("TDE6Mg");
+        assertThat(options1).isEqualTo(options2);
+    }
+
     private SearchOptionsImpl buildSearchOptions() {
         final SearchOptionsImpl options = new SearchOptionsImpl(0, 2000);
         options.addFilter("field1", "value");
@@ -13,6 +13,7 @@
  **/
 package org.bonitasoft.engine.api.internal.servlet;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
@@ -32,6 +33,7 @@ import org.apache.commons.fileupload.FileUploadException;
 import org.bonitasoft.engine.api.impl.ServerAPIFactory;
 import org.bonitasoft.engine.api.internal.ServerAPI;
 import org.bonitasoft.engine.api.internal.ServerWrappedException;
+import org.bonitasoft.engine.api.tcp.MethodCall;
 import org.bonitasoft.engine.exception.BonitaRuntimeException;
 import org.bonitasoft.engine.exception.StackTraceTransformer;
 
@@ -39,6 +41,11 @@ import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.security.AnyTypePermission;
 
 /**
+ * Calls the server API for a client using the HTTP transport.
+ * <p>
+ * Parameters and results are converted to XML by default. Clients using the binary transport send a serialized {@link MethodCall} (content type
+ * {@value #SERIALIZED_OBJECT_CONTENT_TYPE}) and accept this content type in response: the result is then serialized directly in the response stream.
+ *
  * @author Julien Mege
  * @author Matthieu Chaffotte
  */
@@ -58,6 +65,10 @@ public class HttpAPIServletCall extends ServletCall {
 
     private static final String OPTIONS = "options";
 
+    private static final String ACCEPT = "Accept";
+
+    static final String SERIALIZED_OBJECT_CONTENT_TYPE = "application/x-java-serialized-object";
+
     private static final XStream XSTREAM = new XStream();
 
     static {
@@ -77,6 +88,7 @@ public class HttpAPIServletCall extends ServletCall {
 
     @Override
     public void doPost() {
+        final boolean serializedResponse = acceptsSerializedObject();
         try {
             String apiInterfaceName = null;
             String methodName = null;
@@ -85,42 +97,28 @@ public class HttpAPIServletCall extends ServletCall {
                 apiInterfaceName = pathParams[pathParams.length - 2];
                 methodName = pathParams[pathParams.length - 1];
             }
-            final String options = this.getParameter(OPTIONS);
-            final String parametersValues = this.getParameter(PARAMETERS_VALUES);
-            final String parametersClasses = this.getParameter(CLASS_NAME_PARAMETERS);
-
-            Map<String, Serializable> myOptions = new HashMap<String, Serializable>();
-            if (options != null && !options.isEmpty()) {
-                myOptions = fromXML(options, XSTREAM);
-            }
-            List<String> myClassNameParameters = new ArrayList<String>();
-            if (parametersClasses != null && !parametersClasses.isEmpty() && !parametersClasses.equals(ARRAY)) {
-                myClassNameParameters = fromXML(parametersClasses, XSTREAM);
-            }
-            Object[] myParametersValues = new Object[0];
-            if (parametersValues != null && !parametersValues.isEmpty() && !parametersValues.equals(NULL)) {
-                myParametersValues = fromXML(parametersValues, XSTREAM);
-                if (myParametersValues != null && !(myParametersValues.length == 0)) {
-                    final Iterator<byte[]> binaryParameters = getBinaryParameters().iterator();
-                    for (int i = 0; i < myParametersValues.length; i++) {
-                        final Object parameter = myParametersValues[i];
-                        if (BYTE_ARRAY.equals(parameter)) {
-                            myParametersValues[i] = deserialize(binaryParameters.next());
-                        }
-                    }
-                }
+            final MethodCall methodCall;
+            if (isSerializedObject(getContentType())) {
+                methodCall = readSerializedMethodCall(apiInterfaceName, methodName);
+            } else {
+                methodCall = readXMLMethodCall(apiInterfaceName, methodName);
             }
 
-            final ServerAPI serverAPI = ServerAPIFactory.getServerAPI();
+            final ServerAPI serverAPI = getServerAPI();
 
             final Object invokeMethod;
             try {
-                invokeMethod = serverAPI.invokeMethod(myOptions, apiInterfaceName, methodName, myClassNameParameters, myParametersValues);
+                invokeMethod = serverAPI.invokeMethod(methodCall.getOptions(), apiInterfaceName, methodName, methodCall.getClassNameParameters(),
+                        methodCall.getParametersValues());
             } catch (ServerWrappedException e) {
                 // merge stack trace of the server exception
                 throw StackTraceTransformer.mergeStackTraces(e);
             }
 
+            if (serializedResponse) {
+                outputSerializedObject(invokeMethod);
+                return;
+            }
             String invokeMethodSerialized = null;
             if (invokeMethod != null) {
                 invokeMethodSerialized = toXML(invokeMethod, XSTREAM);
@@ -129,7 +127,100 @@ public class HttpAPIServletCall extends ServletCall {
             // add charset avoid encoding problems
             this.output(invokeMethodSerialized);
         } catch (final Exception e) {
-            error(toResponse(e), HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            if (serializedResponse) {
+                outputSerializedError(e);
+            } else {
+                error(toResponse(e), HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+        }
+    }
+
+    protected ServerAPI getServerAPI() {
+        return ServerAPIFactory.getServerAPI();
+    }
+
+    private MethodCall readXMLMethodCall(final String apiInterfaceName, final String methodName) throws IOException, ClassNotFoundException {
+        final String options = this.getParameter(OPTIONS);
+        final String parametersValues = this.getParameter(PARAMETERS_VALUES);
+        final String parametersClasses = this.getParameter(CLASS_NAME_PARAMETERS);
+
+        Map<String, Serializable> myOptions = new HashMap<String, Serializable>();
+        if (options != null && !options.isEmpty()) {
+            myOptions = fromXML(options, XSTREAM);
+        }
+        List<String> myClassNameParameters = new ArrayList<String>();
+        if (parametersClasses != null && !parametersClasses.isEmpty() && !parametersClasses.equals(ARRAY)) {
+            myClassNameParameters = fromXML(parametersClasses, XSTREAM);
+        }
+        Object[] myParametersValues = new Object[0];
+        if (parametersValues != null && !parametersValues.isEmpty() && !parametersValues.equals(NULL)) {
+            myParametersValues = fromXML(parametersValues, XSTREAM);
+            if (myParametersValues != null && !(myParametersValues.length == 0)) {
+                final Iterator<byte[]> binaryParameters = getBinaryParameters().iterator();
+                for (int i = 0; i < myParametersValues.length; i++) {
+                    final Object parameter = myParametersValues[i];
+                    if (BYTE_ARRAY.equals(parameter)) {
+                        myParametersValues[i] = deserialize(binaryParameters.next());
+                    }
+                }
+            }
+        }
+        return new MethodCall(myOptions, apiInterfaceName, methodName, myClassNameParameters, myParametersValues);
+    }
+
+    /**
+     * The body of the request is a serialized {@link MethodCall}, read directly from the request stream. The API and method names are taken from the URL.
+     */
+    private MethodCall readSerializedMethodCall(final String apiInterfaceName, final String methodName) throws IOException, ClassNotFoundException {
+        final MethodCall methodCall;
+        try (ObjectInputStream in = new WhitelistObjectInputStream(getRequestBody())) {
+            methodCall = (MethodCall) in.readObject();
+        }
+        Map<String, Serializable> myOptions = methodCall.getOptions();
+        if (myOptions == null) {
+            myOptions = new HashMap<String, Serializable>();
+        }
+        List<String> myClassNameParameters = methodCall.getClassNameParameters();
+        if (myClassNameParameters == null) {
+            myClassNameParameters = new ArrayList<String>();
+        }
+        Object[] myParametersValues = methodCall.getParametersValues();
+        if (myParametersValues == null) {
+            myParametersValues = new Object[0];
+        }
+        return new MethodCall(myOptions, apiInterfaceName, methodName, myClassNameParameters, myParametersValues);
+    }
+
+    /**
+     * Clients using the binary transport accept serialized objects: the response is then written directly in the response stream instead of being
+     * converted to an XML string.
+     */
+    private boolean acceptsSerializedObject() {
+        final String accept = getHeader(ACCEPT);
+        return accept != null && accept.contains(SERIALIZED_OBJECT_CONTENT_TYPE);
+    }
+
+    static boolean isSerializedObject(final String contentType) {
+        return contentType != null && contentType.startsWith(SERIALIZED_OBJECT_CONTENT_TYPE);
+    }
+
+    private void outputSerializedObject(final Object object) throws IOException {
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(getOutputStream(SERIALIZED_OBJECT_CONTENT_TYPE)))) {
+            out.writeObject(object);
+        }
+    }
+
+    private void outputSerializedError(final Exception exception) {
+        final Throwable result;
+        if (exception instanceof ServerWrappedException) {
+            result = exception.getCause();
+        } else {
+            result = exception;
+        }
+        try {
+            outputSerializedObject(result);
+        } catch (final IOException e) {
+            throw new BonitaRuntimeException("unable to serialize object " + result, e);
         }
     }
 
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -167,6 +168,29 @@ public abstract class ServletCall {
         return request.getRequestURL().toString();
     }
 
+    /**
+     * @see javax.servlet.ServletRequest#getContentType()
+     */
+    public final String getContentType() {
+        return request.getContentType();
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getHeader(String)
+     */
+    public final String getHeader(final String name) {
+        return request.getHeader(name);
+    }
+
+    /**
+     * Get the body of the request as a stream, to read it without loading it in memory
+     *
+     * @see javax.servlet.ServletRequest#getInputStream()
+     */
+    public final InputStream getRequestBody() throws IOException {
+        return request.getInputStream();
+    }
+
     /**
      * Read the input stream and set it in a String
      */
@@ -318,6 +342,18 @@ public abstract class ServletCall {
         }
     }
 
+    /**
+     * Prepare the output to write a binary content
+     *
+     * @param contentType
+     *        The content type of the response
+     * @return the stream in which the response can be written
+     */
+    protected final OutputStream getOutputStream(final String contentType) throws IOException {
+        response.setContentType(contentType);
+        return response.getOutputStream();
+    }
+
     protected void error(final String message, final int errorCode) {
         output(message);
         response.setStatus(errorCode);
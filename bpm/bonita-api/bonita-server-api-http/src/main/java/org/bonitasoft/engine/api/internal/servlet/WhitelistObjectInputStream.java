@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.api.internal.servlet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Deserializes the API calls sent by clients using the binary transport: only classes of the JDK, of Bonita and of the packages listed in the
+ * {@value #ALLOWED_PACKAGES_PROPERTY} system property (comma separated, e.g. the package of the business data model or of custom variable types) can be read.
+ *
+ * @see HttpAPIServletCall
+ */
+public class WhitelistObjectInputStream extends ObjectInputStream {
+
+    public static final String ALLOWED_PACKAGES_PROPERTY = "org.bonitasoft.engine.api.http.serialization.allowedPackages";
+
+    private static final List<String> DEFAULT_ALLOWED_PACKAGES = Arrays.asList("java.", "org.bonitasoft.");
+
+    private final List<String> allowedPackages;
+
+    public WhitelistObjectInputStream(final InputStream in) throws IOException {
+        this(in, getAllowedPackages(System.getProperty(ALLOWED_PACKAGES_PROPERTY)));
+    }
+
+    WhitelistObjectInputStream(final InputStream in, final List<String> allowedPackages) throws IOException {
+        super(in);
+        this.allowedPackages = allowedPackages;
+    }
+
+    static List<String> getAllowedPackages(final String additionalPackages) {
+        final List<String> packages = new ArrayList<>(DEFAULT_ALLOWED_PACKAGES);
+        if (additionalPackages != null) {
+            for (final String additionalPackage : additionalPackages.split(",")) {
+                final String trimmed = additionalPackage.trim();
+                if (!trimmed.isEmpty()) {
+                    packages.add(trimmed.endsWith(".") ? trimmed : trimmed + ".");
+                }
+            }
+        }
+        return packages;
+    }
+
+    @Override
+    protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+        checkAllowed(desc.getName());
+        return super.resolveClass(desc);
+    }
+
+    @Override
+    protected Class<?> resolveProxyClass(final String[] interfaces) throws IOException, ClassNotFoundException {
+        for (final String anInterface : interfaces) {
+            checkAllowed(anInterface);
+        }
+        return super.resolveProxyClass(interfaces);
+    }
+
+    private void checkAllowed(final String className) throws InvalidClassException {
+        String componentName = className;
+        while (componentName.startsWith("[")) {
+            componentName = componentName.substring(1);
+        }
+        if (componentName.length() == 1) {
+            // array of primitives
+            return;
+        }
+        if (componentName.startsWith("L") && componentName.endsWith(";")) {
+            componentName = componentName.substring(1, componentName.length() - 1);
+        }
+        for (final String allowedPackage : allowedPackages) {
+            if (componentName.startsWith(allowedPackage)) {
+                return;
+            }
+        }
+        throw new InvalidClassException(className, "Class not allowed in API calls, add its package to the system property " + ALLOWED_PACKAGES_PROPERTY
+                + " to allow it");
+    }
+
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.api.internal.servlet;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.InvalidClassException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.IOCase;
+import org.bonitasoft.engine.api.HTTPServerAPI;
+import org.bonitasoft.engine.api.internal.ServerWrappedException;
+import org.bonitasoft.engine.bpm.process.ProcessInstance;
+import org.bonitasoft.engine.bpm.process.ProcessInstanceNotFoundException;
+import org.bonitasoft.engine.bpm.process.impl.internal.ProcessInstanceImpl;
+import org.bonitasoft.engine.search.SearchResult;
+import org.bonitasoft.engine.search.impl.SearchResultImpl;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class HttpAPIServletCallIT {
+
+    private static final StubHttpAPIServer SERVER = new StubHttpAPIServer();
+
+    private Map<String, Serializable> receivedOptions;
+    private String receivedMethodName;
+    private List<String> receivedClassNameParameters;
+    private Object[] receivedParametersValues;
+
+    @BeforeClass
+    public static void startServer() throws Exception {
+        SERVER.start();
+    }
+
+    @AfterClass
+    public static void stopServer() throws Exception {
+        SERVER.stop();
+    }
+
+    @Test
+    public void binary_transport_should_send_parameters_and_return_result() throws Exception {
+        final SearchResult<ProcessInstance> result = searchResult(3);
+        SERVER.setServerAPI((options, apiInterfaceName, methodName, classNameParameters, parametersValues) -> {
+            receivedOptions = options;
+            receivedMethodName = methodName;
+            receivedClassNameParameters = classNameParameters;
+            receivedParametersValues = parametersValues;
+            return result;
+        });
+
+        final Object returned = SERVER.createClient("binary").invokeMethod(Collections.singletonMap("option", 12L), "org.bonitasoft.engine.api.ProcessAPI",
+                "searchProcessInstances", asList(String.class.getName(), byte[].class.getName()), new Object[] { "välue", new byte[] { 1, 2 } });
+
+        assertThat(receivedOptions).containsEntry("option", 12L);
+        assertThat(receivedMethodName).isEqualTo("searchProcessInstances");
+        assertThat(receivedClassNameParameters).containsExactly(String.class.getName(), byte[].class.getName());
+        assertThat(receivedParametersValues).containsExactly("välue", new byte[] { 1, 2 });
+        assertSameSearchResult(returned, result);
+    }
+
+    @Test
+    public void xml_and_binary_transports_should_return_same_result() throws Exception {
+        final SearchResult<ProcessInstance> result = searchResult(10);
+        SERVER.setServerAPI((options, apiInterfaceName, methodName, classNameParameters, parametersValues) -> result);
+
+        assertSameSearchResult(invokeSearch(SERVER.createClient("xml")), result);
+        assertSameSearchResult(invokeSearch(SERVER.createClient("binary")), result);
+    }
+
+    @Test
+    public void binary_transport_should_throw_exception_of_the_server() throws Exception {
+        SERVER.setServerAPI((options, apiInterfaceName, methodName, classNameParameters, parametersValues) -> {
+            throw new ServerWrappedException(new ProcessInstanceNotFoundException(42L));
+        });
+
+        try {
+            invokeSearch(SERVER.createClient("binary"));
+            fail("should have thrown the exception of the server");
+        } catch (final ServerWrappedException e) {
+            assertThat(e.getCause()).isInstanceOf(ProcessInstanceNotFoundException.class);
+        }
+    }
+
+    @Test
+    public void binary_transport_should_not_accept_parameters_of_classes_not_allowed() throws Exception {
+        SERVER.setServerAPI((options, apiInterfaceName, methodName, classNameParameters, parametersValues) -> {
+            throw new IllegalStateException("should not be called");
+        });
+
+        try {
+            SERVER.createClient("binary").invokeMethod(Collections.<String, Serializable> emptyMap(), "org.bonitasoft.engine.api.ProcessAPI",
+                    "searchProcessInstances", Collections.singletonList(IOCase.class.getName()), new Object[] { IOCase.SENSITIVE });
+            fail("should not have accepted the parameter");
+        } catch (final ServerWrappedException e) {
+            assertThat(e.getCause()).isInstanceOf(InvalidClassException.class);
+        }
+    }
+
+    private Object invokeSearch(final HTTPServerAPI client) throws Exception {
+        return client.invokeMethod(Collections.<String, Serializable> emptyMap(), "org.bonitasoft.engine.api.ProcessAPI", "searchProcessInstances",
+                Collections.<String> emptyList(), new Object[0]);
+    }
+
+    static SearchResult<ProcessInstance> searchResult(final int size) {
+        final List<ProcessInstance> processInstances = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final ProcessInstanceImpl processInstance = new ProcessInstanceImpl("process " + i);
+            processInstance.setId(i);
+            processInstance.setState("started");
+            processInstance.setProcessDefinitionId(5874L);
+            processInstance.setStartDate(new Date(1537000000000L + i));
+            processInstance.setStringIndex1("index " + i);
+            processInstances.add(processInstance);
+        }
+        return new SearchResultImpl<>(size, processInstances);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assertSameSearchResult(final Object returned, final SearchResult<ProcessInstance> expected) {
+        final SearchResult<ProcessInstance> searchResult = (SearchResult<ProcessInstance>) returned;
+        assertThat(searchResult.getCount()).isEqualTo(expected.getCount());
+        assertThat(searchResult.getResult()).extracting("id", "name", "state", "startDate", "stringIndex1")
+                .containsExactlyElementsOf(expected.getResult().stream()
+                        .map(p -> tuple(p.getId(), p.getName(), p.getState(), p.getStartDate(), p.getStringIndex1()))
+                        .collect(Collectors.toList()));
+    }
+
+}
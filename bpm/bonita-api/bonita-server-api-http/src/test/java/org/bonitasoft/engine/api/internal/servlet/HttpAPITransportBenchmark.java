@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.api.internal.servlet;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.bonitasoft.engine.api.HTTPServerAPI;
+import org.bonitasoft.engine.bpm.process.ProcessInstance;
+import org.bonitasoft.engine.search.SearchOptions;
+import org.bonitasoft.engine.search.SearchOptionsBuilder;
+import org.bonitasoft.engine.search.SearchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the latency of a {@code searchProcessInstances} call returning {@code resultSize} process instances, from the client {@link HTTPServerAPI} to
+ * {@link HttpAPIServletCall} and back, between the XML and the binary transports.
+ * <p>
+ * Not executed by the build, run the main method (from the IDE or using the test classpath) to launch it. The server API is stubbed, so only the transport
+ * is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HttpAPITransportBenchmark {
+
+    @Param({ "xml", "binary" })
+    public String transport;
+
+    @Param({ "1000" })
+    public int resultSize;
+
+    private final StubHttpAPIServer server = new StubHttpAPIServer();
+
+    private HTTPServerAPI client;
+
+    private Object[] parametersValues;
+
+    @Setup
+    public void setup() throws Exception {
+        final SearchResult<ProcessInstance> result = HttpAPIServletCallIT.searchResult(resultSize);
+        server.setServerAPI((options, apiInterfaceName, methodName, classNameParameters, parametersValues) -> result);
+        server.start();
+        client = server.createClient(transport);
+        final SearchOptions searchOptions = new SearchOptionsBuilder(0, resultSize).done();
+        parametersValues = new Object[] { searchOptions };
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Benchmark
+    public Object searchProcessInstances() throws Exception {
+        return client.invokeMethod(Collections.<String, Serializable> emptyMap(), "org.bonitasoft.engine.api.ProcessAPI", "searchProcessInstances",
+                Collections.singletonList(SearchOptions.class.getName()), parametersValues.clone());
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HttpAPITransportBenchmark.class.getSimpleName()).build()).run();
+    }
+}
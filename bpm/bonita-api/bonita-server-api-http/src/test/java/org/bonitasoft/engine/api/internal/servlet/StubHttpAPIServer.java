@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.api.internal.servlet;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.fileupload.FileUploadException;
+import org.bonitasoft.engine.api.HTTPServerAPI;
+import org.bonitasoft.engine.api.internal.ServerAPI;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+
+/**
+ * Jetty server answering API calls with {@link HttpAPIServletCall}, the calls being executed by a given {@link ServerAPI} instead of the engine.
+ */
+public class StubHttpAPIServer {
+
+    private static final String APPLICATION_NAME = "bonita";
+
+    private final Server server = new Server(0);
+
+    private volatile ServerAPI serverAPI;
+
+    public void start() throws Exception {
+        final ServletContextHandler context = new ServletContextHandler();
+        context.setContextPath("/" + APPLICATION_NAME);
+        context.addServlet(new ServletHolder(new StubHttpAPIServlet()), "/serverAPI/*");
+        server.setHandler(context);
+        server.start();
+    }
+
+    public void stop() throws Exception {
+        server.stop();
+    }
+
+    public void setServerAPI(final ServerAPI serverAPI) {
+        this.serverAPI = serverAPI;
+    }
+
+    public HTTPServerAPI createClient(final String transport) {
+        final Map<String, String> parameters = new HashMap<>();
+        parameters.put("server.url", "http://localhost:" + server.getConnectors()[0].getLocalPort());
+        parameters.put("application.name", APPLICATION_NAME);
+        parameters.put("transport", transport);
+        return new HTTPServerAPI(parameters);
+    }
+
+    private final class StubHttpAPIServlet extends HttpServlet {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void doPost(final HttpServletRequest req, final HttpServletResponse resp) throws ServletException, IOException {
+            try {
+                new HttpAPIServletCall(req, resp) {
+
+                    @Override
+                    protected ServerAPI getServerAPI() {
+                        return serverAPI;
+                    }
+                }.doPost();
+            } catch (final FileUploadException e) {
+                throw new ServletException(e);
+            }
+        }
+    }
+
+}
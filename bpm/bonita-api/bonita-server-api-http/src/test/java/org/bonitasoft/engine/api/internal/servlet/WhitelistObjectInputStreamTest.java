@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.api.internal.servlet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOCase;
+import org.bonitasoft.engine.api.tcp.MethodCall;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class WhitelistObjectInputStreamTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void should_read_classes_of_the_jdk_and_of_bonita() throws Exception {
+        final Map<String, Serializable> options = new HashMap<>();
+        options.put("option", new int[] { 1, 2 });
+        final MethodCall methodCall = new MethodCall(options, "api", "method", Collections.singletonList(String.class.getName()),
+                new Object[] { new String[] { "value" } });
+
+        final MethodCall read = (MethodCall) read(methodCall, WhitelistObjectInputStream.getAllowedPackages(null));
+
+        assertThat(read.getOptions().get("option")).isEqualTo(new int[] { 1, 2 });
+        assertThat(read.getParametersValues()).containsExactly((Object) new String[] { "value" });
+    }
+
+    @Test
+    public void should_not_read_classes_of_other_packages() throws Exception {
+        expectedException.expect(InvalidClassException.class);
+        expectedException.expectMessage(IOCase.class.getName());
+
+        read(new Object[] { IOCase.SENSITIVE }, WhitelistObjectInputStream.getAllowedPackages(null));
+    }
+
+    @Test
+    public void should_not_read_arrays_of_classes_of_other_packages() throws Exception {
+        expectedException.expect(InvalidClassException.class);
+
+        read(new IOCase[0], WhitelistObjectInputStream.getAllowedPackages(null));
+    }
+
+    @Test
+    public void should_read_classes_of_additional_packages() throws Exception {
+        final Object read = read(new Object[] { IOCase.SENSITIVE }, WhitelistObjectInputStream.getAllowedPackages(" com.company.model, org.apache.commons.io"));
+
+        assertThat((Object[]) read).containsExactly(IOCase.SENSITIVE);
+    }
+
+    private Object read(final Object object, final List<String> allowedPackages) throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        try (WhitelistObjectInputStream in = new WhitelistObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()), allowedPackages)) {
+            return in.readObject();
+        }
+    }
+
+}
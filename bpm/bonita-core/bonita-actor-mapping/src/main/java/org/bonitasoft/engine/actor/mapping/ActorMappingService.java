@@ -241,6 +241,17 @@ public interface ActorMappingService {
      */
     List<SActorMember> getActorMembersOfUser(long userId, int fromIndex, int numberOfActorMembers) throws SBonitaReadException;
 
+    /**
+     * Get the ids of all actors the given user is mapped to, either directly or through one of its memberships
+     *
+     * @param userId
+     *        Id of user
+     * @return the ids of the actors of the user
+     * @throws SBonitaReadException
+     * @since 7.8
+     */
+    Set<Long> getActorIdsOfUser(long userId) throws SBonitaReadException;
+
     /**
      * Get a list of SActorMember objects for given groupId
      *
@@ -407,6 +407,11 @@ public class ActorMappingServiceImpl implements ActorMappingService {
         return persistenceService.selectList(descriptor);
     }
 
+    @Override
+    public Set<Long> getActorIdsOfUser(final long userId) throws SBonitaReadException {
+        return new HashSet<Long>(persistenceService.selectList(SelectDescriptorBuilder.getActorIdsOfUser(userId)));
+    }
+
     @Override
     public List<SActorMember> getActorMembersOfGroup(final long groupId, final int fromIndex, final int numberOfActorMembers) throws SBonitaReadException {
         final SelectListDescriptor<SActorMember> descriptor = SelectDescriptorBuilder.getActorMembersOfGroup(groupId, fromIndex, numberOfActorMembers);
@@ -128,6 +128,12 @@ public class SelectDescriptorBuilder {
         return new SelectListDescriptor<SActor>("getActorsOfUser", parameters, SActor.class, queryOptions);
     }
 
+    public static SelectListDescriptor<Long> getActorIdsOfUser(final long userId) {
+        final Map<String, Object> parameters = Collections.singletonMap("userId", (Object) userId);
+        return new SelectListDescriptor<Long>("getActorIdsOfUser", parameters, SActor.class, new QueryOptions(0,
+                QueryOptions.UNLIMITED_NUMBER_OF_RESULTS));
+    }
+
     public static SelectOneDescriptor<Long> getNumberOfActorMembers(final long actorId) {
         final Map<String, Object> parameters = Collections.singletonMap("actorId", (Object) actorId);
         return new SelectOneDescriptor<Long>("getNumberOfActorMembersOfActor", parameters, SActorMember.class);
@@ -248,6 +248,13 @@ public class ActorMappingServiceImplTest {
         Assert.assertEquals(actors, actorMappingServiceImpl.getActorMembersOfGroup(41L, 0, 1));
     }
 
+    @Test
+    public final void getActorIdsOfUser() throws SBonitaReadException {
+        when(persistenceService.selectList(SelectDescriptorBuilder.getActorIdsOfUser(41L))).thenReturn(Arrays.asList(3L, 5L));
+
+        Assertions.assertThat(actorMappingServiceImpl.getActorIdsOfUser(41L)).containsOnly(3L, 5L);
+    }
+
     /**
      * Test method for {@link org.bonitasoft.engine.actor.mapping.impl.ActorMappingServiceImpl#getActorMembersOfRole(long, int, int)}.
      *
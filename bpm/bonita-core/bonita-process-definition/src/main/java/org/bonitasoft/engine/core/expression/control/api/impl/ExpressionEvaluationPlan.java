@@ -0,0 +1,219 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.core.expression.control.api.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bonitasoft.engine.expression.ExpressionExecutorStrategy;
+import org.bonitasoft.engine.expression.model.ExpressionKind;
+import org.bonitasoft.engine.expression.model.SExpression;
+
+/**
+ * Immutable evaluation order of a list of expressions and of all their dependencies.
+ * <p>
+ * Expressions of the tree are deduplicated using their discriminant and sorted so that the dependencies of an
+ * expression come before it. Expressions of the kinds listed in
+ * {@link ExpressionExecutorStrategy#NO_DEPENDENCY_EXPRESSION_EVALUATION_ORDER} are grouped in batches evaluated first,
+ * in that order, the other ones are evaluated one by one in dependency order.
+ */
+final class ExpressionEvaluationPlan {
+
+    private static final ExpressionKind VARIABLE_KIND = ExpressionExecutorStrategy.KIND_VARIABLE;
+
+    private final SExpression[] expressions;
+    private final int[] discriminants;
+    private final int[] rootIndexes;
+    private final List<Batch> batches;
+    private final int[] remainingIndexes;
+
+    private ExpressionEvaluationPlan(final SExpression[] expressions, final int[] discriminants, final int[] rootIndexes, final List<Batch> batches,
+            final int[] remainingIndexes) {
+        this.expressions = expressions;
+        this.discriminants = discriminants;
+        this.rootIndexes = rootIndexes;
+        this.batches = batches;
+        this.remainingIndexes = remainingIndexes;
+    }
+
+    /**
+     * @param roots the expressions to evaluate, may contain null elements
+     */
+    static ExpressionEvaluationPlan compile(final List<SExpression> roots) {
+        final List<SExpression> sorted = new ArrayList<>();
+        final List<Integer> sortedDiscriminants = new ArrayList<>();
+        final Map<Integer, Integer> indexByDiscriminant = new HashMap<>();
+        final int[] rootIndexes = new int[roots.size()];
+        for (int i = 0; i < roots.size(); i++) {
+            final SExpression root = roots.get(i);
+            rootIndexes[i] = root == null ? -1 : addWithDependencies(root, sorted, sortedDiscriminants, indexByDiscriminant);
+        }
+        final SExpression[] expressions = sorted.toArray(new SExpression[0]);
+        final int[] discriminants = new int[expressions.length];
+        for (int i = 0; i < discriminants.length; i++) {
+            discriminants[i] = sortedDiscriminants.get(i);
+        }
+
+        final boolean[] inBatch = new boolean[expressions.length];
+        final List<Batch> batches = new ArrayList<>();
+        for (final ExpressionKind kind : ExpressionExecutorStrategy.NO_DEPENDENCY_EXPRESSION_EVALUATION_ORDER) {
+            final List<Integer> indexes = new ArrayList<>();
+            for (int i = 0; i < expressions.length; i++) {
+                if (kind.equals(expressions[i].getExpressionKind())) {
+                    indexes.add(i);
+                    inBatch[i] = true;
+                }
+            }
+            if (!indexes.isEmpty()) {
+                batches.add(new Batch(kind, indexes, expressions));
+            }
+        }
+        final int[] remainingIndexes = new int[expressions.length - countTrue(inBatch)];
+        int remaining = 0;
+        for (int i = 0; i < expressions.length; i++) {
+            if (!inBatch[i]) {
+                remainingIndexes[remaining++] = i;
+            }
+        }
+        return new ExpressionEvaluationPlan(expressions, discriminants, rootIndexes, Collections.unmodifiableList(batches), remainingIndexes);
+    }
+
+    /**
+     * Post-order traversal, an expression already in the plan is not traversed again
+     *
+     * @return the index of the expression in the plan
+     */
+    private static int addWithDependencies(final SExpression expression, final List<SExpression> sorted, final List<Integer> sortedDiscriminants,
+            final Map<Integer, Integer> indexByDiscriminant) {
+        final int discriminant = expression.getDiscriminant();
+        final Integer existingIndex = indexByDiscriminant.get(discriminant);
+        if (existingIndex != null) {
+            return existingIndex;
+        }
+        final List<SExpression> dependencies = expression.getDependencies();
+        if (dependencies != null) {
+            for (final SExpression dependency : dependencies) {
+                addWithDependencies(dependency, sorted, sortedDiscriminants, indexByDiscriminant);
+            }
+        }
+        final int index = sorted.size();
+        sorted.add(expression);
+        sortedDiscriminants.add(discriminant);
+        indexByDiscriminant.put(discriminant, index);
+        return index;
+    }
+
+    private static int countTrue(final boolean[] values) {
+        int count = 0;
+        for (final boolean value : values) {
+            if (value) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of distinct expressions in the tree
+     */
+    int size() {
+        return expressions.length;
+    }
+
+    SExpression getExpression(final int index) {
+        return expressions[index];
+    }
+
+    int getDiscriminant(final int index) {
+        return discriminants[index];
+    }
+
+    /**
+     * @return the index in the plan of the root expression at the given position, -1 if the root expression is null
+     */
+    int getRootIndex(final int rootPosition) {
+        return rootIndexes[rootPosition];
+    }
+
+    int getRootCount() {
+        return rootIndexes.length;
+    }
+
+    /**
+     * @return the batches of expressions without dependencies, in evaluation order
+     */
+    List<Batch> getBatches() {
+        return batches;
+    }
+
+    /**
+     * @return the indexes of the expressions that are not in a batch, in evaluation order
+     */
+    int[] getRemainingIndexes() {
+        return remainingIndexes;
+    }
+
+    /**
+     * @return the expressions of kind variable of the tree
+     */
+    List<SExpression> getVariableExpressions() {
+        for (final Batch batch : batches) {
+            if (VARIABLE_KIND.equals(batch.getKind())) {
+                return batch.getExpressions();
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Expressions of a same kind, evaluated in a single call to the expression service
+     */
+    static final class Batch {
+
+        private final ExpressionKind kind;
+        private final int[] indexes;
+        private final List<SExpression> expressions;
+
+        private Batch(final ExpressionKind kind, final List<Integer> indexes, final SExpression[] allExpressions) {
+            this.kind = kind;
+            this.indexes = new int[indexes.size()];
+            final SExpression[] batchExpressions = new SExpression[indexes.size()];
+            for (int i = 0; i < this.indexes.length; i++) {
+                this.indexes[i] = indexes.get(i);
+                batchExpressions[i] = allExpressions[this.indexes[i]];
+            }
+            this.expressions = Collections.unmodifiableList(Arrays.asList(batchExpressions));
+        }
+
+        ExpressionKind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return the index in the plan of the expression at the given position in the batch
+         */
+        int getIndex(final int position) {
+            return indexes[position];
+        }
+
+        List<SExpression> getExpressions() {
+            return expressions;
+        }
+    }
+
+}
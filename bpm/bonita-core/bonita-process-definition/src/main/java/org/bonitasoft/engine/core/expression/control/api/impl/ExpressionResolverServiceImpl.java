@@ -14,12 +14,12 @@
 package org.bonitasoft.engine.core.expression.control.api.impl;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.bonitasoft.engine.classloader.ClassLoaderService;
 import org.bonitasoft.engine.classloader.SClassLoaderException;
@@ -30,14 +30,11 @@ import org.bonitasoft.engine.core.process.definition.ProcessDefinitionService;
 import org.bonitasoft.engine.core.process.definition.exception.SProcessDefinitionNotFoundException;
 import org.bonitasoft.engine.core.process.definition.model.SProcessDefinition;
 import org.bonitasoft.engine.expression.ContainerState;
-import org.bonitasoft.engine.expression.ExpressionExecutorStrategy;
 import org.bonitasoft.engine.expression.ExpressionService;
-import org.bonitasoft.engine.expression.ExpressionType;
 import org.bonitasoft.engine.expression.exception.SExpressionDependencyMissingException;
 import org.bonitasoft.engine.expression.exception.SExpressionEvaluationException;
 import org.bonitasoft.engine.expression.exception.SExpressionTypeUnknownException;
 import org.bonitasoft.engine.expression.exception.SInvalidExpressionException;
-import org.bonitasoft.engine.expression.model.ExpressionKind;
 import org.bonitasoft.engine.expression.model.SExpression;
 import org.bonitasoft.engine.persistence.SBonitaReadException;
 import org.bonitasoft.engine.tracking.TimeTracker;
@@ -53,6 +50,8 @@ public class ExpressionResolverServiceImpl implements ExpressionResolverService
 
     private static final SExpressionContext EMPTY_CONTEXT = new SExpressionContext();
 
+    static final int MAX_CACHED_PLANS_PER_DEFINITION = 1000;
+
     private final ExpressionService expressionService;
 
     private final ProcessDefinitionService processDefinitionService;
@@ -61,12 +60,15 @@ public class ExpressionResolverServiceImpl implements ExpressionResolverService
 
     private final TimeTracker timeTracker;
 
+    private final Map<Long, DefinitionPlans> evaluationPlans = new ConcurrentHashMap<>();
+
     public ExpressionResolverServiceImpl(final ExpressionService expressionService, final ProcessDefinitionService processDefinitionService,
             final ClassLoaderService classLoaderService, final TimeTracker timeTracker) {
         this.expressionService = expressionService;
         this.processDefinitionService = processDefinitionService;
         this.classLoaderService = classLoaderService;
         this.timeTracker = timeTracker;
+        processDefinitionService.addInvalidationListener(evaluationPlans::remove);
     }
 
     @Override
@@ -84,13 +86,8 @@ public class ExpressionResolverServiceImpl implements ExpressionResolverService
         } finally {
             if (timeTracker.isTrackable(TimeTrackerRecords.EVALUATE_EXPRESSION_INCLUDING_CONTEXT)) {
                 final long endTime = System.currentTimeMillis();
-                final StringBuilder desc = new StringBuilder();
-                desc.append("Expression: ");
-                desc.append(expression);
-                desc.append(" - ");
-                desc.append("evaluationContext: ");
-                desc.append(evaluationContext);
-                timeTracker.track(TimeTrackerRecords.EVALUATE_EXPRESSION_INCLUDING_CONTEXT, desc.toString(), endTime - startTime);
+                timeTracker.track(TimeTrackerRecords.EVALUATE_EXPRESSION_INCLUDING_CONTEXT, () -> "Expression: " + expression + " - " + "evaluationContext: " + evaluationContext,
+                        endTime - startTime);
             }
         }
     }
@@ -108,33 +105,14 @@ public class ExpressionResolverServiceImpl implements ExpressionResolverService
 
             loadProcessClassLoader(newEvaluationContext);
 
-            final Map<SExpression, SExpression> dataReplacement = new HashMap<>();
-            // We incrementally build the Map of already resolved expressions:
-            final Map<Integer, Object> resolvedExpressions = new HashMap<>();
-            // Let's evaluate all expressions with no dependencies first:
-            resolvedExpressions.putAll(evaluateAllExpressionsWithNoDependencies(dependencyValues, dataReplacement, expressions, newEvaluationContext));
-
-            for (final SExpression sExpression : expressions) {
-                if (sExpression != null) {
-                    // Then evaluate recursively all remaining expressions:
-                    resolvedExpressions.putAll(evaluateExpressionWithResolvedDependencies(sExpression, dependencyValues, dataReplacement, resolvedExpressions,
-                            newEvaluationContext.getContainerState()));
-                }
+            final ExpressionEvaluationPlan plan = getEvaluationPlan(expressions, newEvaluationContext);
+            final Object[] results = evaluatePlan(plan, dependencyValues, newEvaluationContext);
+            final List<Object> rootResults = new ArrayList<>(plan.getRootCount());
+            for (int i = 0; i < plan.getRootCount(); i++) {
+                final int index = plan.getRootIndex(i);
+                rootResults.add(index < 0 ? null : results[index]);
             }
-            final List<Object> results = new ArrayList<>(expressions.size());
-            for (final SExpression sExpression : expressions) {
-                if (sExpression != null) {
-                    final int key = sExpression.getDiscriminant();
-                    final Object res = resolvedExpressions.get(key);
-                    if (res == null && !resolvedExpressions.containsKey(key)) {
-                        throw new SExpressionEvaluationException("No result found for the expression " + sExpression, sExpression.getName());
-                    }
-                    results.add(res);
-                } else {
-                    results.add(null);
-                }
-            }
-            return results;
+            return rootResults;
         } catch (final SProcessDefinitionNotFoundException | SBonitaReadException e) {
             throw buildSExpressionEvaluationExceptionWhenNotFindProcess(newEvaluationContext, e);
         } catch (final SClassLoaderException e) {
@@ -144,6 +122,60 @@ public class ExpressionResolverServiceImpl implements ExpressionResolverService
         }
     }
 
+    /**
+     * Plans of the expressions of a process definition are kept by process definition id, and matched by identity of the expressions: expressions
+     * read from the cached definition find their plan without comparing their content. Plans of a definition are dropped when the process definition
+     * service invalidates it. Expressions evaluated outside of a definition, or flagged as not coming from it, are compiled at each evaluation.
+     */
+    ExpressionEvaluationPlan getEvaluationPlan(final List<SExpression> expressions, final SExpressionContext evaluationContext) {
+        final Long processDefinitionId = evaluationContext.getProcessDefinitionId();
+        if (processDefinitionId == null || !evaluationContext.isCacheEvaluationPlan()) {
+            return ExpressionEvaluationPlan.compile(expressions);
+        }
+        return evaluationPlans.computeIfAbsent(processDefinitionId, id -> new DefinitionPlans()).getEvaluationPlan(expressions);
+    }
+
+    private Object[] evaluatePlan(final ExpressionEvaluationPlan plan, final Map<String, Object> dependencyValues,
+            final SExpressionContext evaluationContext) throws SExpressionTypeUnknownException, SExpressionEvaluationException,
+            SExpressionDependencyMissingException, SInvalidExpressionException {
+        if (evaluationContext.isEvaluateInDefinition()) {
+            final SExpression expressionNotProvided = variablesAreAllProvided(plan.getVariableExpressions(), evaluationContext);
+            if (expressionNotProvided != null) {
+                // We forbid the evaluation of expressions of type VARIABLE at process definition level:
+                throw new SExpressionEvaluationException("Evaluation of expressions of type VARIABLE is forbidden at process definition level.",
+                        expressionNotProvided.getName());
+            }
+        }
+        final ContainerState containerState = evaluationContext.getContainerState();
+        final Object[] results = new Object[plan.size()];
+        // the expression service reads the results of the dependencies of an expression from this map, it is shared by the whole evaluation
+        final Map<Integer, Object> resolvedExpressions = new HashMap<>(plan.size() * 4 / 3 + 1);
+        // Let's evaluate all expressions with no dependencies first:
+        for (final ExpressionEvaluationPlan.Batch batch : plan.getBatches()) {
+            final List<Object> batchResults = expressionService.evaluate(batch.getKind(), batch.getExpressions(), dependencyValues, resolvedExpressions,
+                    containerState);
+            for (int i = 0; i < batchResults.size(); i++) {
+                addResult(plan, batch.getIndex(i), batchResults.get(i), results, resolvedExpressions, dependencyValues);
+            }
+        }
+        // Then evaluate the remaining expressions, dependencies first:
+        for (final int index : plan.getRemainingIndexes()) {
+            final Object result = expressionService.evaluate(plan.getExpression(index), dependencyValues, resolvedExpressions, containerState);
+            addResult(plan, index, result, results, resolvedExpressions, dependencyValues);
+        }
+        return results;
+    }
+
+    private void addResult(final ExpressionEvaluationPlan plan, final int index, final Object result, final Object[] results,
+            final Map<Integer, Object> resolvedExpressions, final Map<String, Object> dependencyValues) {
+        final SExpression expression = plan.getExpression(index);
+        results[index] = result;
+        resolvedExpressions.put(plan.getDiscriminant(index), result);
+        if (expressionService.mustPutEvaluatedExpressionInContext(expression.getExpressionKind())) {
+            dependencyValues.put(expression.getContent(), result);
+        }
+    }
+
     private void loadProcessClassLoader(final SExpressionContext evaluationContext) throws SClassLoaderException {
         Long processId;
         if (evaluationContext.getParentProcessDefinitionId() != null) {
@@ -163,29 +195,6 @@ public class ExpressionResolverServiceImpl implements ExpressionResolverService
         return exception;
     }
 
-    private Map<Integer, Object> evaluateAllExpressionsWithNoDependencies(final Map<String, Object> dependencyValues,
-            final Map<SExpression, SExpression> dataReplacement, final List<SExpression> expressions, final SExpressionContext evaluationContext)
-            throws SExpressionTypeUnknownException, SExpressionEvaluationException, SExpressionDependencyMissingException, SInvalidExpressionException {
-        final Map<Integer, Object> resolvedExpressions = new HashMap<>();
-        final Map<ExpressionKind, List<SExpression>> expressionMapByKind = flattenDependencies(expressions);
-        final List<SExpression> variableExpressions = expressionMapByKind.get(new ExpressionKind(ExpressionType.TYPE_VARIABLE.name()));
-
-        if (evaluationContext.isEvaluateInDefinition() && variableExpressions != null && !variableExpressions.isEmpty()) {
-            final SExpression expressionNotProvided = variablesAreAllProvided(variableExpressions, evaluationContext);
-            if (expressionNotProvided != null) {
-                // We forbid the evaluation of expressions of type VARIABLE at process definition level:
-                throw new SExpressionEvaluationException("Evaluation of expressions of type VARIABLE is forbidden at process definition level.",
-                        expressionNotProvided.getName());
-            }
-        }
-        for (final ExpressionKind kind : ExpressionExecutorStrategy.NO_DEPENDENCY_EXPRESSION_EVALUATION_ORDER) {
-            resolvedExpressions.putAll(evaluateExpressionsOfKind(dependencyValues, expressionMapByKind.get(kind), kind, dataReplacement, resolvedExpressions,
-                    evaluationContext.getContainerState()));
-            expressionMapByKind.remove(kind);
-        }
-        return resolvedExpressions;
-    }
-
     private SExpression variablesAreAllProvided(final List<SExpression> variableExpressions, final SExpressionContext evaluationContext) {
         final Iterator<SExpression> iterator = variableExpressions.iterator();
         final Map<String, Object> inputValues = evaluationContext.getInputValues();
@@ -198,81 +207,6 @@ public class ExpressionResolverServiceImpl implements ExpressionResolverService
         return null;
     }
 
-    private Map<? extends Integer, ? extends Object> evaluateExpressionWithResolvedDependencies(final SExpression sExpression,
-            final Map<String, Object> dependencyValues, final Map<SExpression, SExpression> dataReplacement,
-            final Map<Integer, Object> alreadyResolvedExpressions, final ContainerState containerState) throws SExpressionTypeUnknownException,
-            SExpressionEvaluationException, SExpressionDependencyMissingException, SInvalidExpressionException {
-        final Map<Integer, Object> resolvedExpressions = new HashMap<>(alreadyResolvedExpressions);
-        // Evaluate the dependencies first:
-        for (final SExpression dep : sExpression.getDependencies()) {
-            resolvedExpressions.putAll(evaluateExpressionWithResolvedDependencies(dep, dependencyValues, dataReplacement, resolvedExpressions, containerState));
-        }
-        // Then evaluate the expression itself:
-        if (!resolvedExpressions.containsKey(sExpression.getDiscriminant())) {
-            // Let's evaluate the expression only if it is not already in the list of resolved dependencies:
-            final Object exprResult = expressionService.evaluate(sExpression, dependencyValues, resolvedExpressions, containerState);
-            addResultToMap(resolvedExpressions, dataReplacement, sExpression, exprResult, dependencyValues);
-        }
-        return resolvedExpressions;
-    }
-
-    private Map<Integer, Object> evaluateExpressionsOfKind(final Map<String, Object> dependencyValues, final List<SExpression> expressionsOfKind,
-            final ExpressionKind kind, final Map<SExpression, SExpression> dataReplacement, final Map<Integer, Object> alreadyResolvedExpressions,
-            final ContainerState containerState) throws SExpressionTypeUnknownException, SExpressionEvaluationException,
-            SExpressionDependencyMissingException, SInvalidExpressionException {
-        final Map<Integer, Object> resolvedExpressions = new HashMap<>();
-        if (expressionsOfKind != null) {
-            final List<Object> evaluationResults = expressionService.evaluate(kind, expressionsOfKind, dependencyValues, alreadyResolvedExpressions,
-                    containerState);
-            final Iterator<SExpression> variableIterator = expressionsOfKind.iterator();
-            for (final Object evaluationResult : evaluationResults) {
-                final SExpression expression = variableIterator.next();
-                addResultToMap(resolvedExpressions, dataReplacement, expression, evaluationResult, dependencyValues);
-            }
-        }
-        return resolvedExpressions;
-    }
-
-    private void addResultToMap(final Map<Integer, Object> resolvedExpressions, final Map<SExpression, SExpression> dataReplacement,
-            final SExpression expression, final Object expressionResult, final Map<String, Object> dependencyValues) {
-        resolvedExpressions.put(expression.getDiscriminant(), expressionResult);
-        if (expressionService.mustPutEvaluatedExpressionInContext(expression.getExpressionKind())) {
-            dependencyValues.put(expression.getContent(), expressionResult);
-        }
-        final SExpression replacement = dataReplacement.get(expression);
-        if (replacement != null) {
-            resolvedExpressions.put(replacement.getDiscriminant(), expressionResult);
-            if (expressionService.mustPutEvaluatedExpressionInContext(expression.getExpressionKind())) {
-                dependencyValues.put(replacement.getContent(), expressionResult);
-            }
-        }
-    }
-
-    private Map<ExpressionKind, List<SExpression>> flattenDependencies(final Collection<SExpression> collection) {
-        final Map<ExpressionKind, List<SExpression>> expressionMapByKind = new HashMap<>();
-        for (final SExpression sExpression : collection) {
-            if (sExpression == null) {
-                continue;
-            }
-            final ExpressionKind expressionKind = sExpression.getExpressionKind();
-            // Get from the map the list of expressions of given ExpressionKind
-            List<SExpression> exprList = expressionMapByKind.get(expressionKind);
-
-            // If no present, put it in the map
-            if (exprList == null) {
-                exprList = new ArrayList<>();
-                expressionMapByKind.put(expressionKind, exprList);
-            }
-            if (!exprList.contains(sExpression)) {
-                exprList.add(sExpression);
-            }
-            if (sExpression.getDependencies() != null) {
-                expressionMapByKind.putAll(flattenDependencies(sExpression.getDependencies()));
-            }
-        }
-        return expressionMapByKind;
-    }
-
     private void fillContext(final SExpressionContext evaluationContext, final Map<String, Object> dependencyValues)
             throws SProcessDefinitionNotFoundException, SBonitaReadException {
         if (evaluationContext.getContainerId() == null && evaluationContext.getProcessDefinitionId() != null) {
@@ -303,4 +237,70 @@ public class ExpressionResolverServiceImpl implements ExpressionResolverService
         return evaluateExpressionsFlatten(expressions, contextDependency);
     }
 
+    /**
+     * Evaluation plans of the expressions of a process definition
+     */
+    private static final class DefinitionPlans {
+
+        private final Map<ExpressionsKey, ExpressionEvaluationPlan> plans = new ConcurrentHashMap<>();
+
+        private ExpressionEvaluationPlan getEvaluationPlan(final List<SExpression> expressions) {
+            final ExpressionsKey key = new ExpressionsKey(expressions);
+            ExpressionEvaluationPlan plan = plans.get(key);
+            if (plan == null) {
+                plan = ExpressionEvaluationPlan.compile(expressions);
+                // expressions built at each call, or of a definition reloaded from another node, are not found again: start over past this size
+                if (plans.size() >= MAX_CACHED_PLANS_PER_DEFINITION) {
+                    plans.clear();
+                }
+                plans.put(key, plan);
+            }
+            return plan;
+        }
+    }
+
+    /**
+     * Identity of a list of expressions: same expression instances in the same order
+     */
+    private static final class ExpressionsKey {
+
+        private final SExpression[] expressions;
+
+        private final int hashCode;
+
+        private ExpressionsKey(final List<SExpression> expressions) {
+            this.expressions = expressions.toArray(new SExpression[expressions.size()]);
+            int hash = 1;
+            for (final SExpression expression : this.expressions) {
+                hash = 31 * hash + System.identityHashCode(expression);
+            }
+            hashCode = hash;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ExpressionsKey)) {
+                return false;
+            }
+            final SExpression[] other = ((ExpressionsKey) o).expressions;
+            if (other.length != expressions.length) {
+                return false;
+            }
+            for (int i = 0; i < expressions.length; i++) {
+                if (other[i] != expressions[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
 }
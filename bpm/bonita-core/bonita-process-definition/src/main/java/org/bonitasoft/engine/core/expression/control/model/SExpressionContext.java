@@ -62,6 +62,8 @@ public class SExpressionContext implements Serializable {
 
     private boolean evaluateInDefinition = false;
 
+    private boolean cacheEvaluationPlan = true;
+
     private Map<String, SExpression> dataMap;
 
     private Map<SExpression, String> invertedDataMap;
@@ -187,6 +189,18 @@ public class SExpressionContext implements Serializable {
         return evaluateInDefinition;
     }
 
+    /**
+     * @param cacheEvaluationPlan false when the evaluated expressions do not come from the process definition, e.g. when they are given through the
+     *        API, so that their evaluation plan is not kept with the definition.
+     */
+    public void setCacheEvaluationPlan(final boolean cacheEvaluationPlan) {
+        this.cacheEvaluationPlan = cacheEvaluationPlan;
+    }
+
+    public boolean isCacheEvaluationPlan() {
+        return cacheEvaluationPlan;
+    }
+
     @Override
     public String toString() {
         return "context [containerId=" + containerId + ", containerType=" + containerType + ", processDefinitionId="
@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.core.process.definition;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.bonitasoft.engine.bpm.process.DesignProcessDefinition;
+import org.bonitasoft.engine.commons.io.PropertiesManager;
+import org.bonitasoft.engine.exception.BonitaRuntimeException;
+
+/**
+ * Binary form of a {@link DesignProcessDefinition}, stored next to its XML so that the definition can be loaded without parsing the XML.
+ * <p>
+ * The content starts with a header holding {@link #FORMAT_VERSION} and the version of the engine that wrote it, followed by the compressed java
+ * serialization of the definition. The serialized classes can change between two engine versions, so a content written by another format or engine version
+ * is not read: the definition must then be read from its XML. Only classes of the JDK and of Bonita are deserialized, the content being read from the
+ * database.
+ * <p>
+ * The design model is stored rather than the server model ({@code SProcessDefinition}): the binary content is the exact counterpart of the XML content
+ * it is stored with, both being written from the design model on deployment and when an expression of the definition is updated, and the update reads
+ * the design model back to change it. Converting the design model to the server model is done in memory and is cheap compared to parsing the XML.
+ */
+public class ProcessDefinitionBinaryFormat {
+
+    static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC_NUMBER = 0x42504446;
+
+    private static final List<String> ALLOWED_PACKAGES = Arrays.asList("java.", "org.bonitasoft.");
+
+    private final String engineVersion;
+
+    public ProcessDefinitionBinaryFormat() {
+        this(readEngineVersion());
+    }
+
+    ProcessDefinitionBinaryFormat(final String engineVersion) {
+        this.engineVersion = engineVersion;
+    }
+
+    private static String readEngineVersion() {
+        try {
+            final Properties properties = PropertiesManager.getProperties(ProcessDefinitionBinaryFormat.class.getResource("binary-format.properties"));
+            return properties.getProperty("engine.version");
+        } catch (final IOException e) {
+            throw new BonitaRuntimeException(e);
+        }
+    }
+
+    public byte[] write(final DesignProcessDefinition designProcessDefinition) throws IOException {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        final DataOutputStream header = new DataOutputStream(content);
+        header.writeInt(MAGIC_NUMBER);
+        header.writeInt(FORMAT_VERSION);
+        header.writeUTF(engineVersion);
+        header.flush();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(new BufferedOutputStream(new GZIPOutputStream(content)))) {
+            objectOutputStream.writeObject(designProcessDefinition);
+        }
+        return content.toByteArray();
+    }
+
+    /**
+     * @return a new instance of the definition, or null if the content was not written with the current format and engine version
+     */
+    public DesignProcessDefinition read(final byte[] content) throws IOException {
+        if (content == null) {
+            return null;
+        }
+        final ByteArrayInputStream inputStream = new ByteArrayInputStream(content);
+        final DataInputStream header = new DataInputStream(inputStream);
+        if (header.readInt() != MAGIC_NUMBER || header.readInt() != FORMAT_VERSION || !Objects.equals(engineVersion, header.readUTF())) {
+            return null;
+        }
+        try (ObjectInputStream objectInputStream = new DefinitionObjectInputStream(new BufferedInputStream(new GZIPInputStream(inputStream)))) {
+            return (DesignProcessDefinition) objectInputStream.readObject();
+        } catch (final ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Unable to read the binary content of the process definition", e);
+        }
+    }
+
+    private static final class DefinitionObjectInputStream extends ObjectInputStream {
+
+        DefinitionObjectInputStream(final InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            checkAllowed(desc.getName());
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(final String[] interfaces) throws IOException, ClassNotFoundException {
+            for (final String anInterface : interfaces) {
+                checkAllowed(anInterface);
+            }
+            return super.resolveProxyClass(interfaces);
+        }
+
+        private void checkAllowed(final String className) throws InvalidClassException {
+            String componentName = className;
+            while (componentName.startsWith("[")) {
+                componentName = componentName.substring(1);
+            }
+            if (componentName.length() == 1) {
+                // array of primitives
+                return;
+            }
+            if (componentName.startsWith("L") && componentName.endsWith(";")) {
+                componentName = componentName.substring(1, componentName.length() - 1);
+            }
+            for (final String allowedPackage : ALLOWED_PACKAGES) {
+                if (componentName.startsWith(allowedPackage)) {
+                    return;
+                }
+            }
+            throw new InvalidClassException(className, "Class not allowed in the binary content of a process definition");
+        }
+    }
+
+}
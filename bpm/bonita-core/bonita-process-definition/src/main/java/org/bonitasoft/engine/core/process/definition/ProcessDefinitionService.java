@@ -15,6 +15,7 @@ package org.bonitasoft.engine.core.process.definition;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.LongConsumer;
 
 import org.bonitasoft.engine.bpm.process.ActivationState;
 import org.bonitasoft.engine.bpm.process.DesignProcessDefinition;
@@ -778,4 +779,14 @@ public interface ProcessDefinitionService {
      * @since 7.0
      */
     DesignProcessDefinition getDesignProcessDefinition(long processDefinitionId) throws SProcessDefinitionNotFoundException, SBonitaReadException;
+
+    /**
+     * Registers a listener called with the id of a process definition each time this definition is removed from the cache of definitions, i.e. when it
+     * is changed or deleted on this node.
+     *
+     * @param listener
+     *        called with the id of the invalidated process definition
+     * @since 7.8
+     */
+    void addInvalidationListener(LongConsumer listener);
 }
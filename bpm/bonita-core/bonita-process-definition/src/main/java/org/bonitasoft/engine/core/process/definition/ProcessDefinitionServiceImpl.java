@@ -18,7 +18,11 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
 
 import org.bonitasoft.engine.bpm.bar.ProcessDefinitionBARContribution;
 import org.bonitasoft.engine.bpm.process.ActivationState;
@@ -45,13 +49,13 @@ import org.bonitasoft.engine.core.process.definition.model.SFlowElementContainer
 import org.bonitasoft.engine.core.process.definition.model.SFlowNodeDefinition;
 import org.bonitasoft.engine.core.process.definition.model.SProcessDefinition;
 import org.bonitasoft.engine.core.process.definition.model.SProcessDefinitionDeployInfo;
+import org.bonitasoft.engine.core.process.definition.model.SProcessDefinitionDesignContent;
 import org.bonitasoft.engine.core.process.definition.model.STransitionDefinition;
 import org.bonitasoft.engine.core.process.definition.model.builder.SProcessDefinitionBuilderFactory;
 import org.bonitasoft.engine.core.process.definition.model.builder.SProcessDefinitionDeployInfoBuilderFactory;
 import org.bonitasoft.engine.core.process.definition.model.builder.SProcessDefinitionDeployInfoUpdateBuilderFactory;
 import org.bonitasoft.engine.core.process.definition.model.builder.SProcessDefinitionLogBuilder;
 import org.bonitasoft.engine.core.process.definition.model.builder.SProcessDefinitionLogBuilderFactory;
-import org.bonitasoft.engine.core.process.definition.model.builder.impl.SProcessDefinitionDeployInfoBuilderFactoryImpl;
 import org.bonitasoft.engine.core.process.definition.model.impl.SProcessDefinitionDeployInfoImpl;
 import org.bonitasoft.engine.core.process.definition.model.impl.SProcessDefinitionDesignContentImpl;
 import org.bonitasoft.engine.dependency.DependencyService;
@@ -82,8 +86,21 @@ import org.bonitasoft.engine.recorder.model.UpdateRecord;
 import org.bonitasoft.engine.services.QueriableLoggerService;
 import org.bonitasoft.engine.session.SessionService;
 import org.bonitasoft.engine.sessionaccessor.ReadSessionAccessor;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.STransactionNotFoundException;
+import org.bonitasoft.engine.transaction.TransactionState;
+import org.bonitasoft.engine.transaction.UserTransactionService;
 
 /**
+ * Process definitions read by {@link #getProcessDefinition(long)} are kept in the {@link #PROCESS_CACHE_NAME} cache and trusted without reading the
+ * database. Each change of a definition (update, activation, resolution, deletion) removes it from the cache, immediately and again when the transaction
+ * completes, and changes the version stored in the cache under {@link #DEFINITIONS_VERSION_KEY}: a definition read while another one was changed is not
+ * kept, so that a definition read before a change is committed is never cached. As both are stored in the cache service, they are shared by all the nodes
+ * of a cluster using a distributed cache.
+ * <p>
+ * On a cache miss, the definition is loaded from the {@link ProcessDefinitionBinaryFormat binary content} written when it was deployed, its XML is only
+ * parsed when that content was written by another engine version.
+ *
  * @author Baptiste Mesta
  * @author Matthieu Chaffotte
  * @author Zhao Na
@@ -94,6 +111,9 @@ import org.bonitasoft.engine.sessionaccessor.ReadSessionAccessor;
  */
 public class ProcessDefinitionServiceImpl implements ProcessDefinitionService {
 
+    // process ids are positive
+    static final Long DEFINITIONS_VERSION_KEY = -1L;
+
     private final Recorder recorder;
     private final ReadPersistenceService persistenceService;
     private final EventService eventService;
@@ -101,11 +121,15 @@ public class ProcessDefinitionServiceImpl implements ProcessDefinitionService {
     private final ReadSessionAccessor sessionAccessor;
     private final QueriableLoggerService queriableLoggerService;
     private final CacheService cacheService;
+    private final UserTransactionService userTransactionService;
     protected ProcessDefinitionBARContribution processDefinitionBARContribution;
+    protected ProcessDefinitionBinaryFormat processDefinitionBinaryFormat;
+    private final List<LongConsumer> invalidationListeners = new CopyOnWriteArrayList<>();
 
     public ProcessDefinitionServiceImpl(final Recorder recorder, final ReadPersistenceService persistenceService,
             final EventService eventService, final SessionService sessionService, final ReadSessionAccessor sessionAccessor,
-            final QueriableLoggerService queriableLoggerService, final DependencyService dependencyService, CacheService cacheService) {
+            final QueriableLoggerService queriableLoggerService, final DependencyService dependencyService, CacheService cacheService,
+            final UserTransactionService userTransactionService) {
         this.recorder = recorder;
         this.persistenceService = persistenceService;
         this.eventService = eventService;
@@ -113,7 +137,9 @@ public class ProcessDefinitionServiceImpl implements ProcessDefinitionService {
         this.sessionAccessor = sessionAccessor;
         this.queriableLoggerService = queriableLoggerService;
         this.cacheService = cacheService;
+        this.userTransactionService = userTransactionService;
         processDefinitionBARContribution = new ProcessDefinitionBARContribution();
+        processDefinitionBinaryFormat = new ProcessDefinitionBinaryFormat();
     }
 
     @Override
@@ -132,8 +158,9 @@ public class ProcessDefinitionServiceImpl implements ProcessDefinitionService {
 
         try {
             recorder.recordDelete(new DeleteRecord(processDefinitionDeployInfo), PROCESSDEFINITION);
+            invalidateProcessDefinitionInCache(processId);
             log(processId, SQueriableLog.STATUS_OK, logBuilder, "delete");
-        } catch (final SRecorderException e) {
+        } catch (final SRecorderException | SCacheException e) {
             log(processId, SQueriableLog.STATUS_FAIL, logBuilder, "delete");
             throw new SProcessDeletionException(e, processDefinitionDeployInfo);
         }
@@ -165,13 +192,6 @@ public class ProcessDefinitionServiceImpl implements ProcessDefinitionService {
         }
     }
 
-    void updateSProcessDefinitionTimestampInCache(long processId, SProcessDefinitionDeployInfo processDefinitionDeployInfo) throws SCacheException {
-        final Pair<Long, SProcessDefinition> fromCache = getSProcessDefinitionFromCache(processId);
-        if (fromCache != null) {
-            storeProcessDefinitionInCache(fromCache.getValue(), processDefinitionDeployInfo.getLastUpdateDate());
-        }
-    }
-
     @Override
     public void enableProcessDeploymentInfo(final long processId) throws SProcessDefinitionNotFoundException, SProcessEnablementException {
         SProcessDefinitionDeployInfo processDefinitionDeployInfo;
@@ -227,32 +247,69 @@ public class ProcessDefinitionServiceImpl implements ProcessDefinitionService {
     @Override
     public SProcessDefinition getProcessDefinition(final long processId) throws SProcessDefinitionNotFoundException, SBonitaReadException {
         try {
-            //get from database
-            final SProcessDefinitionDeployInfo processDeploymentInfo = getProcessDeploymentInfo(processId);
-            //get from cache
             final Pair<Long, SProcessDefinition> processWithTimestamp = getSProcessDefinitionFromCache(processId);
-            //read SProcessDefinition if needed
-            if (isSProcessDefinitionUpToDate(processDeploymentInfo, processWithTimestamp)) {
-                return readSProcessDefinitionFromDatabase(processId, processDeploymentInfo);
-            } else {
+            if (processWithTimestamp != null) {
                 return processWithTimestamp.getValue();
             }
+            final Object versionBeforeRead = getDefinitionsVersion();
+            final SProcessDefinitionDeployInfo processDeploymentInfo = getProcessDeploymentInfo(processId);
+            return readSProcessDefinitionFromDatabase(processId, processDeploymentInfo, versionBeforeRead);
         } catch (IOException | SReflectException | SCacheException e) {
             throw new SBonitaReadException(e);
         }
     }
 
-    SProcessDefinition readSProcessDefinitionFromDatabase(long processId, SProcessDefinitionDeployInfo processDeploymentInfo) throws IOException, SReflectException, SCacheException {
-        final DesignProcessDefinition objectFromXML = processDefinitionBARContribution.convertXmlToProcess(processDeploymentInfo.getDesignContent()
-                        .getContent());
-        SProcessDefinition sProcessDefinition = convertDesignProcessDefinition(objectFromXML);
-                setIdOnProcessDefinition(sProcessDefinition, processId);
+    SProcessDefinition readSProcessDefinitionFromDatabase(long processId, SProcessDefinitionDeployInfo processDeploymentInfo, Object versionBeforeRead)
+            throws IOException, SReflectException, SCacheException {
+        final DesignProcessDefinition designProcessDefinition = readDesignProcessDefinition(processDeploymentInfo.getDesignContent());
+        SProcessDefinition sProcessDefinition = convertDesignProcessDefinition(designProcessDefinition);
+        setIdOnProcessDefinition(sProcessDefinition, processId);
         storeProcessDefinitionInCache(sProcessDefinition, processDeploymentInfo.getLastUpdateDate());
-            return sProcessDefinition;
+        if (!Objects.equals(versionBeforeRead, getDefinitionsVersion())) {
+            // a definition was changed while this one was read, it may be outdated
+            cacheService.remove(PROCESS_CACHE_NAME, processId);
+        }
+        return sProcessDefinition;
+    }
+
+    DesignProcessDefinition readDesignProcessDefinition(SProcessDefinitionDesignContent designContent) throws IOException {
+        final DesignProcessDefinition fromBinary = processDefinitionBinaryFormat.read(designContent.getBinaryContent());
+        if (fromBinary != null) {
+            return fromBinary;
+        }
+        // deployed before the binary format existed or by another engine version
+        return processDefinitionBARContribution.convertXmlToProcess(designContent.getContent());
+    }
+
+    Object getDefinitionsVersion() throws SCacheException {
+        return cacheService.get(PROCESS_CACHE_NAME, DEFINITIONS_VERSION_KEY);
+    }
+
+    /**
+     * Remove the definition from the cache, now so that the transaction changing it sees the change, and when the transaction completes so that a
+     * definition read by another transaction before the change is committed is not kept.
+     */
+    void invalidateProcessDefinitionInCache(final long processId) throws SCacheException {
+        removeProcessDefinitionFromCache(processId);
+        try {
+            userTransactionService.registerBonitaSynchronization(new InvalidateOnCompletionSynchronization(processId));
+        } catch (final STransactionNotFoundException e) {
+            // not in a transaction: the change is already visible
         }
+    }
+
+    private void removeProcessDefinitionFromCache(final long processId) throws SCacheException {
+        // a new random version, not an increment, so that it differs from the previous one even if the version was evicted from the cache
+        cacheService.store(PROCESS_CACHE_NAME, DEFINITIONS_VERSION_KEY, ThreadLocalRandom.current().nextLong());
+        cacheService.remove(PROCESS_CACHE_NAME, processId);
+        for (final LongConsumer listener : invalidationListeners) {
+            listener.accept(processId);
+        }
+    }
 
-    boolean isSProcessDefinitionUpToDate(SProcessDefinitionDeployInfo processDeploymentInfo, Pair<Long, SProcessDefinition> processWithTimestamp) {
-        return processWithTimestamp == null || processWithTimestamp.getKey() != processDeploymentInfo.getLastUpdateDate();
+    @Override
+    public void addInvalidationListener(final LongConsumer listener) {
+        invalidationListeners.add(listener);
     }
 
     @SuppressWarnings("unchecked")
@@ -308,6 +365,7 @@ public class ProcessDefinitionServiceImpl implements ProcessDefinitionService {
             final String processDefinitionContent = getProcessContent(designProcessDefinition);
             final SProcessDefinitionDesignContentImpl sProcessDefinitionDesignContent = new SProcessDefinitionDesignContentImpl();
             sProcessDefinitionDesignContent.setContent(processDefinitionContent);
+            sProcessDefinitionDesignContent.setBinaryContent(processDefinitionBinaryFormat.write(designProcessDefinition));
 
             recorder.recordInsert(new InsertRecord(sProcessDefinitionDesignContent), PROCESSDEFINITION_CONTENT);
 
@@ -317,7 +375,8 @@ public class ProcessDefinitionServiceImpl implements ProcessDefinitionService {
                     sProcessDefinitionDesignContent, processId);
 
             recorder.recordInsert(new InsertRecord(sProcessDefinitionDeployInfo), PROCESSDEFINITION);
-            //storeProcessDefinitionInCache(definition, sProcessDefinitionDeployInfo.getLastUpdateDate());
+            // if the deployment is rolled back, the definition must not stay in the cache
+            invalidateProcessDefinitionInCache(processId);
             log(definition.getId(), SQueriableLog.STATUS_OK, logBuilder, "store");
         } catch (final Exception e) {
             log(definition.getId(), SQueriableLog.STATUS_FAIL, logBuilder, "store");
@@ -519,9 +578,7 @@ public class ProcessDefinitionServiceImpl implements ProcessDefinitionService {
     void update(long processId, SProcessDefinitionDeployInfo processDefinitionDeployInfo, UpdateRecord updateRecord, String eventType)
             throws SRecorderException, SCacheException {
         recorder.recordUpdate(updateRecord, eventType);
-        if (!updateRecord.getFields().containsKey(SProcessDefinitionDeployInfoBuilderFactoryImpl.DESIGN_CONTENT)) {
-            updateSProcessDefinitionTimestampInCache(processId, processDefinitionDeployInfo);
-        }
+        invalidateProcessDefinitionInCache(processId);
     }
 
     private UpdateRecord getUpdateRecord(final EntityUpdateDescriptor descriptor, final SProcessDefinitionDeployInfo processDefinitionDeployInfo) {
@@ -901,7 +958,7 @@ public class ProcessDefinitionServiceImpl implements ProcessDefinitionService {
     public DesignProcessDefinition getDesignProcessDefinition(long processDefinitionId) throws SProcessDefinitionNotFoundException,
             SBonitaReadException {
         try {
-            return processDefinitionBARContribution.convertXmlToProcess(getProcessDeploymentInfo(processDefinitionId).getDesignContent().getContent());
+            return readDesignProcessDefinition(getProcessDeploymentInfo(processDefinitionId).getDesignContent());
         } catch (IOException e) {
             throw new SBonitaReadException(e);
         }
@@ -925,7 +982,8 @@ public class ProcessDefinitionServiceImpl implements ProcessDefinitionService {
             expression.setContent(content);
             final String processDefinitionAsXMLString = getProcessContent(designProcessDefinition);
             final EntityUpdateDescriptor updateDescriptor = BuilderFactory.get(SProcessDefinitionDeployInfoUpdateBuilderFactory.class)
-                    .createNewInstance().updateDesignContent(processDefinitionAsXMLString).done();
+                    .createNewInstance().updateDesignContent(processDefinitionAsXMLString,
+                            processDefinitionBinaryFormat.write(designProcessDefinition)).done();
             updateProcessDefinitionDeployInfo(processDefinitionId, updateDescriptor, "Update expression <" + expressionDefinitionId + ">, old content is <" + oldContent + ">");
         } catch (IOException e) {
             throw new SProcessDefinitionNotFoundException(e, processDefinitionId);
@@ -948,4 +1006,27 @@ public class ProcessDefinitionServiceImpl implements ProcessDefinitionService {
         return expressionFinder.getFoundExpression();
     }
 
+    private class InvalidateOnCompletionSynchronization implements BonitaTransactionSynchronization {
+
+        private final long processId;
+
+        InvalidateOnCompletionSynchronization(final long processId) {
+            this.processId = processId;
+        }
+
+        @Override
+        public void beforeCommit() {
+        }
+
+        @Override
+        public void afterCompletion(final TransactionState txState) {
+            // also on rollback: definitions read in the transaction saw the changes that were rolled back
+            try {
+                removeProcessDefinitionFromCache(processId);
+            } catch (final SCacheException e) {
+                // the cache is stopped: nothing to invalidate
+            }
+        }
+    }
+
 }
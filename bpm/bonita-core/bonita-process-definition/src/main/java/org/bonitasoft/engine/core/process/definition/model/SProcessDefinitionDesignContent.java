@@ -21,4 +21,10 @@ import org.bonitasoft.engine.persistence.PersistentObject;
 public interface SProcessDefinitionDesignContent extends PersistentObject {
 
     String getContent();
+
+    /**
+     * @return the definition in the format of {@link org.bonitasoft.engine.core.process.definition.ProcessDefinitionBinaryFormat}, null for definitions
+     *         deployed before it existed
+     */
+    byte[] getBinaryContent();
 }
@@ -48,6 +48,8 @@ public interface SProcessDefinitionDeployInfoBuilderFactory {
     String getIconPathKey();
     
     String getDesignContentKey();
+
+    String getDesignBinaryContentKey();
     
     String getActivationStateKey();
 
@@ -36,5 +36,5 @@ public interface SProcessDefinitionDeployInfoUpdateBuilder {
 
     SProcessDefinitionDeployInfoUpdateBuilder updateDisplayDescription(String value);
 
-    SProcessDefinitionDeployInfoUpdateBuilder updateDesignContent(String processDefinitionAsXMLString);
+    SProcessDefinitionDeployInfoUpdateBuilder updateDesignContent(String processDefinitionAsXMLString, byte[] processDefinitionAsBinary);
 }
@@ -53,6 +53,8 @@ public class SProcessDefinitionDeployInfoBuilderFactoryImpl implements SProcessD
 
     public static final String DESIGN_CONTENT = "designContent.content";
 
+    public static final String DESIGN_BINARY_CONTENT = "designContent.binaryContent";
+
     private static final String LABEL = "label";
 
     @Override
@@ -136,6 +138,11 @@ public class SProcessDefinitionDeployInfoBuilderFactoryImpl implements SProcessD
         return DESIGN_CONTENT;
     }
 
+    @Override
+    public String getDesignBinaryContentKey() {
+        return DESIGN_BINARY_CONTENT;
+    }
+
     @Override
     public String getLabelStateKey() {
         return LABEL;
@@ -71,8 +71,9 @@ public class SProcessDefinitionDeployInfoUpdateBuilderImpl implements SProcessDe
     }
 
     @Override
-    public SProcessDefinitionDeployInfoUpdateBuilder updateDesignContent(String processDefinitionAsXMLString){
+    public SProcessDefinitionDeployInfoUpdateBuilder updateDesignContent(String processDefinitionAsXMLString, byte[] processDefinitionAsBinary) {
         descriptor.addField(builderFactory.getDesignContentKey(), processDefinitionAsXMLString);
+        descriptor.addField(builderFactory.getDesignBinaryContentKey(), processDefinitionAsBinary);
         return this;
     }
 }
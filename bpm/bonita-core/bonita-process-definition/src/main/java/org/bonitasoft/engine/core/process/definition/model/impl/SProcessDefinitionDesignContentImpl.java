@@ -24,6 +24,7 @@ public class SProcessDefinitionDesignContentImpl implements SProcessDefinitionDe
     private long tenantId;
     private long id;
     private String content;
+    private byte[] binaryContent;
 
     public long getTenantId() {
         return tenantId;
@@ -57,4 +58,13 @@ public class SProcessDefinitionDesignContentImpl implements SProcessDefinitionDe
     public void setContent(String content) {
         this.content = content;
     }
+
+    @Override
+    public byte[] getBinaryContent() {
+        return binaryContent;
+    }
+
+    public void setBinaryContent(byte[] binaryContent) {
+        this.binaryContent = binaryContent;
+    }
 }
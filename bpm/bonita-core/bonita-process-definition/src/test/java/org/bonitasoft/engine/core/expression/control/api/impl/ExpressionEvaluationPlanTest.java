@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.core.expression.control.api.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.bonitasoft.engine.expression.ExpressionExecutorStrategy;
+import org.bonitasoft.engine.expression.ExpressionType;
+import org.bonitasoft.engine.expression.model.SExpression;
+import org.bonitasoft.engine.expression.model.impl.SExpressionImpl;
+import org.junit.Test;
+
+public class ExpressionEvaluationPlanTest {
+
+    private static SExpression expression(String name, ExpressionType type, SExpression... dependencies) {
+        return new SExpressionImpl(name, name + "Content", type.name(), String.class.getName(), null, Arrays.asList(dependencies));
+    }
+
+    private static List<SExpression> remainingExpressions(ExpressionEvaluationPlan plan) {
+        List<SExpression> expressions = new ArrayList<>();
+        for (int index : plan.getRemainingIndexes()) {
+            expressions.add(plan.getExpression(index));
+        }
+        return expressions;
+    }
+
+    @Test
+    public void should_sort_dependencies_before_the_expressions_using_them() {
+        SExpression script1 = expression("script1", ExpressionType.TYPE_READ_ONLY_SCRIPT);
+        SExpression script2 = expression("script2", ExpressionType.TYPE_READ_ONLY_SCRIPT, script1);
+        SExpression script3 = expression("script3", ExpressionType.TYPE_READ_ONLY_SCRIPT, script2, script1);
+
+        ExpressionEvaluationPlan plan = ExpressionEvaluationPlan.compile(Collections.singletonList(script3));
+
+        assertThat(remainingExpressions(plan)).containsExactly(script1, script2, script3);
+        assertThat(plan.getExpression(plan.getRootIndex(0))).isEqualTo(script3);
+    }
+
+    @Test
+    public void should_group_expressions_without_dependencies_by_kind() {
+        SExpression constant1 = expression("constant1", ExpressionType.TYPE_CONSTANT);
+        SExpression constant2 = expression("constant2", ExpressionType.TYPE_CONSTANT);
+        SExpression variable = expression("variable", ExpressionType.TYPE_VARIABLE);
+        SExpression script = expression("script", ExpressionType.TYPE_READ_ONLY_SCRIPT, constant2, variable);
+
+        ExpressionEvaluationPlan plan = ExpressionEvaluationPlan.compile(Arrays.asList(constant1, script));
+
+        assertThat(plan.getBatches()).hasSize(2);
+        // variables are evaluated before constants
+        assertThat(plan.getBatches().get(0).getKind()).isEqualTo(ExpressionExecutorStrategy.KIND_VARIABLE);
+        assertThat(plan.getBatches().get(0).getExpressions()).containsExactly(variable);
+        assertThat(plan.getBatches().get(1).getExpressions()).containsExactly(constant1, constant2);
+        assertThat(plan.getVariableExpressions()).containsExactly(variable);
+        assertThat(remainingExpressions(plan)).containsExactly(script);
+    }
+
+    @Test
+    public void should_keep_a_single_occurrence_of_equal_expressions() {
+        SExpression constant = expression("constant", ExpressionType.TYPE_CONSTANT);
+        SExpression script1 = expression("script1", ExpressionType.TYPE_READ_ONLY_SCRIPT, constant);
+        SExpression script2 = expression("script2", ExpressionType.TYPE_READ_ONLY_SCRIPT, expression("constant", ExpressionType.TYPE_CONSTANT));
+
+        ExpressionEvaluationPlan plan = ExpressionEvaluationPlan.compile(Arrays.asList(script1, script2, script1, null));
+
+        assertThat(plan.size()).isEqualTo(3);
+        assertThat(plan.getRootIndex(0)).isEqualTo(plan.getRootIndex(2));
+        assertThat(plan.getRootIndex(3)).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.core.expression.control.api.impl;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bonitasoft.engine.classloader.ClassLoaderService;
+import org.bonitasoft.engine.core.expression.control.model.SExpressionContext;
+import org.bonitasoft.engine.core.process.definition.ProcessDefinitionService;
+import org.bonitasoft.engine.expression.ContainerState;
+import org.bonitasoft.engine.expression.ExpressionService;
+import org.bonitasoft.engine.expression.ExpressionType;
+import org.bonitasoft.engine.expression.model.ExpressionKind;
+import org.bonitasoft.engine.expression.model.SExpression;
+import org.bonitasoft.engine.expression.model.impl.SExpressionImpl;
+import org.bonitasoft.engine.tracking.TimeTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the overhead of {@link ExpressionResolverServiceImpl} (expression executors are stubbed) when evaluating
+ * expression trees of a process definition, like the inputs of a form or a contract.
+ * <p>
+ * Each tree has half constants and half scripts, each script depending on the previous one and on a constant.
+ * Not executed by the build, run the main method (from the IDE or using the test classpath) to launch it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpressionResolverBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int expressionCount;
+
+    private ExpressionResolverServiceImpl resolverService;
+
+    private List<SExpression> expressions;
+
+    @Setup
+    public void setup() {
+        resolverService = new ExpressionResolverServiceImpl(new StubExpressionService(), mock(ProcessDefinitionService.class),
+                mock(ClassLoaderService.class), mock(TimeTracker.class));
+        SExpression previous = null;
+        for (int i = 0; i < expressionCount / 2; i++) {
+            final SExpression constant = new SExpressionImpl("constant" + i, String.valueOf(i), ExpressionType.TYPE_CONSTANT.name(),
+                    String.class.getName(), null, null);
+            final List<SExpression> dependencies = previous == null ? Collections.singletonList(constant) : Arrays.asList(previous, constant);
+            previous = new SExpressionImpl("script" + i, "script" + i, ExpressionType.TYPE_READ_ONLY_SCRIPT.name(), String.class.getName(), "GROOVY",
+                    dependencies);
+        }
+        expressions = Collections.singletonList(previous);
+    }
+
+    @Benchmark
+    public List<Object> evaluate() throws Exception {
+        return resolverService.evaluate(expressions, new SExpressionContext(1L, "PROCESS_INSTANCE", 2L));
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ExpressionResolverBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static final class StubExpressionService implements ExpressionService {
+
+        @Override
+        public Object evaluate(final SExpression expression, final Map<Integer, Object> resolvedExpressions, final ContainerState containerState) {
+            return expression.getContent();
+        }
+
+        @Override
+        public Object evaluate(final SExpression expression, final Map<String, Object> dependencyValues, final Map<Integer, Object> resolvedExpressions,
+                final ContainerState containerState) {
+            return expression.getContent();
+        }
+
+        @Override
+        public List<Object> evaluate(final ExpressionKind expressionKind, final List<SExpression> expressions, final Map<String, Object> dependencyValues,
+                final Map<Integer, Object> resolvedExpressions, final ContainerState containerState) {
+            final List<Object> results = new ArrayList<>(expressions.size());
+            for (final SExpression expression : expressions) {
+                results.add(expression.getContent());
+            }
+            return results;
+        }
+
+        @Override
+        public boolean mustCheckExpressionReturnType() {
+            return false;
+        }
+
+        @Override
+        public boolean mustPutEvaluatedExpressionInContext(final ExpressionKind expressionKind) {
+            return false;
+        }
+    }
+}
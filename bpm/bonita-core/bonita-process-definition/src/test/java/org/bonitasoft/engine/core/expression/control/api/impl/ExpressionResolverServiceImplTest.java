@@ -13,19 +13,36 @@
  **/
 package org.bonitasoft.engine.core.expression.control.api.impl;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
 import org.bonitasoft.engine.classloader.ClassLoaderService;
 import org.bonitasoft.engine.core.expression.control.model.SExpressionContext;
 import org.bonitasoft.engine.core.process.definition.ProcessDefinitionService;
+import org.bonitasoft.engine.expression.ExpressionExecutorStrategy;
 import org.bonitasoft.engine.expression.ExpressionService;
+import org.bonitasoft.engine.expression.ExpressionType;
 import org.bonitasoft.engine.expression.model.SExpression;
+import org.bonitasoft.engine.expression.model.impl.SExpressionImpl;
 import org.bonitasoft.engine.tracking.TimeTracker;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -82,4 +99,78 @@ public class ExpressionResolverServiceImplTest {
         verify(classLoaderService, never()).getLocalClassLoader(anyString(), anyLong());
     }
 
+    @Test
+    public void evaluate_should_give_results_of_dependencies_to_the_expression_using_them() throws Exception {
+        final SExpression constant = new SExpressionImpl("constant", "12", ExpressionType.TYPE_CONSTANT.name(), Long.class.getName(), null, null);
+        final SExpression script = new SExpressionImpl("script", "constant + 1", ExpressionType.TYPE_READ_ONLY_SCRIPT.name(), Long.class.getName(),
+                "GROOVY", Collections.singletonList(constant));
+        doReturn(Collections.singletonList(12L)).when(expressionService).evaluate(eq(ExpressionExecutorStrategy.KIND_CONSTANT),
+                eq(Collections.singletonList(constant)), anyMap(), anyMap(), any());
+        doAnswer(invocation -> {
+            final Map<Integer, Object> resolvedExpressions = invocation.getArgument(2);
+            return (Long) resolvedExpressions.get(constant.getDiscriminant()) + 1;
+        }).when(expressionService).evaluate(eq(script), anyMap(), anyMap(), any());
+
+        final List<Object> results = resolverService.evaluate(Arrays.asList(script, constant), new SExpressionContext());
+
+        assertThat(results).containsExactly(13L, 12L);
+    }
+
+    @Test
+    public void should_reuse_evaluation_plan_of_the_same_expressions_of_a_process_definition() throws Exception {
+        final SExpression a = constant("a");
+        final ExpressionEvaluationPlan plan = resolverService.getEvaluationPlan(Collections.singletonList(a), context(12L));
+
+        assertThat(resolverService.getEvaluationPlan(Collections.singletonList(a), context(12L))).isSameAs(plan);
+        assertThat(resolverService.getEvaluationPlan(Collections.singletonList(constant("a")), context(12L))).isNotSameAs(plan);
+        assertThat(resolverService.getEvaluationPlan(Collections.singletonList(a), context(13L))).isNotSameAs(plan);
+        verify(processDefinitionService, never()).getProcessDefinition(anyLong());
+    }
+
+    @Test
+    public void should_drop_evaluation_plans_when_process_definition_is_invalidated() throws Exception {
+        final ArgumentCaptor<LongConsumer> invalidationListener = ArgumentCaptor.forClass(LongConsumer.class);
+        verify(processDefinitionService).addInvalidationListener(invalidationListener.capture());
+        final List<SExpression> expressions = Collections.singletonList(constant("a"));
+        final ExpressionEvaluationPlan plan = resolverService.getEvaluationPlan(expressions, context(12L));
+        final ExpressionEvaluationPlan planOfOtherDefinition = resolverService.getEvaluationPlan(expressions, context(13L));
+
+        invalidationListener.getValue().accept(12L);
+
+        assertThat(resolverService.getEvaluationPlan(expressions, context(12L))).isNotSameAs(plan);
+        assertThat(resolverService.getEvaluationPlan(expressions, context(13L))).isSameAs(planOfOtherDefinition);
+    }
+
+    @Test
+    public void should_bound_the_number_of_evaluation_plans_of_a_process_definition() throws Exception {
+        final List<SExpression> expressions = Collections.singletonList(constant("a"));
+        final ExpressionEvaluationPlan plan = resolverService.getEvaluationPlan(expressions, context(12L));
+
+        for (int i = 0; i < ExpressionResolverServiceImpl.MAX_CACHED_PLANS_PER_DEFINITION; i++) {
+            resolverService.getEvaluationPlan(Collections.singletonList(constant("a")), context(12L));
+        }
+
+        assertThat(resolverService.getEvaluationPlan(expressions, context(12L))).isNotSameAs(plan);
+    }
+
+    @Test
+    public void should_not_cache_evaluation_plan_of_expressions_not_coming_from_a_process_definition() throws Exception {
+        final List<SExpression> expressions = Collections.singletonList(constant("a"));
+        final SExpressionContext apiContext = context(12L);
+        apiContext.setCacheEvaluationPlan(false);
+
+        assertThat(resolverService.getEvaluationPlan(expressions, apiContext)).isNotSameAs(resolverService.getEvaluationPlan(expressions, apiContext));
+        assertThat(resolverService.getEvaluationPlan(expressions, new SExpressionContext()))
+                .isNotSameAs(resolverService.getEvaluationPlan(expressions, new SExpressionContext()));
+        verify(processDefinitionService, never()).getProcessDefinition(anyLong());
+    }
+
+    private SExpressionContext context(final long processDefinitionId) {
+        return new SExpressionContext(45L, "PROCESS", processDefinitionId);
+    }
+
+    private SExpression constant(final String content) {
+        return new SExpressionImpl("constant", content, ExpressionType.TYPE_CONSTANT.name(), String.class.getName(), null, null);
+    }
+
 }
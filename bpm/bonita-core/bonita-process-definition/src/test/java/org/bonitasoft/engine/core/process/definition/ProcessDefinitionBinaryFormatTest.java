@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.core.process.definition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+
+import javax.management.ObjectName;
+
+import org.bonitasoft.engine.bpm.process.DesignProcessDefinition;
+import org.bonitasoft.engine.bpm.process.impl.ProcessDefinitionBuilder;
+import org.bonitasoft.engine.expression.ExpressionBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProcessDefinitionBinaryFormatTest {
+
+    private final ProcessDefinitionBinaryFormat binaryFormat = new ProcessDefinitionBinaryFormat("7.7.0");
+
+    private DesignProcessDefinition designProcessDefinition;
+
+    @Before
+    public void before() throws Exception {
+        final ProcessDefinitionBuilder builder = new ProcessDefinitionBuilder().createNewInstance("process", "1.0");
+        builder.addActor("actor", true);
+        builder.addData("data", String.class.getName(), new ExpressionBuilder().createGroovyScriptExpression("script", "'a' + 'b'", String.class.getName()));
+        builder.addStartEvent("start");
+        builder.addUserTask("task", "actor").addDisplayName(new ExpressionBuilder().createConstantStringExpression("Task"));
+        builder.addTransition("start", "task");
+        designProcessDefinition = builder.done();
+    }
+
+    @Test
+    public void read_should_return_a_copy_of_the_written_definition() throws Exception {
+        final byte[] content = binaryFormat.write(designProcessDefinition);
+
+        final DesignProcessDefinition read = binaryFormat.read(content);
+
+        assertThat(read).isEqualTo(designProcessDefinition).isNotSameAs(designProcessDefinition);
+        assertThat(read.getActorInitiator().getName()).isEqualTo("actor");
+        assertThat(read.getFlowElementContainer().getActivity("task").getDisplayName().getContent()).isEqualTo("Task");
+    }
+
+    @Test
+    public void read_should_return_null_when_content_was_written_by_another_engine_version() throws Exception {
+        final byte[] content = new ProcessDefinitionBinaryFormat("7.6.3").write(designProcessDefinition);
+
+        assertThat(binaryFormat.read(content)).isNull();
+    }
+
+    @Test
+    public void read_should_return_null_when_there_is_no_content() throws Exception {
+        assertThat(binaryFormat.read(null)).isNull();
+    }
+
+    @Test
+    public void read_should_return_null_when_content_is_not_in_binary_format() throws Exception {
+        assertThat(binaryFormat.read("<processDefinition/>".getBytes())).isNull();
+    }
+
+    @Test
+    public void read_should_not_deserialize_classes_outside_of_the_jdk_and_bonita() throws Exception {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        final DataOutputStream header = new DataOutputStream(content);
+        header.writeInt(0x42504446);
+        header.writeInt(ProcessDefinitionBinaryFormat.FORMAT_VERSION);
+        header.writeUTF("7.7.0");
+        header.flush();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(new GZIPOutputStream(content))) {
+            objectOutputStream.writeObject(Collections.singletonList(new ObjectName("bonita:type=test")));
+        }
+
+        assertThatThrownBy(() -> binaryFormat.read(content.toByteArray())).isInstanceOf(InvalidClassException.class);
+    }
+
+    @Test
+    public void default_format_should_use_the_version_of_the_engine() throws Exception {
+        final byte[] content = new ProcessDefinitionBinaryFormat().write(designProcessDefinition);
+
+        assertThat(new ProcessDefinitionBinaryFormat().read(content)).isEqualTo(designProcessDefinition);
+        assertThat(binaryFormat.read(content)).isNull();
+    }
+
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.core.process.definition;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bonitasoft.engine.bpm.bar.ProcessDefinitionBARContribution;
+import org.bonitasoft.engine.bpm.connector.ConnectorEvent;
+import org.bonitasoft.engine.bpm.process.DesignProcessDefinition;
+import org.bonitasoft.engine.bpm.process.impl.ProcessDefinitionBuilder;
+import org.bonitasoft.engine.bpm.process.impl.UserTaskDefinitionBuilder;
+import org.bonitasoft.engine.cache.CacheService;
+import org.bonitasoft.engine.core.process.definition.model.SProcessDefinition;
+import org.bonitasoft.engine.core.process.definition.model.impl.SProcessDefinitionDeployInfoImpl;
+import org.bonitasoft.engine.core.process.definition.model.impl.SProcessDefinitionDesignContentImpl;
+import org.bonitasoft.engine.expression.Expression;
+import org.bonitasoft.engine.expression.ExpressionBuilder;
+import org.bonitasoft.engine.operation.OperationBuilder;
+import org.bonitasoft.engine.transaction.UserTransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the loading of the definitions of {@link #PROCESS_COUNT} deployed processes when none of them is in the cache, like after a restart, from their
+ * {@link ProcessDefinitionBinaryFormat binary content} and from their XML.
+ * <p>
+ * Each process has a chain of user tasks having data, operations, a connector and conditional transitions.
+ * Not executed by the build, run the main method (from the IDE or using the test classpath) to launch it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProcessDefinitionLoadingBenchmark {
+
+    private static final int PROCESS_COUNT = 500;
+
+    @Param({ "10", "100" })
+    public int taskCount;
+
+    private ProcessDefinitionServiceImpl processDefinitionService;
+
+    private final List<SProcessDefinitionDeployInfoImpl> xmlDeployInfos = new ArrayList<>();
+
+    private final List<SProcessDefinitionDeployInfoImpl> binaryDeployInfos = new ArrayList<>();
+
+    @Setup
+    public void setup() throws Exception {
+        processDefinitionService = new ProcessDefinitionServiceImpl(null, null, null, null, null, null, null, mock(CacheService.class),
+                mock(UserTransactionService.class));
+        final ProcessDefinitionBARContribution barContribution = new ProcessDefinitionBARContribution();
+        final ProcessDefinitionBinaryFormat binaryFormat = new ProcessDefinitionBinaryFormat();
+        for (int i = 0; i < PROCESS_COUNT; i++) {
+            final DesignProcessDefinition designProcessDefinition = buildProcess("process" + i);
+            final String xml = barContribution.convertProcessToXml(designProcessDefinition);
+            xmlDeployInfos.add(deployInfo(i, xml, null));
+            binaryDeployInfos.add(deployInfo(i, xml, binaryFormat.write(designProcessDefinition)));
+        }
+    }
+
+    private SProcessDefinitionDeployInfoImpl deployInfo(final long processId, final String xml, final byte[] binary) {
+        final SProcessDefinitionDesignContentImpl designContent = new SProcessDefinitionDesignContentImpl();
+        designContent.setContent(xml);
+        designContent.setBinaryContent(binary);
+        final SProcessDefinitionDeployInfoImpl deployInfo = new SProcessDefinitionDeployInfoImpl();
+        deployInfo.setProcessId(processId);
+        deployInfo.setDesignContent(designContent);
+        return deployInfo;
+    }
+
+    private DesignProcessDefinition buildProcess(final String name) throws Exception {
+        final ProcessDefinitionBuilder builder = new ProcessDefinitionBuilder().createNewInstance(name, "1.0");
+        builder.addActor("actor", true);
+        builder.addStartEvent("start");
+        String previous = "start";
+        for (int i = 0; i < taskCount; i++) {
+            final String task = "task" + i;
+            final Expression count = new ExpressionBuilder().createConstantIntegerExpression(i);
+            final UserTaskDefinitionBuilder userTask = builder.addUserTask(task, "actor");
+            userTask.addDisplayName(new ExpressionBuilder().createGroovyScriptExpression("displayName" + i, "'Step ' + count", String.class.getName()));
+            userTask.addData("comment" + i, String.class.getName(), new ExpressionBuilder().createConstantStringExpression("comment"));
+            userTask.addIntegerData("count" + i, count);
+            userTask.addOperation(new OperationBuilder().createSetDataOperation("comment" + i,
+                    new ExpressionBuilder().createGroovyScriptExpression("update" + i, "comment + count", String.class.getName())));
+            userTask.addConnector("connector" + i, "email", "1.0", ConnectorEvent.ON_FINISH)
+                    .addInput("to", new ExpressionBuilder().createConstantStringExpression("someone@example.com"));
+            builder.addTransition(previous, task,
+                    new ExpressionBuilder().createGroovyScriptExpression("condition" + i, "count > 0", Boolean.class.getName()));
+            previous = task;
+        }
+        builder.addEndEvent("end");
+        builder.addTransition(previous, "end");
+        return builder.done();
+    }
+
+    @Benchmark
+    public void loadFromBinary(final Blackhole blackhole) throws Exception {
+        load(binaryDeployInfos, blackhole);
+    }
+
+    @Benchmark
+    public void loadFromXml(final Blackhole blackhole) throws Exception {
+        load(xmlDeployInfos, blackhole);
+    }
+
+    private void load(final List<SProcessDefinitionDeployInfoImpl> deployInfos, final Blackhole blackhole) throws Exception {
+        for (final SProcessDefinitionDeployInfoImpl deployInfo : deployInfos) {
+            final SProcessDefinition processDefinition = processDefinitionService.readSProcessDefinitionFromDatabase(deployInfo.getProcessId(), deployInfo,
+                    null);
+            blackhole.consume(processDefinition);
+        }
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ProcessDefinitionLoadingBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
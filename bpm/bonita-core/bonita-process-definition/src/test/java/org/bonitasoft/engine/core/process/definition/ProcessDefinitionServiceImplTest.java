@@ -26,6 +26,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.LongConsumer;
 
 import org.bonitasoft.engine.bpm.bar.ProcessDefinitionBARContribution;
 import org.bonitasoft.engine.bpm.process.ActivationState;
@@ -67,6 +68,9 @@ import org.bonitasoft.engine.recorder.model.UpdateRecord;
 import org.bonitasoft.engine.services.QueriableLoggerService;
 import org.bonitasoft.engine.session.SessionService;
 import org.bonitasoft.engine.sessionaccessor.ReadSessionAccessor;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.TransactionState;
+import org.bonitasoft.engine.transaction.UserTransactionService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -106,6 +110,10 @@ public class ProcessDefinitionServiceImplTest {
     private SessionService sessionService;
     @Mock
     private ProcessDefinitionBARContribution processDefinitionBARContribution;
+    @Mock
+    private ProcessDefinitionBinaryFormat processDefinitionBinaryFormat;
+    @Mock
+    private UserTransactionService userTransactionService;
     @InjectMocks
     @Spy
     private ProcessDefinitionServiceImpl processDefinitionServiceImpl;
@@ -123,6 +131,7 @@ public class ProcessDefinitionServiceImplTest {
         designProcessDefinition = new DesignProcessDefinitionImpl("THE NAME", "THE VERSION");
         doReturn(designProcessDefinition).when(processDefinitionBARContribution).convertXmlToProcess(THE_PROCESS_XML_CONTENT);
         processDefinitionServiceImpl.processDefinitionBARContribution = processDefinitionBARContribution;
+        processDefinitionServiceImpl.processDefinitionBinaryFormat = processDefinitionBinaryFormat;
     }
 
     /**
@@ -370,6 +379,7 @@ public class ProcessDefinitionServiceImplTest {
 
         assertThat(processDefinition).as("returned process definition from cache").isEqualTo(sProcessDefinition);
         verify(cacheService, times(0)).store(anyString(), any(Serializable.class), any());
+        verify(processDefinitionServiceImpl, never()).getProcessDeploymentInfo(PROCESS_ID);
     }
 
     @Test
@@ -385,16 +395,42 @@ public class ProcessDefinitionServiceImplTest {
     }
 
     @Test
-    public void getProcessDefinition_from_database_when_cache_is_outdated() throws Exception {
+    public void getProcessDefinition_should_not_keep_definition_in_cache_when_a_definition_changed_during_the_read() throws Exception {
         sProcessDefinitionDeployInfo.setLastUpdateDate(5478L);
-        final SProcessDefinitionImpl processDefinitionB = new SProcessDefinitionImpl("a", "b");
-        final SProcessDefinitionImpl processDefinitionC = new SProcessDefinitionImpl("a", "c");
-        doReturn(new Pair<Long, SProcessDefinition>(5477L, processDefinitionB)).when(processDefinitionServiceImpl).getSProcessDefinitionFromCache(PROCESS_ID);
-        doReturn(processDefinitionC).when(processDefinitionServiceImpl).convertDesignProcessDefinition(designProcessDefinition);
+        final SProcessDefinitionImpl sProcessDefinition = new SProcessDefinitionImpl("a", "b");
+        doReturn(sProcessDefinition).when(processDefinitionServiceImpl).convertDesignProcessDefinition(designProcessDefinition);
+        doReturn(12L, 13L).when(cacheService).get(ProcessDefinitionService.PROCESS_CACHE_NAME, ProcessDefinitionServiceImpl.DEFINITIONS_VERSION_KEY);
+
         final SProcessDefinition processDefinition = processDefinitionServiceImpl.getProcessDefinition(PROCESS_ID);
 
-        assertThat(processDefinition).as("returned process definition from cache").isEqualTo(processDefinitionC);
-        verify(cacheService, times(1)).store(anyString(), any(Serializable.class), any());
+        assertThat(processDefinition).isEqualTo(sProcessDefinition);
+        verify(cacheService).remove(ProcessDefinitionService.PROCESS_CACHE_NAME, PROCESS_ID);
+    }
+
+    @Test
+    public void update_should_invalidate_the_definition_now_and_when_the_transaction_completes() throws Exception {
+        final UpdateRecord updateRecord = UpdateRecord.buildSetFields(sProcessDefinitionDeployInfo, new EntityUpdateDescriptor());
+
+        processDefinitionServiceImpl.update(PROCESS_ID, sProcessDefinitionDeployInfo, updateRecord, ProcessDefinitionService.PROCESSDEFINITION_IS_ENABLED);
+
+        verify(cacheService).remove(ProcessDefinitionService.PROCESS_CACHE_NAME, PROCESS_ID);
+        verify(cacheService).store(eq(ProcessDefinitionService.PROCESS_CACHE_NAME), eq(ProcessDefinitionServiceImpl.DEFINITIONS_VERSION_KEY), any());
+        final ArgumentCaptor<BonitaTransactionSynchronization> synchronization = ArgumentCaptor.forClass(BonitaTransactionSynchronization.class);
+        verify(userTransactionService).registerBonitaSynchronization(synchronization.capture());
+
+        synchronization.getValue().afterCompletion(TransactionState.COMMITTED);
+
+        verify(cacheService, times(2)).remove(ProcessDefinitionService.PROCESS_CACHE_NAME, PROCESS_ID);
+    }
+
+    @Test
+    public void invalidateProcessDefinitionInCache_should_notify_invalidation_listeners() throws Exception {
+        final LongConsumer listener = mock(LongConsumer.class);
+        processDefinitionServiceImpl.addInvalidationListener(listener);
+
+        processDefinitionServiceImpl.invalidateProcessDefinitionInCache(PROCESS_ID);
+
+        verify(listener).accept(PROCESS_ID);
     }
 
     /**
@@ -459,30 +495,6 @@ public class ProcessDefinitionServiceImplTest {
                 .<SQueriableLog> argThat(log -> log.getRawMessage().equals(string1024.substring(0, 255))));
     }
 
-    @Test
-    public void updateLastUpdateDateInCache_should_update_the_lastUpdateDate_in_cache_if_exists() throws Exception {
-        // Given
-        final SProcessDefinitionDeployInfo sProcessDefinitionDeployInfo = mock(SProcessDefinitionDeployInfo.class);
-        doReturn(5478L).when(sProcessDefinitionDeployInfo).getLastUpdateDate();
-        final SProcessDefinitionImpl sProcessDefinition = new SProcessDefinitionImpl("a", "b");
-        sProcessDefinition.setId(56L);
-        doReturn(new Pair<Long, SProcessDefinition>(541L, sProcessDefinition)).when(cacheService).get(anyString(), any());
-        // When
-        processDefinitionServiceImpl.updateSProcessDefinitionTimestampInCache(56L, sProcessDefinitionDeployInfo);
-        // Then
-        verify(cacheService).store(ProcessDefinitionService.PROCESS_CACHE_NAME, 56L, new Pair<Long, SProcessDefinition>(5478L, sProcessDefinition));
-    }
-
-    @Test
-    public void updateLastUpdateDateInCache_should_update_the_lastUpdateDate_in_cache_if_not_exists() throws Exception {
-        // Given
-        final SProcessDefinitionDeployInfo sProcessDefinitionDeployInfo = mock(SProcessDefinitionDeployInfo.class);
-        // When
-        processDefinitionServiceImpl.updateSProcessDefinitionTimestampInCache(3L, sProcessDefinitionDeployInfo);
-        // Then
-        verify(cacheService, times(0)).store(anyString(), any(Serializable.class), any());
-    }
-
     @Test(expected = SProcessDefinitionNotFoundException.class)
     public final void updateProcessDefinitionDeployInfoNotExists() throws Exception {
         // Given
@@ -1634,6 +1646,19 @@ public class ProcessDefinitionServiceImplTest {
         assertThat(designProcessDefinitionResult).isSameAs(designProcessDefinition);
     }
 
+    @Test
+    public void getDesignProcessDefinition_should_read_the_binary_content_without_parsing_the_xml() throws Exception {
+        final byte[] binaryContent = { 1, 2, 3 };
+        ((SProcessDefinitionDesignContentImpl) sProcessDefinitionDeployInfo.getDesignContent()).setBinaryContent(binaryContent);
+        final DesignProcessDefinition fromBinary = new DesignProcessDefinitionImpl("THE NAME", "THE VERSION");
+        doReturn(fromBinary).when(processDefinitionBinaryFormat).read(binaryContent);
+
+        final DesignProcessDefinition result = processDefinitionServiceImpl.getDesignProcessDefinition(PROCESS_ID);
+
+        assertThat(result).isSameAs(fromBinary);
+        verify(processDefinitionBARContribution, never()).convertXmlToProcess(anyString());
+    }
+
     @Test
     public void updateShouldWorkForGroovyExpression() throws Exception {
         final long expressionDefinitionId = 77L;
@@ -1643,11 +1668,16 @@ public class ProcessDefinitionServiceImplTest {
         doReturn(expression).when(processDefinitionServiceImpl).getExpression(designProcessDefinition, expressionDefinitionId);
         doReturn("someXMLContent").when(processDefinitionServiceImpl).getProcessContent(designProcessDefinition);
         doReturn(true).when(processDefinitionServiceImpl).isValidExpressionTypeToUpdate(nullable(String.class));
+        final byte[] binaryContent = { 1, 2, 3 };
+        doReturn(binaryContent).when(processDefinitionBinaryFormat).write(designProcessDefinition);
 
         processDefinitionServiceImpl.updateExpressionContent(PROCESS_ID, expressionDefinitionId, "string");
 
-        verify(processDefinitionServiceImpl).updateProcessDefinitionDeployInfo(eq(PROCESS_ID), any(EntityUpdateDescriptor.class),
+        final ArgumentCaptor<EntityUpdateDescriptor> descriptor = ArgumentCaptor.forClass(EntityUpdateDescriptor.class);
+        verify(processDefinitionServiceImpl).updateProcessDefinitionDeployInfo(eq(PROCESS_ID), descriptor.capture(),
                 eq("Update expression <77>, old content is <null>"));
+        assertThat(descriptor.getValue().getFields()).containsEntry("designContent.content", "someXMLContent")
+                .containsEntry("designContent.binaryContent", binaryContent);
     }
 
     @Test(expected = SObjectModificationException.class)
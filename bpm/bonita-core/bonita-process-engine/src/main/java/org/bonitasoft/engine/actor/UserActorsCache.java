@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.actor;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bonitasoft.engine.actor.mapping.ActorMappingService;
+import org.bonitasoft.engine.persistence.SBonitaReadException;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.STransactionNotFoundException;
+import org.bonitasoft.engine.transaction.TransactionState;
+import org.bonitasoft.engine.transaction.UserTransactionService;
+
+/**
+ * Bounded in-memory cache of the ids of the actors each user is mapped to, directly or through its memberships.
+ * <p>
+ * It allows to search the pending tasks of a user by matching the pending mappings against a known list of actors, instead of resolving the actor
+ * members, the memberships, the groups and the roles of the user in each query.
+ * <p>
+ * Entries are invalidated by {@link org.bonitasoft.engine.execution.handler.UserActorsInvalidationHandler} when memberships or actor members change:
+ * immediately, so that the transaction doing the change sees it, and again when the transaction completes. Entries computed while a change was not
+ * yet committed are not kept, so that the state before the change is never cached.
+ * The cache is local to the node and changes done on other nodes do not invalidate it, so it is disabled by default (maximum size of 0) and is
+ * meant for single node installations.
+ */
+public class UserActorsCache {
+
+    private final ActorMappingService actorMappingService;
+
+    private final UserTransactionService userTransactionService;
+
+    private final int maxSize;
+
+    private final Map<Long, Set<Long>> actorIdsByUser;
+
+    /** incremented on each invalidation, guarded by actorIdsByUser */
+    private long generation;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    public UserActorsCache(final ActorMappingService actorMappingService, final UserTransactionService userTransactionService, final int maxSize) {
+        this.actorMappingService = actorMappingService;
+        this.userTransactionService = userTransactionService;
+        this.maxSize = maxSize;
+        actorIdsByUser = new LinkedHashMap<Long, Set<Long>>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, Set<Long>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return true when the actors of users are kept, i.e. reading them before searching pending tasks saves the resolution of the actors in the queries
+     */
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * @return the ids of the actors the given user is mapped to. Must be called in a transaction.
+     */
+    public Set<Long> getActorIdsOfUser(final long userId) throws SBonitaReadException {
+        if (maxSize <= 0) {
+            return actorMappingService.getActorIdsOfUser(userId);
+        }
+        final long generationBeforeRead;
+        synchronized (actorIdsByUser) {
+            final Set<Long> actorIds = actorIdsByUser.get(userId);
+            if (actorIds != null) {
+                hitCount.increment();
+                return actorIds;
+            }
+            generationBeforeRead = generation;
+        }
+        missCount.increment();
+        final Set<Long> actorIds = Collections.unmodifiableSet(actorMappingService.getActorIdsOfUser(userId));
+        synchronized (actorIdsByUser) {
+            if (generation == generationBeforeRead) {
+                actorIdsByUser.put(userId, actorIds);
+            }
+        }
+        return actorIds;
+    }
+
+    /**
+     * Invalidate the actors of the given user, e.g. because one of its memberships changed
+     */
+    public void invalidate(final long userId) {
+        remove(userId);
+        registerInvalidationOnCompletion(new InvalidateOnCompletionSynchronization(userId));
+    }
+
+    /**
+     * Invalidate the actors of all users, e.g. because a group, a role or a membership was added to or removed from an actor
+     */
+    public void invalidateAll() {
+        clear();
+        registerInvalidationOnCompletion(new InvalidateOnCompletionSynchronization(null));
+    }
+
+    private void registerInvalidationOnCompletion(final InvalidateOnCompletionSynchronization synchronization) {
+        try {
+            userTransactionService.registerBonitaSynchronization(synchronization);
+        } catch (final STransactionNotFoundException e) {
+            // not in a transaction: the change is already visible
+        }
+    }
+
+    private void remove(final long userId) {
+        synchronized (actorIdsByUser) {
+            generation++;
+            actorIdsByUser.remove(userId);
+        }
+    }
+
+    private void clear() {
+        synchronized (actorIdsByUser) {
+            generation++;
+            actorIdsByUser.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (actorIdsByUser) {
+            return actorIdsByUser.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    private class InvalidateOnCompletionSynchronization implements BonitaTransactionSynchronization {
+
+        private final Long userId;
+
+        InvalidateOnCompletionSynchronization(final Long userId) {
+            this.userId = userId;
+        }
+
+        @Override
+        public void beforeCommit() {
+        }
+
+        @Override
+        public void afterCompletion(final TransactionState txState) {
+            // also on rollback: entries computed in the transaction saw the changes that were rolled back
+            if (userId != null) {
+                remove(userId);
+            } else {
+                clear();
+            }
+        }
+    }
+
+}
@@ -85,6 +85,8 @@ public class OrganizationAPIImpl {
         identityService.deleteAllGroups();
         identityService.deleteAllRoles();
         identityService.deleteAllUsers();
+        // members and memberships are deleted in bulk, without events
+        tenantAccessor.getUserActorsCache().invalidateAll();
     }
 
     private void deleteCustomUserInfo(IdentityService identityService) throws SIdentityException {
@@ -37,6 +37,7 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 
 import org.apache.commons.io.FileUtils;
+import org.bonitasoft.engine.actor.UserActorsCache;
 import org.bonitasoft.engine.actor.mapping.ActorMappingService;
 import org.bonitasoft.engine.actor.mapping.SActorNotFoundException;
 import org.bonitasoft.engine.actor.mapping.model.SActor;
@@ -1366,7 +1367,7 @@ public class ProcessAPIImpl implements ProcessAPI {
             if (actorIds.isEmpty()) {
                 return 0L;
             }
-            return activityInstanceService.getNumberOfPendingTasksForUser(userId, QueryOptions.countQueryOptions());
+            return activityInstanceService.getNumberOfPendingTasksForUser(userId, actorIds, QueryOptions.countQueryOptions());
         } catch (final SBonitaException e) {
             throw new RetrieveException(e);
         }
@@ -3211,6 +3212,7 @@ public class ProcessAPIImpl implements ProcessAPI {
             final Map<String, SExpression> connectorsExps = ModelConvertor.constructExpressions(connectorInputParameters);
             final SExpressionContext expcontext = new SExpressionContext();
             expcontext.setProcessDefinitionId(processDefinitionId);
+            expcontext.setCacheEvaluationPlan(false);
             expcontext.setContainerState(ContainerState.ACTIVE);
             final SProcessDefinition processDef = processDefinitionService.getProcessDefinition(processDefinitionId);
             if (processDef != null) {
@@ -4230,19 +4232,35 @@ public class ProcessAPIImpl implements ProcessAPI {
         final ActivityInstanceService activityInstanceService = tenantAccessor.getActivityInstanceService();
         final FlowNodeStateManager flowNodeStateManager = tenantAccessor.getFlowNodeStateManager();
         final SearchEntitiesDescriptor searchEntitiesDescriptor = tenantAccessor.getSearchEntitiesDescriptor();
+        final Set<Long> actorIds;
+        try {
+            actorIds = getCachedActorIdsOfUser(tenantAccessor.getUserActorsCache(), userId);
+        } catch (final SBonitaReadException e) {
+            throw new SearchException(e);
+        }
         if (orAssignedToUser) {
             return AbstractHumanTaskInstanceSearchEntity.searchHumanTaskInstance(searchEntitiesDescriptor.getSearchHumanTaskInstanceDescriptor(),
                     searchOptions,
                     flowNodeStateManager,
-                    (queryOptions) -> activityInstanceService.getNumberOfPendingOrAssignedTasks(userId, queryOptions),
-                    (queryOptions) -> activityInstanceService.searchPendingOrAssignedTasks(userId, queryOptions)).search();
+                    (queryOptions) -> activityInstanceService.getNumberOfPendingOrAssignedTasks(userId, actorIds, queryOptions),
+                    (queryOptions) -> activityInstanceService.searchPendingOrAssignedTasks(userId, actorIds, queryOptions)).search();
         } else {
             return AbstractHumanTaskInstanceSearchEntity.searchHumanTaskInstance(searchEntitiesDescriptor.getSearchHumanTaskInstanceDescriptor(),
                     searchOptions,
                     flowNodeStateManager,
-                    (queryOptions) -> activityInstanceService.getNumberOfPendingTasksForUser(userId, queryOptions),
-                    (queryOptions) -> activityInstanceService.searchPendingTasksForUser(userId, queryOptions)).search();
+                    (queryOptions) -> activityInstanceService.getNumberOfPendingTasksForUser(userId, actorIds, queryOptions),
+                    (queryOptions) -> activityInstanceService.searchPendingTasksForUser(userId, actorIds, queryOptions)).search();
+        }
+    }
+
+    /**
+     * @return the actors of the user when they are cached, otherwise an empty set so that they are resolved in the queries, without an additional one
+     */
+    static Set<Long> getCachedActorIdsOfUser(final UserActorsCache userActorsCache, final long userId) throws SBonitaReadException {
+        if (!userActorsCache.isEnabled()) {
+            return Collections.emptySet();
         }
+        return userActorsCache.getActorIdsOfUser(userId);
     }
 
     @Override
@@ -4862,6 +4880,7 @@ public class ProcessAPIImpl implements ProcessAPI {
         final SExpression sExpression = ModelConvertor.constructSExpression(expression);
         final SExpressionContext expcontext = new SExpressionContext();
         expcontext.setProcessDefinitionId(processDefinitionId);
+        expcontext.setCacheEvaluationPlan(false);
         SProcessDefinition processDef;
         try {
             processDef = processDefinitionService.getProcessDefinition(processDefinitionId);
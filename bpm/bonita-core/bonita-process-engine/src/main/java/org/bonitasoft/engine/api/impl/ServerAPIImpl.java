@@ -18,9 +18,13 @@ import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.bonitasoft.engine.api.NoSessionRequired;
 import org.bonitasoft.engine.api.PlatformAPI;
@@ -75,6 +79,11 @@ public class ServerAPIImpl implements ServerAPI {
     private static final long serialVersionUID = -161775388604256321L;
     private static final String IS_PAUSED = "isPaused";
 
+    /**
+     * API methods already resolved, shared by all instances as a new ServerAPIImpl is created for each call.
+     */
+    private static final ConcurrentMap<APIMethodKey, APIMethod> API_METHODS = new ConcurrentHashMap<>();
+
     protected final APIAccessResolver accessResolver;
 
     private final boolean cleanSession;
@@ -261,18 +270,28 @@ public class ServerAPIImpl implements ServerAPI {
 
     Object invokeAPI(final String apiInterfaceName, final String methodName, final List<String> classNameParameters, final Object[] parametersValues,
             final Session session) throws Throwable {
-        final Class<?>[] parameterTypes = getParameterTypes(classNameParameters);
-
         final Object apiImpl = accessResolver.getAPIImplementation(apiInterfaceName);
-        final Method method = ClassReflector.getMethod(apiImpl.getClass(), methodName, parameterTypes);
-        // No session required means that there is no transaction
-        if (method.isAnnotationPresent(CustomTransactions.class) || method.isAnnotationPresent(NoSessionRequired.class)) {
-            return invokeAPIOutsideTransaction(parametersValues, apiImpl, method, apiInterfaceName, session);
+        final APIMethod apiMethod = getAPIMethod(apiImpl.getClass(), methodName, classNameParameters);
+        if (apiMethod.outsideTransaction) {
+            return invokeAPIOutsideTransaction(parametersValues, apiImpl, apiMethod.method, apiInterfaceName, session);
         } else {
-            return invokeAPIInTransaction(parametersValues, apiImpl, method, session, apiInterfaceName);
+            return invokeAPIInTransaction(parametersValues, apiImpl, apiMethod.method, session, apiInterfaceName);
         }
     }
 
+    private APIMethod getAPIMethod(final Class<?> apiClass, final String methodName, final List<String> classNameParameters)
+            throws ClassNotFoundException, NoSuchMethodException {
+        final APIMethodKey key = new APIMethodKey(apiClass, methodName, classNameParameters);
+        final APIMethod apiMethod = API_METHODS.get(key);
+        if (apiMethod != null) {
+            return apiMethod;
+        }
+        final Method method = ClassReflector.getMethod(apiClass, methodName, getParameterTypes(classNameParameters));
+        final APIMethod resolved = new APIMethod(method);
+        final APIMethod previous = API_METHODS.putIfAbsent(key.copy(), resolved);
+        return previous != null ? previous : resolved;
+    }
+
     protected Object invokeAPIOutsideTransaction(Object[] parametersValues, Object apiImpl, Method method, String apiInterfaceName, Session session)
             throws Throwable {
         checkMethodAccessibility(apiImpl, apiInterfaceName, method, session, /* Not in transaction */false);
@@ -355,10 +374,30 @@ public class ServerAPIImpl implements ServerAPI {
      * @return true if the tenant is available, false otherwise (if the tenant is paused)
      */
     protected boolean isTenantAvailable(final long tenantId, final Session session, boolean isAlreadyInTransaction) {
+        final TenantStateCache tenantStateCache = getTenantStateCache();
+        final Boolean paused = tenantStateCache.isPaused(tenantId);
+        if (paused != null) {
+            return !paused;
+        }
+        final long version = tenantStateCache.getVersion();
+        final boolean available = isTenantAvailableInDatabase(tenantId, session, isAlreadyInTransaction);
+        tenantStateCache.loaded(tenantId, !available, version);
+        return available;
+    }
+
+    protected TenantStateCache getTenantStateCache() {
+        try {
+            return getServiceAccessorFactoryInstance().createPlatformServiceAccessor().getTenantStateCache();
+        } catch (final Exception e) {
+            throw new BonitaRuntimeException("Unable to retrieve the state of the tenants", e);
+        }
+    }
+
+    private boolean isTenantAvailableInDatabase(final long tenantId, final Session session, boolean isAlreadyInTransaction) {
         final Object apiImpl;
         try {
             apiImpl = accessResolver.getAPIImplementation(TenantAdministrationAPI.class.getName());
-            final Method method = ClassReflector.getMethod(apiImpl.getClass(), IS_PAUSED);
+            final Method method = getAPIMethod(apiImpl.getClass(), IS_PAUSED, Collections.<String> emptyList()).method;
             final Boolean paused;
             if (isAlreadyInTransaction) {
                 paused = (Boolean) invokeAPI(method, apiImpl);
@@ -408,7 +447,7 @@ public class ServerAPIImpl implements ServerAPI {
     private boolean isNodeStarted() {
         try {
             final Object apiImpl = accessResolver.getAPIImplementation(PlatformAPI.class.getName());
-            final Method method = ClassReflector.getMethod(apiImpl.getClass(), IS_NODE_STARTED_METHOD_NAME);
+            final Method method = getAPIMethod(apiImpl.getClass(), IS_NODE_STARTED_METHOD_NAME, Collections.<String> emptyList()).method;
             return (Boolean) invokeAPI(method, apiImpl);
         } catch (final Throwable e) {
             return false;
@@ -541,6 +580,55 @@ public class ServerAPIImpl implements ServerAPI {
         return classLoader;
     }
 
+    private static final class APIMethodKey {
+
+        private final Class<?> apiClass;
+        private final String methodName;
+        private final List<String> classNameParameters;
+
+        private APIMethodKey(final Class<?> apiClass, final String methodName, final List<String> classNameParameters) {
+            this.apiClass = apiClass;
+            this.methodName = methodName;
+            this.classNameParameters = classNameParameters != null ? classNameParameters : Collections.<String> emptyList();
+        }
+
+        /**
+         * @return a key that does not depend on the list of parameters given by the caller
+         */
+        private APIMethodKey copy() {
+            return new APIMethodKey(apiClass, methodName, new ArrayList<>(classNameParameters));
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final APIMethodKey that = (APIMethodKey) o;
+            return apiClass == that.apiClass && methodName.equals(that.methodName) && classNameParameters.equals(that.classNameParameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * apiClass.hashCode() + methodName.hashCode()) + classNameParameters.hashCode();
+        }
+    }
+
+    private static final class APIMethod {
+
+        private final Method method;
+        // No session required means that there is no transaction
+        private final boolean outsideTransaction;
+
+        private APIMethod(final Method method) {
+            this.method = method;
+            outsideTransaction = method.isAnnotationPresent(CustomTransactions.class) || method.isAnnotationPresent(NoSessionRequired.class);
+        }
+    }
+
     protected enum SessionType {
         PLATFORM, API
     }
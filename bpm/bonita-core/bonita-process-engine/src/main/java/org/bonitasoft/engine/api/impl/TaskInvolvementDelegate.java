@@ -16,6 +16,7 @@ package org.bonitasoft.engine.api.impl;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import org.bonitasoft.engine.bpm.flownode.ActivityInstanceNotFoundException;
 import org.bonitasoft.engine.bpm.flownode.HumanTaskInstance;
@@ -103,12 +104,14 @@ public class TaskInvolvementDelegate {
     }
 
     public boolean hasUserPendingOrAssignedTasks(long userId, Long processInstanceId) throws SExecutionException {
-        final ActivityInstanceService activityInstanceService = getTenantServiceAccessor().getActivityInstanceService();
+        final TenantServiceAccessor tenantServiceAccessor = getTenantServiceAccessor();
+        final ActivityInstanceService activityInstanceService = tenantServiceAccessor.getActivityInstanceService();
         // is user assigned or has pending tasks on this process instance:
         final QueryOptions queryOptions = new QueryOptions(0, 1, Collections.EMPTY_LIST, Arrays.asList(new FilterOption(SHumanTaskInstance.class,
                 "logicalGroup2", processInstanceId)), null);
         try {
-            return activityInstanceService.getNumberOfPendingOrAssignedTasks(userId, queryOptions) > 0;
+            final Set<Long> actorIds = ProcessAPIImpl.getCachedActorIdsOfUser(tenantServiceAccessor.getUserActorsCache(), userId);
+            return activityInstanceService.getNumberOfPendingOrAssignedTasks(userId, actorIds, queryOptions) > 0;
         } catch (SBonitaReadException e) {
             throw new SExecutionException(e);
         }
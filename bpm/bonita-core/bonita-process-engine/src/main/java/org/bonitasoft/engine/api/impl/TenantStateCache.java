@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.api.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node local view of the paused state of the tenants, so that API calls do not read the tenant in database to know if they can be executed.
+ * <p>
+ * The state of a tenant is read from the database on first access, then it is only changed when the tenant is paused or resumed: the new state is set on
+ * all nodes by {@link org.bonitasoft.engine.api.impl.transaction.SetServiceState}.
+ * Each change increments a version, a state read from the database concurrently with a change is not kept because it might be older than the change.
+ */
+public class TenantStateCache {
+
+    private final ConcurrentMap<Long, Boolean> pausedByTenant = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * @return whether the tenant is paused, or null if its state is not known yet
+     */
+    public Boolean isPaused(final long tenantId) {
+        return pausedByTenant.get(tenantId);
+    }
+
+    /**
+     * @return the version to give to {@link #loaded(long, boolean, long)}, to be taken before reading the state of the tenant
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Keep the state read from the database, unless it changed since the given version was taken.
+     */
+    public synchronized void loaded(final long tenantId, final boolean paused, final long versionBeforeLoad) {
+        if (version.get() == versionBeforeLoad) {
+            pausedByTenant.putIfAbsent(tenantId, paused);
+        }
+    }
+
+    public synchronized void setPaused(final long tenantId, final boolean paused) {
+        version.incrementAndGet();
+        pausedByTenant.put(tenantId, paused);
+    }
+
+    public synchronized void invalidate(final long tenantId) {
+        version.incrementAndGet();
+        pausedByTenant.remove(tenantId);
+    }
+
+}
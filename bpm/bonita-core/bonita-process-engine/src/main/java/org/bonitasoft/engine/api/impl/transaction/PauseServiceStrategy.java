@@ -13,6 +13,7 @@
  **/
 package org.bonitasoft.engine.api.impl.transaction;
 
+import org.bonitasoft.engine.api.impl.TenantStateCache;
 import org.bonitasoft.engine.commons.LifecycleService;
 import org.bonitasoft.engine.commons.exceptions.SBonitaException;
 
@@ -38,4 +39,9 @@ public class PauseServiceStrategy implements ServiceStrategy {
         return false;
     }
 
+    @Override
+    public void updateTenantState(final TenantStateCache tenantStateCache, final long tenantId) {
+        tenantStateCache.setPaused(tenantId, true);
+    }
+
 }
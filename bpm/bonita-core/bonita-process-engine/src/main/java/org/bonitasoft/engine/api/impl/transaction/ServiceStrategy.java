@@ -15,6 +15,7 @@ package org.bonitasoft.engine.api.impl.transaction;
 
 import java.io.Serializable;
 
+import org.bonitasoft.engine.api.impl.TenantStateCache;
 import org.bonitasoft.engine.commons.LifecycleService;
 import org.bonitasoft.engine.commons.exceptions.SBonitaException;
 
@@ -29,4 +30,11 @@ public interface ServiceStrategy extends Serializable {
 
     boolean shouldRefreshClassLoaders();
 
+    /**
+     * Update the node local state of the tenant once its services changed state. By default, the state will be read again from the database.
+     */
+    default void updateTenantState(TenantStateCache tenantStateCache, long tenantId) {
+        tenantStateCache.invalidate(tenantId);
+    }
+
 }
@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.concurrent.Callable;
 
 import org.bonitasoft.engine.api.impl.TenantConfiguration;
+import org.bonitasoft.engine.api.impl.TenantStateCache;
 import org.bonitasoft.engine.classloader.ClassLoaderService;
 import org.bonitasoft.engine.commons.TenantLifecycleService;
 import org.bonitasoft.engine.commons.exceptions.SBonitaException;
@@ -33,6 +34,11 @@ import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
 import org.bonitasoft.engine.service.PlatformServiceAccessor;
 import org.bonitasoft.engine.service.TenantServiceAccessor;
 import org.bonitasoft.engine.service.impl.ServiceAccessorFactory;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.STransactionException;
+import org.bonitasoft.engine.transaction.STransactionNotFoundException;
+import org.bonitasoft.engine.transaction.TransactionService;
+import org.bonitasoft.engine.transaction.TransactionState;
 
 /**
  * @author Matthieu Chaffotte
@@ -81,6 +87,7 @@ public class SetServiceState implements Callable<Void>, Serializable {
                     throw new UpdateException("Unable to " + serviceStrategy.getStateName() + " service: " + tenantService.getClass().getName(), sbe);
                 }
             }
+            updateTenantStateOnCommit(platformServiceAccessor.getTransactionService(), platformServiceAccessor.getTenantStateCache());
             return null;
         } finally {
             // reset previous class loader:
@@ -88,6 +95,38 @@ public class SetServiceState implements Callable<Void>, Serializable {
         }
     }
 
+    /**
+     * The state of the tenant is persisted by the transaction calling this: the node-wide state is only changed once it is committed.
+     */
+    private void updateTenantStateOnCommit(final TransactionService transactionService, final TenantStateCache tenantStateCache)
+            throws STransactionException, STransactionNotFoundException {
+        switch (transactionService.getState()) {
+            case NO_TRANSACTION:
+                // e.g. executed on another node of the cluster, after the change was done on the calling node
+                serviceStrategy.updateTenantState(tenantStateCache, tenantId);
+                break;
+            case ACTIVE:
+                transactionService.registerBonitaSynchronization(new BonitaTransactionSynchronization() {
+
+                    @Override
+                    public void beforeCommit() {
+                        // nothing to do
+                    }
+
+                    @Override
+                    public void afterCompletion(final TransactionState txState) {
+                        if (txState == TransactionState.COMMITTED) {
+                            serviceStrategy.updateTenantState(tenantStateCache, tenantId);
+                        }
+                    }
+                });
+                break;
+            default:
+                // the transaction is rolled back: the state of the tenant does not change
+                break;
+        }
+    }
+
     protected void refreshClassloaderOfProcessDefinitions(final TenantServiceAccessor tenantServiceAccessor) throws SBonitaException {
         final DependencyService dependencyService = tenantServiceAccessor.getDependencyService();
         final ProcessDefinitionService processDefinitionService = tenantServiceAccessor.getProcessDefinitionService();
@@ -14,7 +14,9 @@
 package org.bonitasoft.engine.api.impl.transaction.expression;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import org.bonitasoft.engine.bdm.Entity;
 import org.bonitasoft.engine.business.data.BusinessDataRepository;
@@ -42,9 +44,9 @@ public class EntityMerger {
                 final Collection<Entity> newCollection = collection.getClass().newInstance();
                 
                 ServerProxyfier proxyfier = new ServerProxyfier(new ServerLazyLoader(bdrService));
-                for (final Object item : collection) {
-                    newCollection.add(proxyfier.proxify((Entity) item));
-                }
+                @SuppressWarnings("unchecked")
+                final List<Entity> entities = new ArrayList<>((Collection<Entity>) collection);
+                newCollection.addAll(proxyfier.proxify(entities));
                 return (Serializable) newCollection;
             } catch (final InstantiationException | IllegalAccessException e) {
                 throw new IllegalStateException(e);
@@ -65,6 +65,7 @@ public class EvaluateExpressionsDefinitionLevel extends AbstractEvaluateExpressi
         if (expressionsAndTheirPartialContext != null && !expressionsAndTheirPartialContext.isEmpty()) {
             // how to deal with containerType and containerId
             final SExpressionContext context = new SExpressionContext();
+            context.setCacheEvaluationPlan(false);
             if (processDefinitionId != 0) {
                 final SProcessDefinition processDefinition = processDefinitionService.getProcessDefinition(processDefinitionId);
                 final Set<Expression> exps = expressionsAndTheirPartialContext.keySet();
@@ -61,6 +61,7 @@ public class EvaluateExpressionsInstanceLevel extends AbstractEvaluateExpression
         // FIXME: call the appropriate method(s) from the right service(s):
         if (expressions != null && !expressions.isEmpty()) {
             final SExpressionContext context = new SExpressionContext();
+            context.setCacheEvaluationPlan(false);
             context.setContainerId(containerId);
             context.setContainerType(containerType);
             context.setProcessDefinitionId(processDefinitionId);
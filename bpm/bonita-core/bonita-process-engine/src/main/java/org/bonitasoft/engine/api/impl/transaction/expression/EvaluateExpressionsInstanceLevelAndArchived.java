@@ -66,6 +66,7 @@ TransactionContentWithResult<Map<String, Serializable>> {
         if (expressions != null && !expressions.isEmpty()) {
             // how to deal with containerType and containerId
             final SExpressionContext context = new SExpressionContext();
+            context.setCacheEvaluationPlan(false);
             context.setContainerId(containerId);
             context.setContainerType(containerType);
             context.setProcessDefinitionId(processDefinitionId);
@@ -32,6 +32,7 @@ import org.bonitasoft.engine.core.process.definition.exception.SProcessDeletionE
 import org.bonitasoft.engine.core.process.definition.model.SProcessDefinition;
 import org.bonitasoft.engine.dependency.DependencyService;
 import org.bonitasoft.engine.dependency.model.ScopeType;
+import org.bonitasoft.engine.expression.impl.GroovyScriptExpressionExecutorCacheStrategy;
 import org.bonitasoft.engine.log.technical.TechnicalLogSeverity;
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
 import org.bonitasoft.engine.persistence.SBonitaReadException;
@@ -47,14 +48,28 @@ public class BusinessArchiveServiceImpl implements BusinessArchiveService {
     private final BusinessArchiveArtifactsManager businessArchiveArtifactsManager;
     private final TechnicalLoggerService logger;
     private final ClassLoaderService classLoaderService;
+    private final GroovyScriptExpressionExecutorCacheStrategy groovyScriptStrategy;
+    private final boolean precompileGroovyScripts;
 
     public BusinessArchiveServiceImpl(ProcessDefinitionService processDefinitionService, DependencyService dependencyService,
             BusinessArchiveArtifactsManager businessArchiveArtifactsManager, TechnicalLoggerService logger, ClassLoaderService classLoaderService) {
+        this(processDefinitionService, dependencyService, businessArchiveArtifactsManager, logger, classLoaderService, null, false);
+    }
+
+    /**
+     * @param precompileGroovyScripts when true, the groovy scripts of a resolved process are compiled when it is deployed instead of on
+     *        their first evaluation
+     */
+    public BusinessArchiveServiceImpl(ProcessDefinitionService processDefinitionService, DependencyService dependencyService,
+            BusinessArchiveArtifactsManager businessArchiveArtifactsManager, TechnicalLoggerService logger, ClassLoaderService classLoaderService,
+            GroovyScriptExpressionExecutorCacheStrategy groovyScriptStrategy, boolean precompileGroovyScripts) {
         this.processDefinitionService = processDefinitionService;
         this.dependencyService = dependencyService;
         this.businessArchiveArtifactsManager = businessArchiveArtifactsManager;
         this.logger = logger;
         this.classLoaderService = classLoaderService;
+        this.groovyScriptStrategy = groovyScriptStrategy;
+        this.precompileGroovyScripts = precompileGroovyScripts && groovyScriptStrategy != null;
     }
 
     @Override
@@ -72,6 +87,9 @@ public class BusinessArchiveServiceImpl implements BusinessArchiveService {
                 processDefinitionService.resolveProcess(sProcessDefinition.getId());
             }
             dependencyService.refreshClassLoaderAfterUpdate(ScopeType.PROCESS, sProcessDefinition.getId());
+            if (isResolved && precompileGroovyScripts) {
+                precompileGroovyScripts(designProcessDefinition, sProcessDefinition.getId());
+            }
         } catch (SAlreadyExistsException e) {
             throw e;
         } catch (final SBonitaException e) {
@@ -81,6 +99,13 @@ public class BusinessArchiveServiceImpl implements BusinessArchiveService {
         return sProcessDefinition;
     }
 
+    private void precompileGroovyScripts(DesignProcessDefinition designProcessDefinition, long processDefinitionId) {
+        final int compiled = groovyScriptStrategy.precompile(processDefinitionId, GroovyScriptFinder.findScripts(designProcessDefinition));
+        if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.DEBUG)) {
+            logger.log(this.getClass(), TechnicalLogSeverity.DEBUG, "Precompiled " + compiled + " groovy scripts of process " + processDefinitionId);
+        }
+    }
+
     void checkIfExists(DesignProcessDefinition designProcessDefinition) throws SBonitaReadException, SAlreadyExistsException {
         try {
             processDefinitionService.getProcessDefinitionId(designProcessDefinition.getName(), designProcessDefinition.getVersion());
@@ -0,0 +1,50 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.bar;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.bonitasoft.engine.bpm.process.DesignProcessDefinition;
+import org.bonitasoft.engine.bpm.process.impl.internal.ExpressionFinder;
+import org.bonitasoft.engine.expression.Expression;
+import org.bonitasoft.engine.expression.ExpressionInterpreter;
+import org.bonitasoft.engine.expression.ExpressionType;
+
+/**
+ * Collect the content of all groovy scripts of a process definition, including the ones used as dependencies of other expressions.
+ * <p>
+ * Reuse the traversal of {@link ExpressionFinder} but never stops on a found expression.
+ */
+class GroovyScriptFinder extends ExpressionFinder {
+
+    private final Set<String> scripts = new LinkedHashSet<>();
+
+    static Set<String> findScripts(final DesignProcessDefinition designProcessDefinition) {
+        final GroovyScriptFinder finder = new GroovyScriptFinder();
+        finder.find(designProcessDefinition, -1);
+        return finder.scripts;
+    }
+
+    @Override
+    public void find(final Expression expression, final long expressionDefinitionId) {
+        if (ExpressionType.TYPE_READ_ONLY_SCRIPT.name().equals(expression.getExpressionType())
+                && ExpressionInterpreter.GROOVY.name().equals(expression.getInterpreter()) && expression.getContent() != null) {
+            scripts.add(expression.getContent());
+        }
+        for (final Expression dependency : expression.getDependencies()) {
+            find(dependency, expressionDefinitionId);
+        }
+    }
+}
@@ -67,12 +67,8 @@ public class BusinessDataRetriever {
             return new ArrayList<>();
         }
         final List<? extends Entity> entities = businessDataRepository.findByIds(bizClass, dataRef.getDataIds());
-
-        final List<Entity> e = new ArrayList<>();
-        for (final Entity entity : entities) {
-            e.add(proxyfier.proxify(entity));
-        }
-        return e;
+        // proxified together so that their lazy loaded values are loaded together
+        return new ArrayList<Entity>(proxyfier.proxify(entities));
     }
 
     /**
@@ -98,6 +98,10 @@ public class FlowNodeExecutorImpl implements FlowNodeExecutor {
 
     private final ContractDataService contractDataService;
 
+    private final int maxStatesPerWork;
+
+    private final long maxStatesDurationPerWorkInMillis;
+
     public FlowNodeExecutorImpl(final FlowNodeStateManager flowNodeStateManager, final ActivityInstanceService activityInstanceManager,
             final OperationService operationService, final ArchiveService archiveService,
             final DataInstanceService dataInstanceService,
@@ -107,6 +111,28 @@ public class FlowNodeExecutorImpl implements FlowNodeExecutor {
             final ConnectorInstanceService connectorInstanceService,
             final ClassLoaderService classLoaderService, final WorkService workService, BPMWorkFactory workFactory,
             final ContractDataService contractDataService, final EventInstanceService eventInstanceService) {
+        this(flowNodeStateManager, activityInstanceManager, operationService, archiveService, dataInstanceService, containerRegistry,
+                processDefinitionService, commentService, processInstanceService, connectorInstanceService, classLoaderService, workService, workFactory,
+                contractDataService, eventInstanceService, 1, 0);
+    }
+
+    /**
+     * @param maxStatesPerWork maximum number of states a flow node executes in a single work (and transaction) before a new work is registered to
+     *        execute its next state. States are chained only while they are neither stable nor interrupting and complete immediately (a state
+     *        executing connectors always ends the chain).
+     * @param maxStatesDurationPerWorkInMillis once this time is spent executing the states of a flow node in a work, its next state is executed by a
+     *        new work even if maxStatesPerWork is not reached (0 for no limit)
+     */
+    public FlowNodeExecutorImpl(final FlowNodeStateManager flowNodeStateManager, final ActivityInstanceService activityInstanceManager,
+            final OperationService operationService, final ArchiveService archiveService,
+            final DataInstanceService dataInstanceService,
+            final ContainerRegistry containerRegistry, final ProcessDefinitionService processDefinitionService,
+            final SCommentService commentService,
+            final ProcessInstanceService processInstanceService,
+            final ConnectorInstanceService connectorInstanceService,
+            final ClassLoaderService classLoaderService, final WorkService workService, BPMWorkFactory workFactory,
+            final ContractDataService contractDataService, final EventInstanceService eventInstanceService, final int maxStatesPerWork,
+            final long maxStatesDurationPerWorkInMillis) {
         super();
         this.flowNodeStateManager = flowNodeStateManager;
         activityInstanceService = activityInstanceManager;
@@ -124,6 +150,8 @@ public class FlowNodeExecutorImpl implements FlowNodeExecutor {
         this.commentService = commentService;
         this.contractDataService = contractDataService;
         this.eventInstanceService = eventInstanceService;
+        this.maxStatesPerWork = Math.max(1, maxStatesPerWork);
+        this.maxStatesDurationPerWorkInMillis = maxStatesDurationPerWorkInMillis;
     }
 
     @Override
@@ -152,6 +180,11 @@ public class FlowNodeExecutorImpl implements FlowNodeExecutor {
     @Override
     public FlowNodeState stepForward(final long flowNodeInstanceId,
             final Long executerId, final Long executerSubstituteId) throws SFlowNodeExecutionException {
+        return stepForward(flowNodeInstanceId, executerId, executerSubstituteId, 1);
+    }
+
+    private FlowNodeState stepForward(final long flowNodeInstanceId, final Long executerId, final Long executerSubstituteId, final int maxStates)
+            throws SFlowNodeExecutionException {
         // retrieve the activity and execute its state
         final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
         try {
@@ -168,7 +201,15 @@ public class FlowNodeExecutorImpl implements FlowNodeExecutor {
             }
 
             final SProcessDefinition processDefinition = processDefinitionService.getProcessDefinition(processDefinitionId);
-            final FlowNodeState state = updateState(sFlowNodeInstance, processDefinition);
+            final long start = System.currentTimeMillis();
+            FlowNodeState state = updateState(sFlowNodeInstance, processDefinition);
+            int executedStates = 1;
+            while (executedStates < maxStates && canExecuteNextStateInSameWork(state, sFlowNodeInstance, start)) {
+                // same as what the work executing the next state would do, but without a new transaction and lock
+                archiveFlowNodeInstance(sFlowNodeInstance, false, processDefinitionId);
+                state = updateState(sFlowNodeInstance, processDefinition);
+                executedStates++;
+            }
             if (!sFlowNodeInstance.isStateExecuting() && state != null) {
                 registerWork(state, sFlowNodeInstance);
             }
@@ -182,6 +223,11 @@ public class FlowNodeExecutorImpl implements FlowNodeExecutor {
         }
     }
 
+    private boolean canExecuteNextStateInSameWork(final FlowNodeState state, final SFlowNodeInstance sFlowNodeInstance, final long start) {
+        return state != null && !state.isStable() && !state.isInterrupting() && !sFlowNodeInstance.isStateExecuting()
+                && (maxStatesDurationPerWorkInMillis <= 0 || System.currentTimeMillis() - start < maxStatesDurationPerWorkInMillis);
+    }
+
     private FlowNodeState updateState(final SFlowNodeInstance sFlowNodeInstance, final SProcessDefinition processDefinition)
             throws SActivityStateExecutionException, SActivityExecutionException, SFlowNodeModificationException {
         final StateCode stateCode = executeState(processDefinition, sFlowNodeInstance, flowNodeStateManager.getState(sFlowNodeInstance.getStateId()));
@@ -349,7 +395,7 @@ public class FlowNodeExecutorImpl implements FlowNodeExecutor {
     @Override
     public FlowNodeState executeFlowNode(final long flowNodeInstanceId,
             final Long executerId, final Long executerSubstituteId) throws SFlowNodeExecutionException {
-        return stepForward(flowNodeInstanceId, executerId, executerSubstituteId);
+        return stepForward(flowNodeInstanceId, executerId, executerSubstituteId, maxStatesPerWork);
     }
 
     @Override
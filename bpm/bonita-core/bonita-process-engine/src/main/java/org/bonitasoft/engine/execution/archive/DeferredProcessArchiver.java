@@ -0,0 +1,367 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.execution.archive;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bonitasoft.engine.archive.ArchiveService;
+import org.bonitasoft.engine.bpm.process.ProcessInstanceState;
+import org.bonitasoft.engine.classloader.ClassLoaderService;
+import org.bonitasoft.engine.commons.TenantLifecycleService;
+import org.bonitasoft.engine.commons.exceptions.SBonitaException;
+import org.bonitasoft.engine.core.connector.ConnectorInstanceService;
+import org.bonitasoft.engine.core.document.api.DocumentService;
+import org.bonitasoft.engine.core.process.comment.api.SCommentService;
+import org.bonitasoft.engine.core.process.definition.ProcessDefinitionService;
+import org.bonitasoft.engine.core.process.instance.api.ProcessInstanceService;
+import org.bonitasoft.engine.core.process.instance.api.RefBusinessDataService;
+import org.bonitasoft.engine.core.process.instance.api.exceptions.SProcessInstanceNotFoundException;
+import org.bonitasoft.engine.core.process.instance.model.SFlowElementsContainerType;
+import org.bonitasoft.engine.core.process.instance.model.SProcessInstance;
+import org.bonitasoft.engine.lock.BonitaLock;
+import org.bonitasoft.engine.lock.LockService;
+import org.bonitasoft.engine.lock.SLockException;
+import org.bonitasoft.engine.log.technical.TechnicalLogSeverity;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.persistence.OrderByType;
+import org.bonitasoft.engine.persistence.QueryOptions;
+import org.bonitasoft.engine.sessionaccessor.SessionAccessor;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.STransactionNotFoundException;
+import org.bonitasoft.engine.transaction.TransactionState;
+import org.bonitasoft.engine.transaction.UserTransactionService;
+
+/**
+ * Archives terminated root process instances outside of the transaction that terminated them.
+ * <p>
+ * When enabled, the transaction completing a root process instance only leaves it in its terminal state. The id of the process instance is queued
+ * after the commit and a dedicated thread archives the queued process instances (comments, documents, connector instances, references to business
+ * data and the process instance itself) in batches of {@code batchSize} process instances per transaction. Until then, the process instance is still
+ * visible as a process instance in a terminal state instead of an archived one.
+ * <p>
+ * The queue is in memory: process instances that were not archived when the node stopped are queued again on restart by
+ * {@link org.bonitasoft.engine.execution.work.DeferredArchivingRestartHandler}.
+ */
+public class DeferredProcessArchiver implements TenantLifecycleService {
+
+    private static final String LOCK_TYPE = SFlowElementsContainerType.PROCESS.name();
+    private static final long LOCK_TIMEOUT_IN_MILLIS = 10;
+    private static final long RETRY_DELAY_IN_MILLIS = 200;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final ProcessInstanceService processInstanceService;
+    private final ArchiveService archiveService;
+    private final DocumentService documentService;
+    private final SCommentService commentService;
+    private final ProcessDefinitionService processDefinitionService;
+    private final ConnectorInstanceService connectorInstanceService;
+    private final ClassLoaderService classLoaderService;
+    private final RefBusinessDataService refBusinessDataService;
+    private final LockService lockService;
+    private final UserTransactionService userTransactionService;
+    private final SessionAccessor sessionAccessor;
+    private final TechnicalLoggerService logger;
+    private final long tenantId;
+
+    private final Queue<Long> pendingProcessInstances = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private volatile ScheduledThreadPoolExecutor executor;
+
+    private final LongAdder archivedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder archivingNanos = new LongAdder();
+
+    public DeferredProcessArchiver(final boolean enabled, final int batchSize, final ProcessInstanceService processInstanceService,
+            final ArchiveService archiveService, final DocumentService documentService, final SCommentService commentService,
+            final ProcessDefinitionService processDefinitionService, final ConnectorInstanceService connectorInstanceService,
+            final ClassLoaderService classLoaderService, final RefBusinessDataService refBusinessDataService, final LockService lockService,
+            final UserTransactionService userTransactionService, final SessionAccessor sessionAccessor, final TechnicalLoggerService logger,
+            final long tenantId) {
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.processInstanceService = processInstanceService;
+        this.archiveService = archiveService;
+        this.documentService = documentService;
+        this.commentService = commentService;
+        this.processDefinitionService = processDefinitionService;
+        this.connectorInstanceService = connectorInstanceService;
+        this.classLoaderService = classLoaderService;
+        this.refBusinessDataService = refBusinessDataService;
+        this.lockService = lockService;
+        this.userTransactionService = userTransactionService;
+        this.sessionAccessor = sessionAccessor;
+        this.logger = logger;
+        this.tenantId = tenantId;
+    }
+
+    /**
+     * @return true if the given process instance must be archived by this service instead of in the transaction that terminated it
+     */
+    public boolean isDeferred(final SProcessInstance processInstance) {
+        return enabled && processInstance.getCallerId() <= 0;
+    }
+
+    /**
+     * Queue the given process instance for archiving once the current transaction is committed.
+     */
+    public void archiveAfterCommit(final SProcessInstance processInstance) throws STransactionNotFoundException {
+        userTransactionService.registerBonitaSynchronization(new ArchiveAfterCommitSynchronization(processInstance.getId()));
+    }
+
+    /**
+     * Queue the root process instances that are in a terminal state, i.e. that were terminated but not archived before the node stopped.
+     * Must be called in a transaction.
+     *
+     * @return the number of queued process instances
+     */
+    public int queueTerminatedProcessInstances() throws SBonitaException {
+        if (!enabled) {
+            return 0;
+        }
+        final List<Long> ids = new ArrayList<>();
+        QueryOptions queryOptions = new QueryOptions(0, 1000, SProcessInstance.class, "id", OrderByType.ASC);
+        List<SProcessInstance> processInstances;
+        do {
+            processInstances = processInstanceService.getProcessInstancesInStates(queryOptions, ProcessInstanceState.COMPLETED,
+                    ProcessInstanceState.ABORTED, ProcessInstanceState.CANCELLED);
+            for (final SProcessInstance processInstance : processInstances) {
+                if (isDeferred(processInstance)) {
+                    ids.add(processInstance.getId());
+                }
+            }
+            queryOptions = QueryOptions.getNextPage(queryOptions);
+        } while (processInstances.size() == queryOptions.getNumberOfResults());
+        // queued only once all pages are read: archiving them now would shift the pages
+        queue(ids);
+        return ids.size();
+    }
+
+    void queue(final Collection<Long> processInstanceIds) {
+        pendingProcessInstances.addAll(processInstanceIds);
+        scheduleDrain(0);
+    }
+
+    private void scheduleDrain(final long delayInMillis) {
+        final ScheduledThreadPoolExecutor currentExecutor = executor;
+        if (currentExecutor != null && !pendingProcessInstances.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+            currentExecutor.schedule(this::drain, delayInMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void drain() {
+        drainScheduled.set(false);
+        sessionAccessor.setTenantId(tenantId);
+        List<Long> batch;
+        while (!(batch = nextBatch()).isEmpty()) {
+            if (archiveBatch(batch) > 0) {
+                // some process instances are still locked by works: do not spin on them
+                scheduleDrain(RETRY_DELAY_IN_MILLIS);
+                return;
+            }
+        }
+    }
+
+    private List<Long> nextBatch() {
+        final List<Long> batch = new ArrayList<>(batchSize);
+        Long id;
+        while (batch.size() < batchSize && (id = pendingProcessInstances.poll()) != null) {
+            batch.add(id);
+        }
+        return batch;
+    }
+
+    /**
+     * @return the number of process instances that could not be locked and were queued again
+     */
+    private int archiveBatch(final List<Long> batch) {
+        final List<BonitaLock> locks = new ArrayList<>(batch.size());
+        final List<Long> lockedIds = new ArrayList<>(batch.size());
+        int requeued = 0;
+        for (final Long id : batch) {
+            final BonitaLock lock = lockService.tryLock(id, LOCK_TYPE, LOCK_TIMEOUT_IN_MILLIS, TimeUnit.MILLISECONDS, tenantId);
+            if (lock == null) {
+                pendingProcessInstances.add(id);
+                requeued++;
+            } else {
+                locks.add(lock);
+                lockedIds.add(id);
+            }
+        }
+        final long start = System.nanoTime();
+        try {
+            if (!lockedIds.isEmpty()) {
+                archiveInOneTransaction(lockedIds);
+            }
+        } finally {
+            for (final BonitaLock lock : locks) {
+                unlock(lock);
+            }
+            archivingNanos.add(System.nanoTime() - start);
+        }
+        return requeued;
+    }
+
+    private void unlock(final BonitaLock lock) {
+        try {
+            lockService.unlock(lock, tenantId);
+        } catch (final SLockException e) {
+            logger.log(DeferredProcessArchiver.class, TechnicalLogSeverity.WARNING, "Unable to unlock process instance " + lock.getObjectToLockId(), e);
+        }
+    }
+
+    private void archiveInOneTransaction(final List<Long> processInstanceIds) {
+        try {
+            userTransactionService.executeInTransaction(() -> {
+                for (final Long id : processInstanceIds) {
+                    archive(id);
+                }
+                return null;
+            });
+            archivedCount.add(processInstanceIds.size());
+            batchCount.increment();
+        } catch (final Exception e) {
+            if (processInstanceIds.size() == 1) {
+                failedCount.increment();
+                logger.log(DeferredProcessArchiver.class, TechnicalLogSeverity.ERROR, "Unable to archive process instance " + processInstanceIds.get(0)
+                        + ", it will be archived again on next restart", e);
+                return;
+            }
+            // archive them one by one so that a failing process instance does not prevent the others from being archived
+            for (final Long id : processInstanceIds) {
+                archiveInOneTransaction(Collections.singletonList(id));
+            }
+        }
+    }
+
+    private void archive(final long processInstanceId) throws SBonitaException {
+        final SProcessInstance processInstance;
+        try {
+            processInstance = processInstanceService.getProcessInstance(processInstanceId);
+        } catch (final SProcessInstanceNotFoundException e) {
+            // deleted in the meantime
+            return;
+        }
+        new ProcessArchiver().archiveProcessInstance(processInstance, archiveService, processInstanceService, documentService, logger, commentService,
+                processDefinitionService, connectorInstanceService, classLoaderService, refBusinessDataService);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || executor != null) {
+            return;
+        }
+        executor = new ScheduledThreadPoolExecutor(1, r -> new Thread(r, "Bonita-Deferred-Archiving"));
+        scheduleDrain(0);
+    }
+
+    @Override
+    public void stop() {
+        final ScheduledThreadPoolExecutor currentExecutor = executor;
+        if (currentExecutor == null) {
+            return;
+        }
+        executor = null;
+        currentExecutor.shutdownNow();
+        try {
+            if (!currentExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.log(DeferredProcessArchiver.class, TechnicalLogSeverity.WARNING, "Deferred archiving thread did not terminate in time.");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drainScheduled.set(false);
+        // pending process instances stay queued: they are archived when the service is resumed
+    }
+
+    @Override
+    public void pause() {
+        stop();
+    }
+
+    @Override
+    public void resume() {
+        start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the number of process instances waiting to be archived
+     */
+    public int getPendingCount() {
+        return pendingProcessInstances.size();
+    }
+
+    /**
+     * @return the number of process instances archived by this service
+     */
+    public long getArchivedCount() {
+        return archivedCount.sum();
+    }
+
+    /**
+     * @return the number of process instances this service failed to archive
+     */
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    /**
+     * @return the number of committed archiving transactions
+     */
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * @return the time spent archiving process instances
+     */
+    public long getArchivingTime(final TimeUnit timeUnit) {
+        return timeUnit.convert(archivingNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    private class ArchiveAfterCommitSynchronization implements BonitaTransactionSynchronization {
+
+        private final long processInstanceId;
+
+        ArchiveAfterCommitSynchronization(final long processInstanceId) {
+            this.processInstanceId = processInstanceId;
+        }
+
+        @Override
+        public void beforeCommit() {
+        }
+
+        @Override
+        public void afterCompletion(final TransactionState txState) {
+            if (txState == TransactionState.COMMITTED) {
+                queue(Collections.singletonList(processInstanceId));
+            }
+        }
+    }
+
+}
@@ -52,6 +52,7 @@ import org.bonitasoft.engine.core.process.instance.model.event.SThrowEventInstan
 import org.bonitasoft.engine.core.process.instance.model.event.handling.SBPMEventType;
 import org.bonitasoft.engine.core.process.instance.model.event.handling.SMessageInstance;
 import org.bonitasoft.engine.core.process.instance.model.event.handling.SWaitingEvent;
+import org.bonitasoft.engine.core.process.instance.model.event.handling.SWaitingMessageEvent;
 import org.bonitasoft.engine.data.instance.api.DataInstanceContainer;
 import org.bonitasoft.engine.data.instance.exception.SDataInstanceException;
 import org.bonitasoft.engine.expression.exception.SExpressionDependencyMissingException;
@@ -127,8 +128,9 @@ public class MessageEventHandlerStrategy extends CoupleEventHandlerStrategy {
                 throw new SWaitingEventCreationException(eventDefinition.getType() + " is not a catch event.");
         }
         fillCorrelation(builder, messageTrigger.getCorrelations(), expressionContext);
-        getEventInstanceService().createWaitingEvent(builder.done());
-        messagesHandlingService.triggerMatchingOfMessages();
+        final SWaitingMessageEvent waitingMessageEvent = builder.done();
+        getEventInstanceService().createWaitingEvent(waitingMessageEvent);
+        messagesHandlingService.triggerMatchingOfMessages(waitingMessageEvent);
 
     }
 
@@ -148,8 +150,9 @@ public class MessageEventHandlerStrategy extends CoupleEventHandlerStrategy {
                 processDefinition.getId());
 
         fillCorrelation(builder, messageTrigger.getCorrelations(), expressionContext);
-        getEventInstanceService().createWaitingEvent(builder.done());
-        messagesHandlingService.triggerMatchingOfMessages();
+        final SWaitingMessageEvent waitingMessageEvent = builder.done();
+        getEventInstanceService().createWaitingEvent(waitingMessageEvent);
+        messagesHandlingService.triggerMatchingOfMessages(waitingMessageEvent);
     }
 
     @Override
@@ -190,7 +193,7 @@ public class MessageEventHandlerStrategy extends CoupleEventHandlerStrategy {
         final SMessageInstance messageInstance = builder.done();
         // evaluate and add correlations
         getEventInstanceService().createMessageInstance(messageInstance);
-        messagesHandlingService.triggerMatchingOfMessages();
+        messagesHandlingService.triggerMatchingOfMessages(messageInstance);
 
         // create data
         if (!messageTrigger.getDataDefinitions().isEmpty()) {
@@ -282,8 +285,9 @@ public class MessageEventHandlerStrategy extends CoupleEventHandlerStrategy {
         final SExpressionContext expressionContext = new SExpressionContext(parentProcessInstance.getId(), DataInstanceContainer.PROCESS_INSTANCE.name(),
                 processDefinition.getId());
         fillCorrelation(builder, messageEventTriggerDefinition.getCorrelations(), expressionContext);
-        getEventInstanceService().createWaitingEvent(builder.done());
-        messagesHandlingService.triggerMatchingOfMessages();
+        final SWaitingMessageEvent waitingMessageEvent = builder.done();
+        getEventInstanceService().createWaitingEvent(waitingMessageEvent);
+        messagesHandlingService.triggerMatchingOfMessages(waitingMessageEvent);
     }
 
     @Override
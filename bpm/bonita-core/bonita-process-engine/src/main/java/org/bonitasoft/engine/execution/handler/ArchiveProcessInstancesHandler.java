@@ -29,6 +29,7 @@ import org.bonitasoft.engine.core.process.instance.api.RefBusinessDataService;
 import org.bonitasoft.engine.core.process.instance.model.SProcessInstance;
 import org.bonitasoft.engine.events.model.SHandlerExecutionException;
 import org.bonitasoft.engine.events.model.SUpdateEvent;
+import org.bonitasoft.engine.execution.archive.DeferredProcessArchiver;
 import org.bonitasoft.engine.execution.archive.ProcessArchiver;
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
 import org.bonitasoft.engine.service.TenantServiceAccessor;
@@ -62,6 +63,11 @@ public class ArchiveProcessInstancesHandler implements SProcessInstanceHandler<S
         try {
             TenantServiceAccessor tenantServiceAccessor;
             tenantServiceAccessor = getTenantServiceAccessor();
+            final DeferredProcessArchiver deferredProcessArchiver = tenantServiceAccessor.getDeferredProcessArchiver();
+            if (deferredProcessArchiver.isDeferred(processInstance)) {
+                deferredProcessArchiver.archiveAfterCommit(processInstance);
+                return;
+            }
             final ArchiveService archiveService = tenantServiceAccessor.getArchiveService();
             final ProcessInstanceService processInstanceService = tenantServiceAccessor.getProcessInstanceService();
             final TechnicalLoggerService logger = tenantServiceAccessor.getTechnicalLoggerService();
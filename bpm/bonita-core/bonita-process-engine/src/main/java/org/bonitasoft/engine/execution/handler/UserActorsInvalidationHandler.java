@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.execution.handler;
+
+import java.util.UUID;
+
+import org.bonitasoft.engine.actor.UserActorsCache;
+import org.bonitasoft.engine.actor.mapping.model.SActorMember;
+import org.bonitasoft.engine.events.model.SEvent;
+import org.bonitasoft.engine.events.model.SHandlerExecutionException;
+import org.bonitasoft.engine.identity.model.SUserMembership;
+import org.bonitasoft.engine.service.TenantServiceAccessor;
+import org.bonitasoft.engine.service.impl.ServiceAccessorFactory;
+
+/**
+ * Keep the {@link UserActorsCache} up to date when memberships of users or members of actors are created, updated or deleted.
+ */
+public class UserActorsInvalidationHandler implements SProcessInstanceHandler<SEvent> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long tenantId;
+
+    private final String identifier;
+
+    public UserActorsInvalidationHandler(final long tenantId) {
+        this.tenantId = tenantId;
+        this.identifier = UUID.randomUUID().toString();
+    }
+
+    @Override
+    public void execute(final SEvent event) throws SHandlerExecutionException {
+        final UserActorsCache userActorsCache = getTenantServiceAccessor().getUserActorsCache();
+        final Object object = event.getObject();
+        if (object instanceof SUserMembership) {
+            userActorsCache.invalidate(((SUserMembership) object).getUserId());
+        } else {
+            final SActorMember actorMember = (SActorMember) object;
+            if (actorMember.getUserId() > 0) {
+                userActorsCache.invalidate(actorMember.getUserId());
+            } else {
+                // the actor member is a group, a role or a membership
+                userActorsCache.invalidateAll();
+            }
+        }
+    }
+
+    private TenantServiceAccessor getTenantServiceAccessor() throws SHandlerExecutionException {
+        try {
+            return ServiceAccessorFactory.getInstance().createTenantServiceAccessor(tenantId);
+        } catch (final Exception e) {
+            throw new SHandlerExecutionException(e.getMessage(), null);
+        }
+    }
+
+    @Override
+    public boolean isInterested(final SEvent event) {
+        return event.getObject() instanceof SUserMembership || event.getObject() instanceof SActorMember;
+    }
+
+    @Override
+    public String getIdentifier() {
+        return identifier;
+    }
+
+}
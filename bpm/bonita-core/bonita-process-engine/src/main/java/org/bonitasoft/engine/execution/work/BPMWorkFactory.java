@@ -15,9 +15,14 @@ package org.bonitasoft.engine.execution.work;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 
 import org.bonitasoft.engine.bpm.connector.ConnectorEvent;
+import org.bonitasoft.engine.core.connector.ConnectorResult;
 import org.bonitasoft.engine.core.process.instance.model.event.handling.SMessageInstance;
 import org.bonitasoft.engine.core.process.instance.model.event.handling.SWaitingMessageEvent;
 import org.bonitasoft.engine.core.process.instance.model.event.handling.SWaitingSignalEvent;
@@ -54,17 +59,38 @@ public class BPMWorkFactory implements WorkFactory {
     private static final String CONNECTOR_INSTANCE_ID = "connectorInstanceId";
     private static final String CONNECTOR_DEFINITION_NAME = "connectorDefinitionName";
     private static final String ROOT_PROCESS_INSTANCE_ID = "rootProcessInstanceId";
+    private static final String CONNECTOR_RESULT_ID = "connectorResultId";
 
     private Map<String, Function<WorkDescriptor, BonitaWork>> extensions = new HashMap<>();
 
+    private final boolean asynchronousConnectors;
+
+    /**
+     * Results of connectors executed asynchronously, waiting for the work evaluating their outputs
+     */
+    private final ConcurrentMap<String, CompletableFuture<ConnectorResult>> pendingConnectorResults = new ConcurrentHashMap<>();
+
+    public BPMWorkFactory() {
+        this(false);
+    }
+
+    /**
+     * @param asynchronousConnectors when true, connector works do not wait for the end of the connector execution: the evaluation
+     *        of the outputs is done by a new work submitted when the connector completes
+     */
+    public BPMWorkFactory(boolean asynchronousConnectors) {
+        this.asynchronousConnectors = asynchronousConnectors;
+    }
+
     private BonitaWork createExecuteConnectorOfActivity(WorkDescriptor workDescriptor) {
         final long processDefinitionId = workDescriptor.getLong(PROCESS_DEFINITION_ID);
         final long processInstanceId = workDescriptor.getLong(PROCESS_INSTANCE_ID);
         final long flowNodeInstanceId = workDescriptor.getLong(FLOW_NODE_INSTANCE_ID);
         final long connectorInstanceId = workDescriptor.getLong(CONNECTOR_INSTANCE_ID);
         final String connectorDefinitionName = workDescriptor.getString(CONNECTOR_DEFINITION_NAME);
-        BonitaWork wrappedWork = new ExecuteConnectorOfActivity(processDefinitionId, processInstanceId, workDescriptor.getLong(FLOW_NODE_DEFINITION_ID), flowNodeInstanceId,
-                connectorInstanceId, connectorDefinitionName);
+        BonitaWork wrappedWork = withConnectorExecutionMode(workDescriptor,
+                new ExecuteConnectorOfActivity(processDefinitionId, processInstanceId, workDescriptor.getLong(FLOW_NODE_DEFINITION_ID), flowNodeInstanceId,
+                        connectorInstanceId, connectorDefinitionName));
         wrappedWork = new ConnectorDefinitionAndInstanceContextWork(wrappedWork, connectorDefinitionName, connectorInstanceId);
         wrappedWork = withFlowNodeContext(processDefinitionId, processInstanceId, flowNodeInstanceId, wrappedWork);
         return withSession(wrappedWork);
@@ -92,8 +118,9 @@ public class BPMWorkFactory implements WorkFactory {
         BonitaWork wrappedWork = withConnectorContext(connectorInstanceId, connectorDefinitionName, activationEvent,
                 withProcessContext(processDefinitionId, processInstanceId,
                         rootProcessInstanceId,
-                        new ExecuteConnectorOfProcess(processDefinitionId, connectorInstanceId, connectorDefinitionName, processInstanceId,
-                                rootProcessInstanceId, activationEvent, ((FlowNodeSelector) workDescriptor.getParameter("flowNodeSelector")))));
+                        withConnectorExecutionMode(workDescriptor,
+                                new ExecuteConnectorOfProcess(processDefinitionId, connectorInstanceId, connectorDefinitionName, processInstanceId,
+                                        rootProcessInstanceId, activationEvent, ((FlowNodeSelector) workDescriptor.getParameter("flowNodeSelector"))))));
         return withSession(wrappedWork);
     }
 
@@ -116,6 +143,40 @@ public class BPMWorkFactory implements WorkFactory {
                 .withParameter("flowNodeSelector", flowNodeSelector);
     }
 
+    private ExecuteConnectorWork withConnectorExecutionMode(WorkDescriptor workDescriptor, ExecuteConnectorWork work) {
+        work.setAsynchronous(asynchronousConnectors);
+        if (workDescriptor.hasParameter(CONNECTOR_RESULT_ID)) {
+            work.setConnectorResultId(workDescriptor.getString(CONNECTOR_RESULT_ID));
+        }
+        return work;
+    }
+
+    /**
+     * Keep the result of a connector executed asynchronously until the work evaluating its outputs is executed
+     *
+     * @return the id of the result, to give to {@link #createEvaluateConnectorOutputsWorkDescriptor(WorkDescriptor, String)}
+     */
+    public String registerConnectorResult(CompletableFuture<ConnectorResult> connectorResult) {
+        final String connectorResultId = UUID.randomUUID().toString();
+        pendingConnectorResults.put(connectorResultId, connectorResult);
+        return connectorResultId;
+    }
+
+    /**
+     * @return the result registered with the given id, or null if it is not (or no more) on this node
+     */
+    public CompletableFuture<ConnectorResult> takeConnectorResult(String connectorResultId) {
+        return pendingConnectorResults.remove(connectorResultId);
+    }
+
+    /**
+     * @param executeConnectorWorkDescriptor the descriptor of the work that executed the connector
+     * @return the descriptor of the work evaluating the outputs of the connector once its result is available
+     */
+    public WorkDescriptor createEvaluateConnectorOutputsWorkDescriptor(WorkDescriptor executeConnectorWorkDescriptor, String connectorResultId) {
+        return executeConnectorWorkDescriptor.withParameter(CONNECTOR_RESULT_ID, connectorResultId);
+    }
+
     private InSessionBonitaWork withSession(BonitaWork wrappedWork) {
         return new InSessionBonitaWork(wrappedWork);
     }
@@ -0,0 +1,50 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.execution.work;
+
+import org.bonitasoft.engine.commons.exceptions.SBonitaException;
+import org.bonitasoft.engine.execution.archive.DeferredProcessArchiver;
+import org.bonitasoft.engine.log.technical.TechnicalLogSeverity;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.service.PlatformServiceAccessor;
+import org.bonitasoft.engine.service.TenantServiceAccessor;
+
+/**
+ * Queues again the root process instances that were terminated but not yet archived by the {@link DeferredProcessArchiver} when the node
+ * stopped. They are archived once the services are started.
+ */
+public class DeferredArchivingRestartHandler implements TenantRestartHandler {
+
+    @Override
+    public void beforeServicesStart(final PlatformServiceAccessor platformServiceAccessor, final TenantServiceAccessor tenantServiceAccessor)
+            throws RestartException {
+        final DeferredProcessArchiver deferredProcessArchiver = tenantServiceAccessor.getDeferredProcessArchiver();
+        if (!deferredProcessArchiver.isEnabled()) {
+            return;
+        }
+        final TechnicalLoggerService technicalLoggerService = tenantServiceAccessor.getTechnicalLoggerService();
+        try {
+            final int nbProcessInstances = deferredProcessArchiver.queueTerminatedProcessInstances();
+            technicalLoggerService.log(DeferredArchivingRestartHandler.class, TechnicalLogSeverity.INFO,
+                    nbProcessInstances + " terminated process instances found and queued for archiving.");
+        } catch (final SBonitaException e) {
+            throw new RestartException("Unable to queue terminated process instances for archiving", e);
+        }
+    }
+
+    @Override
+    public void afterServicesStart(final PlatformServiceAccessor platformServiceAccessor, final TenantServiceAccessor tenantServiceAccessor) {
+        // queued process instances are archived when the DeferredProcessArchiver starts
+    }
+}
@@ -78,6 +78,12 @@ public class ExecuteConnectorOfActivity extends ExecuteConnectorWork {
                 DataInstanceContainer.ACTIVITY_INSTANCE.name());
     }
 
+    @Override
+    protected WorkDescriptor createWorkDescriptor(final BPMWorkFactory workFactory) {
+        return workFactory.createExecuteConnectorOfActivityDescriptor(processDefinitionId, getProcessInstanceId(), flowNodeDefinitionId,
+                flowNodeInstanceId, connectorInstanceId, connectorDefinitionName);
+    }
+
     @Override
     protected void continueFlow(final Map<String, Object> context) throws SBonitaException {
         final TenantServiceAccessor tenantAccessor = getTenantAccessor(context);
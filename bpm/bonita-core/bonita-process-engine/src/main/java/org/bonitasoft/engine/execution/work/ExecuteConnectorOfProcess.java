@@ -48,6 +48,7 @@ import org.bonitasoft.engine.execution.StartFlowNodeFilter;
 import org.bonitasoft.engine.execution.event.EventsHandler;
 import org.bonitasoft.engine.persistence.SBonitaReadException;
 import org.bonitasoft.engine.service.TenantServiceAccessor;
+import org.bonitasoft.engine.work.WorkDescriptor;
 
 /**
  * @author Baptiste Mesta
@@ -64,6 +65,8 @@ public class ExecuteConnectorOfProcess extends ExecuteConnectorWork {
 
     private final ConnectorEvent activationEvent;
 
+    private final FlowNodeSelector flowNodeSelector;
+
     private final Filter<SFlowNodeDefinition> filter;
 
     private long subProcessDefinitionId;
@@ -76,6 +79,7 @@ public class ExecuteConnectorOfProcess extends ExecuteConnectorWork {
         this.processInstanceId = processInstanceId;
         this.rootProcessInstanceId = rootProcessInstanceId;
         this.activationEvent = activationEvent;
+        this.flowNodeSelector = flowNodeSelector;
         if (flowNodeSelector != null) {
             this.filter = flowNodeSelector.getSelector();
             this.subProcessDefinitionId = flowNodeSelector.getSubProcessDefinitionId();
@@ -91,6 +95,12 @@ public class ExecuteConnectorOfProcess extends ExecuteConnectorWork {
         evaluateOutput(context, result, sConnectorDefinition, processInstanceId, DataInstanceContainer.PROCESS_INSTANCE.name());
     }
 
+    @Override
+    protected WorkDescriptor createWorkDescriptor(final BPMWorkFactory workFactory) {
+        return workFactory.createExecuteConnectorOfProcessDescriptor(processDefinitionId, processInstanceId, rootProcessInstanceId,
+                connectorInstanceId, connectorDefinitionName, activationEvent, flowNodeSelector);
+    }
+
     @Override
     protected void continueFlow(final Map<String, Object> context) throws SBonitaException {
         final TenantServiceAccessor tenantAccessor = getTenantAccessor(context);
@@ -16,6 +16,8 @@ package org.bonitasoft.engine.execution.work;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import org.bonitasoft.engine.bpm.connector.FailAction;
 import org.bonitasoft.engine.commons.exceptions.SBonitaException;
@@ -38,6 +40,8 @@ import org.bonitasoft.engine.service.TenantServiceAccessor;
 import org.bonitasoft.engine.tracking.TimeTracker;
 import org.bonitasoft.engine.tracking.TimeTrackerRecords;
 import org.bonitasoft.engine.transaction.UserTransactionService;
+import org.bonitasoft.engine.work.WorkDescriptor;
+import org.bonitasoft.engine.work.WorkExecutorService;
 
 /**
  * @author Baptiste Mesta
@@ -55,6 +59,10 @@ public abstract class ExecuteConnectorWork extends TenantAwareBonitaWork {
     private final SExpressionContext inputParametersContext;
     private final long processInstanceId;
 
+    private boolean asynchronous;
+
+    private String connectorResultId;
+
     public ExecuteConnectorWork(final long processDefinitionId, final long connectorInstanceId,
             final String connectorDefinitionName, final SExpressionContext inputParametersContext,
             long processInstanceId) {
@@ -92,6 +100,30 @@ public abstract class ExecuteConnectorWork extends TenantAwareBonitaWork {
             SConnectorDefinition sConnectorDefinition)
             throws SBonitaException;
 
+    /**
+     * @return the descriptor of a work executing this connector, used to resume it after an asynchronous execution
+     */
+    protected abstract WorkDescriptor createWorkDescriptor(BPMWorkFactory workFactory);
+
+    /**
+     * @param asynchronous when true, the work ends as soon as the connector is submitted, without holding its thread until the
+     *        connector completes: outputs are evaluated by a new work
+     */
+    public void setAsynchronous(final boolean asynchronous) {
+        this.asynchronous = asynchronous;
+    }
+
+    /**
+     * @param connectorResultId id of the result of the connector already executed asynchronously, null if the connector must be executed
+     */
+    public void setConnectorResultId(final String connectorResultId) {
+        this.connectorResultId = connectorResultId;
+    }
+
+    protected long getProcessInstanceId() {
+        return processInstanceId;
+    }
+
     protected ClassLoader getClassLoader(final Map<String, Object> context) throws SBonitaException {
         return getTenantAccessor(context).getClassLoaderService().getLocalClassLoader(ScopeType.PROCESS.name(),
                 processDefinitionId);
@@ -140,6 +172,14 @@ public abstract class ExecuteConnectorWork extends TenantAwareBonitaWork {
         final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
         try {
             Thread.currentThread().setContextClassLoader(processClassloader);
+            if (connectorResultId != null) {
+                final CompletableFuture<ConnectorResult> connectorResult = tenantAccessor.getBPMWorkFactory().takeConnectorResult(connectorResultId);
+                if (connectorResult != null) {
+                    evaluateOutputsOfAsynchronousExecution(context, connectorResult);
+                    return;
+                }
+                // the result is not on this node anymore (e.g. it was restarted): the connector is executed again
+            }
             final EvaluateParameterAndGetConnectorInstance callable = new EvaluateParameterAndGetConnectorInstance(
                     connectorService, processDefinitionService,
                     connectorInstanceService);
@@ -148,36 +188,75 @@ public abstract class ExecuteConnectorWork extends TenantAwareBonitaWork {
             final SConnectorInstance connectorInstance = callable.getConnectorInstance();
             SConnectorImplementationDescriptor connectorImplementationDescriptor = callable
                     .getConnectorImplementationDescriptor();
+            if (asynchronous) {
+                executeAsynchronously(tenantAccessor, connectorService.executeConnectorAsync(processDefinitionId, connectorInstance,
+                        connectorImplementationDescriptor, processClassloader, callable.getInputParameters()));
+                return;
+            }
             final ConnectorResult result = connectorService.executeConnector(processDefinitionId, connectorInstance,
                     connectorImplementationDescriptor, processClassloader,
                     callable.getInputParameters());
-            // evaluate output and trigger the execution of the flow node
-            BonitaLock lock = tenantAccessor.getLockService().lock(processInstanceId,
-                    SFlowElementsContainerType.PROCESS.name(), getTenantId());
-            try {
-                userTransactionService.executeInTransaction(
-                        new EvaluateConnectorOutputsTxContent(result, sConnectorDefinition, context));
-            } finally {
-                tenantAccessor.getLockService().unlock(lock, getTenantId());
-            }
+            evaluateOutputsInLock(context, result, sConnectorDefinition);
         } finally {
             if (timeTracker.isTrackable(TimeTrackerRecords.EXECUTE_CONNECTOR_WORK)) {
                 final long endTime = System.currentTimeMillis();
-                final StringBuilder desc = new StringBuilder();
-                desc.append("processDefinitionId: ");
-                desc.append(processDefinitionId);
-                desc.append(" - ");
-                desc.append("connectorDefinitionName: ");
-                desc.append(connectorDefinitionName);
-                desc.append(" - ");
-                desc.append("connectorInstanceId: ");
-                desc.append(connectorInstanceId);
-                timeTracker.track(TimeTrackerRecords.EXECUTE_CONNECTOR_WORK, desc.toString(), endTime - startTime);
+                timeTracker.track(TimeTrackerRecords.EXECUTE_CONNECTOR_WORK, () -> "processDefinitionId: " + processDefinitionId + " - " + "connectorDefinitionName: "
+                        + connectorDefinitionName + " - " + "connectorInstanceId: " + connectorInstanceId, endTime - startTime);
             }
             Thread.currentThread().setContextClassLoader(contextClassLoader);
         }
     }
 
+    /**
+     * evaluate output and trigger the execution of the flow node
+     */
+    private void evaluateOutputsInLock(final Map<String, Object> context, final ConnectorResult result,
+            final SConnectorDefinition sConnectorDefinition) throws Exception {
+        final TenantServiceAccessor tenantAccessor = getTenantAccessor(context);
+        BonitaLock lock = tenantAccessor.getLockService().lock(processInstanceId,
+                SFlowElementsContainerType.PROCESS.name(), getTenantId());
+        try {
+            tenantAccessor.getUserTransactionService().executeInTransaction(
+                    new EvaluateConnectorOutputsTxContent(result, sConnectorDefinition, context));
+        } finally {
+            tenantAccessor.getLockService().unlock(lock, getTenantId());
+        }
+    }
+
+    /**
+     * Release the current thread: a work evaluating the outputs is submitted when the connector completes, successfully or not
+     */
+    private void executeAsynchronously(final TenantServiceAccessor tenantAccessor, final CompletableFuture<ConnectorResult> connectorResult) {
+        final BPMWorkFactory workFactory = tenantAccessor.getBPMWorkFactory();
+        final WorkExecutorService workExecutorService = tenantAccessor.getWorkExecutorService();
+        final String connectorResultId = workFactory.registerConnectorResult(connectorResult);
+        final WorkDescriptor evaluateOutputsWork = workFactory.createEvaluateConnectorOutputsWorkDescriptor(createWorkDescriptor(workFactory),
+                connectorResultId);
+        evaluateOutputsWork.setTenantId(getTenantId());
+        connectorResult.whenComplete((result, e) -> {
+            workExecutorService.execute(evaluateOutputsWork);
+            if (workExecutorService.isStopped()) {
+                // the work was ignored or will be dropped: nobody will take the result, the connector is executed again when its work is restarted
+                workFactory.takeConnectorResult(connectorResultId);
+            }
+        });
+    }
+
+    private void evaluateOutputsOfAsynchronousExecution(final Map<String, Object> context, final CompletableFuture<ConnectorResult> connectorResult)
+            throws Exception {
+        final ConnectorResult result;
+        try {
+            result = connectorResult.get();
+        } catch (final ExecutionException e) {
+            // failure of the connector itself, handled like in a synchronous execution
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+        final ProcessDefinitionService processDefinitionService = getTenantAccessor(context).getProcessDefinitionService();
+        final SConnectorDefinition sConnectorDefinition = getTenantAccessor(context).getUserTransactionService()
+                .executeInTransaction(() -> getSConnectorDefinition(processDefinitionService));
+        evaluateOutputsInLock(context, result, sConnectorDefinition);
+    }
+
     @Override
     public void handleFailure(final Exception e, final Map<String, Object> context) throws Exception {
         final UserTransactionService userTransactionService = getTenantAccessor(context).getUserTransactionService();
@@ -65,7 +65,7 @@ public class LockProcessInstanceWork extends WrappingBonitaWork {
                     loggerService.log(getClass(), TechnicalLogSeverity.DEBUG, Thread.currentThread().getName() + " did not get lock for instance "
                             + processInstanceId + ": " + getWorkStack());
                 }
-                throw new LockTimeoutException("Unable to lock process instance "+processInstanceId);
+                throw new LockTimeoutException("Unable to lock process instance " + processInstanceId, getLockKey(objectType));
             }
             if (loggerService.isLoggable(getClass(), TechnicalLogSeverity.DEBUG)) {
                 loggerService.log(getClass(), TechnicalLogSeverity.DEBUG, Thread.currentThread().getName() + " obtained lock for instance " + processInstanceId
@@ -79,11 +79,17 @@ public class LockProcessInstanceWork extends WrappingBonitaWork {
                     loggerService.log(getClass(), TechnicalLogSeverity.DEBUG, Thread.currentThread().getName() + " has unlocked lock for instance "
                             + processInstanceId + ": " + getWorkStack());
                 }
+                // works that timed out on this lock can be retried now
+                getTenantAccessor(context).getWorkExecutorService().notifyLockReleased(getLockKey(objectType));
             }
         }
 
     }
 
+    private String getLockKey(String objectType) {
+        return objectType + "_" + processInstanceId;
+    }
+
     private String getWorkStack() {
         if (this.getWrappedWork() instanceof TxBonitaWork) {
             final TxBonitaWork txBonitaWork = (TxBonitaWork) this.getWrappedWork();
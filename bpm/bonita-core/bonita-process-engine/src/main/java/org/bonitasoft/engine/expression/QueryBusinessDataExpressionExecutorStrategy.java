@@ -63,15 +63,8 @@ public class QueryBusinessDataExpressionExecutorStrategy extends NonEmptyContent
                         businessDataRepository.findListByNamedQuery(queryName, Entity.class, parameters,
                                 getStartIndexParameter(expression.getDependencies(), resolvedExpressions, expression.getName(), parameters),
                                 getMaxResultParameter(expression.getDependencies(), resolvedExpressions, expression.getName(), parameters));
-                
-                List<Entity> e = new ArrayList<>();
-                for (Entity entity : entities) {
-                    ServerProxyfier proxyfier = new ServerProxyfier(new ServerLazyLoader(businessDataRepository));
-                    Entity proxify = proxyfier.proxify(entity);
-                    e.add(proxify);
-                }
-                
-                return e;
+                ServerProxyfier proxyfier = new ServerProxyfier(new ServerLazyLoader(businessDataRepository));
+                return proxyfier.proxify(entities);
             } else {
                 Entity findByNamedQuery = businessDataRepository.findByNamedQuery(queryName, Entity.class, parameters);
                 ServerProxyfier proxyfier = new ServerProxyfier(new ServerLazyLoader(businessDataRepository));
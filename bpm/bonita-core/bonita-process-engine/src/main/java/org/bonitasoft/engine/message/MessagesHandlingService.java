@@ -15,13 +15,20 @@
 package org.bonitasoft.engine.message;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.bonitasoft.engine.builder.BuilderFactory;
 import org.bonitasoft.engine.commons.TenantLifecycleService;
@@ -53,6 +60,12 @@ import org.bonitasoft.engine.work.SWorkRegisterException;
 import org.bonitasoft.engine.work.WorkService;
 
 /**
+ * Matches message instances with waiting message events and triggers the execution of the matched couples.
+ * <p>
+ * When a message or a waiting message event is created, its correlation key (message name, target process and correlations) is registered after the
+ * transaction commits. The matching thread then only reads the couples of these keys instead of joining all waiting events with all messages.
+ * Triggers that do not come with a key (restart, reset of a couple, too many couples to match) fall back to a matching of all couples.
+ *
  * @author Baptiste Mesta
  */
 public class MessagesHandlingService implements TenantLifecycleService {
@@ -68,6 +81,8 @@ public class MessagesHandlingService implements TenantLifecycleService {
     private UserTransactionService userTransactionService;
     private SessionAccessor sessionAccessor;
     private BPMWorkFactory workFactory;
+    private final Set<CorrelationKey> pendingCorrelationKeys = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean fullMatchingRequested = new AtomicBoolean(true);
 
     public MessagesHandlingService(EventInstanceService eventInstanceService, WorkService workService, TechnicalLoggerService loggerService,
             LockService lockService, Long tenantId, UserTransactionService userTransactionService,
@@ -85,6 +100,8 @@ public class MessagesHandlingService implements TenantLifecycleService {
     @Override
     public void start() throws SBonitaException {
         log(TechnicalLogSeverity.INFO, "Starting thread that handle messages.");
+        // keys registered before a stop may have been lost
+        fullMatchingRequested.set(true);
         threadPoolExecutor = new ThreadPoolExecutor(1, 1, 3600000, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(5), new ThreadFactory() {
 
             @Override
@@ -130,34 +147,116 @@ public class MessagesHandlingService implements TenantLifecycleService {
         start();
     }
 
+    /**
+     * Trigger the matching of all messages with all waiting message events, once the current transaction is completed.
+     */
     public void triggerMatchingOfMessages() throws STransactionNotFoundException {
+        registerMatching(null);
+    }
+
+    /**
+     * Trigger the matching of the given message instance, once the current transaction is committed.
+     */
+    public void triggerMatchingOfMessages(SMessageInstance messageInstance) throws STransactionNotFoundException {
+        registerMatching(new CorrelationKey(messageInstance.getMessageName(), messageInstance.getTargetProcess(),
+                messageInstance.getCorrelation1(), messageInstance.getCorrelation2(), messageInstance.getCorrelation3(), messageInstance.getCorrelation4(),
+                messageInstance.getCorrelation5()));
+    }
+
+    /**
+     * Trigger the matching of the given waiting message event, once the current transaction is committed.
+     */
+    public void triggerMatchingOfMessages(SWaitingMessageEvent waitingMessageEvent) throws STransactionNotFoundException {
+        registerMatching(new CorrelationKey(waitingMessageEvent.getMessageName(), waitingMessageEvent.getProcessName(),
+                waitingMessageEvent.getCorrelation1(), waitingMessageEvent.getCorrelation2(), waitingMessageEvent.getCorrelation3(),
+                waitingMessageEvent.getCorrelation4(), waitingMessageEvent.getCorrelation5()));
+    }
+
+    private void registerMatching(CorrelationKey correlationKey) throws STransactionNotFoundException {
         if (threadPoolExecutor == null) {
             log(TechnicalLogSeverity.WARNING, "Cannot match events when service is stopped. Maybe the engine is not yet started.");
             return;
         }
-        userTransactionService.registerBonitaSynchronization(new RegisterMatchingOfEventSynchronization());
+        userTransactionService.registerBonitaSynchronization(new RegisterMatchingOfEventSynchronization(correlationKey));
     }
 
-    private void matchEventCoupleAndTriggerExecution() throws Exception {
-        userTransactionService.executeInTransaction(new Callable<Object>() {
+    /**
+     * @return the correlation keys registered since the last matching, for testing purpose
+     */
+    Set<CorrelationKey> getPendingCorrelationKeys() {
+        return pendingCorrelationKeys;
+    }
 
-            @Override
-            public Object call() throws Exception {
-                final List<SMessageEventCouple> potentialMessageCouples = eventInstanceService.getMessageEventCouples(0, MAX_COUPLES);
-                final List<SMessageEventCouple> uniqueCouples = getMessageUniqueCouples(potentialMessageCouples);
-                executeUniqueMessageCouplesWork(uniqueCouples);
-                if (uniqueCouples.size() > 0) {
-                    log(TechnicalLogSeverity.INFO, "Triggered execution of " + uniqueCouples.size() + " event couples");
-                } else {
-                    log(TechnicalLogSeverity.DEBUG, "Executed thread to match event couples, but there is nothing to match");
-                }
-                if (potentialMessageCouples.size() == MAX_COUPLES) {
-                    log(TechnicalLogSeverity.DEBUG, "There is more than " + MAX_COUPLES + " event to match. will retrigger the execution now.");
-                    triggerMatchingOfMessages();
+    /**
+     * @return true if the next matching must read all couples, for testing purpose
+     */
+    boolean isFullMatchingRequested() {
+        return fullMatchingRequested.get();
+    }
+
+    void matchEventCoupleAndTriggerExecution() throws Exception {
+        final boolean fullMatching = fullMatchingRequested.getAndSet(false);
+        final List<CorrelationKey> correlationKeys = drainPendingCorrelationKeys();
+        try {
+            userTransactionService.executeInTransaction(new Callable<Object>() {
+
+                @Override
+                public Object call() throws Exception {
+                    final List<SMessageEventCouple> potentialMessageCouples = fullMatching ? getAllMessageEventCouples()
+                            : getMessageEventCouples(correlationKeys);
+                    final List<SMessageEventCouple> uniqueCouples = getMessageUniqueCouples(potentialMessageCouples);
+                    executeUniqueMessageCouplesWork(uniqueCouples);
+                    if (uniqueCouples.size() > 0) {
+                        log(TechnicalLogSeverity.INFO, "Triggered execution of " + uniqueCouples.size() + " event couples");
+                    } else {
+                        log(TechnicalLogSeverity.DEBUG, "Executed thread to match event couples, but there is nothing to match");
+                    }
+                    return null;
                 }
-                return null;
+            });
+        } catch (Exception e) {
+            // keys that were drained are lost: next matching must read everything
+            fullMatchingRequested.set(true);
+            throw e;
+        }
+    }
+
+    private List<CorrelationKey> drainPendingCorrelationKeys() {
+        final List<CorrelationKey> correlationKeys = new ArrayList<>();
+        final Iterator<CorrelationKey> iterator = pendingCorrelationKeys.iterator();
+        while (iterator.hasNext()) {
+            correlationKeys.add(iterator.next());
+            iterator.remove();
+        }
+        return correlationKeys;
+    }
+
+    private List<SMessageEventCouple> getAllMessageEventCouples() throws SEventTriggerInstanceReadException {
+        final List<SMessageEventCouple> couples = eventInstanceService.getMessageEventCouples(0, MAX_COUPLES);
+        if (couples.size() == MAX_COUPLES) {
+            log(TechnicalLogSeverity.DEBUG, "There is more than " + MAX_COUPLES + " event to match. will retrigger the execution now.");
+            fullMatchingRequested.set(true);
+        }
+        return couples;
+    }
+
+    private List<SMessageEventCouple> getMessageEventCouples(List<CorrelationKey> correlationKeys) throws SEventTriggerInstanceReadException {
+        final List<SMessageEventCouple> couples = new ArrayList<>();
+        for (final CorrelationKey correlationKey : correlationKeys) {
+            final List<SMessageEventCouple> couplesOfKey = eventInstanceService.getMessageEventCouples(correlationKey.messageName,
+                    correlationKey.processName, correlationKey.correlations, 0, MAX_COUPLES);
+            if (couplesOfKey.size() == MAX_COUPLES) {
+                log(TechnicalLogSeverity.DEBUG, "There is more than " + MAX_COUPLES + " event to match for " + correlationKey
+                        + ". will retrigger the execution now.");
+                pendingCorrelationKeys.add(correlationKey);
             }
-        });
+            couples.addAll(couplesOfKey);
+        }
+        return couples;
+    }
+
+    private boolean hasPendingMatching() {
+        return fullMatchingRequested.get() || !pendingCorrelationKeys.isEmpty();
     }
 
     private void log(TechnicalLogSeverity severity, String message) {
@@ -195,8 +294,8 @@ public class MessagesHandlingService implements TenantLifecycleService {
      * @return the reduced list of couple, where we insure that a unique message instance is associated with a unique waiting message.
      */
     List<SMessageEventCouple> getMessageUniqueCouples(List<SMessageEventCouple> potentialMessageCouples) throws SEventTriggerInstanceReadException {
-        final List<Long> takenMessages = new ArrayList<>();
-        final List<Long> takenWaitings = new ArrayList<>();
+        final Set<Long> takenMessages = new HashSet<>();
+        final Set<Long> takenWaitings = new HashSet<>();
         final List<SMessageEventCouple> uniqueMessageCouples = new ArrayList<>();
         for (final SMessageEventCouple couple : potentialMessageCouples) {
             final long messageInstanceId = couple.getMessageInstanceId();
@@ -276,6 +375,10 @@ public class MessagesHandlingService implements TenantLifecycleService {
                 } finally {
                     lockService.unlock(eventLock, tenantId);
                 }
+                if (hasPendingMatching()) {
+                    //keys registered while this matching was running (or too many couples): do not wait for the next trigger
+                    submitMatching();
+                }
             } catch (Exception e) {
                 loggerService.log(MessagesHandlingService.class, TechnicalLogSeverity.ERROR, "error while matching events", e);
                 throw e;
@@ -284,8 +387,21 @@ public class MessagesHandlingService implements TenantLifecycleService {
         }
     }
 
+    private void submitMatching() {
+        final ThreadPoolExecutor executor = threadPoolExecutor;
+        if (executor != null) {
+            executor.submit(new MatchEventCallable());
+        }
+    }
+
     private class RegisterMatchingOfEventSynchronization implements BonitaTransactionSynchronization {
 
+        private final CorrelationKey correlationKey;
+
+        RegisterMatchingOfEventSynchronization(CorrelationKey correlationKey) {
+            this.correlationKey = correlationKey;
+        }
+
         @Override
         public void beforeCommit() {
         }
@@ -293,7 +409,54 @@ public class MessagesHandlingService implements TenantLifecycleService {
         @Override
         public void afterCompletion(TransactionState txState) {
             log(TechnicalLogSeverity.DEBUG, "transaction triggered the matching of events.");
-            threadPoolExecutor.submit(new MatchEventCallable());
+            if (correlationKey == null) {
+                fullMatchingRequested.set(true);
+            } else if (txState == TransactionState.COMMITTED) {
+                pendingCorrelationKeys.add(correlationKey);
+            } else {
+                // the message or the waiting event was not created, nothing new to match
+                return;
+            }
+            submitMatching();
+        }
+    }
+
+    /**
+     * Identifies the messages and waiting message events that can be matched together: same message name, same (target) process and same correlations.
+     */
+    static final class CorrelationKey {
+
+        private final String messageName;
+        private final String processName;
+        private final List<String> correlations;
+
+        CorrelationKey(String messageName, String processName, String... correlations) {
+            this.messageName = messageName;
+            this.processName = processName;
+            this.correlations = Arrays.asList(correlations);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CorrelationKey)) {
+                return false;
+            }
+            final CorrelationKey that = (CorrelationKey) o;
+            return Objects.equals(messageName, that.messageName) && Objects.equals(processName, that.processName)
+                    && correlations.equals(that.correlations);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(messageName, processName, correlations);
+        }
+
+        @Override
+        public String toString() {
+            return "message " + messageName + " of process " + processName + " with correlations " + correlations;
         }
     }
 }
@@ -19,6 +19,7 @@ import org.bonitasoft.engine.core.process.instance.model.SHumanTaskInstance;
 import org.bonitasoft.engine.exception.SearchException;
 import org.bonitasoft.engine.execution.state.FlowNodeStateManager;
 import org.bonitasoft.engine.persistence.FilterOption;
+import org.bonitasoft.engine.persistence.KeysetCursor;
 import org.bonitasoft.engine.persistence.OrderByOption;
 import org.bonitasoft.engine.persistence.PersistentObject;
 import org.bonitasoft.engine.persistence.QueryOptions;
@@ -55,6 +56,8 @@ public abstract class AbstractSearchEntity<C extends Serializable, S extends Per
 
     private List<C> clientObjects;
 
+    private String nextPageCursor;
+
     /**
      * @param searchDescriptor
      *        The search descriptor of the searched entity
@@ -102,16 +105,45 @@ public abstract class AbstractSearchEntity<C extends Serializable, S extends Per
             orderOptions.add(order);
         }
         final QueryOptions countOptions = new QueryOptions(0, QueryOptions.UNLIMITED_NUMBER_OF_RESULTS, null, filterOptions, userSearchTerm);
-        count = executeCount(countOptions);
-        if (count > 0 && numberOfResults != 0) {
-            final QueryOptions searchOptions = new QueryOptions(fromIndex, numberOfResults, orderOptions, filterOptions, userSearchTerm);
+        final String searchAfter = options.isKeysetPagination() ? options.getSearchAfter() : null;
+        if (searchAfter != null) {
+            // the count does not depend on the page: only computed for the first one so that each page has the same cost
+            count = -1;
+        } else {
+            count = executeCount(countOptions);
+        }
+        if (count != 0 && numberOfResults != 0) {
+            final QueryOptions searchOptions;
+            if (options.isKeysetPagination()) {
+                searchOptions = QueryOptions.searchAfter(numberOfResults, orderOptions, filterOptions, userSearchTerm,
+                        searchAfter != null ? KeysetCursor.decode(searchAfter) : null);
+            } else {
+                searchOptions = new QueryOptions(fromIndex, numberOfResults, orderOptions, filterOptions, userSearchTerm);
+            }
             serverObjects = executeSearch(searchOptions);
         } else {
             serverObjects = Collections.emptyList();
         }
+        if (options.isKeysetPagination()) {
+            nextPageCursor = getNextPageCursor(serverObjects, numberOfResults, orderOptions, searchAfter);
+        }
         clientObjects = convertToClientObjects(serverObjects);
     }
 
+    private String getNextPageCursor(final List<S> serverObjects, final int numberOfResults, final List<OrderByOption> orderOptions,
+            final String searchAfter) throws SBonitaReadException {
+        if (serverObjects.size() < numberOfResults || serverObjects.isEmpty()) {
+            return null;
+        }
+        final S last = serverObjects.get(serverObjects.size() - 1);
+        final String cursor = KeysetCursor.encode(KeysetCursor.valuesOf(last, KeysetCursor.getKeysetOrder(orderOptions, null)));
+        if (cursor.equals(searchAfter)) {
+            // the search returned the previous page again: it does not take the cursor into account
+            throw new SBonitaReadException("Keyset pagination is not supported by this search");
+        }
+        return cursor;
+    }
+
     /**
      * execute this search and return the result
      *
@@ -157,7 +189,7 @@ public abstract class AbstractSearchEntity<C extends Serializable, S extends Per
 
     @Override
     public SearchResult<C> getResult() {
-        return new SearchResultImpl<>(count, clientObjects);
+        return new SearchResultImpl<>(count, clientObjects, nextPageCursor);
     }
 
     protected SearchFilter getSearchFilter(final SearchOptions searchOptions, final String searchedKey) {
@@ -14,6 +14,7 @@
 package org.bonitasoft.engine.service;
 
 import org.bonitasoft.engine.api.impl.NodeConfiguration;
+import org.bonitasoft.engine.api.impl.TenantStateCache;
 import org.bonitasoft.engine.cache.PlatformCacheService;
 import org.bonitasoft.engine.classloader.ClassLoaderService;
 import org.bonitasoft.engine.commons.transaction.TransactionExecutor;
@@ -71,6 +72,8 @@ public interface PlatformServiceAccessor extends ServiceAccessor {
 
     PlatformAuthenticationService getPlatformAuthenticationService();
 
+    TenantStateCache getTenantStateCache();
+
     <T> T lookup(String serviceName) throws NotFoundException;
 
     ServicesResolver getServicesResolver();
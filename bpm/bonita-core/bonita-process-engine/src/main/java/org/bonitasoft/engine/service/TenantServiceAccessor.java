@@ -14,6 +14,7 @@
 
 package org.bonitasoft.engine.service;
 
+import org.bonitasoft.engine.actor.UserActorsCache;
 import org.bonitasoft.engine.actor.mapping.ActorMappingService;
 import org.bonitasoft.engine.api.impl.TenantConfiguration;
 import org.bonitasoft.engine.api.impl.resolver.BusinessArchiveArtifactsManager;
@@ -56,6 +57,7 @@ import org.bonitasoft.engine.exception.NotFoundException;
 import org.bonitasoft.engine.execution.ContainerRegistry;
 import org.bonitasoft.engine.execution.FlowNodeExecutor;
 import org.bonitasoft.engine.execution.ProcessExecutor;
+import org.bonitasoft.engine.execution.archive.DeferredProcessArchiver;
 import org.bonitasoft.engine.execution.event.EventsHandler;
 import org.bonitasoft.engine.execution.state.FlowNodeStateManager;
 import org.bonitasoft.engine.execution.work.BPMWorkFactory;
@@ -257,5 +259,9 @@ public interface TenantServiceAccessor extends ServiceAccessor {
 
     MessagesHandlingService getMessagesHandlingService();
 
+    DeferredProcessArchiver getDeferredProcessArchiver();
+
+    UserActorsCache getUserActorsCache();
+
     BPMWorkFactory getBPMWorkFactory();
 }
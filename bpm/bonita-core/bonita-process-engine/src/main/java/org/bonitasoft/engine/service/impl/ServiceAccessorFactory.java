@@ -35,8 +35,9 @@ public class ServiceAccessorFactory {
     private static final String API_ACCESS_RESOLVER_CLASS_NAME = "apiAccessResolver";
     private static final String SERVICE_ACCESSORS = "serviceAccessors";
 
-    private APIAccessResolver apiAccessResolver;
-    private ServiceAccessors serviceAccessors;
+    // volatile: read without lock on each API call once initialized
+    private volatile APIAccessResolver apiAccessResolver;
+    private volatile ServiceAccessors serviceAccessors;
 
     protected ServiceAccessorFactory() {
         super();
@@ -46,14 +47,18 @@ public class ServiceAccessorFactory {
         return INSTANCE;
     }
 
-    public synchronized PlatformServiceAccessor createPlatformServiceAccessor() throws BonitaHomeNotSetException, InstantiationException,
+    public PlatformServiceAccessor createPlatformServiceAccessor() throws BonitaHomeNotSetException, InstantiationException,
             IllegalAccessException, ClassNotFoundException, IOException, BonitaHomeConfigurationException {
         return getServiceAccessors().getPlatformServiceAccessor();
     }
 
-    private synchronized ServiceAccessors getServiceAccessors() throws BonitaHomeConfigurationException, IOException, ClassNotFoundException, IllegalAccessException, InstantiationException {
+    private ServiceAccessors getServiceAccessors() throws BonitaHomeConfigurationException, IOException, ClassNotFoundException, IllegalAccessException, InstantiationException {
         if (serviceAccessors == null) {
-            serviceAccessors = (ServiceAccessors) loadClassFromPropertyName(SERVICE_ACCESSORS).newInstance();
+            synchronized (this) {
+                if (serviceAccessors == null) {
+                    serviceAccessors = (ServiceAccessors) loadClassFromPropertyName(SERVICE_ACCESSORS).newInstance();
+                }
+            }
         }
         return serviceAccessors;
     }
@@ -74,10 +79,14 @@ public class ServiceAccessorFactory {
         return getServiceAccessors().getPlatformInitServiceAccessor();
     }
 
-    public synchronized APIAccessResolver createAPIAccessResolver() throws BonitaHomeNotSetException, IOException, BonitaHomeConfigurationException,
+    public APIAccessResolver createAPIAccessResolver() throws BonitaHomeNotSetException, IOException, BonitaHomeConfigurationException,
             InstantiationException, IllegalAccessException, ClassNotFoundException {
         if (apiAccessResolver == null) {
-            apiAccessResolver = (APIAccessResolver) loadClassFromPropertyName(API_ACCESS_RESOLVER_CLASS_NAME).newInstance();
+            synchronized (this) {
+                if (apiAccessResolver == null) {
+                    apiAccessResolver = (APIAccessResolver) loadClassFromPropertyName(API_ACCESS_RESOLVER_CLASS_NAME).newInstance();
+                }
+            }
         }
         return apiAccessResolver;
     }
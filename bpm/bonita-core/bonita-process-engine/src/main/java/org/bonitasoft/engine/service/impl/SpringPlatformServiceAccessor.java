@@ -14,6 +14,7 @@
 package org.bonitasoft.engine.service.impl;
 
 import org.bonitasoft.engine.api.impl.NodeConfiguration;
+import org.bonitasoft.engine.api.impl.TenantStateCache;
 import org.bonitasoft.engine.cache.PlatformCacheService;
 import org.bonitasoft.engine.classloader.ClassLoaderService;
 import org.bonitasoft.engine.commons.transaction.TransactionExecutor;
@@ -128,6 +129,11 @@ public class SpringPlatformServiceAccessor implements PlatformServiceAccessor {
         return beanAccessor.getService(PlatformAuthenticationService.class);
     }
 
+    @Override
+    public TenantStateCache getTenantStateCache() {
+        return beanAccessor.getService(TenantStateCache.class);
+    }
+
     @Override
     public <T> T lookup(String serviceName) throws NotFoundException {
         try{
@@ -14,6 +14,7 @@
 
 package org.bonitasoft.engine.service.impl;
 
+import org.bonitasoft.engine.actor.UserActorsCache;
 import org.bonitasoft.engine.actor.mapping.ActorMappingService;
 import org.bonitasoft.engine.api.impl.TenantConfiguration;
 import org.bonitasoft.engine.api.impl.resolver.BusinessArchiveArtifactsManager;
@@ -57,6 +58,7 @@ import org.bonitasoft.engine.exception.NotFoundException;
 import org.bonitasoft.engine.execution.ContainerRegistry;
 import org.bonitasoft.engine.execution.FlowNodeExecutor;
 import org.bonitasoft.engine.execution.ProcessExecutor;
+import org.bonitasoft.engine.execution.archive.DeferredProcessArchiver;
 import org.bonitasoft.engine.execution.event.EventsHandler;
 import org.bonitasoft.engine.execution.state.FlowNodeStateManager;
 import org.bonitasoft.engine.execution.work.BPMWorkFactory;
@@ -509,6 +511,14 @@ public class SpringTenantServiceAccessor implements TenantServiceAccessor {
         return beanAccessor.getService(MessagesHandlingService.class);
     }
 
+    public DeferredProcessArchiver getDeferredProcessArchiver() {
+        return beanAccessor.getService(DeferredProcessArchiver.class);
+    }
+
+    public UserActorsCache getUserActorsCache() {
+        return beanAccessor.getService(UserActorsCache.class);
+    }
+
     public BPMWorkFactory getBPMWorkFactory() {
         return beanAccessor.getService(BPMWorkFactory.class);
     }
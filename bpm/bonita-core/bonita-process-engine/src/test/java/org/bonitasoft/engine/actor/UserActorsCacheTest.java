@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, US.
+ */
+package org.bonitasoft.engine.actor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.bonitasoft.engine.actor.mapping.ActorMappingService;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.STransactionNotFoundException;
+import org.bonitasoft.engine.transaction.TransactionState;
+import org.bonitasoft.engine.transaction.UserTransactionService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserActorsCacheTest {
+
+    private static final long USER_ID = 12L;
+
+    @Mock
+    private ActorMappingService actorMappingService;
+    @Mock
+    private UserTransactionService userTransactionService;
+
+    private UserActorsCache userActorsCache;
+
+    @Before
+    public void before() throws Exception {
+        userActorsCache = new UserActorsCache(actorMappingService, userTransactionService, 10);
+        doReturn(new HashSet<>(Arrays.asList(1L, 2L))).when(actorMappingService).getActorIdsOfUser(USER_ID);
+    }
+
+    @Test
+    public void should_read_actors_of_user_only_once() throws Exception {
+        assertThat(userActorsCache.getActorIdsOfUser(USER_ID)).containsOnly(1L, 2L);
+        assertThat(userActorsCache.getActorIdsOfUser(USER_ID)).containsOnly(1L, 2L);
+
+        verify(actorMappingService, times(1)).getActorIdsOfUser(USER_ID);
+        assertThat(userActorsCache.getHitCount()).isEqualTo(1);
+        assertThat(userActorsCache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_read_actors_of_user_again_after_invalidation_and_again_when_transaction_completes() throws Exception {
+        userActorsCache.getActorIdsOfUser(USER_ID);
+
+        userActorsCache.invalidate(USER_ID);
+        assertThat(userActorsCache.size()).isZero();
+        userActorsCache.getActorIdsOfUser(USER_ID);
+        assertThat(userActorsCache.size()).isEqualTo(1);
+        final ArgumentCaptor<BonitaTransactionSynchronization> synchronization = ArgumentCaptor.forClass(BonitaTransactionSynchronization.class);
+        verify(userTransactionService).registerBonitaSynchronization(synchronization.capture());
+        synchronization.getValue().afterCompletion(TransactionState.COMMITTED);
+
+        assertThat(userActorsCache.size()).isZero();
+        userActorsCache.getActorIdsOfUser(USER_ID);
+        verify(actorMappingService, times(3)).getActorIdsOfUser(USER_ID);
+    }
+
+    @Test
+    public void should_invalidate_all_users() throws Exception {
+        doReturn(Collections.singleton(3L)).when(actorMappingService).getActorIdsOfUser(13L);
+        userActorsCache.getActorIdsOfUser(USER_ID);
+        userActorsCache.getActorIdsOfUser(13L);
+
+        userActorsCache.invalidateAll();
+
+        assertThat(userActorsCache.size()).isZero();
+    }
+
+    @Test
+    public void should_not_keep_actors_read_while_they_were_changed() throws Exception {
+        doAnswer(invocation -> {
+            userActorsCache.invalidateAll();
+            return Collections.singleton(3L);
+        }).when(actorMappingService).getActorIdsOfUser(13L);
+        userActorsCache.getActorIdsOfUser(USER_ID);
+
+        assertThat(userActorsCache.getActorIdsOfUser(13L)).containsOnly(3L);
+
+        assertThat(userActorsCache.size()).isZero();
+    }
+
+    @Test
+    public void should_invalidate_immediately_when_not_in_a_transaction() throws Exception {
+        doThrow(STransactionNotFoundException.class).when(userTransactionService).registerBonitaSynchronization(any());
+        userActorsCache.getActorIdsOfUser(USER_ID);
+
+        userActorsCache.invalidate(USER_ID);
+
+        assertThat(userActorsCache.size()).isZero();
+    }
+
+    @Test
+    public void should_not_keep_anything_when_disabled() throws Exception {
+        userActorsCache = new UserActorsCache(actorMappingService, userTransactionService, 0);
+
+        userActorsCache.getActorIdsOfUser(USER_ID);
+        userActorsCache.getActorIdsOfUser(USER_ID);
+
+        verify(actorMappingService, times(2)).getActorIdsOfUser(USER_ID);
+        assertThat(userActorsCache.size()).isZero();
+    }
+
+}
@@ -19,6 +19,7 @@ import static org.mockito.Mockito.verify;
 
 import java.util.Collections;
 
+import org.bonitasoft.engine.actor.UserActorsCache;
 import org.bonitasoft.engine.actor.mapping.ActorMappingService;
 import org.bonitasoft.engine.api.impl.resolver.BusinessArchiveArtifactsManager;
 import org.bonitasoft.engine.core.process.comment.api.SCommentService;
@@ -76,6 +77,9 @@ public class OrganizationAPIImplTest {
     @Mock
     private ProcessDefinitionService processDefinitionService;
 
+    @Mock
+    private UserActorsCache userActorsCache;
+
     @Mock
     private BusinessArchiveArtifactsManager businessArchiveArtifactsManager;
 
@@ -111,6 +115,7 @@ public class OrganizationAPIImplTest {
         // given
         given(identityService.getCustomUserInfoDefinitions(0, PAGE_SIZE)).willReturn(Collections.singletonList(userInfoDef1),
                 Collections.singletonList(userInfoDef2), Collections.<SCustomUserInfoDefinition> emptyList());
+        given(serviceAccessor.getUserActorsCache()).willReturn(userActorsCache);
 
         // when
         organizationAPIImpl.deleteOrganization();
@@ -127,6 +132,7 @@ public class OrganizationAPIImplTest {
         verify(identityService, times(1)).deleteAllGroups();
         verify(identityService, times(1)).deleteAllRoles();
         verify(identityService, times(1)).deleteAllUsers();
+        verify(userActorsCache).invalidateAll();
     }
 
 }
@@ -32,6 +32,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 
+import org.bonitasoft.engine.api.TenantAdministrationAPI;
 import org.bonitasoft.engine.api.internal.ServerWrappedException;
 import org.bonitasoft.engine.exception.BonitaRuntimeException;
 import org.bonitasoft.engine.exception.TenantStatusException;
@@ -337,6 +338,32 @@ public class ServerAPIImplTest {
         verify(serverAPIImplSpy, never()).isTenantAvailable(anyLong(), any(Session.class), eq(false));
     }
 
+    @Test
+    public void isTenantAvailable_should_use_the_known_state_of_the_tenant() throws Exception {
+        final TenantStateCache tenantStateCache = new TenantStateCache();
+        tenantStateCache.setPaused(54L, true);
+        final ServerAPIImpl serverAPIImplSpy = spy(serverAPIImpl);
+        doReturn(tenantStateCache).when(serverAPIImplSpy).getTenantStateCache();
+
+        assertThat(serverAPIImplSpy.isTenantAvailable(54L, buildSession(54L), true)).isFalse();
+
+        verify(accessResolver, never()).getAPIImplementation(anyString());
+    }
+
+    @Test
+    public void isTenantAvailable_should_read_the_state_of_the_tenant_only_once() throws Exception {
+        final TenantStateCache tenantStateCache = new TenantStateCache();
+        final ServerAPIImpl serverAPIImplSpy = spy(serverAPIImpl);
+        doReturn(tenantStateCache).when(serverAPIImplSpy).getTenantStateCache();
+        doReturn(new FakeTenantAdministrationAPI()).when(accessResolver).getAPIImplementation(TenantAdministrationAPI.class.getName());
+
+        assertThat(serverAPIImplSpy.isTenantAvailable(54L, buildSession(54L), true)).isFalse();
+        assertThat(serverAPIImplSpy.isTenantAvailable(54L, buildSession(54L), true)).isFalse();
+
+        verify(accessResolver, times(1)).getAPIImplementation(TenantAdministrationAPI.class.getName());
+        assertThat(tenantStateCache.isPaused(54L)).isTrue();
+    }
+
     @Test
     public void isInAValidModeForAnActiveTenantWithAnnotationInOnlyIsInvalid() {
         when(annotation.only()).thenReturn(true);
@@ -474,4 +501,10 @@ public class ServerAPIImplTest {
         }
     }
 
+    public static class FakeTenantAdministrationAPI {
+
+        public boolean isPaused() {
+            return true;
+        }
+    }
 }
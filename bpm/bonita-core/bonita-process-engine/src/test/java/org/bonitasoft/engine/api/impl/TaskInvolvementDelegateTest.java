@@ -20,7 +20,13 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
+import java.util.Collections;
+import java.util.Set;
+
+import org.bonitasoft.engine.actor.UserActorsCache;
 import org.bonitasoft.engine.bpm.flownode.ActivityInstanceNotFoundException;
 import org.bonitasoft.engine.commons.exceptions.SBonitaException;
 import org.bonitasoft.engine.commons.exceptions.SExecutionException;
@@ -48,6 +54,7 @@ public class TaskInvolvementDelegateTest {
     private static final long ASSIGNED_USER = 1234595L;
     private static final long USER_PENDING = 4545666L;
     private static final long PROCESS_DEFINITION_ID = 123456789L;
+    private static final Set<Long> ACTOR_IDS = Collections.singleton(741L);
 
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
@@ -58,6 +65,9 @@ public class TaskInvolvementDelegateTest {
     @Mock
     TenantServiceAccessor tenantServiceAccessor;
 
+    @Mock
+    private UserActorsCache userActorsCache;
+
     @Mock
     public ProcessAPIImpl processAPI;
 
@@ -138,7 +148,10 @@ public class TaskInvolvementDelegateTest {
     @Test
     public final void should_hasUserPendingOrAssignedTasks_return_true_when_user_has_tasks() throws Exception {
         //given
-        doReturn(5L).when(activityInstanceService).getNumberOfPendingOrAssignedTasks(eq(ASSIGNED_USER), any(QueryOptions.class));
+        doReturn(userActorsCache).when(tenantServiceAccessor).getUserActorsCache();
+        doReturn(true).when(userActorsCache).isEnabled();
+        doReturn(ACTOR_IDS).when(userActorsCache).getActorIdsOfUser(ASSIGNED_USER);
+        doReturn(5L).when(activityInstanceService).getNumberOfPendingOrAssignedTasks(eq(ASSIGNED_USER), eq(ACTOR_IDS), any(QueryOptions.class));
 
         // When
         final boolean involvedInHumanTaskInstance = taskInvolvementDelegate.hasUserPendingOrAssignedTasks(ASSIGNED_USER, 45621L);
@@ -150,7 +163,10 @@ public class TaskInvolvementDelegateTest {
     @Test
     public final void should_hasUserPendingOrAssignedTasks_return_false_when_user_has_no_tasks() throws Exception {
         //given
-        doReturn(0L).when(activityInstanceService).getNumberOfPendingOrAssignedTasks(eq(ASSIGNED_USER), any(QueryOptions.class));
+        doReturn(userActorsCache).when(tenantServiceAccessor).getUserActorsCache();
+        doReturn(true).when(userActorsCache).isEnabled();
+        doReturn(ACTOR_IDS).when(userActorsCache).getActorIdsOfUser(ASSIGNED_USER);
+        doReturn(0L).when(activityInstanceService).getNumberOfPendingOrAssignedTasks(eq(ASSIGNED_USER), eq(ACTOR_IDS), any(QueryOptions.class));
 
         // When
         final boolean involvedInHumanTaskInstance = taskInvolvementDelegate.hasUserPendingOrAssignedTasks(ASSIGNED_USER, 45621L);
@@ -162,7 +178,10 @@ public class TaskInvolvementDelegateTest {
     @Test
     public final void should_hasUserPendingOrAssignedTasks_fail_when_read_exception() throws Exception {
         //given
-        doThrow(SBonitaReadException.class).when(activityInstanceService).getNumberOfPendingOrAssignedTasks(eq(ASSIGNED_USER), any(QueryOptions.class));
+        doReturn(userActorsCache).when(tenantServiceAccessor).getUserActorsCache();
+        doReturn(true).when(userActorsCache).isEnabled();
+        doReturn(ACTOR_IDS).when(userActorsCache).getActorIdsOfUser(ASSIGNED_USER);
+        doThrow(SBonitaReadException.class).when(activityInstanceService).getNumberOfPendingOrAssignedTasks(eq(ASSIGNED_USER), eq(ACTOR_IDS), any(QueryOptions.class));
 
         //expect
         expectedException.expect(SExecutionException.class);
@@ -171,4 +190,20 @@ public class TaskInvolvementDelegateTest {
         taskInvolvementDelegate.hasUserPendingOrAssignedTasks(ASSIGNED_USER, 45621L);
 
     }
+
+    @Test
+    public final void should_hasUserPendingOrAssignedTasks_resolve_actors_in_query_when_user_actors_cache_is_disabled() throws Exception {
+        //given
+        doReturn(userActorsCache).when(tenantServiceAccessor).getUserActorsCache();
+        doReturn(false).when(userActorsCache).isEnabled();
+        doReturn(5L).when(activityInstanceService).getNumberOfPendingOrAssignedTasks(eq(ASSIGNED_USER), eq(Collections.<Long> emptySet()),
+                any(QueryOptions.class));
+
+        // When
+        final boolean involvedInHumanTaskInstance = taskInvolvementDelegate.hasUserPendingOrAssignedTasks(ASSIGNED_USER, 45621L);
+
+        //then
+        assertThat(involvedInHumanTaskInstance).as("should return true").isTrue();
+        verify(userActorsCache, never()).getActorIdsOfUser(anyLong());
+    }
 }
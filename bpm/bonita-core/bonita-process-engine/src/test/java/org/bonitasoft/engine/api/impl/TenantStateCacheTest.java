@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.api.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.bonitasoft.engine.api.impl.transaction.PauseServiceStrategy;
+import org.bonitasoft.engine.api.impl.transaction.ResumeServiceStrategy;
+import org.bonitasoft.engine.api.impl.transaction.StartServiceStrategy;
+import org.junit.Test;
+
+public class TenantStateCacheTest {
+
+    private static final long TENANT_ID = 12L;
+
+    private final TenantStateCache tenantStateCache = new TenantStateCache();
+
+    @Test
+    public void should_not_know_the_state_of_a_tenant_not_loaded() {
+        assertThat(tenantStateCache.isPaused(TENANT_ID)).isNull();
+    }
+
+    @Test
+    public void should_keep_the_loaded_state() {
+        tenantStateCache.loaded(TENANT_ID, true, tenantStateCache.getVersion());
+
+        assertThat(tenantStateCache.isPaused(TENANT_ID)).isTrue();
+    }
+
+    @Test
+    public void should_not_keep_a_state_loaded_concurrently_with_a_change() {
+        final long version = tenantStateCache.getVersion();
+        tenantStateCache.setPaused(TENANT_ID, true);
+
+        tenantStateCache.loaded(TENANT_ID, false, version);
+
+        assertThat(tenantStateCache.isPaused(TENANT_ID)).isTrue();
+    }
+
+    @Test
+    public void should_not_keep_a_state_loaded_concurrently_with_an_invalidation() {
+        final long version = tenantStateCache.getVersion();
+        tenantStateCache.invalidate(TENANT_ID);
+
+        tenantStateCache.loaded(TENANT_ID, false, version);
+
+        assertThat(tenantStateCache.isPaused(TENANT_ID)).isNull();
+    }
+
+    @Test
+    public void pause_and_resume_strategies_should_set_the_state_and_others_invalidate_it() {
+        new PauseServiceStrategy().updateTenantState(tenantStateCache, TENANT_ID);
+        assertThat(tenantStateCache.isPaused(TENANT_ID)).isTrue();
+
+        new ResumeServiceStrategy().updateTenantState(tenantStateCache, TENANT_ID);
+        assertThat(tenantStateCache.isPaused(TENANT_ID)).isFalse();
+
+        new StartServiceStrategy().updateTenantState(tenantStateCache, TENANT_ID);
+        assertThat(tenantStateCache.isPaused(TENANT_ID)).isNull();
+    }
+
+}
@@ -19,6 +19,7 @@ import static org.mockito.Mockito.*;
 import java.util.Arrays;
 
 import org.bonitasoft.engine.api.impl.TenantConfiguration;
+import org.bonitasoft.engine.api.impl.TenantStateCache;
 import org.bonitasoft.engine.classloader.ClassLoaderService;
 import org.bonitasoft.engine.core.process.definition.ProcessDefinitionService;
 import org.bonitasoft.engine.dependency.DependencyService;
@@ -26,9 +27,13 @@ import org.bonitasoft.engine.dependency.model.ScopeType;
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
 import org.bonitasoft.engine.service.PlatformServiceAccessor;
 import org.bonitasoft.engine.service.TenantServiceAccessor;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.TransactionService;
+import org.bonitasoft.engine.transaction.TransactionState;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -46,6 +51,10 @@ public class SetServiceStateTest {
     private ProcessDefinitionService processDefinitionService;
     @Mock
     private ServiceStrategy serviceStrategy;
+    @Mock
+    private TransactionService transactionService;
+    @Mock
+    private TenantStateCache tenantStateCache;
     private SetServiceState setServiceState;
     public static final long TENANT_ID = 635434L;
 
@@ -61,6 +70,9 @@ public class SetServiceStateTest {
         setServiceState = spy(new SetServiceState(TENANT_ID, serviceStrategy));
         doReturn(platformServiceAccessor).when(setServiceState).getPlatformAccessor();
         doReturn(true).when(serviceStrategy).shouldRefreshClassLoaders();
+        doReturn(transactionService).when(platformServiceAccessor).getTransactionService();
+        doReturn(tenantStateCache).when(platformServiceAccessor).getTenantStateCache();
+        doReturn(TransactionState.ACTIVE).when(transactionService).getState();
     }
 
     @Test
@@ -92,4 +104,50 @@ public class SetServiceStateTest {
         order.verify(dependencyService).refreshClassLoader(ScopeType.PROCESS, 1L);
         order.verify(dependencyService).refreshClassLoader(ScopeType.PROCESS, 2L);
     }
+
+    @Test
+    public void call_should_update_tenant_state_when_the_transaction_is_committed() throws Exception {
+        // given:
+        doNothing().when(setServiceState).refreshClassloaderOfProcessDefinitions(tenantServiceAccessor);
+        final ArgumentCaptor<BonitaTransactionSynchronization> synchronization = ArgumentCaptor.forClass(BonitaTransactionSynchronization.class);
+
+        // when:
+        setServiceState.call();
+
+        // then:
+        verify(transactionService).registerBonitaSynchronization(synchronization.capture());
+        verify(serviceStrategy, never()).updateTenantState(tenantStateCache, TENANT_ID);
+        synchronization.getValue().afterCompletion(TransactionState.ROLLEDBACK);
+        verify(serviceStrategy, never()).updateTenantState(tenantStateCache, TENANT_ID);
+        synchronization.getValue().afterCompletion(TransactionState.COMMITTED);
+        verify(serviceStrategy).updateTenantState(tenantStateCache, TENANT_ID);
+    }
+
+    @Test
+    public void call_should_update_tenant_state_immediately_when_there_is_no_transaction() throws Exception {
+        // given:
+        doNothing().when(setServiceState).refreshClassloaderOfProcessDefinitions(tenantServiceAccessor);
+        doReturn(TransactionState.NO_TRANSACTION).when(transactionService).getState();
+
+        // when:
+        setServiceState.call();
+
+        // then:
+        verify(serviceStrategy).updateTenantState(tenantStateCache, TENANT_ID);
+        verify(transactionService, never()).registerBonitaSynchronization(any(BonitaTransactionSynchronization.class));
+    }
+
+    @Test
+    public void call_should_not_update_tenant_state_when_the_transaction_is_marked_for_rollback() throws Exception {
+        // given:
+        doNothing().when(setServiceState).refreshClassloaderOfProcessDefinitions(tenantServiceAccessor);
+        doReturn(TransactionState.ROLLBACKONLY).when(transactionService).getState();
+
+        // when:
+        setServiceState.call();
+
+        // then:
+        verify(serviceStrategy, never()).updateTenantState(tenantStateCache, TENANT_ID);
+        verify(transactionService, never()).registerBonitaSynchronization(any(BonitaTransactionSynchronization.class));
+    }
 }
@@ -0,0 +1,39 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.bar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.bonitasoft.engine.bpm.process.DesignProcessDefinition;
+import org.bonitasoft.engine.bpm.process.impl.ProcessDefinitionBuilder;
+import org.bonitasoft.engine.expression.Expression;
+import org.bonitasoft.engine.expression.ExpressionBuilder;
+import org.junit.Test;
+
+public class GroovyScriptFinderTest {
+
+    @Test
+    public void should_find_groovy_scripts_of_the_process_and_of_expression_dependencies() throws Exception {
+        final Expression dependency = new ExpressionBuilder().createGroovyScriptExpression("dependency", "'dep'", String.class.getName());
+        final ProcessDefinitionBuilder builder = new ProcessDefinitionBuilder().createNewInstance("process", "1.0");
+        builder.addData("data1", String.class.getName(),
+                new ExpressionBuilder().createGroovyScriptExpression("script1", "dependency + 'a'", String.class.getName(), dependency));
+        builder.addAutomaticTask("task").addData("data2", String.class.getName(),
+                new ExpressionBuilder().createGroovyScriptExpression("script2", "'b'", String.class.getName()));
+        builder.addData("data3", String.class.getName(), new ExpressionBuilder().createConstantStringExpression("not a script"));
+        final DesignProcessDefinition processDefinition = builder.done();
+
+        assertThat(GroovyScriptFinder.findScripts(processDefinition)).containsOnly("dependency + 'a'", "'dep'", "'b'");
+    }
+}
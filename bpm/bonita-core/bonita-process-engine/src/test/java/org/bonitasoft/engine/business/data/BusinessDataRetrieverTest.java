@@ -89,8 +89,7 @@ public class BusinessDataRetrieverTest {
         List<Employee> employees = Arrays.asList(new Employee(ids.get(0), 1L, "John", "Doe"), new Employee(ids.get(1), 1L, "Jack", "Doe"));
         List<Employee> proxies = Arrays.asList(new Employee(ids.get(0), 1L, "John", "Proxy"), new Employee(ids.get(1), 1L, "Jack", "Proxy"));
         given(repository.findByIds(Employee.class, ids)).willReturn(employees);
-        given(proxyfier.proxify(employees.get(0))).willReturn(proxies.get(0));
-        given(proxyfier.proxify(employees.get(1))).willReturn(proxies.get(1));
+        given(proxyfier.proxify(employees)).willReturn(proxies);
 
         //when
         List<Entity> retrievedEntities = retriever.getMultiBusinessData(buildMultiRefBusinessData(ids), Employee.class);
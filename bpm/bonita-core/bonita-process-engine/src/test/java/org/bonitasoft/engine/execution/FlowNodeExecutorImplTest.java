@@ -25,12 +25,18 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.bonitasoft.engine.archive.ArchiveService;
+import org.bonitasoft.engine.classloader.ClassLoaderService;
+import org.bonitasoft.engine.core.process.comment.api.SCommentService;
 import org.bonitasoft.engine.core.process.definition.ProcessDefinitionService;
 import org.bonitasoft.engine.core.process.instance.api.ActivityInstanceService;
 import org.bonitasoft.engine.core.process.instance.api.event.EventInstanceService;
 import org.bonitasoft.engine.core.process.instance.api.exceptions.SFlowNodeNotFoundException;
 import org.bonitasoft.engine.core.process.instance.api.exceptions.SFlowNodeReadException;
+import org.bonitasoft.engine.core.process.instance.api.states.FlowNodeState;
+import org.bonitasoft.engine.core.process.instance.api.states.StateCode;
 import org.bonitasoft.engine.core.process.instance.model.SActivityInstance;
+import org.bonitasoft.engine.core.process.instance.model.SFlowNodeInstance;
+import org.bonitasoft.engine.core.process.instance.model.SStateCategory;
 import org.bonitasoft.engine.core.process.instance.model.impl.SUserTaskInstanceImpl;
 import org.bonitasoft.engine.execution.state.FlowNodeStateManager;
 import org.bonitasoft.engine.execution.state.SkippedFlowNodeStateImpl;
@@ -70,6 +76,10 @@ public class FlowNodeExecutorImplTest {
     private EventInstanceService eventInstanceService;
     @Mock
     private ArchiveService archiveService;
+    @Mock
+    private ClassLoaderService classLoaderService;
+    @Mock
+    private SCommentService commentService;
     @Captor
     private ArgumentCaptor<WorkDescriptor> workDescriptorArgumentCaptor;
     private FlowNodeExecutorImpl flowNodeExecutor;
@@ -123,6 +133,90 @@ public class FlowNodeExecutorImplTest {
         verify(activityInstanceService).setState(aTask, skippedFlowNodeState);
     }
 
+    private FlowNodeExecutorImpl flowNodeExecutorChainingStates(int maxStatesPerWork) throws Exception {
+        FlowNodeExecutorImpl executor = spy(new FlowNodeExecutorImpl(flowNodeStateManager, activityInstanceService, null, archiveService,
+                null, containerRegistry, processDefinitionService, commentService, null, null, classLoaderService, workService, workFactory,
+                null, eventInstanceService, maxStatesPerWork, 0));
+        doNothing().when(executor).archiveFlowNodeInstance(any(SFlowNodeInstance.class), anyBoolean(), anyLong());
+        return executor;
+    }
+
+    private FlowNodeState aState(int id, boolean stable) {
+        FlowNodeState state = mock(FlowNodeState.class);
+        doReturn(id).when(state).getId();
+        doReturn(stable).when(state).isStable();
+        return state;
+    }
+
+    private void executes(FlowNodeState state, FlowNodeState nextState) throws Exception {
+        int stateId = state.getId();
+        doReturn(state).when(flowNodeStateManager).getState(stateId);
+        doReturn(SStateCategory.NORMAL).when(state).getStateCategory();
+        doReturn(StateCode.DONE).when(state).execute(any(), any());
+        doReturn(nextState).when(flowNodeStateManager).getNextNormalState(any(), any(), eq(stateId));
+    }
+
+    private SUserTaskInstanceImpl aTaskInState(FlowNodeState state) throws Exception {
+        SUserTaskInstanceImpl task = aTask(1L, false);
+        task.setStateId(state.getId());
+        task.setStateCategory(SStateCategory.NORMAL);
+        doAnswer(invocation -> {
+            task.setStateId(((FlowNodeState) invocation.getArgument(1)).getId());
+            return null;
+        }).when(activityInstanceService).setState(eq(task), any(FlowNodeState.class));
+        return task;
+    }
+
+    @Test
+    public void executeFlowNode_should_execute_consecutive_states_in_the_same_work_up_to_the_limit() throws Exception {
+        FlowNodeExecutorImpl executor = flowNodeExecutorChainingStates(2);
+        FlowNodeState state1 = aState(1, false);
+        FlowNodeState state2 = aState(2, false);
+        FlowNodeState state3 = aState(3, false);
+        executes(state1, state2);
+        executes(state2, state3);
+        SUserTaskInstanceImpl task = aTaskInState(state1);
+
+        FlowNodeState state = executor.executeFlowNode(1L, null, null);
+
+        assertThat(state).isEqualTo(state3);
+        assertThat(task.getStateId()).isEqualTo(3);
+        verify(state3, never()).execute(any(), any());
+        verify(executor, times(2)).archiveFlowNodeInstance(task, false, 0L);
+        verify(workService).registerWork(workDescriptorArgumentCaptor.capture());
+        assertThat(workDescriptorArgumentCaptor.getValue().getType()).isEqualTo("EXECUTE_FLOWNODE");
+    }
+
+    @Test
+    public void executeFlowNode_should_stop_chaining_states_on_a_stable_state() throws Exception {
+        FlowNodeExecutorImpl executor = flowNodeExecutorChainingStates(10);
+        FlowNodeState state1 = aState(1, false);
+        FlowNodeState state2 = aState(2, true);
+        executes(state1, state2);
+        SUserTaskInstanceImpl task = aTaskInState(state1);
+
+        FlowNodeState state = executor.executeFlowNode(1L, null, null);
+
+        assertThat(state).isEqualTo(state2);
+        assertThat(task.getStateId()).isEqualTo(2);
+        verify(state2, never()).execute(any(), any());
+        verify(workService, never()).registerWork(any());
+    }
+
+    @Test
+    public void stepForward_should_execute_only_one_state() throws Exception {
+        FlowNodeExecutorImpl executor = flowNodeExecutorChainingStates(10);
+        FlowNodeState state1 = aState(1, false);
+        FlowNodeState state2 = aState(2, false);
+        executes(state1, state2);
+        aTaskInState(state1);
+
+        executor.stepForward(1L, null, null);
+
+        verify(state2, never()).execute(any(), any());
+        verify(workService).registerWork(any());
+    }
+
     private List<BonitaWork> getRootWorks(List<BonitaWork> bonitaWorkList) {
         ArrayList<BonitaWork> bonitaWorks = new ArrayList<>();
         for (BonitaWork bonitaWork : bonitaWorkList) {
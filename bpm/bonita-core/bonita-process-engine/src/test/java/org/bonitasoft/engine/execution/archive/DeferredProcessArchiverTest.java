@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ */
+package org.bonitasoft.engine.execution.archive;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.bonitasoft.engine.archive.ArchiveService;
+import org.bonitasoft.engine.bpm.process.ProcessInstanceState;
+import org.bonitasoft.engine.classloader.ClassLoaderService;
+import org.bonitasoft.engine.core.connector.ConnectorInstanceService;
+import org.bonitasoft.engine.core.document.api.DocumentService;
+import org.bonitasoft.engine.core.process.comment.api.SCommentService;
+import org.bonitasoft.engine.core.process.definition.ProcessDefinitionService;
+import org.bonitasoft.engine.core.process.instance.api.ProcessInstanceService;
+import org.bonitasoft.engine.core.process.instance.api.RefBusinessDataService;
+import org.bonitasoft.engine.core.process.instance.api.exceptions.SProcessInstanceNotFoundException;
+import org.bonitasoft.engine.core.process.instance.model.SProcessInstance;
+import org.bonitasoft.engine.core.process.instance.model.impl.SProcessInstanceImpl;
+import org.bonitasoft.engine.lock.BonitaLock;
+import org.bonitasoft.engine.lock.LockService;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.persistence.QueryOptions;
+import org.bonitasoft.engine.sessionaccessor.SessionAccessor;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.TransactionState;
+import org.bonitasoft.engine.transaction.UserTransactionService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DeferredProcessArchiverTest {
+
+    private static final long TENANT_ID = 12L;
+
+    @Mock
+    private ProcessInstanceService processInstanceService;
+    @Mock
+    private LockService lockService;
+    @Mock
+    private UserTransactionService userTransactionService;
+    @Mock
+    private SessionAccessor sessionAccessor;
+    @Mock
+    private TechnicalLoggerService logger;
+
+    private DeferredProcessArchiver deferredProcessArchiver;
+
+    @Before
+    public void before() throws Exception {
+        deferredProcessArchiver = createArchiver(true, 2);
+    }
+
+    private DeferredProcessArchiver createArchiver(final boolean enabled, final int batchSize) {
+        return new DeferredProcessArchiver(enabled, batchSize, processInstanceService, mock(ArchiveService.class), mock(DocumentService.class),
+                mock(SCommentService.class), mock(ProcessDefinitionService.class), mock(ConnectorInstanceService.class), mock(ClassLoaderService.class),
+                mock(RefBusinessDataService.class), lockService, userTransactionService, sessionAccessor, logger, TENANT_ID);
+    }
+
+    private void lockSucceeds() {
+        doAnswer(invocation -> new BonitaLock(new ReentrantLock(), "PROCESS", invocation.getArgument(0))).when(lockService)
+                .tryLock(anyLong(), eq("PROCESS"), anyLong(), any(TimeUnit.class), eq(TENANT_ID));
+    }
+
+    private void transactionsSucceed() throws Exception {
+        doAnswer(invocation -> ((Callable<?>) invocation.getArgument(0)).call()).when(userTransactionService).executeInTransaction(any());
+    }
+
+    private SProcessInstance processInstance(final long id, final long callerId) {
+        final SProcessInstanceImpl processInstance = new SProcessInstanceImpl("process", 1L);
+        processInstance.setId(id);
+        processInstance.setCallerId(callerId);
+        return processInstance;
+    }
+
+    @Test
+    public void should_defer_only_root_process_instances_when_enabled() {
+        assertThat(deferredProcessArchiver.isDeferred(processInstance(1L, -1L))).isTrue();
+        assertThat(deferredProcessArchiver.isDeferred(processInstance(2L, 42L))).isFalse();
+        assertThat(createArchiver(false, 2).isDeferred(processInstance(1L, -1L))).isFalse();
+    }
+
+    @Test
+    public void should_queue_process_instance_only_when_transaction_is_committed() throws Exception {
+        deferredProcessArchiver.archiveAfterCommit(processInstance(1L, -1L));
+        deferredProcessArchiver.archiveAfterCommit(processInstance(2L, -1L));
+        final ArgumentCaptor<BonitaTransactionSynchronization> synchronizations = ArgumentCaptor.forClass(BonitaTransactionSynchronization.class);
+        verify(userTransactionService, times(2)).registerBonitaSynchronization(synchronizations.capture());
+
+        synchronizations.getAllValues().get(0).afterCompletion(TransactionState.ROLLEDBACK);
+        synchronizations.getAllValues().get(1).afterCompletion(TransactionState.COMMITTED);
+
+        assertThat(deferredProcessArchiver.getPendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_archive_process_instances_by_batches_and_release_locks() throws Exception {
+        lockSucceeds();
+        transactionsSucceed();
+        doThrow(new SProcessInstanceNotFoundException(1L)).when(processInstanceService).getProcessInstance(anyLong());
+        deferredProcessArchiver.queue(asList(1L, 2L, 3L, 4L, 5L));
+
+        deferredProcessArchiver.drain();
+
+        verify(userTransactionService, times(3)).executeInTransaction(any());
+        verify(processInstanceService, times(5)).getProcessInstance(anyLong());
+        verify(lockService, times(5)).unlock(any(BonitaLock.class), eq(TENANT_ID));
+        verify(sessionAccessor).setTenantId(TENANT_ID);
+        assertThat(deferredProcessArchiver.getArchivedCount()).isEqualTo(5);
+        assertThat(deferredProcessArchiver.getBatchCount()).isEqualTo(3);
+        assertThat(deferredProcessArchiver.getPendingCount()).isZero();
+    }
+
+    @Test
+    public void should_keep_process_instances_locked_by_others_in_queue() throws Exception {
+        lockSucceeds();
+        doReturn(null).when(lockService).tryLock(eq(2L), eq("PROCESS"), anyLong(), any(TimeUnit.class), eq(TENANT_ID));
+        transactionsSucceed();
+        doThrow(new SProcessInstanceNotFoundException(1L)).when(processInstanceService).getProcessInstance(anyLong());
+        deferredProcessArchiver.queue(asList(1L, 2L, 3L));
+
+        deferredProcessArchiver.drain();
+
+        verify(processInstanceService, never()).getProcessInstance(2L);
+        assertThat(deferredProcessArchiver.getArchivedCount()).isEqualTo(1);
+        assertThat(deferredProcessArchiver.getPendingCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_archive_process_instances_one_by_one_when_batch_fails() throws Exception {
+        lockSucceeds();
+        transactionsSucceed();
+        doThrow(new SProcessInstanceNotFoundException(1L)).when(processInstanceService).getProcessInstance(1L);
+        doThrow(new IllegalStateException("broken process instance")).when(processInstanceService).getProcessInstance(2L);
+        deferredProcessArchiver.queue(asList(1L, 2L));
+
+        deferredProcessArchiver.drain();
+
+        verify(userTransactionService, times(3)).executeInTransaction(any());
+        assertThat(deferredProcessArchiver.getArchivedCount()).isEqualTo(1);
+        assertThat(deferredProcessArchiver.getFailedCount()).isEqualTo(1);
+        assertThat(deferredProcessArchiver.getPendingCount()).isZero();
+    }
+
+    @Test
+    public void should_queue_terminated_root_process_instances_on_restart() throws Exception {
+        doReturn(asList(processInstance(1L, -1L), processInstance(2L, 42L), processInstance(3L, 0L)))
+                .when(processInstanceService).getProcessInstancesInStates(any(QueryOptions.class), eq(ProcessInstanceState.COMPLETED),
+                        eq(ProcessInstanceState.ABORTED), eq(ProcessInstanceState.CANCELLED));
+
+        final int queued = deferredProcessArchiver.queueTerminatedProcessInstances();
+
+        assertThat(queued).isEqualTo(2);
+        assertThat(deferredProcessArchiver.getPendingCount()).isEqualTo(2);
+    }
+
+}
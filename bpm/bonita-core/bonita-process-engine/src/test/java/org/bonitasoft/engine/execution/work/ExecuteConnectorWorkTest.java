@@ -14,18 +14,26 @@
 
 package org.bonitasoft.engine.execution.work;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.bonitasoft.engine.classloader.ClassLoaderService;
 import org.bonitasoft.engine.classloader.SClassLoaderException;
 import org.bonitasoft.engine.commons.exceptions.SBonitaException;
 import org.bonitasoft.engine.core.connector.ConnectorResult;
 import org.bonitasoft.engine.core.connector.ConnectorService;
+import org.bonitasoft.engine.core.connector.exception.SConnectorException;
 import org.bonitasoft.engine.core.connector.parser.SConnectorImplementationDescriptor;
 import org.bonitasoft.engine.core.expression.control.model.SExpressionContext;
 import org.bonitasoft.engine.core.process.definition.ProcessDefinitionService;
@@ -39,9 +47,12 @@ import org.bonitasoft.engine.lock.LockService;
 import org.bonitasoft.engine.service.TenantServiceAccessor;
 import org.bonitasoft.engine.tracking.TimeTracker;
 import org.bonitasoft.engine.transaction.UserTransactionService;
+import org.bonitasoft.engine.work.WorkDescriptor;
+import org.bonitasoft.engine.work.WorkExecutorService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -94,6 +105,11 @@ public class ExecuteConnectorWorkTest {
         protected void evaluateOutput(Map<String, Object> context, ConnectorResult result, SConnectorDefinition sConnectorDefinition) throws SBonitaException {
         }
 
+        @Override
+        protected WorkDescriptor createWorkDescriptor(BPMWorkFactory workFactory) {
+            return WorkDescriptor.create("EXECUTE_CONNECTOR");
+        }
+
         @Override
         public String getDescription() {
             return null;
@@ -105,6 +121,9 @@ public class ExecuteConnectorWorkTest {
     private TimeTracker timeTracker;
     @Mock
     private ConnectorService connectorService;
+    @Mock
+    private WorkExecutorService workExecutorService;
+    private BPMWorkFactory workFactory = new BPMWorkFactory(true);
 
 
     @Before
@@ -117,6 +136,8 @@ public class ExecuteConnectorWorkTest {
         doReturn(this.getClass().getClassLoader()).when(classLoaderService).getLocalClassLoader(anyString(), anyLong());
         doReturn(timeTracker).when(tenantServiceAccessor).getTimeTracker();
         doReturn(connectorService).when(tenantServiceAccessor).getConnectorService();
+        doReturn(workFactory).when(tenantServiceAccessor).getBPMWorkFactory();
+        doReturn(workExecutorService).when(tenantServiceAccessor).getWorkExecutorService();
     }
 
     @Test
@@ -132,4 +153,76 @@ public class ExecuteConnectorWorkTest {
         inOrder.verify(userTransactionService).executeInTransaction(isA(ExecuteConnectorWork.EvaluateConnectorOutputsTxContent.class));
         inOrder.verify(lockService).unlock(nullable(BonitaLock.class), eq(TENANT_ID));
     }
+
+    @Test
+    public void asynchronous_execution_should_release_the_thread_and_submit_a_work_when_connector_completes() throws Exception {
+        //given
+        executeConnectorWork.setAsynchronous(true);
+        final CompletableFuture<ConnectorResult> connectorResult = new CompletableFuture<>();
+        doReturn(connectorResult).when(connectorService).executeConnectorAsync(anyLong(), nullable(SConnectorInstance.class),
+                nullable(SConnectorImplementationDescriptor.class), any(ClassLoader.class), nullable(Map.class));
+
+        //when
+        executeConnectorWork.work(workContext);
+
+        //then
+        verifyZeroInteractions(lockService, workExecutorService);
+        connectorResult.complete(new ConnectorResult(null, Collections.<String, Object> emptyMap()));
+        final ArgumentCaptor<WorkDescriptor> evaluateOutputsWork = ArgumentCaptor.forClass(WorkDescriptor.class);
+        verify(workExecutorService).execute(evaluateOutputsWork.capture());
+        assertThat(evaluateOutputsWork.getValue().getTenantId()).isEqualTo(TENANT_ID);
+        assertThat(workFactory.takeConnectorResult(evaluateOutputsWork.getValue().getString("connectorResultId"))).isSameAs(connectorResult);
+    }
+
+    @Test
+    public void asynchronous_execution_should_forget_the_connector_result_when_work_service_is_stopped() throws Exception {
+        //given
+        executeConnectorWork.setAsynchronous(true);
+        final CompletableFuture<ConnectorResult> connectorResult = new CompletableFuture<>();
+        doReturn(connectorResult).when(connectorService).executeConnectorAsync(anyLong(), nullable(SConnectorInstance.class),
+                nullable(SConnectorImplementationDescriptor.class), any(ClassLoader.class), nullable(Map.class));
+        doReturn(true).when(workExecutorService).isStopped();
+        executeConnectorWork.work(workContext);
+
+        //when
+        connectorResult.complete(new ConnectorResult(null, Collections.<String, Object> emptyMap()));
+
+        //then
+        final ArgumentCaptor<WorkDescriptor> evaluateOutputsWork = ArgumentCaptor.forClass(WorkDescriptor.class);
+        verify(workExecutorService).execute(evaluateOutputsWork.capture());
+        assertThat(workFactory.takeConnectorResult(evaluateOutputsWork.getValue().getString("connectorResultId"))).isNull();
+    }
+
+    @Test
+    public void should_evaluate_outputs_in_a_lock_when_resuming_after_asynchronous_execution() throws Exception {
+        //given
+        executeConnectorWork.setConnectorResultId(workFactory.registerConnectorResult(
+                CompletableFuture.completedFuture(new ConnectorResult(null, Collections.<String, Object> emptyMap()))));
+
+        //when
+        executeConnectorWork.work(workContext);
+
+        //then
+        verify(connectorService, never()).executeConnector(anyLong(), nullable(SConnectorInstance.class), nullable(SConnectorImplementationDescriptor.class),
+                any(ClassLoader.class), nullable(Map.class));
+        InOrder inOrder = inOrder(lockService, userTransactionService);
+        inOrder.verify(lockService).lock(eq(PROCESS_INSTANCE_ID), eq(SFlowElementsContainerType.PROCESS.name()), eq(TENANT_ID));
+        inOrder.verify(userTransactionService).executeInTransaction(isA(ExecuteConnectorWork.EvaluateConnectorOutputsTxContent.class));
+        inOrder.verify(lockService).unlock(nullable(BonitaLock.class), eq(TENANT_ID));
+    }
+
+    @Test
+    public void should_throw_the_connector_failure_when_resuming_after_failed_asynchronous_execution() throws Exception {
+        //given
+        final CompletableFuture<ConnectorResult> connectorResult = new CompletableFuture<>();
+        final SConnectorException failure = new SConnectorException("connector failed");
+        connectorResult.completeExceptionally(failure);
+        executeConnectorWork.setConnectorResultId(workFactory.registerConnectorResult(connectorResult));
+
+        //when
+        assertThatThrownBy(() -> executeConnectorWork.work(workContext)).isSameAs(failure);
+
+        //then
+        verifyZeroInteractions(lockService);
+    }
 }
@@ -14,6 +14,7 @@
 package org.bonitasoft.engine.execution.work;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -72,6 +73,7 @@ public class LockProcessInstanceWorkTest {
         verify(lockService, times(1)).tryLock(eq(processInstanceId), eq(PROCESS), eq(20L), eq(TimeUnit.MILLISECONDS), eq(TENANT_ID));
         verify(lockService, times(1)).unlock(bonitaLock, TENANT_ID);
         verify(wrappedWork, times(1)).work(singletonMap);
+        verify(workService).notifyLockReleased(PROCESS + "_" + processInstanceId);
     }
 
     @Test
@@ -117,6 +119,19 @@ public class LockProcessInstanceWorkTest {
         assertEquals("the to string", lockProcessInstanceWork.toString());
     }
 
+    @Test
+    public void should_give_lock_key_in_exception_when_unable_to_lock() throws Exception {
+        when(lockService.tryLock(eq(processInstanceId), eq(PROCESS), eq(20L), eq(TimeUnit.MILLISECONDS), eq(TENANT_ID))).thenReturn(null);
+
+        try {
+            lockProcessInstanceWork.work(Collections.singletonMap("tenantAccessor", tenantAccessor));
+            fail("should have thrown a LockTimeoutException");
+        } catch (LockTimeoutException e) {
+            assertEquals(PROCESS + "_" + processInstanceId, e.getLockKey());
+        }
+        verify(workService, never()).notifyLockReleased(anyString());
+    }
+
     @Test(expected = LockTimeoutException.class)
     public void should_thow_exception_when_unable_to_lock() throws Exception {
         // On first try to lock : exception to reschedule the work
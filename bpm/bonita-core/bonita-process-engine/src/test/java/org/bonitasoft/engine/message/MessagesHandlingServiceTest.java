@@ -14,25 +14,41 @@
 
 package org.bonitasoft.engine.message;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.bonitasoft.engine.core.process.instance.api.event.EventInstanceService;
 import org.bonitasoft.engine.core.process.instance.api.exceptions.event.trigger.SEventTriggerInstanceReadException;
 import org.bonitasoft.engine.core.process.instance.model.event.handling.SBPMEventType;
 import org.bonitasoft.engine.core.process.instance.model.event.handling.SMessageEventCouple;
+import org.bonitasoft.engine.core.process.instance.model.event.handling.SMessageInstance;
 import org.bonitasoft.engine.lock.LockService;
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
 import org.bonitasoft.engine.sessionaccessor.SessionAccessor;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.TransactionState;
 import org.bonitasoft.engine.transaction.UserTransactionService;
 import org.bonitasoft.engine.work.WorkService;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
@@ -61,6 +77,112 @@ public class MessagesHandlingServiceTest {
     @InjectMocks
     private MessagesHandlingService messagesHandlingService;
 
+    @Before
+    public void before() throws Exception {
+        doAnswer(invocation -> ((Callable<?>) invocation.getArgument(0)).call()).when(userTransactionService).executeInTransaction(any());
+    }
+
+    private SMessageInstance messageInstance(String messageName, String targetProcess, String correlation1) {
+        final SMessageInstance messageInstance = mock(SMessageInstance.class);
+        when(messageInstance.getMessageName()).thenReturn(messageName);
+        when(messageInstance.getTargetProcess()).thenReturn(targetProcess);
+        when(messageInstance.getCorrelation1()).thenReturn(correlation1);
+        when(messageInstance.getCorrelation2()).thenReturn("NONE");
+        when(messageInstance.getCorrelation3()).thenReturn("NONE");
+        when(messageInstance.getCorrelation4()).thenReturn("NONE");
+        when(messageInstance.getCorrelation5()).thenReturn("NONE");
+        return messageInstance;
+    }
+
+    @Test
+    public void first_matching_should_read_all_couples() throws Exception {
+        messagesHandlingService.matchEventCoupleAndTriggerExecution();
+
+        verify(eventInstanceService).getMessageEventCouples(0, 1000);
+        assertThat(messagesHandlingService.isFullMatchingRequested()).isFalse();
+    }
+
+    @Test
+    public void matching_should_only_read_couples_of_pending_correlation_keys() throws Exception {
+        messagesHandlingService.matchEventCoupleAndTriggerExecution();
+        messagesHandlingService.getPendingCorrelationKeys().add(new MessagesHandlingService.CorrelationKey("msg", "process", "key-$-1", "NONE",
+                "NONE", "NONE", "NONE"));
+
+        messagesHandlingService.matchEventCoupleAndTriggerExecution();
+
+        verify(eventInstanceService).getMessageEventCouples(0, 1000);
+        verify(eventInstanceService).getMessageEventCouples("msg", "process", Arrays.asList("key-$-1", "NONE", "NONE", "NONE", "NONE"), 0, 1000);
+        assertThat(messagesHandlingService.getPendingCorrelationKeys()).isEmpty();
+    }
+
+    @Test
+    public void should_register_correlation_key_of_message_when_transaction_is_committed() throws Exception {
+        messagesHandlingService.start();
+        messagesHandlingService.matchEventCoupleAndTriggerExecution();
+        try {
+            messagesHandlingService.triggerMatchingOfMessages(messageInstance("msg", "process", "key-$-1"));
+            final ArgumentCaptor<BonitaTransactionSynchronization> synchronization = ArgumentCaptor.forClass(BonitaTransactionSynchronization.class);
+            verify(userTransactionService).registerBonitaSynchronization(synchronization.capture());
+
+            synchronization.getValue().afterCompletion(TransactionState.COMMITTED);
+
+            assertThat(messagesHandlingService.getPendingCorrelationKeys()).containsOnly(
+                    new MessagesHandlingService.CorrelationKey("msg", "process", "key-$-1", "NONE", "NONE", "NONE", "NONE"));
+            assertThat(messagesHandlingService.isFullMatchingRequested()).isFalse();
+        } finally {
+            messagesHandlingService.stop();
+        }
+    }
+
+    @Test
+    public void should_not_register_correlation_key_of_message_when_transaction_is_rolled_back() throws Exception {
+        messagesHandlingService.start();
+        messagesHandlingService.matchEventCoupleAndTriggerExecution();
+        try {
+            messagesHandlingService.triggerMatchingOfMessages(messageInstance("msg", "process", "key-$-1"));
+            final ArgumentCaptor<BonitaTransactionSynchronization> synchronization = ArgumentCaptor.forClass(BonitaTransactionSynchronization.class);
+            verify(userTransactionService).registerBonitaSynchronization(synchronization.capture());
+
+            synchronization.getValue().afterCompletion(TransactionState.ROLLEDBACK);
+
+            assertThat(messagesHandlingService.getPendingCorrelationKeys()).isEmpty();
+        } finally {
+            messagesHandlingService.stop();
+        }
+    }
+
+    @Test
+    public void matching_should_keep_correlation_key_pending_when_it_has_too_many_couples() throws Exception {
+        messagesHandlingService.matchEventCoupleAndTriggerExecution();
+        final MessagesHandlingService.CorrelationKey key = new MessagesHandlingService.CorrelationKey("msg", "process", "NONE", "NONE", "NONE",
+                "NONE", "NONE");
+        messagesHandlingService.getPendingCorrelationKeys().add(key);
+        when(eventInstanceService.getMessageEventCouples(anyString(), anyString(), anyList(), anyInt(), anyInt()))
+                .thenReturn(Collections.nCopies(1000, mock(SMessageEventCouple.class)));
+        doAnswer(invocation -> null).when(messagesHandlingService).executeMessageCouple(anyLong(), anyLong());
+
+        messagesHandlingService.matchEventCoupleAndTriggerExecution();
+
+        assertThat(messagesHandlingService.getPendingCorrelationKeys()).containsOnly(key);
+    }
+
+    @Test
+    public void failed_matching_should_request_a_full_matching() throws Exception {
+        messagesHandlingService.matchEventCoupleAndTriggerExecution();
+        messagesHandlingService.getPendingCorrelationKeys().add(new MessagesHandlingService.CorrelationKey("msg", "process", "NONE", "NONE", "NONE",
+                "NONE", "NONE"));
+        when(eventInstanceService.getMessageEventCouples(anyString(), anyString(), anyList(), anyInt(), anyInt()))
+                .thenThrow(new SEventTriggerInstanceReadException(new Exception("db down")));
+
+        try {
+            messagesHandlingService.matchEventCoupleAndTriggerExecution();
+            fail("should have thrown");
+        } catch (SEventTriggerInstanceReadException ignored) {
+        }
+
+        assertThat(messagesHandlingService.isFullMatchingRequested()).isTrue();
+    }
+
     @Test
     public void getMessageUniqueCouplesWithDuplicateMessage() throws SEventTriggerInstanceReadException {
         // Given
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, US.
+ */
+package org.bonitasoft.engine.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.bonitasoft.engine.command.CommandSearchDescriptor;
+import org.bonitasoft.engine.command.model.SCommand;
+import org.bonitasoft.engine.command.model.SCommandImpl;
+import org.bonitasoft.engine.exception.SearchException;
+import org.bonitasoft.engine.persistence.KeysetCursor;
+import org.bonitasoft.engine.persistence.QueryOptions;
+import org.bonitasoft.engine.search.descriptor.SearchEntitiesDescriptor;
+import org.junit.Test;
+
+public class AbstractSearchEntityTest {
+
+    private final List<QueryOptions> executedSearches = new ArrayList<>();
+
+    private SearchResult<String> searchCommands(final SearchOptions searchOptions, final SCommand... commands) throws SearchException {
+        return AbstractSearchEntity.<String, SCommand> search(new SearchEntitiesDescriptor().getSearchCommandDescriptor(), searchOptions,
+                serverObjects -> {
+                    final List<String> names = new ArrayList<>();
+                    for (final SCommand command : serverObjects) {
+                        names.add(command.getName());
+                    }
+                    return names;
+                },
+                queryOptions -> 42L,
+                queryOptions -> {
+                    executedSearches.add(queryOptions);
+                    return Arrays.asList(commands);
+                });
+    }
+
+    private SCommand command(final long id, final String name) {
+        final SCommandImpl command = new SCommandImpl(name, "description", "implementation");
+        command.setId(id);
+        return command;
+    }
+
+    @Test
+    public void should_return_count_and_no_cursor_when_keyset_pagination_is_not_used() throws Exception {
+        final SearchResult<String> result = searchCommands(new SearchOptionsBuilder(10, 2).done(), command(1, "a"), command(2, "b"));
+
+        assertThat(result.getCount()).isEqualTo(42);
+        assertThat(result.getNextPageCursor()).isNull();
+        assertThat(executedSearches.get(0).isKeysetPagination()).isFalse();
+        assertThat(executedSearches.get(0).getFromIndex()).isEqualTo(10);
+    }
+
+    @Test
+    public void should_return_cursor_of_last_result_when_page_is_full() throws Exception {
+        final SearchResult<String> result = searchCommands(
+                new SearchOptionsBuilder(0, 2).sort(CommandSearchDescriptor.NAME, Order.DESC).keysetPagination().done(),
+                command(1, "b"), command(2, "a"));
+
+        assertThat(result.getCount()).isEqualTo(42);
+        assertThat(result.getResult()).containsExactly("b", "a");
+        assertThat(KeysetCursor.decode(result.getNextPageCursor())).containsExactly("a", 2L);
+        assertThat(executedSearches.get(0).isKeysetPagination()).isTrue();
+        assertThat(executedSearches.get(0).getSearchAfterValues()).isEmpty();
+    }
+
+    @Test
+    public void should_search_after_cursor_without_counting_on_next_pages() throws Exception {
+        final String cursor = KeysetCursor.encode(Arrays.<Serializable> asList("a", 2L));
+
+        final SearchResult<String> result = searchCommands(
+                new SearchOptionsBuilder(0, 2).sort(CommandSearchDescriptor.NAME, Order.DESC).keysetPagination().searchAfter(cursor).done(),
+                command(3, "0"));
+
+        assertThat(result.getCount()).isEqualTo(-1);
+        assertThat(result.getNextPageCursor()).isNull();
+        assertThat(executedSearches.get(0).getSearchAfterValues()).containsExactly("a", 2L);
+    }
+
+    @Test(expected = SearchException.class)
+    public void should_fail_when_search_does_not_take_cursor_into_account() throws Exception {
+        final String cursor = KeysetCursor.encode(Arrays.<Serializable> asList(2L));
+
+        searchCommands(new SearchOptionsBuilder(0, 1).keysetPagination().searchAfter(cursor).done(), command(2, "b"));
+    }
+
+    @Test(expected = SearchException.class)
+    public void should_fail_when_cursor_is_invalid() throws Exception {
+        searchCommands(new SearchOptionsBuilder(0, 1).keysetPagination().searchAfter("not a cursor").done(), command(2, "b"));
+    }
+
+    @Test
+    public void should_not_search_when_count_is_zero() throws Exception {
+        final SearchResult<String> result = AbstractSearchEntity.<String, SCommand> search(
+                new SearchEntitiesDescriptor().getSearchCommandDescriptor(), new SearchOptionsBuilder(0, 1).keysetPagination().done(),
+                serverObjects -> Collections.emptyList(), queryOptions -> 0L, queryOptions -> {
+                    throw new IllegalStateException("should not search");
+                });
+
+        assertThat(result.getCount()).isZero();
+        assertThat(result.getNextPageCursor()).isNull();
+    }
+
+}
@@ -16,6 +16,7 @@ package org.bonitasoft.engine.core.connector;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.bonitasoft.engine.resources.SBARResource;
 import org.bonitasoft.engine.core.connector.exception.SConnectorException;
@@ -182,6 +183,22 @@ public interface ConnectorService {
             SConnectorImplementationDescriptor connectorImplementationDescriptor, ClassLoader classLoader, Map<String, Object> inputParameters)
                     throws SConnectorException;
 
+    /**
+     * Execute the connector without waiting for its completion
+     *
+     * @param processDefinitionId
+     * @param sConnectorInstance
+     * @param connectorImplementationDescriptor
+     * @param classLoader
+     * @param inputParameters
+     * @return a future completed with the result of the connector execution, or completed exceptionally with a {@link SConnectorException}
+     * @throws SConnectorException
+     *         when the connector can't be instantiated or submitted
+     */
+    CompletableFuture<ConnectorResult> executeConnectorAsync(long processDefinitionId, SConnectorInstance sConnectorInstance,
+            SConnectorImplementationDescriptor connectorImplementationDescriptor, ClassLoader classLoader, Map<String, Object> inputParameters)
+                    throws SConnectorException;
+
     /**
      * @param result
      * @throws SConnectorException
@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -192,8 +193,7 @@ public class ConnectorServiceImpl implements ConnectorService {
         } finally {
             if (timeTracker.isTrackable(TimeTrackerRecords.EXECUTE_CONNECTOR_OUTPUT_OPERATIONS)) {
                 final long endTime = System.currentTimeMillis();
-                String desc = "ConnectorResult: " + result;
-                timeTracker.track(TimeTrackerRecords.EXECUTE_CONNECTOR_OUTPUT_OPERATIONS, desc, endTime - startTime);
+                timeTracker.track(TimeTrackerRecords.EXECUTE_CONNECTOR_OUTPUT_OPERATIONS, () -> "ConnectorResult: " + result, endTime - startTime);
             }
         }
     }
@@ -208,10 +208,7 @@ public class ConnectorServiceImpl implements ConnectorService {
         } finally {
             if (timeTracker.isTrackable(TimeTrackerRecords.EXECUTE_CONNECTOR_DISCONNECT)) {
                 final long endTime = System.currentTimeMillis();
-                final StringBuilder desc = new StringBuilder();
-                desc.append("ConnectorResult: ");
-                desc.append(result);
-                timeTracker.track(TimeTrackerRecords.EXECUTE_CONNECTOR_DISCONNECT, desc.toString(), endTime - startTime);
+                timeTracker.track(TimeTrackerRecords.EXECUTE_CONNECTOR_DISCONNECT, () -> "ConnectorResult: " + result, endTime - startTime);
             }
         }
     }
@@ -269,6 +266,39 @@ public class ConnectorServiceImpl implements ConnectorService {
         return connectorResult;
     }
 
+    @Override
+    public CompletableFuture<ConnectorResult> executeConnectorAsync(final long processDefinitionId, final SConnectorInstance sConnectorInstance,
+            final SConnectorImplementationDescriptor connectorImplementationDescriptor, final ClassLoader classLoader,
+            final Map<String, Object> inputParameters) throws SConnectorException {
+        final String implementationClassName = connectorImplementationDescriptor.getImplementationClassName();
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        try {
+            Thread.currentThread().setContextClassLoader(classLoader);
+            final Connector connector = (Connector) Class.forName(implementationClassName, true, classLoader).newInstance();
+            final CompletableFuture<ConnectorResult> connectorResult = new CompletableFuture<>();
+            connectorExecutor.executeAsync(new SConnectorAdapter(connector), inputParameters, classLoader).whenComplete((outputs, e) -> {
+                if (e != null) {
+                    connectorResult.completeExceptionally(new SConnectorException(e));
+                    return;
+                }
+                if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.DEBUG)) {
+                    logger.log(this.getClass(), TechnicalLogSeverity.DEBUG, "Executed connector " + buildConnectorContextMessage(sConnectorInstance)
+                            + buildConnectorInputMessage(inputParameters));
+                }
+                connectorResult.complete(new ConnectorResult(connector, outputs));
+            });
+            return connectorResult;
+        } catch (final ClassNotFoundException e) {
+            throw new SConnectorException(implementationClassName + " can not be found.", e);
+        } catch (final InstantiationException e) {
+            throw new SConnectorException(implementationClassName + " can not be instantiated.", e);
+        } catch (Throwable e) {
+            throw new SConnectorException(e);
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+        }
+    }
+
     private ConnectorResult executeConnectorInClassloader(final String implementationClassName, final ClassLoader classLoader,
             final Map<String, Object> inputParameters) throws SConnectorException {
         final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
@@ -310,12 +340,8 @@ public class ConnectorServiceImpl implements ConnectorService {
         } finally {
             if (timeTracker.isTrackable(TimeTrackerRecords.EXECUTE_CONNECTOR_INPUT_EXPRESSIONS)) {
                 final long endTime = System.currentTimeMillis();
-                final StringBuilder desc = new StringBuilder();
-                desc.append("Connector ID: ");
-                desc.append(connectorId);
-                desc.append(" - input parameters: ");
-                desc.append(inputParameters);
-                timeTracker.track(TimeTrackerRecords.EXECUTE_CONNECTOR_INPUT_EXPRESSIONS, desc.toString(), endTime - startTime);
+                timeTracker.track(TimeTrackerRecords.EXECUTE_CONNECTOR_INPUT_EXPRESSIONS, () -> "Connector ID: " + connectorId + " - input parameters: " + inputParameters,
+                        endTime - startTime);
             }
         }
         return inputParameters;
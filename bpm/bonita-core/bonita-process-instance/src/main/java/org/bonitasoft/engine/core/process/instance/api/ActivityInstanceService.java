@@ -676,6 +676,28 @@ public interface ActivityInstanceService extends FlowNodeInstanceService {
      */
     List<SHumanTaskInstance> searchPendingTasksForUser(long userId, QueryOptions searchOptions) throws SBonitaReadException;
 
+    /**
+     * Same as {@link #getNumberOfPendingTasksForUser(long, QueryOptions)} but using the already known ids of the actors of the user instead of
+     * resolving them from its memberships in the query.
+     *
+     * @param actorIds
+     *        the ids of the actors the user is mapped to, see ActorMappingService#getActorIdsOfUser. When empty or too many to be given to the
+     *        query, the actors are resolved in the query.
+     * @since 7.8
+     */
+    long getNumberOfPendingTasksForUser(long userId, Set<Long> actorIds, QueryOptions searchOptions) throws SBonitaReadException;
+
+    /**
+     * Same as {@link #searchPendingTasksForUser(long, QueryOptions)} but using the already known ids of the actors of the user instead of
+     * resolving them from its memberships in the query.
+     *
+     * @param actorIds
+     *        the ids of the actors the user is mapped to, see ActorMappingService#getActorIdsOfUser. When empty or too many to be given to the
+     *        query, the actors are resolved in the query.
+     * @since 7.8
+     */
+    List<SHumanTaskInstance> searchPendingTasksForUser(long userId, Set<Long> actorIds, QueryOptions searchOptions) throws SBonitaReadException;
+
     /**
      * @since 7.5.5
      */
@@ -712,6 +734,22 @@ public interface ActivityInstanceService extends FlowNodeInstanceService {
      */
     long getNumberOfPendingOrAssignedTasks(long userId, QueryOptions searchOptions) throws SBonitaReadException;
 
+    /**
+     * Same as {@link #searchPendingOrAssignedTasks(long, QueryOptions)} but using the already known ids of the actors of the user.
+     * When there are none or too many of them to be given to the query, the actors are resolved in the query.
+     *
+     * @since 7.8
+     */
+    List<SHumanTaskInstance> searchPendingOrAssignedTasks(long userId, Set<Long> actorIds, QueryOptions searchOptions) throws SBonitaReadException;
+
+    /**
+     * Same as {@link #getNumberOfPendingOrAssignedTasks(long, QueryOptions)} but using the already known ids of the actors of the user.
+     * When there are none or too many of them to be given to the query, the actors are resolved in the query.
+     *
+     * @since 7.8
+     */
+    long getNumberOfPendingOrAssignedTasks(long userId, Set<Long> actorIds, QueryOptions searchOptions) throws SBonitaReadException;
+
     /**
      * @param flowNodeInstanceId
      *     delete pending mapping of this flow node
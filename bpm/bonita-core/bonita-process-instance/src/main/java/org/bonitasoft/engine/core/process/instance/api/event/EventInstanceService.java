@@ -120,6 +120,19 @@ public interface EventInstanceService extends FlowNodeInstanceService {
 
     List<SMessageEventCouple> getMessageEventCouples(int fromIndex, int maxResults) throws SEventTriggerInstanceReadException;
 
+    /**
+     * Get the couples of message instance and waiting message event that can be matched and that share the given message name, target process and
+     * correlations. Only the waiting events and messages of this correlation key are read, which is cheaper than
+     * {@link #getMessageEventCouples(int, int)}.
+     *
+     * @param messageName the name of the message
+     * @param processName the name of the process targeted by the message
+     * @param correlations the five correlation values, unused correlations having the "no value" placeholder
+     * @since 7.7.4
+     */
+    List<SMessageEventCouple> getMessageEventCouples(String messageName, String processName, List<String> correlations, int fromIndex, int maxResults)
+            throws SEventTriggerInstanceReadException;
+
     SWaitingMessageEvent getWaitingMessage(long waitingMessageId) throws SWaitingEventReadException;
 
     SMessageInstance getMessageInstance(long messageInstanceId) throws SMessageInstanceReadException;
@@ -264,6 +264,18 @@ public class EventInstanceServiceImpl extends FlowNodeInstancesServiceImpl imple
         }
     }
 
+    @Override
+    public List<SMessageEventCouple> getMessageEventCouples(final String messageName, final String processName, final List<String> correlations,
+            final int fromIndex, final int maxResults) throws SEventTriggerInstanceReadException {
+        final SelectListDescriptor<SMessageEventCouple> selectDescriptor = SelectDescriptorBuilder.getMessageEventCouples(messageName, processName,
+                correlations, fromIndex, maxResults);
+        try {
+            return getPersistenceService().selectList(selectDescriptor);
+        } catch (final SBonitaReadException e) {
+            throw new SEventTriggerInstanceReadException(e);
+        }
+    }
+
     @Override
     public SMessageInstance getMessageInstance(final long messageInstanceId) throws SMessageInstanceReadException {
         try {
@@ -112,6 +112,11 @@ public class ActivityInstanceServiceImpl extends FlowNodeInstancesServiceImpl im
 
     private static final String PENDING_OR_ASSIGNED = "PendingOrAssigned";
 
+    private static final String WITH_ACTOR_IDS = "WithActorIds";
+
+    // above this, the list of actor ids is too long to be given to the query, e.g. Oracle does not accept IN lists of more than 1000 items
+    private static final int MAX_ACTOR_IDS_IN_QUERY = 1000;
+
     private static final String PENDING_ASSIGNED_TO = "PendingAssignedTo";
 
     private static final String HUMAN_TASK_INSTANCE_ASSIGNEE = "HUMAN_TASK_INSTANCE_ASSIGNEE";
@@ -744,6 +749,37 @@ public class ActivityInstanceServiceImpl extends FlowNodeInstancesServiceImpl im
         return getPersistenceService().searchEntity(SHumanTaskInstance.class, PENDING_FOR_USER, searchOptions, parameters);
     }
 
+    @Override
+    public long getNumberOfPendingTasksForUser(final long userId, final Set<Long> actorIds, final QueryOptions searchOptions)
+            throws SBonitaReadException {
+        if (!canQueryWithActorIds(actorIds)) {
+            return getNumberOfPendingTasksForUser(userId, searchOptions);
+        }
+        return getPersistenceService().getNumberOfEntities(SHumanTaskInstance.class, PENDING_FOR_USER + WITH_ACTOR_IDS, searchOptions,
+                getUserAndActorIdsParameters(userId, actorIds));
+    }
+
+    @Override
+    public List<SHumanTaskInstance> searchPendingTasksForUser(final long userId, final Set<Long> actorIds, final QueryOptions searchOptions)
+            throws SBonitaReadException {
+        if (!canQueryWithActorIds(actorIds)) {
+            return searchPendingTasksForUser(userId, searchOptions);
+        }
+        return getPersistenceService().searchEntity(SHumanTaskInstance.class, PENDING_FOR_USER + WITH_ACTOR_IDS, searchOptions,
+                getUserAndActorIdsParameters(userId, actorIds));
+    }
+
+    private boolean canQueryWithActorIds(final Set<Long> actorIds) {
+        return !actorIds.isEmpty() && actorIds.size() <= MAX_ACTOR_IDS_IN_QUERY;
+    }
+
+    private Map<String, Object> getUserAndActorIdsParameters(final long userId, final Set<Long> actorIds) {
+        final Map<String, Object> parameters = new HashMap<String, Object>(2);
+        parameters.put("userId", userId);
+        parameters.put("actorIds", actorIds);
+        return parameters;
+    }
+
     @Override
     public long getNumberOfPendingOrAssignedTasks(final long userId, final QueryOptions searchOptions) throws SBonitaReadException {
         final Map<String, Object> parameters = Collections.singletonMap("userId", userId);
@@ -768,6 +804,26 @@ public class ActivityInstanceServiceImpl extends FlowNodeInstancesServiceImpl im
         return getPersistenceService().searchEntity(SHumanTaskInstance.class, PENDING_OR_ASSIGNED, searchOptions, parameters);
     }
 
+    @Override
+    public long getNumberOfPendingOrAssignedTasks(final long userId, final Set<Long> actorIds, final QueryOptions searchOptions)
+            throws SBonitaReadException {
+        if (!canQueryWithActorIds(actorIds)) {
+            return getNumberOfPendingOrAssignedTasks(userId, searchOptions);
+        }
+        return getPersistenceService().getNumberOfEntities(SHumanTaskInstance.class, PENDING_OR_ASSIGNED + WITH_ACTOR_IDS, searchOptions,
+                getUserAndActorIdsParameters(userId, actorIds));
+    }
+
+    @Override
+    public List<SHumanTaskInstance> searchPendingOrAssignedTasks(final long userId, final Set<Long> actorIds, final QueryOptions searchOptions)
+            throws SBonitaReadException {
+        if (!canQueryWithActorIds(actorIds)) {
+            return searchPendingOrAssignedTasks(userId, searchOptions);
+        }
+        return getPersistenceService().searchEntity(SHumanTaskInstance.class, PENDING_OR_ASSIGNED + WITH_ACTOR_IDS, searchOptions,
+                getUserAndActorIdsParameters(userId, actorIds));
+    }
+
     @Override
     public void deleteArchivedPendingMappings(final long flowNodeInstanceId) {
         // FIXME : archived pending mapping... first we need to have archived pending mapping and so on
@@ -248,6 +248,18 @@ public class SelectDescriptorBuilder {
         return new SelectListDescriptor<>("getMessageEventCouples", parameters, SMessageEventCouple.class, queryOptions);
     }
 
+    public static SelectListDescriptor<SMessageEventCouple> getMessageEventCouples(final String messageName, final String processName,
+            final List<String> correlations, final int fromIndex, final int maxResults) {
+        final Map<String, Object> parameters = new HashMap<>(7);
+        parameters.put("messageName", messageName);
+        parameters.put("processName", processName);
+        for (int i = 0; i < correlations.size(); i++) {
+            parameters.put("correlation" + (i + 1), correlations.get(i));
+        }
+        final QueryOptions queryOptions = new QueryOptions(fromIndex, maxResults);
+        return new SelectListDescriptor<>("getMessageEventCouplesOfCorrelation", parameters, SMessageEventCouple.class, queryOptions);
+    }
+
     public static SelectOneDescriptor<SAActivityInstance> getArchivedActivityInstanceWithActivityIdAndStateId(final long activityInstanceId,
             final int stateId) {
         final Map<String, Object> parameters = new HashMap<>(2);
@@ -197,6 +197,25 @@ public class EventInstanceServiceImplForMessageTest {
         eventInstanceServiceImpl.getMessageEventCouples(0, 100);
     }
 
+    @Test
+    public final void getMessageEventCouples_of_correlation_should_only_select_couples_of_the_correlation_key() throws Exception {
+        // Given
+        final List<SMessageEventCoupleImpl> sMessageEventCoupleImpls = Arrays.asList(new SMessageEventCoupleImpl());
+        final List<String> correlations = Arrays.asList("key-$-1", "NONE", "NONE", "NONE", "NONE");
+        final SelectListDescriptor<SMessageEventCouple> selectDescriptor = SelectDescriptorBuilder.getMessageEventCouples("msg", "process",
+                correlations, 0, 100);
+        doReturn(sMessageEventCoupleImpls).when(persistenceService).selectList(selectDescriptor);
+
+        // When
+        final List<SMessageEventCouple> result = eventInstanceServiceImpl.getMessageEventCouples("msg", "process", correlations, 0, 100);
+
+        // Then
+        assertEquals(sMessageEventCoupleImpls, result);
+        assertEquals("getMessageEventCouplesOfCorrelation", selectDescriptor.getQueryName());
+        assertEquals("key-$-1", selectDescriptor.getInputParameters().get("correlation1"));
+        assertEquals("process", selectDescriptor.getInputParameters().get("processName"));
+    }
+
     /**
      * Test method for {@link org.bonitasoft.engine.core.process.instance.event.impl.EventInstanceServiceImpl#getMessageInstance(long)}.
      */
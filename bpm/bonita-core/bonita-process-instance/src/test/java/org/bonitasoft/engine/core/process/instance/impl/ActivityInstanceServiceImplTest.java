@@ -20,10 +20,13 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.bonitasoft.engine.core.process.instance.api.FlowNodeInstanceService;
 import org.bonitasoft.engine.core.process.instance.api.exceptions.SActivityReadException;
@@ -359,6 +362,61 @@ public class ActivityInstanceServiceImplTest {
     }
 
 
+    @Test
+    public void should_search_pending_tasks_for_user_using_the_given_actor_ids() throws Exception {
+        // Given
+        final QueryOptions options = new QueryOptions(0, 10);
+        final Set<Long> actorIds = new HashSet<>(Arrays.asList(3L, 4L));
+        final Map<String, Object> parameters = new HashMap<>();
+        parameters.put("userId", 61L);
+        parameters.put("actorIds", actorIds);
+        List<SHumanTaskInstance> expectedResult = new ArrayList<>();
+        when(persistenceService.searchEntity(SHumanTaskInstance.class, "PendingForUserWithActorIds", options, parameters)).thenReturn(expectedResult);
+        when(persistenceService.getNumberOfEntities(SHumanTaskInstance.class, "PendingForUserWithActorIds", options, parameters)).thenReturn(7L);
+
+        // When
+        final List<SHumanTaskInstance> result = activityInstanceServiceImpl.searchPendingTasksForUser(61L, actorIds, options);
+        final long count = activityInstanceServiceImpl.getNumberOfPendingTasksForUser(61L, actorIds, options);
+
+        // Then
+        assertThat(result).isSameAs(expectedResult);
+        assertThat(count).isEqualTo(7L);
+    }
+
+    @Test
+    public void should_search_pending_tasks_for_user_resolving_actors_in_query_when_user_has_no_actor() throws Exception {
+        // Given
+        final QueryOptions options = new QueryOptions(0, 10);
+        List<SHumanTaskInstance> expectedResult = new ArrayList<>();
+        when(persistenceService.searchEntity(SHumanTaskInstance.class, "PendingOrAssigned", options, Collections.singletonMap("userId", 61L)))
+                .thenReturn(expectedResult);
+
+        // When
+        final List<SHumanTaskInstance> result = activityInstanceServiceImpl.searchPendingOrAssignedTasks(61L, Collections.<Long> emptySet(), options);
+
+        // Then
+        assertThat(result).isSameAs(expectedResult);
+    }
+
+    @Test
+    public void should_search_pending_tasks_for_user_resolving_actors_in_query_when_user_has_too_many_actors() throws Exception {
+        // Given
+        final QueryOptions options = new QueryOptions(0, 10);
+        final Set<Long> actorIds = new HashSet<>();
+        for (long actorId = 1; actorId <= 1001; actorId++) {
+            actorIds.add(actorId);
+        }
+        List<SHumanTaskInstance> expectedResult = new ArrayList<>();
+        when(persistenceService.searchEntity(SHumanTaskInstance.class, "PendingForUser", options, Collections.singletonMap("userId", 61L)))
+                .thenReturn(expectedResult);
+
+        // When
+        final List<SHumanTaskInstance> result = activityInstanceServiceImpl.searchPendingTasksForUser(61L, actorIds, options);
+
+        // Then
+        assertThat(result).isSameAs(expectedResult);
+    }
+
     @Test
     public void should_search_pending_tasks_assigned_to_a_user() throws Exception {
         // Given
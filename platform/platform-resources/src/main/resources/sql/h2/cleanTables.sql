@@ -48,6 +48,7 @@ DELETE FROM queriablelog_p;
 DELETE FROM queriable_log;
 DELETE FROM page;
 DELETE FROM sequence WHERE tenantId <> -1;
+DELETE FROM work_overflow;
 DELETE FROM profilemember;
 DELETE FROM profileentry;
 DELETE FROM profile;
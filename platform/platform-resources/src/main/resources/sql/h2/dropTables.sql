@@ -51,6 +51,7 @@ DROP TABLE queriable_log;
 DROP TABLE page;
 DROP TABLE theme;
 DROP TABLE blob_;
+DROP TABLE work_overflow;
 DROP TABLE profilemember;
 DROP TABLE profileentry;
 DROP TABLE profile;
@@ -128,6 +128,7 @@ CREATE TABLE process_content (
   tenantid BIGINT NOT NULL,
   id BIGINT NOT NULL,
   content MEDIUMTEXT NOT NULL,
+  binary_content LONGBLOB,
   PRIMARY KEY (tenantid, id)
 ) ENGINE = INNODB;
 CREATE TABLE arch_document_mapping (
@@ -405,6 +406,7 @@ CREATE TABLE waiting_event (
   	PRIMARY KEY (tenantid, id)
 ) ENGINE = INNODB;
 CREATE INDEX idx_waiting_event ON waiting_event (progress, tenantid, kind, locked, active);
+CREATE INDEX idx_waiting_event_correl ON waiting_event (messageName, processName, correlation1, correlation2, correlation3);
 
 CREATE TABLE message_instance (
 	tenantid BIGINT NOT NULL,
@@ -874,6 +876,15 @@ CREATE TABLE blob_ (
 	PRIMARY KEY (tenantid, id)
 ) ENGINE = INNODB;
 
+CREATE TABLE work_overflow (
+  tenantid BIGINT NOT NULL,
+  id VARCHAR(50) NOT NULL,
+  created BIGINT NOT NULL,
+  descriptor MEDIUMBLOB NOT NULL,
+  PRIMARY KEY (tenantid, id)
+) ENGINE = INNODB;
+CREATE INDEX idx_work_overflow ON work_overflow (tenantid, created);
+
 CREATE TABLE platform (
   id BIGINT NOT NULL,
   version VARCHAR(50) NOT NULL,
@@ -47,6 +47,7 @@ DELETE FROM queriablelog_p WHERE tenantid = ${tenantid};
 DELETE FROM queriable_log WHERE tenantid = ${tenantid};
 DELETE FROM page WHERE tenantid = ${tenantid};
 DELETE FROM sequence WHERE tenantid = ${tenantid};
+DELETE FROM work_overflow WHERE tenantid = ${tenantid};
 DELETE FROM profilemember WHERE tenantid = ${tenantid};
 DELETE FROM profileentry WHERE tenantid = ${tenantid};
 DELETE FROM profile WHERE tenantid = ${tenantid};
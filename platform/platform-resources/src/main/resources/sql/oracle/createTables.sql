@@ -125,6 +125,7 @@ CREATE TABLE process_content (
   tenantId NUMBER(19, 0) NOT NULL,
   id NUMBER(19, 0) NOT NULL,
   content CLOB NOT NULL,
+  binary_content BLOB,
   PRIMARY KEY (tenantid, id)
 );
 CREATE TABLE arch_document_mapping (
@@ -399,6 +400,7 @@ CREATE TABLE waiting_event (
   	PRIMARY KEY (tenantid, id)
 );
 CREATE INDEX idx_waiting_event ON waiting_event (progress, tenantid, kind, locked, active);
+CREATE INDEX idx_waiting_event_correl ON waiting_event (messageName, processName, correlation1, correlation2, correlation3);
 
 CREATE TABLE message_instance (
 	tenantid NUMBER(19, 0) NOT NULL,
@@ -863,6 +865,15 @@ CREATE TABLE blob_ (
 	PRIMARY KEY (tenantid, id)
 );
 
+CREATE TABLE work_overflow (
+  tenantid NUMBER(19, 0) NOT NULL,
+  id VARCHAR2(50 CHAR) NOT NULL,
+  created NUMBER(19, 0) NOT NULL,
+  descriptor BLOB NOT NULL,
+  PRIMARY KEY (tenantid, id)
+);
+CREATE INDEX idx_work_overflow ON work_overflow (tenantid, created);
+
 CREATE TABLE platform (
   id NUMBER(19, 0) NOT NULL,
   version VARCHAR2(50 CHAR) NOT NULL,
@@ -51,6 +51,7 @@ DROP TABLE queriable_log cascade constraints purge;
 DROP TABLE page cascade constraints purge;
 DROP TABLE theme cascade constraints purge;
 DROP TABLE blob_ cascade constraints purge;
+DROP TABLE work_overflow cascade constraints purge;
 DROP TABLE profilemember cascade constraints purge;
 DROP TABLE profileentry cascade constraints purge;
 DROP TABLE profile cascade constraints purge;
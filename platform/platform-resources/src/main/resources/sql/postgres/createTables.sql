@@ -130,6 +130,7 @@ CREATE TABLE process_content (
   tenantid INT8 NOT NULL,
   id INT8 NOT NULL,
   content TEXT NOT NULL,
+  binary_content BYTEA,
   PRIMARY KEY (tenantid, id)
 );
 CREATE TABLE arch_document_mapping (
@@ -404,6 +405,7 @@ CREATE TABLE waiting_event (
   	PRIMARY KEY (tenantid, id)
 );
 CREATE INDEX idx_waiting_event ON waiting_event (progress, tenantid, kind, locked, active);
+CREATE INDEX idx_waiting_event_correl ON waiting_event (messageName, processName, correlation1, correlation2, correlation3);
 
 CREATE TABLE message_instance (
 	tenantid INT8 NOT NULL,
@@ -874,6 +876,15 @@ CREATE TABLE blob_ (
 	PRIMARY KEY (tenantid, id)
 );
 
+CREATE TABLE work_overflow (
+  tenantid INT8 NOT NULL,
+  id VARCHAR(50) NOT NULL,
+  created INT8 NOT NULL,
+  descriptor BYTEA NOT NULL,
+  PRIMARY KEY (tenantid, id)
+);
+CREATE INDEX idx_work_overflow ON work_overflow (tenantid, created);
+
 CREATE TABLE platform (
   id INT8 NOT NULL,
   version VARCHAR(50) NOT NULL,
@@ -51,6 +51,7 @@ DROP TABLE IF EXISTS queriable_log;
 DROP TABLE IF EXISTS page;
 DROP TABLE IF EXISTS theme;
 DROP TABLE IF EXISTS blob_;
+DROP TABLE IF EXISTS work_overflow;
 DROP TABLE IF EXISTS profilemember;
 DROP TABLE IF EXISTS profileentry;
 DROP TABLE IF EXISTS profile;
@@ -96,6 +96,8 @@ DELETE FROM page
 GO
 DELETE FROM sequence WHERE tenantId <> -1
 GO
+DELETE FROM work_overflow
+GO
 DELETE FROM profilemember
 GO
 DELETE FROM profileentry
@@ -147,6 +147,7 @@ CREATE TABLE process_content (
   tenantid NUMERIC(19, 0) NOT NULL,
   id NUMERIC(19, 0) NOT NULL,
   content NVARCHAR(MAX) NOT NULL,
+  binary_content VARBINARY(MAX),
   PRIMARY KEY (tenantid, id)
 )
 GO
@@ -448,6 +449,8 @@ CREATE TABLE waiting_event (
 GO
 CREATE INDEX idx_waiting_event ON waiting_event (progress, tenantid, kind, locked, active)
 GO
+CREATE INDEX idx_waiting_event_correl ON waiting_event (messageName, processName, correlation1, correlation2, correlation3)
+GO
 
 CREATE TABLE message_instance (
 	tenantid NUMERIC(19, 0) NOT NULL,
@@ -994,6 +997,17 @@ CREATE TABLE blob_ (
 )
 GO
 
+CREATE TABLE work_overflow (
+  tenantid NUMERIC(19, 0) NOT NULL,
+  id NVARCHAR(50) NOT NULL,
+  created NUMERIC(19, 0) NOT NULL,
+  descriptor VARBINARY(MAX) NOT NULL,
+  PRIMARY KEY (tenantid, id)
+)
+GO
+CREATE INDEX idx_work_overflow ON work_overflow (tenantid, created)
+GO
+
 CREATE TABLE platform (
   id NUMERIC(19, 0) NOT NULL,
   version NVARCHAR(50) NOT NULL,
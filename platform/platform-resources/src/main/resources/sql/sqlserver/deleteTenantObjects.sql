@@ -96,6 +96,8 @@ DELETE FROM page WHERE tenantid = ${tenantid}
 GO
 DELETE FROM sequence WHERE tenantid = ${tenantid}
 GO
+DELETE FROM work_overflow WHERE tenantid = ${tenantid}
+GO
 DELETE FROM profilemember WHERE tenantid = ${tenantid}
 GO
 DELETE FROM profileentry WHERE tenantid = ${tenantid}
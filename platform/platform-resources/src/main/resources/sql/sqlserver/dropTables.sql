@@ -104,6 +104,8 @@ DROP TABLE theme
 GO
 DROP TABLE blob_
 GO
+DROP TABLE work_overflow
+GO
 DROP TABLE profilemember
 GO
 DROP TABLE profileentry
@@ -29,7 +29,9 @@ import org.bonitasoft.engine.recorder.SRecorderException;
 import org.bonitasoft.engine.recorder.model.DeleteRecord;
 import org.bonitasoft.engine.services.PersistenceService;
 import org.bonitasoft.engine.services.SPersistenceException;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
 import org.bonitasoft.engine.transaction.STransactionNotFoundException;
+import org.bonitasoft.engine.transaction.TransactionState;
 import org.bonitasoft.engine.transaction.UserTransactionService;
 
 /**
@@ -47,6 +49,9 @@ public class ArchiveServiceImpl implements ArchiveService {
 
     private ArchivingStrategy archivingStrategy;
 
+    // archives recorded by the current transaction, all inserted in one batch before it is committed
+    private final ThreadLocal<BatchArchiveCallable> transactionBatch = new ThreadLocal<>();
+
     public ArchiveServiceImpl(final PersistenceService definitiveArchivePersistenceService,
             final TechnicalLoggerService logger, final ArchivingStrategy archivingStrategy, final UserTransactionService transactionService) {
         super();
@@ -69,21 +74,42 @@ public class ArchiveServiceImpl implements ArchiveService {
         logBeforeMethod(TechnicalLogSeverity.TRACE, methodName);
         if (records != null) {
             assignArchiveDate(time, records);
-            final BatchArchiveCallable callable = buildBatchArchiveCallable(records);
-
-            try {
-                transactionService.registerBeforeCommitCallable(callable);
-            } catch (final STransactionNotFoundException e) {
-                if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.TRACE)) {
-                    logger.log(this.getClass(), TechnicalLogSeverity.ERROR,
-                            "Unable to register the beforeCommitCallable to log queriable logs: transaction not found", e);
-                }
+            final BatchArchiveCallable batch = transactionBatch.get();
+            if (batch != null) {
+                batch.addRecords(records);
+            } else {
+                registerBatchArchiveCallable(records);
             }
         }
 
         logAfterMethod(TechnicalLogSeverity.TRACE, methodName);
     }
 
+    private void registerBatchArchiveCallable(final ArchiveInsertRecord... records) throws SRecorderException {
+        final BatchArchiveCallable callable = buildBatchArchiveCallable(records);
+        try {
+            transactionService.registerBeforeCommitCallable(callable);
+            transactionService.registerBonitaSynchronization(new BonitaTransactionSynchronization() {
+
+                @Override
+                public void beforeCommit() {
+                    // the batch is inserted by the before commit callable
+                }
+
+                @Override
+                public void afterCompletion(final TransactionState txState) {
+                    transactionBatch.remove();
+                }
+            });
+            transactionBatch.set(callable);
+        } catch (final STransactionNotFoundException e) {
+            if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.TRACE)) {
+                logger.log(this.getClass(), TechnicalLogSeverity.ERROR,
+                        "Unable to register the beforeCommitCallable to log queriable logs: transaction not found", e);
+            }
+        }
+    }
+
     // As a protected method for test purposes.
     protected BatchArchiveCallable buildBatchArchiveCallable(final ArchiveInsertRecord... records) throws SRecorderException {
         return new BatchArchiveCallable(definitiveArchivePersistenceService, records);
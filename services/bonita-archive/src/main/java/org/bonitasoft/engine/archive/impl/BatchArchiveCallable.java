@@ -27,7 +27,7 @@ public class BatchArchiveCallable implements Callable<Void> {
 
     private final PersistenceService persistenceService;
 
-    private final List<? extends ArchivedPersistentObject> archivedObjects;
+    private final List<ArchivedPersistentObject> archivedObjects;
 
     public BatchArchiveCallable(final PersistenceService persistenceService, final ArchiveInsertRecord... records) {
         this.persistenceService = persistenceService;
@@ -38,6 +38,15 @@ public class BatchArchiveCallable implements Callable<Void> {
         }
     }
 
+    /**
+     * Adds records to insert with the ones already in this batch
+     */
+    public void addRecords(final ArchiveInsertRecord... records) {
+        if (records != null) {
+            archivedObjects.addAll(createArchivedObjectsList(records));
+        }
+    }
+
     /**
      * @param records
      * @return
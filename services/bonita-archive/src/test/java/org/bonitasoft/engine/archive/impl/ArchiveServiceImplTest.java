@@ -17,13 +17,18 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
+import java.util.Arrays;
+
 import org.bonitasoft.engine.archive.ArchiveInsertRecord;
 import org.bonitasoft.engine.archive.ArchivingStrategy;
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
 import org.bonitasoft.engine.persistence.ArchivedPersistentObject;
 import org.bonitasoft.engine.services.PersistenceService;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.TransactionState;
 import org.bonitasoft.engine.transaction.UserTransactionService;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 public class ArchiveServiceImplTest {
 
@@ -50,6 +55,38 @@ public class ArchiveServiceImplTest {
         verify(transactionService, times(1)).registerBeforeCommitCallable(eq(mockBatchArchiveCallable));
     }
 
+    @Test
+    public void recordInserts_should_insert_all_archives_of_a_transaction_in_one_batch() throws Exception {
+        final PersistenceService persistenceService = mock(PersistenceService.class);
+        final UserTransactionService transactionService = mock(UserTransactionService.class);
+        final ArchiveServiceImpl archiveService = new ArchiveServiceImpl(persistenceService, mock(TechnicalLoggerService.class), null, transactionService);
+        final ArchivedPersistentObjectWithSetter archive1 = mock(ArchivedPersistentObjectWithSetter.class);
+        final ArchivedPersistentObjectWithSetter archive2 = mock(ArchivedPersistentObjectWithSetter.class);
+        final ArchivedPersistentObjectWithSetter archive3 = mock(ArchivedPersistentObjectWithSetter.class);
+
+        archiveService.recordInserts(3L, new ArchiveInsertRecord(archive1));
+        archiveService.recordInserts(4L, new ArchiveInsertRecord(archive2), new ArchiveInsertRecord(archive3));
+
+        final ArgumentCaptor<BatchArchiveCallable> callable = ArgumentCaptor.forClass(BatchArchiveCallable.class);
+        verify(transactionService, times(1)).registerBeforeCommitCallable(callable.capture());
+        callable.getValue().call();
+        verify(persistenceService).insertInBatch(Arrays.asList(archive1, archive2, archive3));
+    }
+
+    @Test
+    public void recordInserts_should_start_a_new_batch_when_the_transaction_is_completed() throws Exception {
+        final UserTransactionService transactionService = mock(UserTransactionService.class);
+        final ArchiveServiceImpl archiveService = new ArchiveServiceImpl(null, mock(TechnicalLoggerService.class), null, transactionService);
+        archiveService.recordInserts(3L, new ArchiveInsertRecord(mock(ArchivedPersistentObjectWithSetter.class)));
+        final ArgumentCaptor<BonitaTransactionSynchronization> synchronization = ArgumentCaptor.forClass(BonitaTransactionSynchronization.class);
+        verify(transactionService).registerBonitaSynchronization(synchronization.capture());
+
+        synchronization.getValue().afterCompletion(TransactionState.ROLLEDBACK);
+        archiveService.recordInserts(4L, new ArchiveInsertRecord(mock(ArchivedPersistentObjectWithSetter.class)));
+
+        verify(transactionService, times(2)).registerBeforeCommitCallable(any(BatchArchiveCallable.class));
+    }
+
     // Test with exception on TxService
 
     // Seen with Nicolas C. for this "interface extension" :)
@@ -20,6 +20,7 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.bonitasoft.engine.archive.ArchiveInsertRecord;
@@ -119,6 +120,19 @@ public class BatchArchiveCallableTest {
         verify(persistenceService).insert(eq(entity));
     }
 
+    @Test
+    public void addRecords_should_add_records_to_the_batch() throws SPersistenceException {
+        final ArchivedPersistentObject entity1 = mock(ArchivedPersistentObject.class);
+        final ArchivedPersistentObject entity2 = mock(ArchivedPersistentObject.class);
+        final PersistenceService persistenceService = mock(PersistenceService.class);
+        final BatchArchiveCallable callable = new BatchArchiveCallable(persistenceService, new ArchiveInsertRecord(entity1));
+
+        callable.addRecords(new ArchiveInsertRecord(entity2), null);
+        callable.call();
+
+        verify(persistenceService).insertInBatch(Arrays.asList(entity1, entity2));
+    }
+
     @Test
     public void testCallWithMoreThanOneRecord() throws SPersistenceException {
         final ArchiveInsertRecord record1 = new ArchiveInsertRecord(mock(ArchivedPersistentObject.class));
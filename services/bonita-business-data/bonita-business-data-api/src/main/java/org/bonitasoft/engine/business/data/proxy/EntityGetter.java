@@ -27,6 +27,8 @@ import org.bonitasoft.engine.bdm.model.field.Field;
  */
 public class EntityGetter {
 
+    public static final String PERSISTENCE_IDS = "persistenceIds";
+
     private final Method method;
 
     public EntityGetter(Method method) {
@@ -58,6 +60,25 @@ public class EntityGetter {
         return targetEntityName + ".find" + getCapitalizedFieldName() + "By" + getSourceEntityName() + Capitalizer.capitalize(Field.PERSISTENCE_ID);
     }
 
+    /**
+     * @return a JPQL query returning the persistence id and the associated entity of each source entity having its persistence id in the
+     *         {@value #PERSISTENCE_IDS} parameter
+     */
+    public String getAssociatedBatchQuery() {
+        final String sourceAlias = getSourceEntityName().toLowerCase() + "_0";
+        final String fieldName = Character.toLowerCase(getCapitalizedFieldName().charAt(0)) + getCapitalizedFieldName().substring(1);
+        final String targetAlias = fieldName.toLowerCase() + "_1";
+        final StringBuilder query = new StringBuilder("SELECT ").append(sourceAlias).append('.').append(Field.PERSISTENCE_ID).append(", ").append(targetAlias)
+                .append(" FROM ").append(getSourceEntityName()).append(' ').append(sourceAlias)
+                .append(" JOIN ").append(sourceAlias).append('.').append(fieldName).append(' ').append(targetAlias)
+                .append(" WHERE ").append(sourceAlias).append('.').append(Field.PERSISTENCE_ID).append(" IN (:").append(PERSISTENCE_IDS).append(')');
+        if (returnsList()) {
+            // multiple relations are ordered lists
+            query.append(" ORDER BY INDEX(").append(targetAlias).append(')');
+        }
+        return query.toString();
+    }
+
     public boolean returnsList() {
         Class<?> returnTypeClass = method.getReturnType();
         return List.class.isAssignableFrom(returnTypeClass);
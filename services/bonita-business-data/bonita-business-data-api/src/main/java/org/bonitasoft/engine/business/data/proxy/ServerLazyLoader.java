@@ -16,7 +16,9 @@ package org.bonitasoft.engine.business.data.proxy;
 
 import java.io.Serializable;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.bonitasoft.engine.bdm.model.field.Field;
@@ -25,7 +27,9 @@ import org.bonitasoft.engine.business.data.NonUniqueResultException;
 
 public class ServerLazyLoader {
 
-    
+    // stay under the limit of elements in an IN clause of some databases
+    static final int MAX_PERSISTENCE_IDS_PER_QUERY = 1000;
+
     private BusinessDataRepository businessDataRepository;
 
     public ServerLazyLoader(BusinessDataRepository bdBusinessDataRepository) {
@@ -47,5 +51,34 @@ public class ServerLazyLoader {
         }
     }
 
-   
+    /**
+     * Loads the value returned by the given lazy loaded getter for several entities of the same type, using one query for up to
+     * {@value #MAX_PERSISTENCE_IDS_PER_QUERY} entities.
+     *
+     * @return the value of each entity by its persistence id: an empty list or null for entities having no associated entity
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Long, Object> load(final Method method, final List<Long> persistenceIds) {
+        final EntityGetter getter = new EntityGetter(method);
+        final boolean returnsList = getter.returnsList();
+        final Map<Long, Object> values = new HashMap<>();
+        for (final Long persistenceId : persistenceIds) {
+            values.put(persistenceId, returnsList ? new ArrayList<>() : null);
+        }
+        final String query = getter.getAssociatedBatchQuery();
+        for (int start = 0; start < persistenceIds.size(); start += MAX_PERSISTENCE_IDS_PER_QUERY) {
+            final Map<String, Serializable> queryParameters = new HashMap<>();
+            queryParameters.put(EntityGetter.PERSISTENCE_IDS,
+                    new ArrayList<>(persistenceIds.subList(start, Math.min(start + MAX_PERSISTENCE_IDS_PER_QUERY, persistenceIds.size()))));
+            for (final Object[] row : businessDataRepository.findList(Object[].class, query, queryParameters, 0, Integer.MAX_VALUE)) {
+                if (returnsList) {
+                    ((List<Object>) values.get(row[0])).add(row[1]);
+                } else {
+                    values.put((Long) row[0], row[1]);
+                }
+            }
+        }
+        return values;
+    }
+
 }
@@ -14,10 +14,21 @@
 
 package org.bonitasoft.engine.business.data.proxy;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 import org.bonitasoft.engine.bdm.Entity;
@@ -31,6 +42,15 @@ import javassist.util.proxy.Proxy;
 import javassist.util.proxy.ProxyFactory;
 
 /**
+ * Wraps business data entities in proxies that load their lazy loaded relations using the {@link ServerLazyLoader}.
+ * <p>
+ * The proxy class of an entity class is created once and kept with the entity class, so that it is released with the class loader of the business data
+ * model. Calls on proxies are forwarded to the entities using method handles.
+ * <p>
+ * In batch lazy loading mode, entities proxified from a same list share their lazy loaded values: the first call to a lazy loaded getter on one of them
+ * loads the values of the entities of the list around it at once. These values are kept by the proxies: they do not reflect changes made afterwards to
+ * the relations of the other entities of the list, which is why this mode is disabled by default.
+ *
  * @author Colin Puy
  * @author Laurent Leseigneur
  */
@@ -38,10 +58,25 @@ public class ServerProxyfier {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ServerProxyfier.class);
 
+    private static final ClassValue<ProxyType> PROXY_TYPES = new ClassValue<ProxyType>() {
+
+        @Override
+        protected ProxyType computeValue(final Class<?> entityClass) {
+            return new ProxyType(entityClass);
+        }
+    };
+
     private final ServerLazyLoader lazyLoader;
 
+    private final boolean batchLazyLoading;
+
     public ServerProxyfier(final ServerLazyLoader lazyLoader) {
+        this(lazyLoader, false);
+    }
+
+    public ServerProxyfier(final ServerLazyLoader lazyLoader, final boolean batchLazyLoading) {
         this.lazyLoader = lazyLoader;
+        this.batchLazyLoading = batchLazyLoading;
     }
 
     public static boolean isLazyMethodProxyfied(final Entity e) {
@@ -53,29 +88,31 @@ public class ServerProxyfier {
         if (entity == null || isLazyMethodProxyfied(entity)) {
             return entity;
         }
-        return (T) proxifyEntity(entity);
+        return (T) proxifyEntity(entity, null);
     }
 
-    private Entity proxifyEntity(final Entity entity) {
+    private Entity proxifyEntity(final Entity entity, final LazyLoadedSiblings siblings) {
         if (entity == null) {
             return null;
         }
+        final ProxyType proxyType = getProxyType(entity);
+        try {
+            final Object proxy = proxyType.constructor.invokeExact();
+            ((Proxy) proxy).setHandler(new LazyMethodHandler(entity, lazyLoader, proxyType, siblings));
+            return (Entity) proxy;
+        } catch (final Throwable e) {
+            throw new RuntimeException("Error when proxifying object", e);
+        }
+    }
 
-        final ProxyFactory factory = new ProxyFactory();
+    private static ProxyType getProxyType(final Entity entity) {
         Class<?> classForProxy = entity.getClass();
-
         //It's not possible to create a Proxy on a Proxy
         //Here Entity can already be an Hibernate Proxy
         if (ProxyFactory.isProxyClass(classForProxy)) {
             classForProxy = classForProxy.getSuperclass();
         }
-        factory.setSuperclass(classForProxy);
-        factory.setFilter(new AllMethodFilter());
-        try {
-            return (Entity) factory.create(new Class<?>[0], new Object[0], new LazyMethodHandler(entity, lazyLoader));
-        } catch (final Exception e) {
-            throw new RuntimeException("Error when proxifying object", e);
-        }
+        return PROXY_TYPES.get(classForProxy);
     }
 
     @SuppressWarnings("unchecked")
@@ -87,9 +124,14 @@ public class ServerProxyfier {
     }
 
     private List<Entity> proxifyEntities(final List<Entity> entities) {
-        final List<Entity> proxies = new ArrayList<>();
+        final LazyLoadedSiblings siblings = batchLazyLoading && entities.size() > 1 ? new LazyLoadedSiblings(entities) : null;
+        final List<Entity> proxies = new ArrayList<>(entities.size());
         for (final Entity entity : entities) {
-            proxies.add(proxifyEntity(entity));
+            if (entity != null && isLazyMethodProxyfied(entity)) {
+                proxies.add(entity);
+            } else {
+                proxies.add(proxifyEntity(entity, siblings));
+            }
         }
         return proxies;
     }
@@ -101,10 +143,18 @@ public class ServerProxyfier {
 
         private final ServerLazyLoader lazyLoader;
         private final Entity entity;
+        private final ProxyType proxyType;
+        private final LazyLoadedSiblings siblings;
 
         public LazyMethodHandler(final Entity entity, final ServerLazyLoader lazyLoader) {
+            this(entity, lazyLoader, getProxyType(entity), null);
+        }
+
+        private LazyMethodHandler(final Entity entity, final ServerLazyLoader lazyLoader, final ProxyType proxyType, final LazyLoadedSiblings siblings) {
             this.entity = entity;
             this.lazyLoader = lazyLoader;
+            this.proxyType = proxyType;
+            this.siblings = siblings;
         }
 
         public Entity getEntity() {
@@ -113,23 +163,28 @@ public class ServerProxyfier {
 
         @Override
         public Object invoke(final Object self, final Method thisMethod, final Method proceed, final Object[] args) throws Throwable {
+            final ProxiedMethod proxiedMethod = proxyType.getProxiedMethod(thisMethod);
             Object invocationResult;
-            if (isMethodGetterOnLazyLoadedField(thisMethod)) {
-                invocationResult = lazyLoader.load(thisMethod, entity.getPersistenceId());
+            if (proxiedMethod.lazyLoadedGetter) {
+                invocationResult = lazyLoad(thisMethod);
             } else {
-                invocationResult = thisMethod.invoke(entity, args);
+                invocationResult = proxiedMethod.invoker.invokeExact((Object) entity, args);
             }
             return proxifyIfNeeded(invocationResult);
         }
 
-        private boolean isMethodGetterOnLazyLoadedField(final Method thisMethod) {
-            return isGetter(thisMethod) && thisMethod.isAnnotationPresent(LazyLoaded.class);
+        private Object lazyLoad(final Method method) {
+            final Long persistenceId = entity.getPersistenceId();
+            if (siblings == null || persistenceId == null) {
+                return lazyLoader.load(method, persistenceId);
+            }
+            return siblings.load(lazyLoader, method, persistenceId);
         }
 
         @SuppressWarnings("unchecked")
         private Object proxifyIfNeeded(final Object invocationResult) {
             if (isAnEntity(invocationResult)) {
-                return proxifyEntity((Entity) invocationResult);
+                return proxifyEntity((Entity) invocationResult, null);
             }
 
             if (isAListOfEntities(invocationResult)) {
@@ -150,16 +205,118 @@ public class ServerProxyfier {
             return invocationResult instanceof Entity;
         }
 
-        private boolean isGetter(final Method method) {
-            return method.getName().startsWith("get");
+    }
+
+    /**
+     * Proxy class of an entity class, with the method handles used to forward calls to the entities
+     */
+    private static final class ProxyType {
+
+        private final MethodHandle constructor;
+
+        private final ConcurrentMap<Method, ProxiedMethod> proxiedMethods = new ConcurrentHashMap<>();
+
+        private ProxyType(final Class<?> entityClass) {
+            final ProxyFactory factory = new ProxyFactory();
+            // the proxy class is kept with the entity class instead of in the global cache of javassist
+            factory.setUseCache(false);
+            factory.setSuperclass(entityClass);
+            factory.setFilter(new AllMethodFilter());
+            try {
+                final Constructor<?> proxyConstructor = factory.createClass().getDeclaredConstructor();
+                proxyConstructor.setAccessible(true);
+                constructor = MethodHandles.lookup().unreflectConstructor(proxyConstructor).asType(MethodType.methodType(Object.class));
+            } catch (final ReflectiveOperationException | RuntimeException e) {
+                throw new RuntimeException("Error when creating the proxy class of " + entityClass.getName(), e);
+            }
+        }
+
+        private ProxiedMethod getProxiedMethod(final Method method) throws IllegalAccessException {
+            ProxiedMethod proxiedMethod = proxiedMethods.get(method);
+            if (proxiedMethod == null) {
+                proxiedMethod = new ProxiedMethod(method);
+                proxiedMethods.putIfAbsent(method, proxiedMethod);
+            }
+            return proxiedMethod;
+        }
+    }
+
+    private static final class ProxiedMethod {
+
+        // takes the entity and the array of arguments
+        private final MethodHandle invoker;
+
+        private final boolean lazyLoadedGetter;
+
+        private ProxiedMethod(final Method method) throws IllegalAccessException {
+            method.setAccessible(true);
+            final int parameterCount = method.getParameterCount();
+            invoker = MethodHandles.lookup().unreflect(method).asType(MethodType.genericMethodType(parameterCount + 1))
+                    .asSpreader(Object[].class, parameterCount);
+            lazyLoadedGetter = method.getName().startsWith("get") && method.isAnnotationPresent(LazyLoaded.class);
         }
+    }
+
+    /**
+     * Lazy loaded values shared by the entities proxified from a same list.
+     * <p>
+     * Values are loaded by batches of {@value #BATCH_SIZE} consecutive entities of the list, so that at most one batch of values not yet given is kept per
+     * getter.
+     */
+    private static final class LazyLoadedSiblings {
 
+        private static final int BATCH_SIZE = 100;
+
+        private final List<Long> persistenceIds;
+
+        private final Map<Long, Integer> positions = new HashMap<>();
+
+        private final Map<Method, BitSet> loadedBatches = new HashMap<>();
+
+        private final Map<Method, Map<Long, Object>> undeliveredValues = new HashMap<>();
+
+        private LazyLoadedSiblings(final List<Entity> entities) {
+            final Set<Long> ids = new LinkedHashSet<>();
+            for (final Entity entity : entities) {
+                if (entity != null && entity.getPersistenceId() != null) {
+                    ids.add(entity.getPersistenceId());
+                }
+            }
+            persistenceIds = new ArrayList<>(ids);
+            for (int i = 0; i < persistenceIds.size(); i++) {
+                positions.put(persistenceIds.get(i), i);
+            }
+        }
+
+        /**
+         * A value is given only once, calling the same getter again on the same entity loads the value of this entity only, as it would have been done
+         * without batch lazy loading.
+         */
+        private synchronized Object load(final ServerLazyLoader lazyLoader, final Method method, final Long persistenceId) {
+            final Map<Long, Object> values = undeliveredValues.computeIfAbsent(method, m -> new HashMap<>());
+            if (values.containsKey(persistenceId)) {
+                return values.remove(persistenceId);
+            }
+            final Integer position = positions.get(persistenceId);
+            final BitSet batches = loadedBatches.computeIfAbsent(method, m -> new BitSet());
+            if (position == null || batches.get(position / BATCH_SIZE)) {
+                // value already given, or entity persisted after being proxified
+                return lazyLoader.load(method, persistenceId);
+            }
+            final int batch = position / BATCH_SIZE;
+            batches.set(batch);
+            // only the values of the last loaded batch are kept, the ones of other batches are loaded one by one if needed
+            values.clear();
+            final int start = batch * BATCH_SIZE;
+            values.putAll(lazyLoader.load(method, new ArrayList<>(persistenceIds.subList(start, Math.min(start + BATCH_SIZE, persistenceIds.size())))));
+            return values.remove(persistenceId);
+        }
     }
 
     /**
      * Filter all methods
      */
-    private class AllMethodFilter implements MethodFilter {
+    private static class AllMethodFilter implements MethodFilter {
 
         @Override
         public boolean isHandled(final Method m) {
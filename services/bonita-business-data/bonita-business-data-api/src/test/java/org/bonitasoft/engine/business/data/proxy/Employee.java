@@ -17,6 +17,7 @@ package org.bonitasoft.engine.business.data.proxy;
 import java.util.List;
 
 import org.bonitasoft.engine.bdm.Entity;
+import org.bonitasoft.engine.bdm.lazy.LazyLoaded;
 
 public class Employee implements Entity {
 
@@ -84,6 +85,7 @@ public class Employee implements Entity {
         this.address = address;
     }
 
+    @LazyLoaded
     public List<Address> getAddresses() {
         return addresses;
     }
@@ -120,4 +120,14 @@ public class EntityGetterTest {
         assertThat(entityGetter.getReturnTypeClassName()).isEqualTo(entityGetter.getTargetEntityClass().getName());
 
     }
+
+    @Test
+    public void should_be_able_to_get_associated_batch_query() throws Exception {
+        assertThat(new EntityGetter(Employee.class.getMethod("getAddresses")).getAssociatedBatchQuery()).isEqualTo(
+                "SELECT employee_0.persistenceId, addresses_1 FROM Employee employee_0 JOIN employee_0.addresses addresses_1"
+                        + " WHERE employee_0.persistenceId IN (:persistenceIds) ORDER BY INDEX(addresses_1)");
+        assertThat(new EntityGetter(Employee.class.getMethod("getAddress")).getAssociatedBatchQuery()).isEqualTo(
+                "SELECT employee_0.persistenceId, address_1 FROM Employee employee_0 JOIN employee_0.address address_1"
+                        + " WHERE employee_0.persistenceId IN (:persistenceIds)");
+    }
 }
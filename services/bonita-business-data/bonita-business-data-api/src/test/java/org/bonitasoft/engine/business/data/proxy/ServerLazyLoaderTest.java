@@ -14,11 +14,17 @@
 
 package org.bonitasoft.engine.business.data.proxy;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
 import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -132,4 +138,40 @@ public class ServerLazyLoaderTest {
         //then exception
     }
 
+    @Test
+    public void should_load_lists_of_several_entities_in_one_query() throws Exception {
+        //given
+        final Method method = employee.getClass().getMethod("getAddresses");
+        final Addresses first = new Addresses();
+        final Addresses second = new Addresses();
+        doReturn(Arrays.asList(new Object[] { 1L, first }, new Object[] { 1L, second })).when(businessDataRepository).findList(eq(Object[].class),
+                eq(new EntityGetter(method).getAssociatedBatchQuery()), eq(Collections.<String, Serializable> singletonMap("persistenceIds",
+                        new ArrayList<>(Arrays.asList(1L, 2L)))), eq(0), eq(Integer.MAX_VALUE));
+
+        //when
+        final Map<Long, Object> values = serverLazyLoader.load(method, Arrays.asList(1L, 2L));
+
+        //then
+        assertThat(values).containsEntry(1L, Arrays.asList(first, second)).containsEntry(2L, Collections.emptyList());
+    }
+
+    @Test
+    public void should_load_several_entities_in_one_query_per_chunk_of_persistence_ids() throws Exception {
+        //given
+        final Method method = employee.getClass().getMethod("getName");
+        final List<Long> persistenceIds = new ArrayList<>();
+        for (long id = 0; id < ServerLazyLoader.MAX_PERSISTENCE_IDS_PER_QUERY + 1; id++) {
+            persistenceIds.add(id);
+        }
+        doReturn(Collections.singletonList(new Object[] { 3L, "name" })).doReturn(Collections.emptyList()).when(businessDataRepository).findList(
+                eq(Object[].class), anyString(), anyMap(), eq(0), eq(Integer.MAX_VALUE));
+
+        //when
+        final Map<Long, Object> values = serverLazyLoader.load(method, persistenceIds);
+
+        //then
+        verify(businessDataRepository, times(2)).findList(eq(Object[].class), anyString(), anyMap(), eq(0), eq(Integer.MAX_VALUE));
+        assertThat(values).hasSize(ServerLazyLoader.MAX_PERSISTENCE_IDS_PER_QUERY + 1).containsEntry(3L, "name").containsEntry(4L, null);
+    }
+
 }
@@ -16,12 +16,18 @@ package org.bonitasoft.engine.business.data.proxy;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.bonitasoft.engine.bdm.Entity;
 import org.junit.Before;
@@ -47,7 +53,7 @@ public class ServerProxyfierTest {
 
     @Before
     public void setUp() throws Exception {
-        serverProxyfier = new ServerProxyfier(lazyLoader);
+        serverProxyfier = new ServerProxyfier(lazyLoader, true);
     }
 
     @Test
@@ -171,4 +177,107 @@ public class ServerProxyfierTest {
 
         assertThat(proxy).isNull();
     }
+
+    @Test
+    public void should_create_one_proxy_class_per_entity_class() throws Exception {
+        assertThat(serverProxyfier.proxify(new PersonEntity()).getClass()).isSameAs(serverProxyfier.proxify(new PersonEntity()).getClass());
+    }
+
+    @Test
+    public void should_forward_calls_with_arguments_to_the_entity() throws Exception {
+        final Employee employee = new Employee(10L, 45L, "John", "Doe");
+        final Employee proxy = serverProxyfier.proxify(employee);
+
+        proxy.setFirstName("Jane");
+
+        assertThat(employee.getFirstName()).isEqualTo("Jane");
+        assertThat(proxy.getFirstName()).isEqualTo("Jane");
+        assertThat(proxy.getPersistenceId()).isEqualTo(10L);
+    }
+
+    @Test
+    public void should_lazy_load_values_of_all_entities_of_a_list_in_one_call() throws Exception {
+        //given
+        final Method getAddresses = Employee.class.getMethod("getAddresses");
+        final Map<Long, Object> loadedAddresses = new HashMap<>();
+        loadedAddresses.put(1L, new ArrayList<>(Collections.singletonList(new Address())));
+        loadedAddresses.put(2L, new ArrayList<>());
+        doReturn(loadedAddresses).when(lazyLoader).load(getAddresses, Arrays.asList(1L, 2L));
+
+        //when
+        final List<Employee> proxies = serverProxyfier.proxify(Arrays.asList(new Employee(1L, 1L, "John", "Doe"), new Employee(2L, 1L, "Jane", "Doe")));
+
+        //then
+        assertThat(proxies.get(0).getAddresses()).hasSize(1);
+        assertThat(proxies.get(1).getAddresses()).isEmpty();
+        verify(lazyLoader).load(getAddresses, Arrays.asList(1L, 2L));
+        verify(lazyLoader, never()).load(any(Method.class), anyLong());
+    }
+
+    @Test
+    public void should_lazy_load_values_of_each_entity_by_default() throws Exception {
+        //given
+        final Method getAddresses = Employee.class.getMethod("getAddresses");
+        final ServerProxyfier proxyfier = new ServerProxyfier(lazyLoader);
+
+        //when
+        final List<Employee> proxies = proxyfier.proxify(Arrays.asList(new Employee(1L, 1L, "John", "Doe"), new Employee(2L, 1L, "Jane", "Doe")));
+        proxies.get(0).getAddresses();
+        proxies.get(1).getAddresses();
+
+        //then
+        verify(lazyLoader).load(getAddresses, 1L);
+        verify(lazyLoader).load(getAddresses, 2L);
+        verify(lazyLoader, never()).load(any(Method.class), anyList());
+    }
+
+    @Test
+    public void should_lazy_load_the_value_of_the_entity_only_when_calling_the_same_getter_again() throws Exception {
+        //given
+        final Method getAddresses = Employee.class.getMethod("getAddresses");
+        final Map<Long, Object> loadedAddresses = new HashMap<>();
+        loadedAddresses.put(1L, new ArrayList<>());
+        loadedAddresses.put(2L, new ArrayList<>());
+        doReturn(loadedAddresses).when(lazyLoader).load(getAddresses, Arrays.asList(1L, 2L));
+        final List<Address> reloadedAddresses = new ArrayList<>(Collections.singletonList(new Address()));
+        doReturn(reloadedAddresses).when(lazyLoader).load(getAddresses, 1L);
+        final List<Employee> proxies = serverProxyfier.proxify(Arrays.asList(new Employee(1L, 1L, "John", "Doe"), new Employee(2L, 1L, "Jane", "Doe")));
+
+        //when
+        proxies.get(0).getAddresses();
+        final List<Address> addresses = proxies.get(0).getAddresses();
+
+        //then
+        assertThat(addresses).hasSize(1);
+        verify(lazyLoader).load(getAddresses, Arrays.asList(1L, 2L));
+        verify(lazyLoader).load(getAddresses, 1L);
+    }
+
+    @Test
+    public void should_lazy_load_values_of_a_long_list_by_batches() throws Exception {
+        //given
+        final Method getAddresses = Employee.class.getMethod("getAddresses");
+        final List<Employee> employees = new ArrayList<>();
+        for (long id = 1; id <= 250; id++) {
+            employees.add(new Employee(id, 1L, "John", "Doe"));
+        }
+        doAnswer(invocation -> {
+            final Map<Long, Object> values = new HashMap<>();
+            for (final Long id : invocation.<List<Long>> getArgument(1)) {
+                values.put(id, new ArrayList<>());
+            }
+            return values;
+        }).when(lazyLoader).load(eq(getAddresses), anyList());
+        final List<Employee> proxies = serverProxyfier.proxify(employees);
+
+        //when
+        for (final Employee proxy : proxies) {
+            assertThat(proxy.getAddresses()).isEmpty();
+        }
+
+        //then
+        verify(lazyLoader, times(3)).load(eq(getAddresses), anyList());
+        verify(lazyLoader).load(eq(getAddresses), argThat((List<Long> ids) -> ids.size() == 50 && ids.get(0) == 201L));
+        verify(lazyLoader, never()).load(any(Method.class), anyLong());
+    }
 }
@@ -22,6 +22,7 @@ import org.bonitasoft.engine.bdm.Entity;
 import org.bonitasoft.engine.business.data.BusinessDataRepository;
 import org.bonitasoft.engine.business.data.proxy.ServerLazyLoader;
 import org.bonitasoft.engine.business.data.proxy.ServerProxyfier;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -40,12 +41,16 @@ public class BusinessDataReloaderTest {
     @Mock
     private ServerLazyLoader lazyLoader;
 
-    @InjectMocks
     private ServerProxyfier proxyfier;
 
     @InjectMocks
     private BusinessDataReloader reloader;
 
+    @Before
+    public void setUp() {
+        proxyfier = new ServerProxyfier(lazyLoader);
+    }
+
     @Test
     public void reloadEntity_should_call_findById_on_repository() throws Exception {
         //given
@@ -38,6 +38,7 @@ import com.company.pojo.Employee;
 import com.company.pojo.Person;
 import org.bonitasoft.engine.business.data.NonUniqueResultException;
 import org.bonitasoft.engine.business.data.SBusinessDataNotFoundException;
+import org.bonitasoft.engine.business.data.proxy.ServerLazyLoader;
 import org.bonitasoft.engine.classloader.ClassLoaderService;
 import org.bonitasoft.engine.dependency.DependencyService;
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
@@ -351,6 +352,22 @@ public class JPABusinessDataRepositoryImplITest {
         assertThat(actual2).isNull();
     }
 
+    @Test
+    public void lazyLoaderShouldLoadTheValuesOfSeveralEntitiesInOneQuery() throws Exception {
+        final Person john = new Person();
+        john.addTo("Johnny");
+        john.addTo("Jo");
+        businessDataRepository.persist(john);
+        final Person jack = new Person();
+        businessDataRepository.persist(jack);
+
+        final Map<Long, Object> nickNames = new ServerLazyLoader(businessDataRepository).load(Person.class.getMethod("getNickNames"),
+                Arrays.asList(john.getPersistenceId(), jack.getPersistenceId()));
+
+        assertThat(nickNames).containsEntry(john.getPersistenceId(), Arrays.asList("Johnny", "Jo")).containsEntry(jack.getPersistenceId(),
+                Collections.emptyList());
+    }
+
     @Test
     public void getEntityManagerAddATransactionSynchroInOrderToCleanTheThreadLocalWhenTheTxIsOver() throws Exception {
         businessDataRepository.getEntityManager();
@@ -17,11 +17,15 @@ import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -49,6 +53,8 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
 
     private ExecutorService executorService;
 
+    private ScheduledExecutorService timeoutScheduler;
+
     private final SessionAccessor sessionAccessor;
 
     private final SessionService sessionService;
@@ -65,6 +71,8 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
 
     private final TimeTracker timeTracker;
 
+    private final long timeout;
+
     /**
      * The handling of threads relies on the JVM
      * The rules to create new thread are:
@@ -91,7 +99,17 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
      */
     public ConnectorExecutorImpl(final int queueCapacity, final int corePoolSize, final TechnicalLoggerService loggerService, final int maximumPoolSize,
             final long keepAliveTimeSeconds, final SessionAccessor sessionAccessor, final SessionService sessionService, final TimeTracker timeTracker) {
+        this(queueCapacity, corePoolSize, loggerService, maximumPoolSize, keepAliveTimeSeconds, sessionAccessor, sessionService, timeTracker, 0);
+    }
 
+    /**
+     * @param timeout
+     *        if the asynchronous execution of a connector is above this time in milliseconds, it is cancelled and fails. 0 means no timeout.
+     */
+    public ConnectorExecutorImpl(final int queueCapacity, final int corePoolSize, final TechnicalLoggerService loggerService, final int maximumPoolSize,
+            final long keepAliveTimeSeconds, final SessionAccessor sessionAccessor, final SessionService sessionService, final TimeTracker timeTracker,
+            final long timeout) {
+        this.timeout = timeout;
         this.queueCapacity = queueCapacity;
         this.corePoolSize = corePoolSize;
         this.loggerService = loggerService;
@@ -110,13 +128,7 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
             throw new SConnectorException("Unable to execute a connector, if the node is not started. Start it first");
         }
 
-        long tenantId;
-        try {
-            tenantId = sessionAccessor.getTenantId();
-        } catch (final STenantIdNotSetException tenantIdNotSetException) {
-            throw new SConnectorException("Tenant id not set.", tenantIdNotSetException);
-        }
-        final Callable<Map<String, Object>> callable = new ExecuteConnectorCallable(inputParameters, sConnector, tenantId, classLoader);
+        final Callable<Map<String, Object>> callable = new ExecuteConnectorCallable(inputParameters, sConnector, getTenantId(), classLoader);
         final Future<Map<String, Object>> submit = executorService.submit(callable);
         try {
             return getValue(submit);
@@ -132,16 +144,52 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
         }
     }
 
+    @Override
+    public CompletableFuture<Map<String, Object>> executeAsync(final SConnector sConnector, final Map<String, Object> inputParameters,
+            final ClassLoader classLoader) throws SConnectorException {
+        final long startTime = System.currentTimeMillis();
+        final ScheduledExecutorService scheduler = timeoutScheduler;
+        if (executorService == null || timeout > 0 && scheduler == null) {
+            throw new SConnectorException("Unable to execute a connector, if the node is not started. Start it first");
+        }
+        final Callable<Map<String, Object>> callable = new ExecuteConnectorCallable(inputParameters, sConnector, getTenantId(), classLoader);
+        final CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        // the future is completed by the connector thread itself: no other thread waits for the connector
+        final Future<?> submit = executorService.submit(() -> {
+            try {
+                result.complete(callable.call());
+            } catch (final Throwable e) {
+                if (result.completeExceptionally(new SConnectorException(e))) {
+                    disconnectSilently(sConnector);
+                }
+            } finally {
+                track(TimeTrackerRecords.EXECUTE_CONNECTOR_INCLUDING_POOL_SUBMIT, startTime, sConnector, inputParameters);
+            }
+        });
+        if (timeout > 0) {
+            final ScheduledFuture<?> timeoutTask = scheduler.schedule(() -> {
+                if (result.completeExceptionally(new SConnectorException("The connector timed out " + sConnector, new TimeoutException()))) {
+                    submit.cancel(true);
+                    disconnectSilently(sConnector);
+                }
+            }, timeout, TimeUnit.MILLISECONDS);
+            result.whenComplete((outputs, e) -> timeoutTask.cancel(false));
+        }
+        return result;
+    }
+
+    private long getTenantId() throws SConnectorException {
+        try {
+            return sessionAccessor.getTenantId();
+        } catch (final STenantIdNotSetException tenantIdNotSetException) {
+            throw new SConnectorException("Tenant id not set.", tenantIdNotSetException);
+        }
+    }
+
     private void track(final TimeTrackerRecords recordName, final long startTime, final SConnector sConnector, final Map<String, Object> inputParameters) {
         if (timeTracker.isTrackable(recordName)) {
             final long endTime = System.currentTimeMillis();
-            final StringBuilder desc = new StringBuilder();
-            desc.append("Connector: ");
-            desc.append(sConnector);
-            desc.append(" - ");
-            desc.append("inputParameters: ");
-            desc.append(inputParameters);
-            timeTracker.track(recordName, desc.toString(), endTime - startTime);
+            timeTracker.track(recordName, () -> "Connector: " + sConnector + " - " + "inputParameters: " + inputParameters, endTime - startTime);
         }
     }
 
@@ -249,12 +297,22 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
             final ConnectorExecutorThreadFactory threadFactory = new ConnectorExecutorThreadFactory("ConnectorExecutor");
             setExecutor(new ThreadPoolExecutor(corePoolSize, maximumPoolSize, keepAliveTimeSeconds, TimeUnit.SECONDS, workQueue, threadFactory, handler));
         }
+        if (timeout > 0 && timeoutScheduler == null) {
+            final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new ConnectorExecutorThreadFactory("ConnectorExecutorTimeout"));
+            // connectors completing before their timeout do not keep their timeout task in the queue
+            scheduler.setRemoveOnCancelPolicy(true);
+            setTimeoutScheduler(scheduler);
+        }
     }
 
     void setExecutor(final ExecutorService executorService) {
         this.executorService = executorService;
     }
 
+    void setTimeoutScheduler(final ScheduledExecutorService timeoutScheduler) {
+        this.timeoutScheduler = timeoutScheduler;
+    }
+
     // For unit tests
     ExecutorService getExecutorService() {
         return executorService;
@@ -277,6 +335,10 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
             }
             executorService = null;
         }
+        if (timeoutScheduler != null) {
+            timeoutScheduler.shutdownNow();
+            timeoutScheduler = null;
+        }
     }
 
     @Override
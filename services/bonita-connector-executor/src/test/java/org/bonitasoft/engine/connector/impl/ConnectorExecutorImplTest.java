@@ -20,7 +20,11 @@ import static org.mockito.Mockito.*;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
@@ -83,6 +87,89 @@ public class ConnectorExecutorImplTest {
         assertThat(result.get("result")).isEqualTo("resultValue");
     }
 
+    @Test
+    public void executeAsync_should_complete_future_with_connector_output() throws Exception {
+        // given
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        connectorExecutorImpl.setExecutor(executor);
+        doReturn(Collections.singletonMap("result", "resultValue")).when(connector).execute();
+        // when
+        final CompletableFuture<Map<String, Object>> result = connectorExecutorImpl.executeAsync(connector,
+                Collections.<String, Object> singletonMap("key", "value"), Thread.currentThread().getContextClassLoader());
+
+        // then
+        assertThat(result.get(5, TimeUnit.SECONDS)).containsEntry("result", "resultValue");
+        verify(connector).setInputParameters(Collections.<String, Object> singletonMap("key", "value"));
+        executor.shutdown();
+    }
+
+    @Test
+    public void executeAsync_should_complete_future_exceptionally_and_disconnect_when_connector_fails() throws Exception {
+        // given
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        connectorExecutorImpl.setExecutor(executor);
+        doThrow(new SConnectorException("failure")).when(connector).execute();
+        // when
+        final CompletableFuture<Map<String, Object>> result = connectorExecutorImpl.executeAsync(connector,
+                Collections.<String, Object> emptyMap(), Thread.currentThread().getContextClassLoader());
+
+        // then
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("should have completed exceptionally");
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(SConnectorException.class);
+        }
+        verify(connector).disconnect();
+        executor.shutdown();
+    }
+
+    @Test
+    public void executeAsync_should_cancel_and_disconnect_connector_when_it_times_out() throws Exception {
+        // given
+        connectorExecutorImpl = new ConnectorExecutorImpl(1, 1, loggerService, 1, 1, sessionAccessor, sessionService, timeTracker, 100);
+        connectorExecutorImpl.start();
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (final InterruptedException e) {
+                interrupted.countDown();
+            }
+            return Collections.emptyMap();
+        }).when(connector).execute();
+        // when
+        final CompletableFuture<Map<String, Object>> result = connectorExecutorImpl.executeAsync(connector,
+                Collections.<String, Object> emptyMap(), Thread.currentThread().getContextClassLoader());
+
+        // then
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("should have completed exceptionally");
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(SConnectorException.class).hasMessageContaining("timed out");
+        }
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).as("the connector thread is interrupted").isTrue();
+        verify(connector).disconnect();
+        connectorExecutorImpl.stop();
+    }
+
+    @Test
+    public void executeAsync_should_not_time_out_a_connector_completing_in_time() throws Exception {
+        // given
+        connectorExecutorImpl = new ConnectorExecutorImpl(1, 1, loggerService, 1, 1, sessionAccessor, sessionService, timeTracker, 5000);
+        connectorExecutorImpl.start();
+        doReturn(Collections.singletonMap("result", "resultValue")).when(connector).execute();
+        // when
+        final CompletableFuture<Map<String, Object>> result = connectorExecutorImpl.executeAsync(connector,
+                Collections.<String, Object> emptyMap(), Thread.currentThread().getContextClassLoader());
+
+        // then
+        assertThat(result.get(5, TimeUnit.SECONDS)).containsEntry("result", "resultValue");
+        verify(connector, never()).disconnect();
+        connectorExecutorImpl.stop();
+    }
+
     @Test(expected = SConnectorException.class)
     public void should_execute_throw_exception_when_not_started() throws Exception {
         // given
@@ -13,10 +13,16 @@
  **/
 package org.bonitasoft.engine.events.impl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.bonitasoft.engine.commons.LogUtil;
 import org.bonitasoft.engine.events.EventActionType;
@@ -28,13 +34,47 @@ import org.bonitasoft.engine.events.model.SFireEventException;
 import org.bonitasoft.engine.events.model.SHandler;
 import org.bonitasoft.engine.log.technical.TechnicalLogSeverity;
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.STransactionException;
+import org.bonitasoft.engine.transaction.STransactionNotFoundException;
+import org.bonitasoft.engine.transaction.TransactionService;
+import org.bonitasoft.engine.transaction.TransactionState;
 
+/**
+ * Base implementation of the {@link EventService}.
+ * <p>
+ * Handlers of each event type are split in synchronous and asynchronous arrays the first time an event of this type is fired, and again after a handler is
+ * added or removed. Synchronous handlers are executed when the event is fired, in the transaction firing it. Asynchronous handlers are given to the
+ * {@link AsyncEventDispatcher} once this transaction is committed, and are not called at all if it is rolled back.
+ */
 public abstract class AbstractEventServiceImpl implements EventService {
 
+    private static final RegisteredHandlers NO_HANDLERS = new RegisteredHandlers(Collections.<SHandler<SEvent>> emptyList(), false);
+
     protected static TechnicalLoggerService logger;
 
+    private final TransactionService transactionService;
+
+    private final AsyncEventDispatcher asyncEventDispatcher;
+
+    private volatile Map<String, RegisteredHandlers> handlersByType = new ConcurrentHashMap<>();
+
+    // events fired by the current transaction for asynchronous handlers, dispatched once it is committed
+    private final ThreadLocal<AsyncEvents> transactionEvents = new ThreadLocal<>();
+
     protected AbstractEventServiceImpl(final TechnicalLoggerService logger) {
+        this(logger, null, null);
+    }
+
+    /**
+     * @param transactionService used to wait for the commit of the transaction firing an event before giving it to the asynchronous handlers
+     * @param asyncEventDispatcher executes the asynchronous handlers, if null all handlers are executed synchronously
+     */
+    protected AbstractEventServiceImpl(final TechnicalLoggerService logger, final TransactionService transactionService,
+            final AsyncEventDispatcher asyncEventDispatcher) {
         AbstractEventServiceImpl.logger = logger;
+        this.transactionService = transactionService;
+        this.asyncEventDispatcher = asyncEventDispatcher;
     }
 
     /**
@@ -44,53 +84,125 @@ public abstract class AbstractEventServiceImpl implements EventService {
      */
     @Override
     public void fireEvent(final SEvent event) throws SFireEventException {
-        if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.TRACE)) {
-            logger.log(this.getClass(), TechnicalLogSeverity.TRACE, LogUtil.getLogBeforeMethod(this.getClass(), "fireEvent"));
-        }
-        if (event != null) {
-            // if at least 1 eventFilter contains a group of handlers for the given event type
-            if (containsHandlerFor(event.getType())) {
-                // retrieve the handler list concerned by the given event
-                final Collection<SHandler<SEvent>> handlers = getHandlersFor(event.getType());
-
-                if (handlers.size() > 0) {
-                    if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.TRACE)) {
-                        logger.log(this.getClass(), TechnicalLogSeverity.TRACE, "Found " + handlers.size() + " for event " + event.getType()
-                                + ". All handlers: " + handlers);
-                    }
-                    SFireEventException sFireEventException = null;
-                    for (final SHandler<SEvent> handler : handlers) {
-                        // for each handler, I check if it's interested or not by the given event
-                        try {
-                            if (handler.isInterested(event)) {
-                                handler.execute(event);
-                            }
-                        } catch (final Exception e) {
-                            if (sFireEventException == null) {
-                                sFireEventException = new SFireEventException("Unable to execute some handler.");
-                            }
-                            sFireEventException.addHandlerException(e);
-                            // for now, I just log the Exception into the console
-                            if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.ERROR)) {
-                                logger.log(this.getClass(), TechnicalLogSeverity.ERROR, "Unable to execute handler.", e);
-                            }
-                        }
-                    }
-                    if (sFireEventException != null) {
-                        throw sFireEventException;
-                    }
-                }
-            }
-            if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.TRACE)) {
-                logger.log(this.getClass(), TechnicalLogSeverity.TRACE, LogUtil.getLogAfterMethod(this.getClass(), "fireEvent"));
-            }
-        } else {
+        if (event == null) {
             if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.TRACE)) {
                 logger.log(this.getClass(), TechnicalLogSeverity.TRACE,
                         LogUtil.getLogOnExceptionMethod(this.getClass(), "fireEvent", "Unable to fire a null event"));
             }
             throw new SFireEventException("Unable to fire a null event");
         }
+        final RegisteredHandlers handlers = getRegisteredHandlers(event.getType());
+        if (handlers == NO_HANDLERS) {
+            return;
+        }
+        if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.TRACE)) {
+            logger.log(this.getClass(), TechnicalLogSeverity.TRACE, "Found " + (handlers.synchronous.length + handlers.asynchronous.length)
+                    + " for event " + event.getType() + ". Synchronous handlers: " + Arrays.toString(handlers.synchronous) + ", asynchronous handlers: "
+                    + Arrays.toString(handlers.asynchronous));
+        }
+        if (handlers.asynchronous.length > 0) {
+            dispatchAfterCommit(handlers.asynchronous, event);
+        }
+        SFireEventException sFireEventException = null;
+        for (final SHandler<SEvent> handler : handlers.synchronous) {
+            // for each handler, I check if it's interested or not by the given event
+            try {
+                if (handler.isInterested(event)) {
+                    handler.execute(event);
+                }
+            } catch (final Exception e) {
+                if (sFireEventException == null) {
+                    sFireEventException = new SFireEventException("Unable to execute some handler.");
+                }
+                sFireEventException.addHandlerException(e);
+                // for now, I just log the Exception into the console
+                if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.ERROR)) {
+                    logger.log(this.getClass(), TechnicalLogSeverity.ERROR, "Unable to execute handler.", e);
+                }
+            }
+        }
+        if (sFireEventException != null) {
+            throw sFireEventException;
+        }
+    }
+
+    private RegisteredHandlers getRegisteredHandlers(final String type) {
+        final Map<String, RegisteredHandlers> registeredHandlers = handlersByType;
+        RegisteredHandlers handlers = registeredHandlers.get(type);
+        if (handlers == null) {
+            final Collection<SHandler<SEvent>> handlersOfType = containsHandlerFor(type) ? getHandlersFor(type) : null;
+            if (handlersOfType == null || handlersOfType.isEmpty()) {
+                handlers = NO_HANDLERS;
+            } else {
+                handlers = new RegisteredHandlers(handlersOfType, asyncEventDispatcher != null);
+            }
+            registeredHandlers.put(type, handlers);
+        }
+        return handlers;
+    }
+
+    private void clearRegisteredHandlers() {
+        // a new map is used so that handlers computed concurrently from the previous registrations are not kept
+        handlersByType = new ConcurrentHashMap<>();
+    }
+
+    private void dispatchAfterCommit(final SHandler<SEvent>[] handlers, final SEvent event) throws SFireEventException {
+        AsyncEvents asyncEvents = transactionEvents.get();
+        if (asyncEvents == null) {
+            if (transactionService == null) {
+                dispatch(handlers, event);
+                return;
+            }
+            switch (getTransactionState(event)) {
+                case ACTIVE:
+                    asyncEvents = new AsyncEvents();
+                    try {
+                        transactionService.registerBonitaSynchronization(asyncEvents);
+                    } catch (final STransactionNotFoundException e) {
+                        // e.g. the transaction was marked for rollback: it will never be committed
+                        logDroppedEvent(event, e.getMessage());
+                        return;
+                    }
+                    transactionEvents.set(asyncEvents);
+                    break;
+                case NO_TRANSACTION:
+                case COMMITTED:
+                    // there is no commit to wait for
+                    dispatch(handlers, event);
+                    return;
+                default:
+                    logDroppedEvent(event, "the transaction firing it is rolled back");
+                    return;
+            }
+        }
+        asyncEvents.add(handlers, event);
+    }
+
+    private TransactionState getTransactionState(final SEvent event) throws SFireEventException {
+        try {
+            return transactionService.getState();
+        } catch (final STransactionException e) {
+            throw new SFireEventException("Unable to get the state of the transaction firing event " + event.getType(), e);
+        }
+    }
+
+    private void logDroppedEvent(final SEvent event, final String reason) {
+        if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.DEBUG)) {
+            logger.log(this.getClass(), TechnicalLogSeverity.DEBUG, "Event " + event.getType() + " is not given to asynchronous handlers: " + reason);
+        }
+    }
+
+    private void dispatch(final SHandler<SEvent>[] handlers, final SEvent event) {
+        for (final SHandler<SEvent> handler : handlers) {
+            try {
+                asyncEventDispatcher.dispatch(handler.getIdentifier(), new AsyncHandlerExecution(handler, event));
+            } catch (final RejectedExecutionException e) {
+                if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.ERROR)) {
+                    logger.log(this.getClass(), TechnicalLogSeverity.ERROR, "Unable to dispatch event " + event.getType() + " to handler "
+                            + handler.getIdentifier(), e);
+                }
+            }
+        }
     }
 
     protected abstract Collection<SHandler<SEvent>> getHandlersFor(final String type);
@@ -107,6 +219,7 @@ public abstract class AbstractEventServiceImpl implements EventService {
         }
         if (handler != null && eventType != null) {
             addHandlerFor(eventType, handler);
+            clearRegisteredHandlers();
             if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.TRACE)) {
                 logger.log(this.getClass(), TechnicalLogSeverity.TRACE, LogUtil.getLogAfterMethod(this.getClass(), "addHandler"));
             }
@@ -134,6 +247,7 @@ public abstract class AbstractEventServiceImpl implements EventService {
             throw new HandlerUnregistrationException();
         }
         removeAllHandlersFor(handler);
+        clearRegisteredHandlers();
         if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.TRACE)) {
             logger.log(this.getClass(), TechnicalLogSeverity.TRACE, LogUtil.getLogAfterMethod(this.getClass(), "removeAllHandlers"));
         }
@@ -150,6 +264,7 @@ public abstract class AbstractEventServiceImpl implements EventService {
             throw new HandlerUnregistrationException();
         }
         removeHandlerFor(eventType, h);
+        clearRegisteredHandlers();
         if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.TRACE)) {
             logger.log(this.getClass(), TechnicalLogSeverity.TRACE, LogUtil.getLogAfterMethod(this.getClass(), "removeHandler"));
         }
@@ -200,4 +315,84 @@ public abstract class AbstractEventServiceImpl implements EventService {
         return containsHandlerFor(key);
     }
 
+    private static final class RegisteredHandlers {
+
+        private final SHandler<SEvent>[] synchronous;
+
+        private final SHandler<SEvent>[] asynchronous;
+
+        @SuppressWarnings("unchecked")
+        private RegisteredHandlers(final Collection<SHandler<SEvent>> handlers, final boolean asynchronousAllowed) {
+            final List<SHandler<SEvent>> synchronousHandlers = new ArrayList<>(handlers.size());
+            final List<SHandler<SEvent>> asynchronousHandlers = new ArrayList<>(handlers.size());
+            for (final SHandler<SEvent> handler : handlers) {
+                if (asynchronousAllowed && !handler.isSynchronous()) {
+                    asynchronousHandlers.add(handler);
+                } else {
+                    synchronousHandlers.add(handler);
+                }
+            }
+            synchronous = synchronousHandlers.toArray(new SHandler[synchronousHandlers.size()]);
+            asynchronous = asynchronousHandlers.toArray(new SHandler[asynchronousHandlers.size()]);
+        }
+    }
+
+    private final class AsyncEvents implements BonitaTransactionSynchronization {
+
+        private final List<SHandler<SEvent>[]> handlers = new ArrayList<>();
+
+        private final List<SEvent> events = new ArrayList<>();
+
+        private void add(final SHandler<SEvent>[] eventHandlers, final SEvent event) {
+            handlers.add(eventHandlers);
+            events.add(event);
+        }
+
+        @Override
+        public void beforeCommit() {
+            // events are dispatched only once the transaction is committed
+        }
+
+        @Override
+        public void afterCompletion(final TransactionState txState) {
+            transactionEvents.remove();
+            if (txState == TransactionState.COMMITTED) {
+                for (int i = 0; i < events.size(); i++) {
+                    dispatch(handlers.get(i), events.get(i));
+                }
+            }
+        }
+    }
+
+    private static final class AsyncHandlerExecution implements Runnable {
+
+        private final SHandler<SEvent> handler;
+
+        private final SEvent event;
+
+        private AsyncHandlerExecution(final SHandler<SEvent> handler, final SEvent event) {
+            this.handler = handler;
+            this.event = event;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (handler.isInterested(event)) {
+                    handler.execute(event);
+                }
+            } catch (final Exception e) {
+                if (logger.isLoggable(AbstractEventServiceImpl.class, TechnicalLogSeverity.ERROR)) {
+                    logger.log(AbstractEventServiceImpl.class, TechnicalLogSeverity.ERROR, "Unable to execute handler " + handler.getIdentifier()
+                            + " on event " + event.getType(), e);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "event " + event.getType() + " for handler " + handler.getIdentifier();
+        }
+    }
+
 }
@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.events.impl;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bonitasoft.engine.log.technical.TechnicalLogSeverity;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+
+/**
+ * Executes the event handlers that are not synchronous, see {@link org.bonitasoft.engine.events.model.SHandler#isSynchronous()}.
+ * <p>
+ * Tasks are spread on a fixed number of lanes, each one executing its tasks one by one in a single thread: tasks dispatched with the same key are always
+ * executed in the order they were dispatched. Each lane has a bounded queue, when it is full the dispatching thread waits for some room in it.
+ * Threads of the lanes stop when they are idle and are started again by the next dispatched task.
+ * <p>
+ * Tasks are executed outside of any transaction and without session: a handler needing them must open its own, e.g. using the transaction service.
+ * {@link #shutdown()} must be called when the dispatcher is no longer used, so that the dispatched tasks are executed before the engine stops.
+ */
+public class AsyncEventDispatcher {
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final ThreadPoolExecutor[] lanes;
+
+    private final TechnicalLoggerService logger;
+
+    public AsyncEventDispatcher(final int laneCount, final int queueCapacity, final TechnicalLoggerService logger) {
+        this.logger = logger;
+        lanes = new ThreadPoolExecutor[laneCount];
+        final ThreadFactory threadFactory = new EventDispatcherThreadFactory();
+        final RejectedExecutionHandler waitForRoomInQueue = new WaitForRoomInQueueHandler();
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(queueCapacity), threadFactory,
+                    waitForRoomInQueue);
+            lanes[i].allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /**
+     * @param key tasks having the same key are executed in the order they are dispatched
+     * @param task the task to execute
+     */
+    public void dispatch(final String key, final Runnable task) {
+        lanes[Math.floorMod(key.hashCode(), lanes.length)].execute(task);
+    }
+
+    /**
+     * Stop accepting new tasks and wait for the already dispatched ones to be executed. Tasks that are still not executed after
+     * {@value #SHUTDOWN_TIMEOUT_SECONDS} seconds are dropped and logged.
+     */
+    public void shutdown() {
+        for (final ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT_SECONDS);
+        try {
+            for (final ThreadPoolExecutor lane : lanes) {
+                lane.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (final ThreadPoolExecutor lane : lanes) {
+            final List<Runnable> droppedTasks = lane.shutdownNow();
+            if (!droppedTasks.isEmpty() && logger.isLoggable(getClass(), TechnicalLogSeverity.WARNING)) {
+                logger.log(getClass(), TechnicalLogSeverity.WARNING, "Event dispatcher stopped before executing " + droppedTasks.size()
+                        + " asynchronous event handlers: " + droppedTasks);
+            }
+        }
+    }
+
+    private final class WaitForRoomInQueueHandler implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(final Runnable task, final ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("Unable to dispatch " + task + ", the event dispatcher is shut down");
+            }
+            if (logger.isLoggable(getClass(), TechnicalLogSeverity.DEBUG)) {
+                logger.log(getClass(), TechnicalLogSeverity.DEBUG, "Queue of asynchronous event handlers is full, waiting to dispatch " + task);
+            }
+            try {
+                executor.getQueue().put(task);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Dispatching " + task + " got interrupted", e);
+            }
+            // the thread of the lane may have stopped while waiting
+            executor.prestartCoreThread();
+        }
+    }
+
+    private static final class EventDispatcherThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger nbThread = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "Bonita-EventDispatcher-" + nbThread.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
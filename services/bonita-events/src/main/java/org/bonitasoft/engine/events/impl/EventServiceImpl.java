@@ -25,6 +25,7 @@ import org.bonitasoft.engine.events.model.HandlerUnregistrationException;
 import org.bonitasoft.engine.events.model.SEvent;
 import org.bonitasoft.engine.events.model.SHandler;
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.transaction.TransactionService;
 
 /**
  * @author Christophe Havard
@@ -43,6 +44,12 @@ public class EventServiceImpl extends AbstractEventServiceImpl {
         registeredHandlers = new HashMap<String, List<SHandler<SEvent>>>();
     }
 
+    public EventServiceImpl(final TechnicalLoggerService logger, final TransactionService transactionService,
+            final AsyncEventDispatcher asyncEventDispatcher) {
+        super(logger, transactionService, asyncEventDispatcher);
+        registeredHandlers = new HashMap<String, List<SHandler<SEvent>>>();
+    }
+
     @Override
     protected boolean containsHandlerFor(final String key) {
         return registeredHandlers.containsKey(key);
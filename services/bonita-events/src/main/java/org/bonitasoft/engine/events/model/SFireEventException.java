@@ -33,6 +33,10 @@ public class SFireEventException extends SBonitaException {
         super(message);
     }
 
+    public SFireEventException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
     public void addHandlerException(final Exception e) {
         if (handlerExceptions == null) {
             handlerExceptions = new ArrayList<Exception>();
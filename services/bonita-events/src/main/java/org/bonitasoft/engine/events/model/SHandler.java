@@ -36,4 +36,14 @@ public interface SHandler<T extends SEvent> extends Serializable {
      * Returns a unique identifier for each instance of the Handler
      */
     String getIdentifier();
+
+    /**
+     * Precise if the current Handler must be executed in the transaction that fired the event.
+     * If not, {@link #isInterested(SEvent)} and {@link #execute(SEvent)} are called in another thread, outside of any transaction, once the transaction that
+     * fired the event is committed. Events of a same handler are always given to it in the order they were fired. The handler is then called without
+     * session nor transaction: it must open a transaction itself to access the database.
+     */
+    default boolean isSynchronous() {
+        return true;
+    }
 }
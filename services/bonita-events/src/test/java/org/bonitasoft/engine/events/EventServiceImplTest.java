@@ -17,17 +17,30 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import org.bonitasoft.engine.events.impl.AsyncEventDispatcher;
 import org.bonitasoft.engine.events.impl.EventServiceImpl;
 import org.bonitasoft.engine.events.model.HandlerRegistrationException;
 import org.bonitasoft.engine.events.model.HandlerUnregistrationException;
 import org.bonitasoft.engine.events.model.SFireEventException;
 import org.bonitasoft.engine.log.technical.TechnicalLogSeverity;
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.STransactionNotFoundException;
+import org.bonitasoft.engine.transaction.TransactionService;
+import org.bonitasoft.engine.transaction.TransactionState;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 /**
  *
@@ -160,4 +173,135 @@ public class EventServiceImplTest {
         eventSvc.removeHandler(EVT_INTERESTING, h2);
     }
 
+    @Test
+    public void should_use_handler_added_after_an_event_of_its_type_was_fired() throws Exception {
+        eventSvc.fireEvent(new TestEvent(EVT_INTERESTING));
+        final TestHandlerCallback h = new TestHandlerCallback();
+        eventSvc.addHandler(EVT_INTERESTING, h);
+
+        final TestEvent interesting = new TestEvent(EVT_INTERESTING);
+        eventSvc.fireEvent(interesting);
+
+        assertTrue(interesting.isFlagged());
+        eventSvc.removeHandler(EVT_INTERESTING, h);
+        final TestEvent afterRemove = new TestEvent(EVT_INTERESTING);
+        eventSvc.fireEvent(afterRemove);
+        assertFalse(afterRemove.isFlagged());
+    }
+
+    @Test
+    public void should_execute_synchronous_handlers_when_the_event_is_fired() throws Exception {
+        final EventService asyncEventSvc = new EventServiceImpl(mockTechnicalLoggerService(), mock(TransactionService.class),
+                mock(AsyncEventDispatcher.class));
+        asyncEventSvc.addHandler(EVT_INTERESTING, new TestHandlerCallback());
+
+        final TestEvent interesting = new TestEvent(EVT_INTERESTING);
+        asyncEventSvc.fireEvent(interesting);
+
+        assertTrue(interesting.isFlagged());
+    }
+
+    @Test
+    public void should_dispatch_events_to_asynchronous_handlers_once_the_transaction_is_committed() throws Exception {
+        final TransactionService transactionService = mock(TransactionService.class);
+        doReturn(TransactionState.ACTIVE).when(transactionService).getState();
+        final AsyncEventDispatcher dispatcher = mock(AsyncEventDispatcher.class);
+        final EventService asyncEventSvc = new EventServiceImpl(mockTechnicalLoggerService(), transactionService, dispatcher);
+        asyncEventSvc.addHandler(EVT_INTERESTING, new AsynchronousHandler("async"));
+        final TestEvent first = new TestEvent(EVT_INTERESTING);
+        final TestEvent second = new TestEvent(EVT_INTERESTING);
+
+        asyncEventSvc.fireEvent(first);
+        asyncEventSvc.fireEvent(second);
+
+        final ArgumentCaptor<BonitaTransactionSynchronization> synchronization = ArgumentCaptor.forClass(BonitaTransactionSynchronization.class);
+        verify(transactionService).registerBonitaSynchronization(synchronization.capture());
+        verifyZeroInteractions(dispatcher);
+
+        synchronization.getValue().afterCompletion(TransactionState.COMMITTED);
+
+        final ArgumentCaptor<Runnable> executions = ArgumentCaptor.forClass(Runnable.class);
+        verify(dispatcher, times(2)).dispatch(eq("async"), executions.capture());
+        executions.getAllValues().get(0).run();
+        assertTrue(first.isFlagged());
+        assertFalse(second.isFlagged());
+        executions.getAllValues().get(1).run();
+        assertTrue(second.isFlagged());
+    }
+
+    @Test
+    public void should_not_dispatch_events_to_asynchronous_handlers_when_the_transaction_is_rolled_back() throws Exception {
+        final TransactionService transactionService = mock(TransactionService.class);
+        doReturn(TransactionState.ACTIVE).when(transactionService).getState();
+        final AsyncEventDispatcher dispatcher = mock(AsyncEventDispatcher.class);
+        final EventService asyncEventSvc = new EventServiceImpl(mockTechnicalLoggerService(), transactionService, dispatcher);
+        asyncEventSvc.addHandler(EVT_INTERESTING, new AsynchronousHandler("async"));
+
+        asyncEventSvc.fireEvent(new TestEvent(EVT_INTERESTING));
+        final ArgumentCaptor<BonitaTransactionSynchronization> synchronization = ArgumentCaptor.forClass(BonitaTransactionSynchronization.class);
+        verify(transactionService).registerBonitaSynchronization(synchronization.capture());
+        synchronization.getValue().afterCompletion(TransactionState.ROLLEDBACK);
+
+        verifyZeroInteractions(dispatcher);
+        // next transaction registers its own synchronization
+        asyncEventSvc.fireEvent(new TestEvent(EVT_INTERESTING));
+        verify(transactionService, times(2)).registerBonitaSynchronization(any(BonitaTransactionSynchronization.class));
+    }
+
+    @Test
+    public void should_dispatch_events_to_asynchronous_handlers_immediately_when_not_in_a_transaction() throws Exception {
+        final TransactionService transactionService = mock(TransactionService.class);
+        doReturn(TransactionState.NO_TRANSACTION).when(transactionService).getState();
+        final AsyncEventDispatcher dispatcher = mock(AsyncEventDispatcher.class);
+        final EventService asyncEventSvc = new EventServiceImpl(mockTechnicalLoggerService(), transactionService, dispatcher);
+        asyncEventSvc.addHandler(EVT_INTERESTING, new AsynchronousHandler("async"));
+
+        asyncEventSvc.fireEvent(new TestEvent(EVT_INTERESTING));
+
+        verify(dispatcher).dispatch(eq("async"), any(Runnable.class));
+        verify(transactionService, never()).registerBonitaSynchronization(any(BonitaTransactionSynchronization.class));
+    }
+
+    @Test
+    public void should_not_dispatch_events_to_asynchronous_handlers_when_the_transaction_is_marked_for_rollback() throws Exception {
+        final TransactionService transactionService = mock(TransactionService.class);
+        doReturn(TransactionState.ROLLBACKONLY).when(transactionService).getState();
+        final AsyncEventDispatcher dispatcher = mock(AsyncEventDispatcher.class);
+        final EventService asyncEventSvc = new EventServiceImpl(mockTechnicalLoggerService(), transactionService, dispatcher);
+        asyncEventSvc.addHandler(EVT_INTERESTING, new AsynchronousHandler("async"));
+
+        asyncEventSvc.fireEvent(new TestEvent(EVT_INTERESTING));
+
+        verifyZeroInteractions(dispatcher);
+        verify(transactionService, never()).registerBonitaSynchronization(any(BonitaTransactionSynchronization.class));
+    }
+
+    @Test
+    public void should_not_dispatch_events_to_asynchronous_handlers_when_the_synchronization_cannot_be_registered() throws Exception {
+        final TransactionService transactionService = mock(TransactionService.class);
+        doReturn(TransactionState.ACTIVE).when(transactionService).getState();
+        doThrow(STransactionNotFoundException.class).when(transactionService).registerBonitaSynchronization(any(BonitaTransactionSynchronization.class));
+        final AsyncEventDispatcher dispatcher = mock(AsyncEventDispatcher.class);
+        final EventService asyncEventSvc = new EventServiceImpl(mockTechnicalLoggerService(), transactionService, dispatcher);
+        asyncEventSvc.addHandler(EVT_INTERESTING, new AsynchronousHandler("async"));
+
+        asyncEventSvc.fireEvent(new TestEvent(EVT_INTERESTING));
+
+        verifyZeroInteractions(dispatcher);
+    }
+
+    private static class AsynchronousHandler extends TestHandlerCallback {
+
+        private static final long serialVersionUID = 1L;
+
+        AsynchronousHandler(final String identifier) {
+            super(identifier);
+        }
+
+        @Override
+        public boolean isSynchronous() {
+            return false;
+        }
+    }
+
 }
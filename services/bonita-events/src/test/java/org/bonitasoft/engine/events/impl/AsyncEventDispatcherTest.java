@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.events.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.junit.Test;
+
+public class AsyncEventDispatcherTest {
+
+    private final AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(4, 10, mock(TechnicalLoggerService.class));
+
+    @Test
+    public void should_execute_tasks_of_a_key_in_dispatch_order_even_when_the_queue_is_full() throws Exception {
+        final int taskCount = 1000;
+        final List<Integer> executed = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch allExecuted = new CountDownLatch(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            final int task = i;
+            dispatcher.dispatch("handler", () -> {
+                executed.add(task);
+                allExecuted.countDown();
+            });
+        }
+
+        assertTrue(allExecuted.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < taskCount; i++) {
+            assertEquals(i, executed.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void should_execute_tasks_of_different_keys() throws Exception {
+        final CountDownLatch allExecuted = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            dispatcher.dispatch("handler" + i, allExecuted::countDown);
+        }
+
+        assertTrue(allExecuted.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shutdown_should_execute_dispatched_tasks_and_reject_new_ones() throws Exception {
+        final AtomicInteger executed = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            dispatcher.dispatch("handler" + i, () -> {
+                sleep(1);
+                executed.incrementAndGet();
+            });
+        }
+
+        dispatcher.shutdown();
+
+        assertEquals(100, executed.get());
+        try {
+            dispatcher.dispatch("handler", executed::incrementAndGet);
+            fail("should reject tasks once shut down");
+        } catch (final RejectedExecutionException e) {
+            assertEquals(100, executed.get());
+        }
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -87,7 +87,7 @@ public class ExpressionServiceImpl implements ExpressionService {
         } finally {
             if (timeTracker.isTrackable(TimeTrackerRecords.EVALUATE_EXPRESSION)) {
                 final long endTime = System.currentTimeMillis();
-                timeTracker.track(TimeTrackerRecords.EVALUATE_EXPRESSION, "Expression: " + expression + " - " + "dependencyValues: " + dependencyValues + " - " + "strategy: " + expressionExecutorStrategy, endTime - startTime);
+                timeTracker.track(TimeTrackerRecords.EVALUATE_EXPRESSION, () -> "Expression: " + expression + " - " + "dependencyValues: " + dependencyValues + " - " + "strategy: " + expressionExecutorStrategy, endTime - startTime);
             }
         }
         if (mustCheckExpressionReturnType()) {
@@ -142,7 +142,7 @@ public class ExpressionServiceImpl implements ExpressionService {
         } finally {
             if (timeTracker.isTrackable(TimeTrackerRecords.EVALUATE_EXPRESSIONS)) {
                 final long endTime = System.currentTimeMillis();
-                timeTracker.track(TimeTrackerRecords.EVALUATE_EXPRESSIONS, "Expressions: " + expressions + " - " + "dependencyValues: " + dependencyValues + " - " + "strategy: " + expressionExecutorStrategy, endTime - startTime);
+                timeTracker.track(TimeTrackerRecords.EVALUATE_EXPRESSIONS, () -> "Expressions: " + expressions + " - " + "dependencyValues: " + dependencyValues + " - " + "strategy: " + expressionExecutorStrategy, endTime - startTime);
             }
         }
         if (list == null || list.size() != expressions.size()) {
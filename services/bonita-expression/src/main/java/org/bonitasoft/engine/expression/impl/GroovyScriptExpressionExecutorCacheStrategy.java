@@ -13,8 +13,13 @@
  **/
 package org.bonitasoft.engine.expression.impl;
 
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.security.AccessController;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.PrivilegedAction;
+import java.util.Collection;
 import java.util.Map;
 
 import org.bonitasoft.engine.cache.CacheService;
@@ -22,6 +27,7 @@ import org.bonitasoft.engine.cache.SCacheException;
 import org.bonitasoft.engine.classloader.ClassLoaderListener;
 import org.bonitasoft.engine.classloader.ClassLoaderService;
 import org.bonitasoft.engine.classloader.SClassLoaderException;
+import org.bonitasoft.engine.classloader.VirtualClassLoader;
 import org.bonitasoft.engine.commons.exceptions.SBonitaRuntimeException;
 import org.bonitasoft.engine.expression.ContainerState;
 import org.bonitasoft.engine.expression.exception.SExpressionEvaluationException;
@@ -59,8 +65,6 @@ public class GroovyScriptExpressionExecutorCacheStrategy extends AbstractGroovyS
 
     private final boolean debugEnabled;
 
-    private static int counter;
-
     public GroovyScriptExpressionExecutorCacheStrategy(final CacheService cacheService, final ClassLoaderService classLoaderService,
             final TechnicalLoggerService logger) {
         this.cacheService = cacheService;
@@ -69,34 +73,68 @@ public class GroovyScriptExpressionExecutorCacheStrategy extends AbstractGroovyS
         debugEnabled = logger.isLoggable(this.getClass(), TechnicalLogSeverity.DEBUG);
     }
 
-    protected synchronized String generateScriptName() {
-        return "BScript" + (++counter) + ".groovy";
-    }
-
-    Class getScriptFromCache(final String expressionContent, final Long definitionId) throws SCacheException, SClassLoaderException {
+    /**
+     * Get the compiled class of the script, compiling it using the shell of the definition if it is not yet in cache.
+     * Classes are cached by definition and by SHA-256 of the content so that two different scripts never share the same entry.
+     */
+    Class<?> getScriptFromCache(final String expressionContent, final Long definitionId) throws SCacheException, SClassLoaderException {
         if (definitionId == null) {
             throw new SBonitaRuntimeException("Unable to evaluate expression without a definitionId");
         }
-        final GroovyShell shell = getShell(definitionId);
-        final String key = getScriptKey(expressionContent);
-
-        GroovyCodeSource gcs = (GroovyCodeSource) cacheService.get(GROOVY_SCRIPT_CACHE_NAME, key);
-
-        if (gcs == null) {
-            gcs = AccessController.doPrivileged(new PrivilegedAction<GroovyCodeSource>() {
+        final String contentHash = sha256(expressionContent);
+        final String key = getScriptKey(definitionId, contentHash);
+        Class<?> scriptClass = (Class<?>) cacheService.get(GROOVY_SCRIPT_CACHE_NAME, key);
+        if (scriptClass == null) {
+            final GroovyShell shell = getShell(definitionId);
+            final GroovyCodeSource gcs = AccessController.doPrivileged(new PrivilegedAction<GroovyCodeSource>() {
 
                 public GroovyCodeSource run() {
-                    return new GroovyCodeSource(expressionContent, generateScriptName(), GroovyShell.DEFAULT_CODE_BASE);
+                    return new GroovyCodeSource(expressionContent, "BScript" + contentHash + ".groovy", GroovyShell.DEFAULT_CODE_BASE);
                 }
             });
-            cacheService.store(GROOVY_SCRIPT_CACHE_NAME, key, gcs);
+            // parse the groovy source code with cache set to true: threads compiling the same script concurrently get the same class
+            scriptClass = shell.getClassLoader().parseClass(gcs, true);
+            cacheService.store(GROOVY_SCRIPT_CACHE_NAME, key, scriptClass);
+        }
+        return scriptClass;
+    }
+
+    /**
+     * Compile the given scripts ahead of time in the shell of the definition, e.g. when the definition is deployed.
+     * Scripts that can't be compiled are skipped, they will fail when evaluated.
+     *
+     * @return the number of scripts compiled
+     */
+    public int precompile(final long definitionId, final Collection<String> scriptContents) {
+        int compiled = 0;
+        for (final String scriptContent : scriptContents) {
+            try {
+                getScriptFromCache(scriptContent, definitionId);
+                compiled++;
+            } catch (final Exception | LinkageError e) {
+                if (debugEnabled) {
+                    logger.log(this.getClass(), TechnicalLogSeverity.DEBUG, "Unable to precompile a script of definition " + definitionId + ": " + e.getMessage());
+                }
+            }
         }
-        // parse the groovy source code with cache set to true
-        return shell.getClassLoader().parseClass(gcs, true);
+        return compiled;
+    }
+
+    private static String getScriptKey(final long definitionId, final String contentHash) {
+        return getScriptKeyPrefix(definitionId) + contentHash;
     }
 
-    private String getScriptKey(String expressionContent) {
-        return SCRIPT_KEY + expressionContent.hashCode();
+    private static String getScriptKeyPrefix(final long definitionId) {
+        return SCRIPT_KEY + definitionId + "_";
+    }
+
+    private static String sha256(final String content) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return new BigInteger(1, digest.digest(content.getBytes(StandardCharsets.UTF_8))).toString(16);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new SBonitaRuntimeException(e);
+        }
     }
 
     GroovyShell getShell(final Long definitionId) throws SClassLoaderException, SCacheException {
@@ -136,9 +174,7 @@ public class GroovyScriptExpressionExecutorCacheStrategy extends AbstractGroovyS
         final String expressionName = expression.getName();
         try {
             final Binding binding = new Binding(context);
-            final Script script = InvokerHelper.createScript(getScriptFromCache(expressionContent, (Long) context.get(DEFINITION_ID)), binding);
-            script.setBinding(binding);
-            return script.run();
+            return createScript(getScriptFromCache(expressionContent, (Long) context.get(DEFINITION_ID)), binding).run();
         } catch (final MissingPropertyException e) {
             final String property = e.getProperty();
             throw new SExpressionEvaluationException("Expression " + expressionName + " with content = <" + expressionContent + "> depends on " + property
@@ -161,9 +197,48 @@ public class GroovyScriptExpressionExecutorCacheStrategy extends AbstractGroovyS
         }
     }
 
+    private Script createScript(final Class<?> scriptClass, final Binding binding) throws ReflectiveOperationException {
+        if (!Script.class.isAssignableFrom(scriptClass)) {
+            // e.g. content only declaring classes, let groovy wrap it
+            return InvokerHelper.createScript(scriptClass, binding);
+        }
+        final Script script = (Script) scriptClass.newInstance();
+        script.setBinding(binding);
+        return script;
+    }
+
     @Override
     public void onUpdate(ClassLoader newClassLoader) {
-        clearCache();
+        invalidate(newClassLoader);
+    }
+
+    /**
+     * Remove from the cache the shell and the scripts of the definition owning the classloader, scripts of other definitions are kept.
+     * The whole cache is cleared if the classloader is not the one of a definition.
+     */
+    private void invalidate(final ClassLoader classLoader) {
+        if (classLoader instanceof VirtualClassLoader && DEFINITION_TYPE.equals(((VirtualClassLoader) classLoader).getIdentifier().getType())) {
+            removeDefinitionFromCache(((VirtualClassLoader) classLoader).getIdentifier().getId());
+        } else {
+            clearCache();
+        }
+    }
+
+    void removeDefinitionFromCache(final long definitionId) {
+        final String scriptKeyPrefix = getScriptKeyPrefix(definitionId);
+        try {
+            cacheService.remove(GROOVY_SCRIPT_CACHE_NAME, SHELL_KEY + definitionId);
+            for (final Object key : cacheService.getKeys(GROOVY_SCRIPT_CACHE_NAME)) {
+                if (key instanceof String && ((String) key).startsWith(scriptKeyPrefix)) {
+                    cacheService.remove(GROOVY_SCRIPT_CACHE_NAME, key);
+                }
+            }
+        } catch (SCacheException e) {
+            logger.log(getClass(), TechnicalLogSeverity.ERROR,
+                    "error while removing the scripts of definition " + definitionId
+                            + " from the cache of the groovy script executor strategy, you might have classloading issue, restart the server if it's the case",
+                    e);
+        }
     }
 
     private void clearCache() {
@@ -178,6 +253,6 @@ public class GroovyScriptExpressionExecutorCacheStrategy extends AbstractGroovyS
 
     @Override
     public void onDestroy(ClassLoader oldClassLoader) {
-        clearCache();
+        invalidate(oldClassLoader);
     }
 }
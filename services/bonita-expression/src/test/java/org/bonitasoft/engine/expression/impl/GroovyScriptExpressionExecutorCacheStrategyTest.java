@@ -17,9 +17,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -28,8 +30,10 @@ import java.util.Map;
 import org.bonitasoft.engine.cache.CacheConfiguration;
 import org.bonitasoft.engine.cache.SCacheException;
 import org.bonitasoft.engine.cache.ehcache.EhCacheCacheService;
+import org.bonitasoft.engine.classloader.ClassLoaderIdentifier;
 import org.bonitasoft.engine.classloader.ClassLoaderService;
 import org.bonitasoft.engine.classloader.SClassLoaderException;
+import org.bonitasoft.engine.classloader.VirtualClassLoader;
 import org.bonitasoft.engine.commons.exceptions.SBonitaRuntimeException;
 import org.bonitasoft.engine.commons.io.IOUtil;
 import org.bonitasoft.engine.expression.ContainerState;
@@ -215,6 +219,48 @@ public class GroovyScriptExpressionExecutorCacheStrategyTest {
         assertThat(script1).isNotEqualTo(script2);
     }
 
+    @Test
+    public void should_getScriptFromCache_return_different_script_if_content_has_same_hashCode() throws Exception {
+        // given
+        assertThat("'Aa'".hashCode()).isEqualTo("'BB'".hashCode());
+
+        // when
+        final Class script1 = groovyScriptExpressionExecutorCacheStrategy.getScriptFromCache("'Aa'", 12L);
+        final Class script2 = groovyScriptExpressionExecutorCacheStrategy.getScriptFromCache("'BB'", 12L);
+
+        // then
+        assertThat(script1).isNotEqualTo(script2);
+    }
+
+    @Test
+    public void should_update_of_a_definition_classloader_only_clear_scripts_of_this_definition() throws Exception {
+        // given
+        final Class script12 = groovyScriptExpressionExecutorCacheStrategy.getScriptFromCache("MyScriptContent", 12L);
+        final Class script13 = groovyScriptExpressionExecutorCacheStrategy.getScriptFromCache("MyScriptContent", 13L);
+        final GroovyShell shell13 = groovyScriptExpressionExecutorCacheStrategy.getShell(13L);
+        final VirtualClassLoader classLoaderOf12 = mock(VirtualClassLoader.class);
+        doReturn(new ClassLoaderIdentifier(ExpressionExecutorStrategy.DEFINITION_TYPE, 12L)).when(classLoaderOf12).getIdentifier();
+
+        // when
+        groovyScriptExpressionExecutorCacheStrategy.onUpdate(classLoaderOf12);
+
+        // then
+        assertThat(groovyScriptExpressionExecutorCacheStrategy.getScriptFromCache("MyScriptContent", 12L)).isNotEqualTo(script12);
+        assertThat(groovyScriptExpressionExecutorCacheStrategy.getScriptFromCache("MyScriptContent", 13L)).isEqualTo(script13);
+        assertThat(groovyScriptExpressionExecutorCacheStrategy.getShell(13L)).isEqualTo(shell13);
+    }
+
+    @Test
+    public void should_precompile_put_compilable_scripts_in_cache() throws Exception {
+        // when
+        final int compiled = groovyScriptExpressionExecutorCacheStrategy.precompile(12L, Arrays.asList("'ok'", "this is not { groovy"));
+
+        // then
+        assertThat(compiled).isEqualTo(1);
+        assertThat(cacheService.getKeys(GroovyScriptExpressionExecutorCacheStrategy.GROOVY_SCRIPT_CACHE_NAME))
+                .filteredOn(key -> key.toString().startsWith(GroovyScriptExpressionExecutorCacheStrategy.SCRIPT_KEY + 12L)).hasSize(1);
+    }
+
     @Test(expected = SBonitaRuntimeException.class)
     public void should_not_put_in_cache_script_without_definition_id() throws Exception {
 
@@ -0,0 +1,275 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.lock.impl;
+
+import java.text.MessageFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.bonitasoft.engine.lock.BonitaLock;
+import org.bonitasoft.engine.lock.LockService;
+import org.bonitasoft.engine.lock.SLockException;
+import org.bonitasoft.engine.log.technical.TechnicalLogSeverity;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+
+/**
+ * In memory {@link LockService} relying on a {@link ConcurrentHashMap} of reference counted locks.
+ * <p>
+ * Locks are identified by a {@link LockKey} object instead of a concatenated String, and the reference count of a lock
+ * is updated atomically with the map using {@link ConcurrentMap#compute}: a lock is removed from the map only when
+ * no thread holds it or waits for it, so a thread never ends up locking an instance that was already replaced in the
+ * map and no retry is needed.
+ * <p>
+ * Unlike {@link MemoryLockService}, {@link #tryLock(long, String, long, TimeUnit, long)} waits at most for the given
+ * timeout.
+ * <p>
+ * This service must be configured as a singleton.
+ */
+public class ConcurrentMemoryLockService implements LockService {
+
+    private final ConcurrentMap<LockKey, LockEntry> locks = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, LockWaitStatistics> waitStatistics = new ConcurrentHashMap<>();
+
+    protected final TechnicalLoggerService logger;
+
+    protected final int lockTimeout;
+
+    private final boolean traceEnabled;
+
+    /**
+     * @param lockTimeout timeout to obtain a lock (in seconds)
+     */
+    public ConcurrentMemoryLockService(final TechnicalLoggerService logger, final int lockTimeout) {
+        this.logger = logger;
+        this.lockTimeout = lockTimeout;
+        traceEnabled = logger.isLoggable(getClass(), TechnicalLogSeverity.TRACE);
+    }
+
+    @Override
+    public void unlock(final BonitaLock bonitaLock, final long tenantId) {
+        final LockKey key = new LockKey(bonitaLock.getObjectToLockId(), bonitaLock.getObjectType(), tenantId);
+        locks.compute(key, (k, entry) -> {
+            // Compare the references
+            if (entry == null || entry.lock != bonitaLock.getLock()) {
+                throw new IllegalStateException("The lock held by the BonitaLock and the one associated to the key do not match.");
+            }
+            entry.lock.unlock();
+            return entry.release();
+        });
+        if (traceEnabled) {
+            logger.log(getClass(), TechnicalLogSeverity.TRACE, "Unlocked " + key);
+        }
+    }
+
+    @Override
+    public BonitaLock tryLock(final long objectToLockId, final String objectType, final long timeout, final TimeUnit timeUnit, final long tenantId) {
+        final LockKey key = new LockKey(objectToLockId, objectType, tenantId);
+        final LockEntry entry = locks.compute(key, (k, existing) -> (existing == null ? new LockEntry() : existing).acquire());
+        final ReentrantLock lock = entry.lock;
+        if (lock.isHeldByCurrentThread()) {
+            releaseReference(key);
+            // We do not want to support reentrant access
+            final String message = "Trying to acquire the lock another time by the same Thread, this should not happen !";
+            logger.log(getClass(), TechnicalLogSeverity.WARNING, message);
+            throw new IllegalStateException(message);
+        }
+        final long start = System.nanoTime();
+        boolean locked = false;
+        try {
+            locked = lock.tryLock() || lock.tryLock(timeout, timeUnit);
+        } catch (final InterruptedException e) {
+            logger.log(getClass(), TechnicalLogSeverity.ERROR, "The trylock was interrupted on " + key);
+        }
+        getWaitStatistics(objectType).record(System.nanoTime() - start, locked);
+        if (!locked) {
+            releaseReference(key);
+            if (traceEnabled) {
+                logger.log(getClass(), TechnicalLogSeverity.TRACE,
+                        MessageFormat.format("Could not lock after {0} {1} the lock with id={2}", timeout, timeUnit, key));
+            }
+            return null;
+        }
+        if (traceEnabled) {
+            logger.log(getClass(), TechnicalLogSeverity.TRACE, "Locked " + key);
+        }
+        return new BonitaLock(lock, objectType, objectToLockId);
+    }
+
+    private void releaseReference(final LockKey key) {
+        locks.computeIfPresent(key, (k, entry) -> entry.release());
+    }
+
+    @Override
+    public BonitaLock lock(final long objectToLockId, final String objectType, final long tenantId) throws SLockException {
+        final BonitaLock lock = tryLock(objectToLockId, objectType, lockTimeout, TimeUnit.SECONDS, tenantId);
+        if (lock == null) {
+            throw new SLockException(MessageFormat.format("Unable to acquire the lock after {0} {1} for {2}:{3}{4}", lockTimeout, TimeUnit.SECONDS,
+                    objectType, objectToLockId, getDetailsOnLock(objectToLockId, objectType, tenantId)));
+        }
+        return lock;
+    }
+
+    protected StringBuilder getDetailsOnLock(final long objectToLockId, final String objectType, final long tenantId) {
+        final LockKey key = new LockKey(objectToLockId, objectType, tenantId);
+        final LockEntry entry = locks.get(key);
+        final StringBuilder details = new StringBuilder(", Details: ");
+        if (entry == null) {
+            details.append("The lock was removed from the locks map in the memory lock service");
+        } else if (entry.lock.isLocked()) {
+            details.append("The lock on ").append(key).append(" is locked");
+            if (entry.lock.isHeldByCurrentThread()) {
+                details.append(", held by current thread");
+            }
+            details.append(", ").append(entry.lock.getQueueLength()).append(" thread(s) waiting for it.");
+        } else {
+            details.append("no additional details could be found (lock exists and is not locked, there should be no problem).");
+        }
+        return details;
+    }
+
+    /**
+     * @return the statistics on the time spent waiting for locks of the given type
+     */
+    public LockWaitStatistics getWaitStatistics(final String objectType) {
+        return waitStatistics.computeIfAbsent(objectType, type -> new LockWaitStatistics());
+    }
+
+    /**
+     * @return the statistics on the time spent waiting for locks, by object type
+     */
+    public Map<String, LockWaitStatistics> getAllWaitStatistics() {
+        return waitStatistics;
+    }
+
+    /**
+     * @return the number of locks currently held or waited for
+     */
+    int getLockCount() {
+        return locks.size();
+    }
+
+    /**
+     * Identifies a lock without concatenating its parts.
+     */
+    static final class LockKey {
+
+        private final long objectToLockId;
+        private final String objectType;
+        private final long tenantId;
+        private final int hash;
+
+        LockKey(final long objectToLockId, final String objectType, final long tenantId) {
+            this.objectToLockId = objectToLockId;
+            this.objectType = objectType;
+            this.tenantId = tenantId;
+            this.hash = 31 * (31 * Long.hashCode(objectToLockId) + objectType.hashCode()) + Long.hashCode(tenantId);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof LockKey)) {
+                return false;
+            }
+            final LockKey other = (LockKey) o;
+            return objectToLockId == other.objectToLockId && tenantId == other.tenantId && objectType.equals(other.objectType);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return objectType + ":" + objectToLockId + " (tenant " + tenantId + ")";
+        }
+    }
+
+    /**
+     * A lock and the number of threads holding it or waiting for it, only modified inside the compute methods of the map.
+     */
+    private static final class LockEntry {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private int references;
+
+        private LockEntry acquire() {
+            references++;
+            return this;
+        }
+
+        /**
+         * @return this entry if it is still referenced, null otherwise so that it is removed from the map
+         */
+        private LockEntry release() {
+            references--;
+            return references > 0 ? this : null;
+        }
+    }
+
+    /**
+     * Statistics on the time spent by threads waiting for locks.
+     */
+    public static final class LockWaitStatistics {
+
+        private final LongAdder acquired = new LongAdder();
+        private final LongAdder timedOut = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        void record(final long waitNanos, final boolean obtained) {
+            if (obtained) {
+                acquired.increment();
+            } else {
+                timedOut.increment();
+            }
+            totalWaitNanos.add(waitNanos);
+            if (waitNanos > maxWaitNanos.get()) {
+                maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+            }
+        }
+
+        public long getAcquiredCount() {
+            return acquired.sum();
+        }
+
+        public long getTimedOutCount() {
+            return timedOut.sum();
+        }
+
+        public long getTotalWaitTime(final TimeUnit timeUnit) {
+            return timeUnit.convert(totalWaitNanos.sum(), TimeUnit.NANOSECONDS);
+        }
+
+        public long getMaxWaitTime(final TimeUnit timeUnit) {
+            return timeUnit.convert(maxWaitNanos.get(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString() {
+            return "LockWaitStatistics[acquired=" + getAcquiredCount() + ", timedOut=" + getTimedOutCount() + ", totalWait="
+                    + getTotalWaitTime(TimeUnit.MILLISECONDS) + "ms, maxWait=" + getMaxWaitTime(TimeUnit.MILLISECONDS) + "ms]";
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.lock.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.bonitasoft.engine.lock.BonitaLock;
+import org.bonitasoft.engine.lock.SLockException;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConcurrentMemoryLockServiceTest {
+
+    private static final long TENANT_ID = 1L;
+
+    private ConcurrentMemoryLockService lockService;
+
+    @Before
+    public void before() {
+        lockService = new ConcurrentMemoryLockService(mock(TechnicalLoggerService.class), 1);
+    }
+
+    private BonitaLock lockInOtherThread(final long id, final String type, final long timeoutMillis) throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            return executor.submit(() -> lockService.tryLock(id, type, timeoutMillis, TimeUnit.MILLISECONDS, TENANT_ID)).get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void should_lock_different_objects_in_parallel() throws Exception {
+        lockService.lock(3, "a", TENANT_ID);
+
+        assertThat(lockInOtherThread(4, "a", 100)).isNotNull();
+        assertThat(lockInOtherThread(3, "b", 100)).isNotNull();
+    }
+
+    @Test
+    public void should_not_lock_an_object_already_locked() throws Exception {
+        lockService.lock(2, "a", TENANT_ID);
+
+        assertThat(lockInOtherThread(2, "a", 50)).isNull();
+        assertThat(lockService.getWaitStatistics("a").getTimedOutCount()).isEqualTo(1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void lockOnSameThread_should_throw_IllegalStateException() throws Exception {
+        lockService.lock(123, "abc", TENANT_ID);
+        lockService.lock(123, "abc", TENANT_ID);
+    }
+
+    @Test
+    public void should_be_able_to_lock_after_unlock() throws Exception {
+        final BonitaLock lock = lockService.lock(5, "a", TENANT_ID);
+
+        lockService.unlock(lock, TENANT_ID);
+
+        assertThat(lockInOtherThread(5, "a", 50)).isNotNull();
+    }
+
+    @Test
+    public void should_give_lock_to_waiting_thread_when_unlocked() throws Exception {
+        final BonitaLock lock = lockService.lock(5, "a", TENANT_ID);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final Future<BonitaLock> waitingLock = executor.submit(() -> lockService.tryLock(5, "a", 5, TimeUnit.SECONDS, TENANT_ID));
+        Thread.sleep(50);
+
+        lockService.unlock(lock, TENANT_ID);
+
+        assertThat(waitingLock.get(5, TimeUnit.SECONDS)).isNotNull();
+        executor.shutdown();
+    }
+
+    @Test(expected = SLockException.class)
+    public void lock_should_throw_exception_on_timeout() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.submit(() -> lockService.lock(7, "a", TENANT_ID)).get();
+        executor.shutdown();
+
+        lockService.lock(7, "a", TENANT_ID);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unlock_should_throw_exception_when_lock_does_not_match() throws Exception {
+        lockService.lock(8, "a", TENANT_ID);
+
+        lockService.unlock(new BonitaLock(new ReentrantLock(), "a", 8), TENANT_ID);
+    }
+
+    @Test
+    public void should_remove_locks_from_map_when_nobody_holds_or_waits_for_them() throws Exception {
+        final int threads = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger inCriticalSection = new AtomicInteger();
+        final AtomicInteger concurrentAccess = new AtomicInteger();
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 1000; i++) {
+                    final BonitaLock lock = lockService.tryLock(i % 3, "a", 5, TimeUnit.SECONDS, TENANT_ID);
+                    if (i % 3 == 0 && inCriticalSection.incrementAndGet() > 1) {
+                        concurrentAccess.incrementAndGet();
+                    }
+                    if (i % 3 == 0) {
+                        inCriticalSection.decrementAndGet();
+                    }
+                    lockService.unlock(lock, TENANT_ID);
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (final Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(concurrentAccess.get()).isZero();
+        assertThat(lockService.getLockCount()).isZero();
+        assertThat(lockService.getWaitStatistics("a").getAcquiredCount()).isEqualTo(threads * 1000);
+    }
+
+    @Test
+    public void getDetailsOnLock_should_give_number_of_waiting_threads() throws Exception {
+        lockService.lock(151, "objectType", TENANT_ID);
+
+        final StringBuilder details = lockService.getDetailsOnLock(151, "objectType", TENANT_ID);
+
+        assertThat(details).contains("is locked, held by current thread, 0 thread(s) waiting for it.");
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.lock.impl;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bonitasoft.engine.lock.BonitaLock;
+import org.bonitasoft.engine.lock.LockService;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the latency of a lock/unlock cycle, as done by each LockProcessInstanceWork, between
+ * {@link MemoryLockService} and {@link ConcurrentMemoryLockService}.
+ * <p>
+ * Not executed by the build, run the main method (from the IDE or using the test classpath) to launch it.
+ * {@code distinctObjects} controls the contention: few objects means many threads competing for the same locks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class LockServiceBenchmark {
+
+    private static final long TENANT_ID = 1L;
+    private static final String PROCESS = "PROCESS";
+
+    @Param({ "MemoryLockService", "ConcurrentMemoryLockService" })
+    public String implementation;
+
+    @Param({ "16", "100000" })
+    public int distinctObjects;
+
+    private LockService lockService;
+
+    @Setup
+    public void setup() {
+        final TechnicalLoggerService logger = mock(TechnicalLoggerService.class);
+        if ("MemoryLockService".equals(implementation)) {
+            lockService = new MemoryLockService(logger, 60, 100);
+        } else {
+            lockService = new ConcurrentMemoryLockService(logger, 60);
+        }
+    }
+
+    @Benchmark
+    public BonitaLock lockAndUnlock() throws Exception {
+        final long processInstanceId = ThreadLocalRandom.current().nextInt(distinctObjects);
+        final BonitaLock lock = lockService.tryLock(processInstanceId, PROCESS, 20, TimeUnit.MILLISECONDS, TENANT_ID);
+        if (lock != null) {
+            lockService.unlock(lock, TENANT_ID);
+        }
+        return lock;
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LockServiceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -76,6 +76,7 @@ public abstract class AbstractHibernatePersistenceService extends AbstractDBPers
     private Statistics statistics;
     private int stat_display_count;
     private QueryBuilderFactory queryBuilderFactory = new QueryBuilderFactory();
+    private final SearchQueryCache searchQueryCache = new SearchQueryCache(SearchQueryCache.DEFAULT_MAX_SIZE);
 
     protected AbstractHibernatePersistenceService(final SessionFactory sessionFactory, final List<Class<? extends PersistentObject>> classMapping,
             final Map<String, String> classAliasMappings, final boolean enableWordSearch,
@@ -429,17 +430,21 @@ public abstract class AbstractHibernatePersistenceService extends AbstractDBPers
             QueryBuilder queryBuilder = queryBuilderFactory.createQueryBuilderFor(query, selectDescriptor.getEntityType(), orderByBuilder,
                     classAliasMappings, interfaceToClassMapping,
                     likeEscapeCharacter);
+            final QueryOptions queryOptions = selectDescriptor.getQueryOptions();
             if (selectDescriptor.hasAFilter()) {
-                final QueryOptions queryOptions = selectDescriptor.getQueryOptions();
                 final boolean enableWordSearch = isWordSearchEnabled(selectDescriptor.getEntityType());
                 queryBuilder.appendFilters(queryOptions.getFilters(), queryOptions.getMultipleFilter(), enableWordSearch);
             }
-            if (selectDescriptor.hasOrderByParameters()) {
-                queryBuilder.appendOrderByClause(selectDescriptor.getQueryOptions().getOrderByOptions(), selectDescriptor.getEntityType());
+            if (queryOptions != null && queryOptions.isKeysetPagination()) {
+                final List<OrderByOption> keysetOrder = KeysetCursor.getKeysetOrder(queryOptions.getOrderByOptions(), selectDescriptor.getEntityType());
+                queryBuilder.appendKeysetClause(keysetOrder, queryOptions.getSearchAfterValues(), selectDescriptor.getEntityType());
+                queryBuilder.appendOrderByClause(keysetOrder, selectDescriptor.getEntityType());
+            } else if (selectDescriptor.hasOrderByParameters()) {
+                queryBuilder.appendOrderByClause(queryOptions.getOrderByOptions(), selectDescriptor.getEntityType());
             }
 
             if (queryBuilder.hasChanged()) {
-                query = queryBuilder.buildQuery(session);
+                query = searchQueryCache.createQuery(queryBuilder, session);
             }
             setQueryCache(query, selectDescriptor.getQueryName());
             try {
@@ -514,6 +519,10 @@ public abstract class AbstractHibernatePersistenceService extends AbstractDBPers
         }
     }
 
+    public SearchQueryCache getSearchQueryCache() {
+        return searchQueryCache;
+    }
+
     public Map<String, String> getClassAliasMappings() {
         return classAliasMappings;
     }
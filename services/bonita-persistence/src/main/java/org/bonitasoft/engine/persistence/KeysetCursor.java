@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.persistence;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cursor used by keyset pagination: the values, for the last result of a page, of the fields the results are ordered by, followed by its id.
+ * <p>
+ * The next page is retrieved by adding a condition selecting the results that come after these values in the order of the search, see
+ * {@link QueryOptions#searchAfter(int, List, List, SearchFields, List)}. The cursor is given to clients as an opaque string, that only contains the
+ * values of the fields, with their type.
+ *
+ * @see QueryBuilder#appendKeysetClause(List, List, Class)
+ */
+public final class KeysetCursor {
+
+    private static final String ID = "id";
+
+    private static final Map<String, Field> FIELDS = new ConcurrentHashMap<>();
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * @return the order of a keyset paginated search: the given order followed by the id, so that each result has a distinct position
+     */
+    public static List<OrderByOption> getKeysetOrder(final List<OrderByOption> orderByOptions, final Class<? extends PersistentObject> entityType) {
+        final List<OrderByOption> keysetOrder = new ArrayList<>();
+        if (orderByOptions != null) {
+            keysetOrder.addAll(orderByOptions);
+        }
+        for (final OrderByOption orderByOption : keysetOrder) {
+            if (ID.equals(orderByOption.getFieldName())) {
+                return keysetOrder;
+            }
+        }
+        keysetOrder.add(new OrderByOption(entityType, ID, OrderByType.ASC));
+        return keysetOrder;
+    }
+
+    /**
+     * @return the values of the fields of the given keyset order for the given object
+     */
+    public static List<Serializable> valuesOf(final PersistentObject object, final List<OrderByOption> keysetOrder) throws SBonitaReadException {
+        final List<Serializable> values = new ArrayList<>(keysetOrder.size());
+        for (final OrderByOption orderByOption : keysetOrder) {
+            if (orderByOption.getClazz() != null && !orderByOption.getClazz().isInstance(object)) {
+                throw new SBonitaReadException("Keyset pagination is not supported when sorting on field " + orderByOption.getFieldName() + " of "
+                        + orderByOption.getClazz().getSimpleName());
+            }
+            try {
+                values.add((Serializable) getField(object.getClass(), orderByOption.getFieldName()).get(object));
+            } catch (final IllegalAccessException | ClassCastException e) {
+                throw new SBonitaReadException(e);
+            }
+        }
+        return values;
+    }
+
+    private static Field getField(final Class<?> objectClass, final String fieldName) throws SBonitaReadException {
+        final String key = objectClass.getName() + '#' + fieldName;
+        Field field = FIELDS.get(key);
+        if (field == null) {
+            Class<?> clazz = objectClass;
+            while (field == null && clazz != null) {
+                try {
+                    field = clazz.getDeclaredField(fieldName);
+                } catch (final NoSuchFieldException e) {
+                    clazz = clazz.getSuperclass();
+                }
+            }
+            if (field == null) {
+                throw new SBonitaReadException("Keyset pagination is not supported when sorting on field " + fieldName + " of "
+                        + objectClass.getSimpleName());
+            }
+            field.setAccessible(true);
+            FIELDS.put(key, field);
+        }
+        return field;
+    }
+
+    /**
+     * @return the opaque representation of the given values
+     */
+    public static String encode(final List<Serializable> values) throws SBonitaReadException {
+        final StringBuilder builder = new StringBuilder();
+        for (final Serializable value : values) {
+            final String content;
+            if (value == null) {
+                builder.append('N');
+                continue;
+            } else if (value instanceof Long) {
+                builder.append('L');
+            } else if (value instanceof Integer) {
+                builder.append('I');
+            } else if (value instanceof Short) {
+                builder.append('H');
+            } else if (value instanceof Double) {
+                builder.append('D');
+            } else if (value instanceof Float) {
+                builder.append('F');
+            } else if (value instanceof Boolean) {
+                builder.append('B');
+            } else if (value instanceof String) {
+                builder.append('S');
+            } else {
+                throw new SBonitaReadException("Keyset pagination is not supported when sorting on a field of type " + value.getClass().getName());
+            }
+            content = value.toString();
+            builder.append(content.length()).append(':').append(content);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the values represented by the given cursor
+     */
+    public static List<Serializable> decode(final String cursor) throws SBonitaReadException {
+        final List<Serializable> values = new ArrayList<>();
+        try {
+            final String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = 0;
+            while (index < decoded.length()) {
+                final char type = decoded.charAt(index++);
+                if (type == 'N') {
+                    values.add(null);
+                    continue;
+                }
+                final int separator = decoded.indexOf(':', index);
+                final int length = Integer.parseInt(decoded.substring(index, separator));
+                final String content = decoded.substring(separator + 1, separator + 1 + length);
+                index = separator + 1 + length;
+                values.add(parse(type, content));
+            }
+        } catch (final IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new SBonitaReadException("Invalid search cursor: " + cursor);
+        }
+        return values;
+    }
+
+    private static Serializable parse(final char type, final String content) {
+        switch (type) {
+            case 'L':
+                return Long.valueOf(content);
+            case 'I':
+                return Integer.valueOf(content);
+            case 'H':
+                return Short.valueOf(content);
+            case 'D':
+                return Double.valueOf(content);
+            case 'F':
+                return Float.valueOf(content);
+            case 'B':
+                return Boolean.valueOf(content);
+            case 'S':
+                return content;
+            default:
+                throw new IllegalArgumentException("Unknown type " + type);
+        }
+    }
+
+}
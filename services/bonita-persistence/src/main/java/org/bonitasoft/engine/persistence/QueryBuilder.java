@@ -16,28 +16,50 @@ package org.bonitasoft.engine.persistence;
 
 import static org.bonitasoft.engine.persistence.search.FilterOperationType.*;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.bonitasoft.engine.commons.EnumToObjectConvertible;
 import org.bonitasoft.engine.persistence.search.FilterOperationType;
+import org.hibernate.HibernateException;
 import org.hibernate.Query;
 import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.type.Type;
+import org.hibernate.type.TypeResolver;
 
 /**
+ * Appends filters and order by clauses to a query.
+ * <p>
+ * Filter values are never written in the query: they are bound as named parameters so that a given combination of filters always gives the same
+ * query, whatever the searched values are. See {@link SearchQueryCache}.
+ *
  * @author Baptiste Mesta
  */
 abstract class QueryBuilder {
 
+    static final String FILTER_PARAMETER_PREFIX = "filterParam";
+    private static final TypeResolver TYPE_RESOLVER = new TypeResolver();
+
     private final String baseQuery;
     StringBuilder stringQueryBuilder;
     Map<String, String> classAliasMappings;
     Map<String, Class<? extends PersistentObject>> interfaceToClassMapping;
     private String likeEscapeCharacter;
     private OrderByBuilder orderByBuilder;
+    private final Map<String, Object> filterParameters = new LinkedHashMap<>();
+    private final Map<String, FilteredField> filterParameterFields = new HashMap<>();
+    private final Map<String, String> likePatternParameters = new HashMap<>();
 
     QueryBuilder(String baseQuery, OrderByBuilder orderByBuilder, Map<String, String> classAliasMappings,
             Map<String, Class<? extends PersistentObject>> interfaceToClassMapping, char likeEscapeCharacter) {
@@ -53,6 +75,36 @@ abstract class QueryBuilder {
         return stringQueryBuilder.toString();
     }
 
+    Map<String, Object> getFilterParameters() {
+        return Collections.unmodifiableMap(filterParameters);
+    }
+
+    private String addFilterParameter(final Object value) {
+        final String name = FILTER_PARAMETER_PREFIX + filterParameters.size();
+        filterParameters.put(name, value);
+        return ":" + name;
+    }
+
+    /**
+     * Add a parameter compared to the given field, which gives the type the value is converted to when bound.
+     */
+    private String addFilterParameter(final Object value, final Class<? extends PersistentObject> persistentClass, final String fieldName) {
+        final String parameter = addFilterParameter(value);
+        if (persistentClass != null) {
+            filterParameterFields.put(parameter.substring(1), new FilteredField(persistentClass, fieldName));
+        }
+        return parameter;
+    }
+
+    private String addLikePatternParameter(final String pattern) {
+        String parameter = likePatternParameters.get(pattern);
+        if (parameter == null) {
+            parameter = addFilterParameter(pattern);
+            likePatternParameters.put(pattern, parameter);
+        }
+        return parameter;
+    }
+
     void appendFilters(List<FilterOption> filters, SearchFields multipleFilter, boolean enableWordSearch) {
         final Set<String> specificFilters = new HashSet<>(filters.size());
         if (!filters.isEmpty()) {
@@ -93,41 +145,42 @@ abstract class QueryBuilder {
         }
         Object fieldValue = filterOption.getValue();
         fieldValue = processValue(fieldValue);
+        final Class<? extends PersistentObject> persistentClass = filterOption.getPersistentClass();
+        final String fieldName = filterOption.getFieldName();
         switch (type) {
             case EQUALS:
                 if (fieldValue == null) {
                     clause.append(completeField).append(" IS NULL");
                 } else {
-                    clause.append(completeField).append(" = ").append(fieldValue);
+                    clause.append(completeField).append(" = ").append(addFilterParameter(fieldValue, persistentClass, fieldName));
                 }
                 break;
             case GREATER:
-                clause.append(completeField).append(" > ").append(fieldValue);
+                clause.append(completeField).append(" > ").append(addFilterParameter(fieldValue, persistentClass, fieldName));
                 break;
             case GREATER_OR_EQUALS:
-                clause.append(completeField).append(" >= ").append(fieldValue);
+                clause.append(completeField).append(" >= ").append(addFilterParameter(fieldValue, persistentClass, fieldName));
                 break;
             case LESS:
-                clause.append(completeField).append(" < ").append(fieldValue);
+                clause.append(completeField).append(" < ").append(addFilterParameter(fieldValue, persistentClass, fieldName));
                 break;
             case LESS_OR_EQUALS:
-                clause.append(completeField).append(" <= ").append(fieldValue);
+                clause.append(completeField).append(" <= ").append(addFilterParameter(fieldValue, persistentClass, fieldName));
                 break;
             case DIFFERENT:
-                clause.append(completeField).append(" != ").append(fieldValue);
+                clause.append(completeField).append(" != ").append(addFilterParameter(fieldValue, persistentClass, fieldName));
                 break;
             case IN:
                 clause.append(getInClause(completeField, filterOption));
                 break;
             case BETWEEN:
-                final Object from = filterOption.getFrom() instanceof String ? "'" + escapeString((String) filterOption.getFrom()) + "'"
-                        : filterOption.getFrom();
-                final Object to = filterOption.getTo() instanceof String ? "'" + escapeString((String) filterOption.getTo()) + "'" : filterOption.getTo();
+                final String from = addFilterParameter(processValue(filterOption.getFrom()), persistentClass, fieldName);
+                final String to = addFilterParameter(processValue(filterOption.getTo()), persistentClass, fieldName);
                 clause.append("(").append(from).append(" <= ").append(completeField);
                 clause.append(" AND ").append(completeField).append(" <= ").append(to).append(")");
                 break;
             case LIKE:
-                clause.append(completeField).append(" LIKE '%").append(escapeTerm((String) filterOption.getValue())).append("%'");
+                clause.append(completeField).append(" LIKE ").append(addLikePatternParameter("%" + escapeTerm((String) filterOption.getValue()) + "%"));
                 break;
             case L_PARENTHESIS:
                 clause.append(" (");
@@ -147,10 +200,11 @@ abstract class QueryBuilder {
         return completeField;
     }
 
+    /**
+     * @return the value to bind for the given filter value
+     */
     protected Object processValue(Object fieldValue) {
-        if (fieldValue instanceof String) {
-            fieldValue = "'" + escapeString((String) fieldValue) + "'";
-        } else if (fieldValue instanceof EnumToObjectConvertible) {
+        if (fieldValue instanceof EnumToObjectConvertible) {
             fieldValue = ((EnumToObjectConvertible) fieldValue).fromEnum();
         }
         return fieldValue;
@@ -223,47 +277,74 @@ abstract class QueryBuilder {
      * Get like clause for given term with escaped sql query wildcards and escape character
      */
     private String buildLikeEscapeClause(final String term, final String prefixPattern, final String suffixPattern) {
-        return " LIKE '" + (prefixPattern != null ? prefixPattern : "") + escapeTerm(term) + (suffixPattern != null ? suffixPattern : "") + "' ESCAPE '"
-                + likeEscapeCharacter + "'";
+        return " LIKE " + addLikePatternParameter((prefixPattern != null ? prefixPattern : "") + escapeTerm(term) + (suffixPattern != null ? suffixPattern : ""))
+                + " ESCAPE '" + likeEscapeCharacter + "'";
     }
 
     /*
      * escape for like
      */
-    private final String escapeTerm(final String term) {
-        // 1) escape ' character by adding another ' character
-        // 2) protect escape character if this character is used in data
-        // 3) escape % character (sql query wildcard) by adding escape character
-        // 4) escape _ character (sql query wildcard) by adding escape character
+    private String escapeTerm(final String term) {
+        // 1) protect escape character if this character is used in data
+        // 2) escape % character (sql query wildcard) by adding escape character
+        // 3) escape _ character (sql query wildcard) by adding escape character
         return term
-                .replace("'", "''")
                 .replace(likeEscapeCharacter, likeEscapeCharacter + likeEscapeCharacter)
                 .replace("%", likeEscapeCharacter + "%")
                 .replace("_", likeEscapeCharacter + "_");
     }
 
-    /*
-     * escape for other things than like
-     */
-    String escapeString(final String term) {
-        // 1) escape ' character by adding another ' character
-        return term
-                .replaceAll("'", "''");
+    private String getInClause(final StringBuilder completeField, final FilterOption filterOption) {
+        final List<Object> values = new ArrayList<>(filterOption.getIn().size());
+        for (final Object element : filterOption.getIn()) {
+            values.add(processValue(element));
+        }
+        return completeField + " in (" + addFilterParameter(values, filterOption.getPersistentClass(), filterOption.getFieldName()) + ")";
     }
 
-    private String getInClause(final StringBuilder completeField, final FilterOption filterOption) {
-        return completeField + " in (" +
-                getInValues(filterOption) +
-                ")";
+    /**
+     * Append the condition selecting the results that come after the given values, in the given order.
+     * For an order (a ASC, b DESC, id ASC) it is: a > :a OR (a = :a AND (b < :b OR (b = :b AND id > :id)))
+     */
+    void appendKeysetClause(final List<OrderByOption> keysetOrder, final List<Serializable> searchAfterValues,
+            final Class<? extends PersistentObject> entityType) throws SBonitaReadException {
+        if (searchAfterValues.isEmpty()) {
+            return;
+        }
+        if (searchAfterValues.size() != keysetOrder.size()) {
+            throw new SBonitaReadException("The search cursor does not match the sort options of the search");
+        }
+        if (!stringQueryBuilder.toString().contains("WHERE")) {
+            stringQueryBuilder.append(" WHERE (");
+        } else {
+            stringQueryBuilder.append(" AND (");
+        }
+        appendKeysetCondition(keysetOrder, searchAfterValues, 0, entityType);
+        stringQueryBuilder.append(")");
     }
 
-    private String getInValues(final FilterOption filterOption) {
-        final StringBuilder stb = new StringBuilder();
-        for (final Object element : filterOption.getIn()) {
-            stb.append(element).append(",");
+    private void appendKeysetCondition(final List<OrderByOption> keysetOrder, final List<Serializable> searchAfterValues, final int index,
+            final Class<? extends PersistentObject> entityType) throws SBonitaReadException {
+        final OrderByOption orderByOption = keysetOrder.get(index);
+        final Serializable value = searchAfterValues.get(index);
+        if (value == null) {
+            throw new SBonitaReadException("Keyset pagination is not supported when the sorted field " + orderByOption.getFieldName()
+                    + " has null values");
+        }
+        final StringBuilder field = new StringBuilder();
+        final Class<? extends PersistentObject> sortedClass = orderByOption.getClazz() != null ? orderByOption.getClazz() : entityType;
+        appendClassAlias(field, sortedClass);
+        field.append(orderByOption.getFieldName());
+        final String parameter = addFilterParameter(processValue(value), sortedClass, orderByOption.getFieldName());
+        final String operator = orderByOption.getOrderByType().name().startsWith("DESC") ? " < " : " > ";
+        if (index == keysetOrder.size() - 1) {
+            stringQueryBuilder.append(field).append(operator).append(parameter);
+            return;
         }
-        final String inValues = stb.toString();
-        return inValues.substring(0, inValues.length() - 1);
+        stringQueryBuilder.append("(").append(field).append(operator).append(parameter);
+        stringQueryBuilder.append(" OR (").append(field).append(" = ").append(parameter).append(" AND ");
+        appendKeysetCondition(keysetOrder, searchAfterValues, index + 1, entityType);
+        stringQueryBuilder.append("))");
     }
 
     void appendOrderByClause(List<OrderByOption> orderByOptions, Class<? extends PersistentObject> entityType) throws SBonitaReadException {
@@ -314,5 +395,157 @@ abstract class QueryBuilder {
 
     abstract Query buildQuery(Session session);
 
+    /**
+     * @return the types of the fields the filter parameters are compared to, read from the mapping of the given session factory
+     */
+    Map<String, Type> getExpectedFilterParameterTypes(final SessionFactory sessionFactory) {
+        if (filterParameterFields.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final Map<String, Type> expectedTypes = new HashMap<>();
+        for (final Map.Entry<String, FilteredField> entry : filterParameterFields.entrySet()) {
+            final Type expectedType = getFieldType(sessionFactory, entry.getValue());
+            if (expectedType != null) {
+                expectedTypes.put(entry.getKey(), expectedType);
+            }
+        }
+        return expectedTypes;
+    }
+
+    private Type getFieldType(final SessionFactory sessionFactory, final FilteredField field) {
+        Class<?> mappedClass = interfaceToClassMapping.get(field.persistentClass.getName());
+        if (mappedClass == null) {
+            mappedClass = field.persistentClass;
+        }
+        final ClassMetadata classMetadata = sessionFactory.getClassMetadata(mappedClass);
+        if (classMetadata == null) {
+            return null;
+        }
+        try {
+            return classMetadata.getPropertyType(field.fieldName);
+        } catch (final HibernateException e) {
+            // not a simple property of the class: the value is bound as is
+            return null;
+        }
+    }
+
+    /**
+     * Bind the values of the filters on the given query.
+     * Values were inlined in the query before they were bound: values that do not have the type of the field they are compared to (e.g. a String
+     * given for a numeric field) are converted to the expected type.
+     */
+    void setFilterParameters(final Query query, final Map<String, Type> expectedTypes) {
+        for (final Map.Entry<String, Object> entry : filterParameters.entrySet()) {
+            final String name = entry.getKey();
+            final Type expectedType = expectedTypes.get(name);
+            if (entry.getValue() instanceof Collection<?>) {
+                final List<Object> values = new ArrayList<>();
+                for (final Object value : (Collection<?>) entry.getValue()) {
+                    values.add(convert(value, expectedType));
+                }
+                final Type type = values.isEmpty() ? null : typeToBind(values.get(0), expectedType);
+                if (type != null) {
+                    query.setParameterList(name, values, type);
+                } else {
+                    query.setParameterList(name, values);
+                }
+            } else {
+                final Object value = convert(entry.getValue(), expectedType);
+                final Type type = typeToBind(value, expectedType);
+                if (type != null) {
+                    query.setParameter(name, value, type);
+                } else {
+                    query.setParameter(name, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the type to use to bind the value when it does not match the expected type, null to let Hibernate determine it
+     */
+    private static Type typeToBind(final Object value, final Type expectedType) {
+        if (value == null || expectedType == null || expectedType.getReturnedClass() == null || expectedType.getReturnedClass().isInstance(value)) {
+            return null;
+        }
+        return TYPE_RESOLVER.basic(value.getClass().getName());
+    }
+
+    static Object convert(final Object value, final Type expectedType) {
+        if (value == null || expectedType == null) {
+            return value;
+        }
+        final Class<?> expectedClass = expectedType.getReturnedClass();
+        if (expectedClass == null || expectedClass.isInstance(value)) {
+            return value;
+        }
+        try {
+            if (String.class.equals(expectedClass)) {
+                return String.valueOf(value);
+            }
+            if (Boolean.class.equals(expectedClass) && value instanceof String) {
+                return Boolean.valueOf((String) value);
+            }
+            if (value instanceof Number) {
+                return convertNumber((Number) value, expectedClass);
+            }
+            if (value instanceof String) {
+                return parseNumber(((String) value).trim(), expectedClass);
+            }
+        } catch (final NumberFormatException e) {
+            // keep the value as is, the database will compare it as it did when it was written in the query
+        }
+        return value;
+    }
+
+    private static Object parseNumber(final String value, final Class<?> expectedClass) {
+        if (Long.class.equals(expectedClass)) {
+            return Long.valueOf(value);
+        }
+        if (Integer.class.equals(expectedClass)) {
+            return Integer.valueOf(value);
+        }
+        if (Short.class.equals(expectedClass)) {
+            return Short.valueOf(value);
+        }
+        if (Double.class.equals(expectedClass)) {
+            return Double.valueOf(value);
+        }
+        if (Float.class.equals(expectedClass)) {
+            return Float.valueOf(value);
+        }
+        return value;
+    }
+
+    private static Object convertNumber(final Number value, final Class<?> expectedClass) {
+        if (Long.class.equals(expectedClass)) {
+            return value.longValue();
+        }
+        if (Integer.class.equals(expectedClass)) {
+            return value.intValue();
+        }
+        if (Short.class.equals(expectedClass)) {
+            return value.shortValue();
+        }
+        if (Double.class.equals(expectedClass)) {
+            return value.doubleValue();
+        }
+        if (Float.class.equals(expectedClass)) {
+            return value.floatValue();
+        }
+        return value;
+    }
+
     public abstract void setTenantId(Query query, long tenantId);
+
+    private static final class FilteredField {
+
+        private final Class<? extends PersistentObject> persistentClass;
+        private final String fieldName;
+
+        private FilteredField(final Class<? extends PersistentObject> persistentClass, final String fieldName) {
+            this.persistentClass = persistentClass;
+            this.fieldName = fieldName;
+        }
+    }
 }
@@ -37,6 +37,8 @@ public class QueryOptions implements Serializable {
 
     private final List<OrderByOption> orderByOptions;
 
+    private final List<Serializable> searchAfterValues;
+
     public static final int UNLIMITED_NUMBER_OF_RESULTS = Integer.MAX_VALUE;
 
     private static final QueryOptions ALL_RESULTS_QUERY_OPTIONS = new QueryOptions(0, UNLIMITED_NUMBER_OF_RESULTS);
@@ -48,6 +50,7 @@ public class QueryOptions implements Serializable {
         orderByOptions = queryOptions.getOrderByOptions();
         filters = queryOptions.getFilters();
         multipleFilter = queryOptions.getMultipleFilter();
+        searchAfterValues = queryOptions.getSearchAfterValues();
     }
 
     /**
@@ -60,6 +63,7 @@ public class QueryOptions implements Serializable {
         orderByOptions = Collections.emptyList();
         filters = Collections.emptyList();
         multipleFilter = null;
+        searchAfterValues = null;
     }
 
     public QueryOptions(final int fromIndex, final int numberOfResults, final List<OrderByOption> orderByOptions) {
@@ -69,6 +73,7 @@ public class QueryOptions implements Serializable {
         this.orderByOptions = orderByOptions;
         filters = Collections.emptyList();
         multipleFilter = null;
+        searchAfterValues = null;
     }
 
     public QueryOptions(final int fromIndex, final int numberOfResults, final List<OrderByOption> orderByOptions, final List<FilterOption> filters,
@@ -79,6 +84,31 @@ public class QueryOptions implements Serializable {
         this.orderByOptions = orderByOptions;
         this.filters = filters;
         this.multipleFilter = multipleFilter;
+        searchAfterValues = null;
+    }
+
+    private QueryOptions(final int numberOfResults, final List<OrderByOption> orderByOptions, final List<FilterOption> filters,
+            final SearchFields multipleFilter, final List<Serializable> searchAfterValues) {
+        super();
+        fromIndex = 0;
+        this.numberOfResults = numberOfResults;
+        this.orderByOptions = orderByOptions;
+        this.filters = filters;
+        this.multipleFilter = multipleFilter;
+        this.searchAfterValues = searchAfterValues;
+    }
+
+    /**
+     * Create query options using keyset pagination: instead of skipping the first results, the query only returns the results that come after the
+     * given values, in the order given by the order by options followed by the id (see {@link KeysetCursor#getKeysetOrder(List, Class)}).
+     *
+     * @param searchAfterValues
+     *        values of the order by fields and of the id of the last result of the previous page, empty to get the first page
+     */
+    public static QueryOptions searchAfter(final int numberOfResults, final List<OrderByOption> orderByOptions, final List<FilterOption> filters,
+            final SearchFields multipleFilter, final List<Serializable> searchAfterValues) {
+        return new QueryOptions(numberOfResults, orderByOptions, filters, multipleFilter,
+                searchAfterValues == null ? Collections.<Serializable> emptyList() : searchAfterValues);
     }
 
     /**
@@ -101,6 +131,7 @@ public class QueryOptions implements Serializable {
         }
         filters = Collections.emptyList();
         multipleFilter = null;
+        searchAfterValues = null;
     }
 
     @Deprecated
@@ -111,6 +142,7 @@ public class QueryOptions implements Serializable {
         this.orderByOptions = orderByOptions;
         filters = Collections.emptyList();
         multipleFilter = null;
+        searchAfterValues = null;
     }
 
     @Deprecated
@@ -122,6 +154,7 @@ public class QueryOptions implements Serializable {
         orderByOptions.add(new OrderByOption(clazz, fieldName, orderByType));
         filters = Collections.emptyList();
         multipleFilter = null;
+        searchAfterValues = null;
     }
 
     public int getFromIndex() {
@@ -144,6 +177,14 @@ public class QueryOptions implements Serializable {
         return orderByOptions;
     }
 
+    public List<Serializable> getSearchAfterValues() {
+        return searchAfterValues;
+    }
+
+    public boolean isKeysetPagination() {
+        return searchAfterValues != null;
+    }
+
     public boolean hasOrderByOptions() {
         return orderByOptions != null && !orderByOptions.isEmpty();
     }
@@ -162,7 +203,8 @@ public class QueryOptions implements Serializable {
 
     @Override
     public String toString() {
-        return "QueryOptions [fromIndex=" + fromIndex + ", numberOfResults=" + numberOfResults + ", orderByOptions=" + orderByOptions + "]";
+        return "QueryOptions [fromIndex=" + fromIndex + ", numberOfResults=" + numberOfResults + ", orderByOptions=" + orderByOptions
+                + (searchAfterValues != null ? ", searchAfterValues=" + searchAfterValues : "") + "]";
     }
 
     public boolean hasAFilter() {
@@ -195,6 +237,9 @@ public class QueryOptions implements Serializable {
         if (orderByOptions != null ? !orderByOptions.equals(that.orderByOptions) : that.orderByOptions != null) {
             return false;
         }
+        if (searchAfterValues != null ? !searchAfterValues.equals(that.searchAfterValues) : that.searchAfterValues != null) {
+            return false;
+        }
 
         return true;
     }
@@ -206,6 +251,7 @@ public class QueryOptions implements Serializable {
         result = 31 * result + (filters != null ? filters.hashCode() : 0);
         result = 31 * result + (multipleFilter != null ? multipleFilter.hashCode() : 0);
         result = 31 * result + (orderByOptions != null ? orderByOptions.hashCode() : 0);
+        result = 31 * result + (searchAfterValues != null ? searchAfterValues.hashCode() : 0);
         return result;
     }
 }
@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.persistence;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.type.Type;
+
+/**
+ * Bounded cache of the search queries built by a {@link QueryBuilder}, keyed by the query itself.
+ * <p>
+ * As filter values are bound as parameters, the query only depends on the named query, the filtered fields, the operators and the order by clause: the
+ * same query is built for every page and every user running the same search. Hibernate keeps the translation of such queries in its own plan cache,
+ * this cache keeps the types of the fields the filter parameters are compared to, so that they are only read once from the mapping, and gives
+ * statistics on how often searches reuse an already translated query.
+ */
+public class SearchQueryCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private final Map<String, Map<String, Type>> expectedParameterTypes;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder translationNanos = new LongAdder();
+
+    SearchQueryCache(final int maxSize) {
+        expectedParameterTypes = new LinkedHashMap<String, Map<String, Type>>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Map<String, Type>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Create the query built by the given builder and bind its filter parameters.
+     */
+    Query createQuery(final QueryBuilder queryBuilder, final Session session) {
+        final String key = queryBuilder.getQuery();
+        Map<String, Type> parameterTypes;
+        synchronized (expectedParameterTypes) {
+            parameterTypes = expectedParameterTypes.get(key);
+        }
+        final Query query;
+        if (parameterTypes != null) {
+            hitCount.increment();
+            query = queryBuilder.buildQuery(session);
+        } else {
+            missCount.increment();
+            final long start = System.nanoTime();
+            query = queryBuilder.buildQuery(session);
+            translationNanos.add(System.nanoTime() - start);
+            parameterTypes = queryBuilder.getExpectedFilterParameterTypes(session.getSessionFactory());
+            synchronized (expectedParameterTypes) {
+                expectedParameterTypes.put(key, parameterTypes);
+            }
+        }
+        queryBuilder.setFilterParameters(query, parameterTypes);
+        return query;
+    }
+
+    public int size() {
+        synchronized (expectedParameterTypes) {
+            return expectedParameterTypes.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * @return the ratio of searches that reused an already built query, between 0 and 1
+     */
+    public double getHitRate() {
+        final long hits = hitCount.sum();
+        final long total = hits + missCount.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * @return the time spent creating queries that were not in the cache, which includes their translation by Hibernate
+     */
+    public long getTranslationTime(final TimeUnit timeUnit) {
+        return timeUnit.convert(translationNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+}
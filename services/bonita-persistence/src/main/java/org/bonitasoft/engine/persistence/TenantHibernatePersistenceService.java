@@ -179,7 +179,7 @@ public class TenantHibernatePersistenceService extends AbstractHibernatePersiste
             if (hasFilters) {
                 queryBuilder.appendFilters(filters, null, enableWordSearch);
             }
-            final Query query = queryBuilder.buildQuery(session);
+            final Query query = getSearchQueryCache().createQuery(queryBuilder, session);
             query.setLong(TENANT_ID, getTenantId());
             query.executeUpdate();
             if (logger.isLoggable(getClass(), TechnicalLogSeverity.DEBUG)) {
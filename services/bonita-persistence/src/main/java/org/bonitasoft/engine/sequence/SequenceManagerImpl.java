@@ -16,6 +16,8 @@ package org.bonitasoft.engine.sequence;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.sql.DataSource;
 
@@ -41,6 +43,12 @@ public class SequenceManagerImpl implements SequenceManager {
 
     private final LockService lockService;
 
+    private final double prefetchThreshold;
+
+    private final int maxRangeSizeFactor;
+
+    private ExecutorService prefetchExecutor;
+
     private final Map<Long, TenantSequenceManagerImpl> sequenceManagers = new HashMap<Long, TenantSequenceManagerImpl>();
 
     private final Object mutex = new SequenceManagerImplMutex();
@@ -48,12 +56,25 @@ public class SequenceManagerImpl implements SequenceManager {
     public SequenceManagerImpl(final LockService lockService,
             final SequenceMappingProvider sequenceMappingProvider,
             final DataSource datasource, final int retries, final int delay, final int delayFactor) {
+        this(lockService, sequenceMappingProvider, datasource, retries, delay, delayFactor, 0.5, 10);
+    }
+
+    /**
+     * @param prefetchThreshold share of a range to consume before fetching the next one in background, 1 to disable prefetching
+     * @param maxRangeSizeFactor maximum size of the ranges of a sequence, as a factor of its configured range size
+     */
+    public SequenceManagerImpl(final LockService lockService,
+            final SequenceMappingProvider sequenceMappingProvider,
+            final DataSource datasource, final int retries, final int delay, final int delayFactor, final double prefetchThreshold,
+            final int maxRangeSizeFactor) {
         this.lockService = lockService;
         this.sequenceMappingProvider = sequenceMappingProvider;
         this.retries = retries;
         this.delay = delay;
         this.delayFactor = delayFactor;
         this.datasource = datasource;
+        this.prefetchThreshold = prefetchThreshold;
+        this.maxRangeSizeFactor = maxRangeSizeFactor;
     }
 
     private static final class SequenceManagerImplMutex {
@@ -73,7 +94,7 @@ public class SequenceManagerImpl implements SequenceManager {
                 mgr = this.sequenceManagers.get(tenantId);
                 if (mgr == null) {
                     mgr = new TenantSequenceManagerImpl(tenantId, lockService, getSequenceIdToRangeSizeMap(), getClassNameToSequenceIdMap(), datasource, retries, delay,
-                            delayFactor);
+                            delayFactor, getPrefetchExecutor(), prefetchThreshold, maxRangeSizeFactor);
                     this.sequenceManagers.put(tenantId, mgr);
                 }
             }
@@ -88,7 +109,38 @@ public class SequenceManagerImpl implements SequenceManager {
 
     @Override
     public void close() {
-        // Do nothing
+        synchronized (mutex) {
+            if (prefetchExecutor != null) {
+                prefetchExecutor.shutdownNow();
+                prefetchExecutor = null;
+            }
+            sequenceManagers.clear();
+        }
+    }
+
+    /**
+     * Must be called while holding the mutex
+     */
+    private ExecutorService getPrefetchExecutor() {
+        if (prefetchThreshold <= 0 || prefetchThreshold >= 1) {
+            return null;
+        }
+        if (prefetchExecutor == null) {
+            prefetchExecutor = Executors.newCachedThreadPool(runnable -> {
+                final Thread thread = new Thread(runnable, "Bonita-Sequence-Prefetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return prefetchExecutor;
+    }
+
+    /**
+     * @return the statistics on the ranges fetched for the given sequence of the given tenant, null if no id was asked yet
+     */
+    public TenantSequenceManagerImpl.SequenceStatistics getStatistics(final long tenantId, final long sequenceId) {
+        final TenantSequenceManagerImpl mgr = sequenceManagers.get(tenantId);
+        return mgr == null ? null : mgr.getStatistics(sequenceId);
     }
 
     @Override
@@ -19,6 +19,10 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
 
@@ -28,6 +32,14 @@ import org.bonitasoft.engine.lock.LockService;
 import org.bonitasoft.engine.lock.SLockException;
 
 /**
+ * Gives ids by ranges reserved in the sequence table.
+ * <p>
+ * When a share of the current range ({@code prefetchThreshold}) is consumed, the next range is fetched by a background
+ * task so that callers do not wait for the database when the current range is exhausted.
+ * The size of the ranges adapts to the allocation rate of each sequence: it grows (up to {@code maxRangeSizeFactor} times
+ * the configured size) when a range is consumed in less than {@link #FAST_RANGE_CONSUMPTION} and shrinks back when it takes
+ * more than {@link #SLOW_RANGE_CONSUMPTION}.
+ *
  * @author Charles Souillard
  * @author Matthieu Chaffotte
  * @author Baptiste Mesta
@@ -42,18 +54,16 @@ public class TenantSequenceManagerImpl {
 
     static final String UPDATE_SEQUENCE = "UPDATE sequence SET nextId = ? WHERE tenantid = ? AND id = ?";
 
-    private final Long tenantId;
+    static final long FAST_RANGE_CONSUMPTION = TimeUnit.SECONDS.toNanos(1);
 
-    private final Map<Long, Integer> sequenceIdToRangeSize;
+    static final long SLOW_RANGE_CONSUMPTION = TimeUnit.SECONDS.toNanos(60);
 
-    // Map of available IDs: key=sequenceId, value = nextAvailableId to be assigned to a new entity of the given sequence
-    private final Map<Long, Long> nextAvailableIds = new HashMap<Long, Long>();
+    private final Long tenantId;
 
-    // Map of lastId that can be consumed for a given sequence
-    private final Map<Long, Long> lastIdInRanges = new HashMap<Long, Long>();
+    private final Map<Long, Integer> sequenceIdToRangeSize;
 
-    // Map of sequenceId, mutex
-    private static final Map<Long, Object> SEQUENCE_MUTEXS = new HashMap<Long, Object>();
+    // Map of sequenceId, state of the ranges of this sequence
+    private final Map<Long, SequenceState> sequenceStates = new HashMap<>();
 
     private final Map<String, Long> classNameToSequenceId;
 
@@ -67,9 +77,27 @@ public class TenantSequenceManagerImpl {
 
     private final LockService lockService;
 
+    private final ExecutorService prefetchExecutor;
+
+    private final double prefetchThreshold;
+
+    private final int maxRangeSizeFactor;
+
     public TenantSequenceManagerImpl(final long tenantId, final LockService lockService, final Map<Long, Integer> sequenceIdToRangeSize,
             final Map<String, Long> classNameToSequenceId,
             final DataSource datasource, final int retries, final int delay, final int delayFactor) {
+        this(tenantId, lockService, sequenceIdToRangeSize, classNameToSequenceId, datasource, retries, delay, delayFactor, null, 1, 1);
+    }
+
+    /**
+     * @param prefetchExecutor executor used to fetch the next ranges in background, null to fetch them when needed
+     * @param prefetchThreshold share of the current range to consume before fetching the next one, 1 to disable prefetching
+     * @param maxRangeSizeFactor maximum size of a range, as a factor of its configured size, 1 to disable adaptive sizing
+     */
+    public TenantSequenceManagerImpl(final long tenantId, final LockService lockService, final Map<Long, Integer> sequenceIdToRangeSize,
+            final Map<String, Long> classNameToSequenceId,
+            final DataSource datasource, final int retries, final int delay, final int delayFactor, final ExecutorService prefetchExecutor,
+            final double prefetchThreshold, final int maxRangeSizeFactor) {
         this.tenantId = tenantId;
         this.lockService = lockService;
         this.sequenceIdToRangeSize = sequenceIdToRangeSize;
@@ -78,39 +106,81 @@ public class TenantSequenceManagerImpl {
         this.delay = delay;
         this.delayFactor = delayFactor;
         this.datasource = datasource;
+        this.prefetchExecutor = prefetchExecutor;
+        this.prefetchThreshold = prefetchThreshold;
+        this.maxRangeSizeFactor = Math.max(1, maxRangeSizeFactor);
 
         for (final Long sequenceId : classNameToSequenceId.values()) {
-            SEQUENCE_MUTEXS.put(sequenceId, new TenantSequenceManagerImplMutex());
-            nextAvailableIds.put(sequenceId, 0L);
-            lastIdInRanges.put(sequenceId, -1L);
+            sequenceStates.put(sequenceId, new SequenceState(sequenceIdToRangeSize.get(sequenceId)));
         }
     }
 
-    private static final class TenantSequenceManagerImplMutex {
-
-    }
-
     public long getNextId(final String entityName) throws SObjectNotFoundException {
         final Long sequenceId = classNameToSequenceId.get(entityName);
         if (sequenceId == null) {
             throw new SObjectNotFoundException("No sequence id found for " + entityName);
         }
-        final Object sequenceMutex = SEQUENCE_MUTEXS.get(sequenceId);
-        synchronized (sequenceMutex) {
-            Long nextAvailableId = nextAvailableIds.get(sequenceId);
-            final Long lastIdInRange = lastIdInRanges.get(sequenceId);
-            if (nextAvailableId > lastIdInRange) {
-                // No available IF in the range this sequence can consume, we need to get a new range and calculate a new nextAvailableId
-                setNewRange(sequenceId);
-                nextAvailableId = nextAvailableIds.get(sequenceId);
+        final SequenceState state = sequenceStates.get(sequenceId);
+        synchronized (state) {
+            if (state.nextAvailableId > state.lastIdInRange) {
+                // No available ID in the range this sequence can consume, we need to get a new range
+                state.setRange(getNewRange(sequenceId, state));
+            }
+            final long nextAvailableId = state.nextAvailableId++;
+            if (mustPrefetch(state)) {
+                adaptRangeSize(sequenceId, state);
+                final int rangeSize = state.rangeSize;
+                state.prefetchedRange = prefetchExecutor.submit(() -> fetchRange(sequenceId, rangeSize, state.statistics));
             }
-            nextAvailableIds.put(sequenceId, nextAvailableId + 1);
-
             return nextAvailableId;
         }
     }
 
-    private void setNewRange(final long sequenceId) throws SObjectNotFoundException {
+    private boolean mustPrefetch(final SequenceState state) {
+        return prefetchExecutor != null && prefetchThreshold < 1 && state.prefetchedRange == null
+                && state.nextAvailableId - state.firstIdInRange >= (state.lastIdInRange - state.firstIdInRange + 1) * prefetchThreshold;
+    }
+
+    private void adaptRangeSize(final long sequenceId, final SequenceState state) {
+        final long consumptionTime = System.nanoTime() - state.rangeObtainedAt;
+        final int configuredRangeSize = sequenceIdToRangeSize.get(sequenceId);
+        if (consumptionTime < FAST_RANGE_CONSUMPTION) {
+            state.rangeSize = (int) Math.min((long) state.rangeSize * 2, (long) configuredRangeSize * maxRangeSizeFactor);
+        } else if (consumptionTime > SLOW_RANGE_CONSUMPTION) {
+            state.rangeSize = Math.max(state.rangeSize / 2, configuredRangeSize);
+        }
+    }
+
+    private long[] getNewRange(final long sequenceId, final SequenceState state) throws SObjectNotFoundException {
+        final Future<long[]> prefetchedRange = state.prefetchedRange;
+        state.prefetchedRange = null;
+        if (prefetchedRange != null) {
+            if (!prefetchedRange.isDone()) {
+                state.statistics.blockedRefills++;
+            }
+            try {
+                return prefetchedRange.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SObjectNotFoundException("Interrupted while waiting for a new range of sequence " + sequenceId, e);
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof SObjectNotFoundException) {
+                    throw (SObjectNotFoundException) e.getCause();
+                }
+                throw new SObjectNotFoundException("Unable to get a sequence id for " + sequenceId, e.getCause());
+            }
+        }
+        state.statistics.blockedRefills++;
+        return fetchRange(sequenceId, state.rangeSize, state.statistics);
+    }
+
+    /**
+     * Reserve a new range in the sequence table
+     *
+     * @return the first and the last ids of the reserved range
+     */
+    private long[] fetchRange(final long sequenceId, final int rangeSize, final SequenceStatistics statistics) throws SObjectNotFoundException {
+        final long start = System.nanoTime();
         BonitaLock lock;
         try {
             lock = lockService.lock(sequenceId, SEQUENCE, tenantId);
@@ -130,14 +200,13 @@ public class TenantSequenceManagerImpl {
 
                         // we have reach the maximum in this range
                         final long nextAvailableId = selectById(connection, sequenceId, tenantId);
-                        nextAvailableIds.put(sequenceId, nextAvailableId);
 
-                        final long nextSequenceId = nextAvailableId + sequenceIdToRangeSize.get(sequenceId);
+                        final long nextSequenceId = nextAvailableId + rangeSize;
                         updateSequence(connection, nextSequenceId, tenantId, sequenceId);
-                        lastIdInRanges.put(sequenceId, nextSequenceId - 1);
 
                         connection.commit();
-                        return;
+                        statistics.recordFetch(System.nanoTime() - start);
+                        return new long[] { nextAvailableId, nextSequenceId - 1 };
                     } catch (final SObjectNotFoundException t) {
                         // Not found needs no retry.
                         attempt = retries + 1; // To exit the loop
@@ -179,6 +248,19 @@ public class TenantSequenceManagerImpl {
                 "Unable to get a sequence id for " + sequenceId);
     }
 
+    /**
+     * @return the statistics on the ranges fetched for the given sequence
+     */
+    public SequenceStatistics getStatistics(final long sequenceId) {
+        final SequenceState state = sequenceStates.get(sequenceId);
+        if (state == null) {
+            return null;
+        }
+        synchronized (state) {
+            return state.statistics.copy(state.rangeSize);
+        }
+    }
+
     protected void updateSequence(final Connection connection, final long nextSequenceId, final long tenantId, final long id)
             throws SQLException {
         PreparedStatement updateSequencePreparedStatement = connection.prepareStatement(UPDATE_SEQUENCE);
@@ -255,4 +337,95 @@ public class TenantSequenceManagerImpl {
         }
     }
 
+    private static final class SequenceState {
+
+        private long firstIdInRange = 0;
+
+        // next available id to be assigned to a new entity of the sequence
+        private long nextAvailableId = 0;
+
+        // last id that can be consumed in the current range
+        private long lastIdInRange = -1;
+
+        private long rangeObtainedAt = System.nanoTime();
+
+        private int rangeSize;
+
+        private Future<long[]> prefetchedRange;
+
+        private final SequenceStatistics statistics = new SequenceStatistics();
+
+        private SequenceState(final int rangeSize) {
+            this.rangeSize = rangeSize;
+        }
+
+        private void setRange(final long[] range) {
+            firstIdInRange = range[0];
+            nextAvailableId = range[0];
+            lastIdInRange = range[1];
+            rangeObtainedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Statistics on the ranges fetched for a sequence
+     */
+    public static final class SequenceStatistics {
+
+        private long fetchCount;
+
+        private long totalFetchNanos;
+
+        private long maxFetchNanos;
+
+        private long blockedRefills;
+
+        private int rangeSize;
+
+        private synchronized void recordFetch(final long fetchNanos) {
+            fetchCount++;
+            totalFetchNanos += fetchNanos;
+            maxFetchNanos = Math.max(maxFetchNanos, fetchNanos);
+        }
+
+        private synchronized SequenceStatistics copy(final int currentRangeSize) {
+            final SequenceStatistics copy = new SequenceStatistics();
+            copy.fetchCount = fetchCount;
+            copy.totalFetchNanos = totalFetchNanos;
+            copy.maxFetchNanos = maxFetchNanos;
+            copy.blockedRefills = blockedRefills;
+            copy.rangeSize = currentRangeSize;
+            return copy;
+        }
+
+        /**
+         * @return the number of ranges fetched from the database
+         */
+        public long getFetchCount() {
+            return fetchCount;
+        }
+
+        public long getTotalFetchTime(final TimeUnit timeUnit) {
+            return timeUnit.convert(totalFetchNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public long getMaxFetchTime(final TimeUnit timeUnit) {
+            return timeUnit.convert(maxFetchNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * @return the number of times a caller had to wait for a range to be fetched
+         */
+        public long getBlockedRefills() {
+            return blockedRefills;
+        }
+
+        /**
+         * @return the size of the next range that will be fetched
+         */
+        public int getRangeSize() {
+            return rangeSize;
+        }
+    }
+
 }
@@ -16,6 +16,7 @@ package org.bonitasoft.engine.persistence;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -26,6 +27,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.persistence.search.FilterOperationType;
 import org.bonitasoft.engine.services.SPersistenceException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
@@ -66,8 +68,73 @@ public class HibernatePersistenceIT {
         executeSearch(enableWordSearch, expectedResults);
     }
 
+    @Test
+    public void should_reuse_query_when_searching_with_different_filter_values() throws Exception {
+        final PlatformHibernatePersistenceService persistenceService = createPersistenceServiceWithBooks(false);
+
+        final Session session = persistenceService.getSession(true);
+        session.beginTransaction();
+        try {
+            // id given as a String, as it was possible when values were written in the query
+            assertThat(searchBooks(persistenceService, new FilterOption(Book.class, "id", "2"))).extracting("author").containsOnly("Nicolas");
+            assertThat(searchBooks(persistenceService, new FilterOption(Book.class, "id", 1L))).extracting("author").containsOnly("Laurent");
+            assertThat(searchBooks(persistenceService, new FilterOption(Book.class, "title", "'lieues%", FilterOperationType.LIKE))).isEmpty();
+        } finally {
+            session.getTransaction().commit();
+        }
+
+        assertThat(persistenceService.getSearchQueryCache().getMissCount()).isEqualTo(2);
+        assertThat(persistenceService.getSearchQueryCache().getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_go_through_all_results_using_keyset_pagination() throws Exception {
+        final PlatformHibernatePersistenceService persistenceService = createPersistenceServiceWithBooks(false);
+        final List<OrderByOption> orderByAuthorDesc = Collections.singletonList(new OrderByOption(Book.class, "author", OrderByType.DESC));
+
+        final Session session = persistenceService.getSession(true);
+        session.beginTransaction();
+        try {
+            final List<Book> firstPage = persistenceService.selectList(new SelectListDescriptor<Book>("getAllBooks", null, Book.class,
+                    QueryOptions.searchAfter(1, orderByAuthorDesc, Collections.<FilterOption> emptyList(), null, null)));
+            assertThat(firstPage).extracting("author").containsExactly("Nicolas");
+
+            final List<Serializable> cursor = KeysetCursor.valuesOf(firstPage.get(0), KeysetCursor.getKeysetOrder(orderByAuthorDesc, null));
+            final List<Book> secondPage = persistenceService.selectList(new SelectListDescriptor<Book>("getAllBooks", null, Book.class,
+                    QueryOptions.searchAfter(1, orderByAuthorDesc, Collections.<FilterOption> emptyList(), null, cursor)));
+            assertThat(secondPage).extracting("author").containsExactly("Laurent");
+
+            final List<Serializable> lastCursor = KeysetCursor.valuesOf(secondPage.get(0), KeysetCursor.getKeysetOrder(orderByAuthorDesc, null));
+            assertThat(persistenceService.selectList(new SelectListDescriptor<Book>("getAllBooks", null, Book.class,
+                    QueryOptions.searchAfter(1, orderByAuthorDesc, Collections.<FilterOption> emptyList(), null, lastCursor)))).isEmpty();
+        } finally {
+            session.getTransaction().commit();
+        }
+    }
+
+    private List<Book> searchBooks(final PlatformHibernatePersistenceService persistenceService, final FilterOption filter) throws SBonitaReadException {
+        final QueryOptions queryOptions = new QueryOptions(0, 10, Collections.<OrderByOption> emptyList(), Collections.singletonList(filter), null);
+        return persistenceService.selectList(new SelectListDescriptor<Book>("getAllBooks", null, Book.class, queryOptions));
+    }
+
     protected void executeSearch(final boolean enableWordSearch, final int expectedResults) throws ClassNotFoundException, SPersistenceException,
             SBonitaReadException {
+        final PlatformHibernatePersistenceService persistenceService = createPersistenceServiceWithBooks(enableWordSearch);
+
+        final QueryOptions queryOptions = buildQueryOptions("lieues", "ipsum");
+
+        final Session session = persistenceService.getSession(true);
+        session.beginTransaction();
+        try {
+            final List<Book> allBooks = persistenceService.selectList(new SelectListDescriptor<Book>("getAllBooks", null, Book.class, queryOptions));
+            assertThat(allBooks).hasSize(expectedResults);
+        } finally {
+            session.getTransaction().commit();
+        }
+    }
+
+    private PlatformHibernatePersistenceService createPersistenceServiceWithBooks(final boolean enableWordSearch)
+            throws ClassNotFoundException, SPersistenceException {
         // Setup Hibernate and extract SessionFactory
         final Configuration configuration = new Configuration().configure();
         final ServiceRegistry serviceRegistry = new ServiceRegistryBuilder().applySettings(configuration.getProperties()).buildServiceRegistry();
@@ -100,17 +167,7 @@ public class HibernatePersistenceIT {
         } finally {
             session.getTransaction().commit();
         }
-
-        final QueryOptions queryOptions = buildQueryOptions("lieues", "ipsum");
-
-        session = persistenceService.getSession(true);
-        session.beginTransaction();
-        try {
-            final List<Book> allBooks = persistenceService.selectList(new SelectListDescriptor<Book>("getAllBooks", null, Book.class, queryOptions));
-            assertThat(allBooks).hasSize(expectedResults);
-        } finally {
-            session.getTransaction().commit();
-        }
+        return persistenceService;
     }
 
 }
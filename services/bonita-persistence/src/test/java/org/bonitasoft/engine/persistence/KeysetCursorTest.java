@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class KeysetCursorTest {
+
+    @Test
+    public void should_decode_encoded_values() throws Exception {
+        final List<Serializable> values = Arrays.asList("a:b, 'c'", 12L, 3, (short) 4, 1.5d, 2.5f, true, null, "");
+
+        final String cursor = KeysetCursor.encode(values);
+
+        assertThat(cursor).matches("[A-Za-z0-9_-]+");
+        assertThat(KeysetCursor.decode(cursor)).containsExactlyElementsOf(values);
+    }
+
+    @Test(expected = SBonitaReadException.class)
+    public void should_not_decode_invalid_cursor() throws Exception {
+        KeysetCursor.decode("not a cursor");
+    }
+
+    @Test(expected = SBonitaReadException.class)
+    public void should_not_decode_truncated_cursor() throws Exception {
+        final String cursor = KeysetCursor.encode(Arrays.<Serializable> asList("some value", 12L));
+
+        KeysetCursor.decode(cursor.substring(0, cursor.length() - 4));
+    }
+
+    @Test(expected = SBonitaReadException.class)
+    public void should_not_encode_unsupported_value() throws Exception {
+        KeysetCursor.encode(Collections.<Serializable> singletonList(new java.util.Date()));
+    }
+
+    @Test
+    public void should_add_id_to_keyset_order() {
+        final OrderByOption byName = new OrderByOption(TestObject.class, "name", OrderByType.DESC);
+
+        assertThat(KeysetCursor.getKeysetOrder(Collections.singletonList(byName), TestObject.class))
+                .containsExactly(byName, new OrderByOption(TestObject.class, "id", OrderByType.ASC));
+    }
+
+    @Test
+    public void should_not_add_id_to_keyset_order_already_sorted_by_id() {
+        final List<OrderByOption> order = Arrays.asList(new OrderByOption(TestObject.class, "name", OrderByType.ASC),
+                new OrderByOption(TestObject.class, "id", OrderByType.DESC));
+
+        assertThat(KeysetCursor.getKeysetOrder(order, TestObject.class)).containsExactlyElementsOf(order);
+    }
+
+    @Test
+    public void should_read_values_of_keyset_order() throws Exception {
+        final Book book = new Book();
+        book.setId(42L);
+        book.setTitle("Vingt mille lieues");
+
+        final List<Serializable> values = KeysetCursor.valuesOf(book,
+                KeysetCursor.getKeysetOrder(Collections.singletonList(new OrderByOption(Book.class, "title", OrderByType.ASC)), null));
+
+        assertThat(values).containsExactly("Vingt mille lieues", 42L);
+    }
+
+    @Test(expected = SBonitaReadException.class)
+    public void should_not_read_values_of_field_from_another_entity() throws Exception {
+        KeysetCursor.valuesOf(new Book(), Collections.singletonList(new OrderByOption(TestObject.class, "name", OrderByType.ASC)));
+    }
+
+}
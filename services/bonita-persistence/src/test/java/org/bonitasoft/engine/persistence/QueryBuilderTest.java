@@ -16,15 +16,22 @@ package org.bonitasoft.engine.persistence;
 
 import static java.util.Collections.singletonMap;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 
+import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
 import org.bonitasoft.engine.commons.EnumToObjectConvertible;
 import org.bonitasoft.engine.persistence.search.FilterOperationType;
+import org.hibernate.type.BooleanType;
+import org.hibernate.type.IntegerType;
+import org.hibernate.type.LongType;
+import org.hibernate.type.StringType;
 import org.junit.Test;
 
 /**
@@ -92,7 +99,8 @@ public class QueryBuilderTest {
         //when
         queryBuilder.appendFilters(Collections.singletonList(new FilterOption(TestObject.class, "theValue", 12)), null, false);
         //then
-        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.theValue = 12)");
+        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.theValue = :filterParam0)");
+        assertThat(queryBuilder.getFilterParameters()).containsOnly(entry("filterParam0", 12));
     }
 
     @Test
@@ -103,7 +111,8 @@ public class QueryBuilderTest {
         queryBuilder.appendFilters(Arrays.asList(new FilterOption(TestObject.class, "age", 25), new FilterOption(TestObject.class, "lastname", "John")), null,
                 false);
         //then
-        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.age = 25 AND testObj.lastname = 'John')");
+        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.age = :filterParam0 AND testObj.lastname = :filterParam1)");
+        assertThat(queryBuilder.getFilterParameters()).containsExactly(entry("filterParam0", 25), entry("filterParam1", "John"));
     }
 
     @Test
@@ -113,7 +122,7 @@ public class QueryBuilderTest {
         //when
         queryBuilder.appendFilters(Collections.singletonList(new FilterOption(TestObject.class, "theValue", 12)), null, false);
         //then
-        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE testObj.enabled = true AND (testObj.theValue = 12)");
+        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE testObj.enabled = true AND (testObj.theValue = :filterParam0)");
     }
 
     @Test
@@ -125,7 +134,7 @@ public class QueryBuilderTest {
         queryBuilder.appendOrderByClause(Collections.singletonList(new OrderByOption(TestObject.class, "theValue", OrderByType.ASC)), TestObject.class);
         //then
         assertThat(queryBuilder.getQuery()).isEqualTo(
-                "SELECT testObj.* FROM test_object testObj WHERE testObj.enabled = true AND (testObj.theValue = 12) ORDER BY testObj.theValue ASC,testObj.id ASC");
+                "SELECT testObj.* FROM test_object testObj WHERE testObj.enabled = true AND (testObj.theValue = :filterParam0) ORDER BY testObj.theValue ASC,testObj.id ASC");
     }
 
     @Test
@@ -137,7 +146,8 @@ public class QueryBuilderTest {
                 Collections.<Class<? extends PersistentObject>, Set<String>> singletonMap(TestObject.class, aSet("field1", "field2"))), false);
         //then
         assertThat(queryBuilder.getQuery()).matches(
-                "SELECT testObj\\.\\* FROM test_object testObj WHERE \\(testObj.field(1|2) LIKE 'toto%' ESCAPE '§' OR testObj.field(1|2) LIKE 'toto%' ESCAPE '§'\\)");
+                "SELECT testObj\\.\\* FROM test_object testObj WHERE \\(testObj.field(1|2) LIKE :filterParam0 ESCAPE '§' OR testObj.field(1|2) LIKE :filterParam0 ESCAPE '§'\\)");
+        assertThat(queryBuilder.getFilterParameters()).containsOnly(entry("filterParam0", "toto%"));
     }
 
     @Test
@@ -149,10 +159,11 @@ public class QueryBuilderTest {
                 Collections.<Class<? extends PersistentObject>, Set<String>> singletonMap(TestObject.class, aSet("field1", "field2"))), false);
         //then
         assertThat(queryBuilder.getQuery()).matches(
-                "SELECT testObj\\.\\* FROM test_object testObj WHERE \\(testObj.field(1|2) LIKE 'toto%' ESCAPE '§' " +
-                        "OR testObj.field(1|2) LIKE 'tata%' ESCAPE '§' " +
-                        "OR testObj.field(1|2) LIKE 'toto%' ESCAPE '§' " +
-                        "OR testObj.field(1|2) LIKE 'tata%' ESCAPE '§'\\)");
+                "SELECT testObj\\.\\* FROM test_object testObj WHERE \\(testObj.field(1|2) LIKE :filterParam0 ESCAPE '§' " +
+                        "OR testObj.field(1|2) LIKE :filterParam1 ESCAPE '§' " +
+                        "OR testObj.field(1|2) LIKE :filterParam0 ESCAPE '§' " +
+                        "OR testObj.field(1|2) LIKE :filterParam1 ESCAPE '§'\\)");
+        assertThat(queryBuilder.getFilterParameters()).containsExactly(entry("filterParam0", "toto%"), entry("filterParam1", "tata%"));
     }
 
     @Test
@@ -164,10 +175,11 @@ public class QueryBuilderTest {
                 Collections.<Class<? extends PersistentObject>, Set<String>> singletonMap(TestObject.class, aSet("field1", "field2"))), true);
         //then
         assertThat(queryBuilder.getQuery()).matches(
-                "SELECT testObj\\.\\* FROM test_object testObj WHERE \\(testObj.field(1|2) LIKE 'toto%' ESCAPE '§' " +
-                        "OR testObj.field(1|2) LIKE '% toto%' ESCAPE '§' " +
-                        "OR testObj.field(1|2) LIKE 'toto%' ESCAPE '§' " +
-                        "OR testObj.field(1|2) LIKE '% toto%' ESCAPE '§'\\)");
+                "SELECT testObj\\.\\* FROM test_object testObj WHERE \\(testObj.field(1|2) LIKE :filterParam0 ESCAPE '§' " +
+                        "OR testObj.field(1|2) LIKE :filterParam1 ESCAPE '§' " +
+                        "OR testObj.field(1|2) LIKE :filterParam0 ESCAPE '§' " +
+                        "OR testObj.field(1|2) LIKE :filterParam1 ESCAPE '§'\\)");
+        assertThat(queryBuilder.getFilterParameters()).containsExactly(entry("filterParam0", "toto%"), entry("filterParam1", "% toto%"));
     }
 
     private Set<String> aSet(String... fields) {
@@ -185,7 +197,8 @@ public class QueryBuilderTest {
                 false);
         //then
         assertThat(queryBuilder.getQuery()).isEqualTo(
-                "SELECT testObj.* FROM test_object testObj WHERE (testObj.field1 = 'tata') AND (testObj.field2 LIKE 'toto%' ESCAPE '§')");
+                "SELECT testObj.* FROM test_object testObj WHERE (testObj.field1 = :filterParam0) AND (testObj.field2 LIKE :filterParam1 ESCAPE '§')");
+        assertThat(queryBuilder.getFilterParameters()).containsExactly(entry("filterParam0", "tata"), entry("filterParam1", "toto%"));
     }
 
     @Test
@@ -195,7 +208,8 @@ public class QueryBuilderTest {
         //when
         queryBuilder.appendFilters(Collections.singletonList(new FilterOption(TestObject.class, "theValue", "the'value%with_special:_§§")), null, false);
         //then
-        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.theValue = 'the''value%with_special:_§§')");
+        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.theValue = :filterParam0)");
+        assertThat(queryBuilder.getFilterParameters()).containsOnly(entry("filterParam0", "the'value%with_special:_§§"));
     }
 
     @Test
@@ -207,7 +221,8 @@ public class QueryBuilderTest {
                 Collections.singletonMap(TestObject.class, aSet("field1"))), false);
         //then
         assertThat(queryBuilder.getQuery())
-                .isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.field1 LIKE 'the''value§%with§_special:§_§§§§%' ESCAPE '§')");
+                .isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.field1 LIKE :filterParam0 ESCAPE '§')");
+        assertThat(queryBuilder.getFilterParameters()).containsOnly(entry("filterParam0", "the'value§%with§_special:§_§§§§%"));
     }
 
     @Test
@@ -218,7 +233,7 @@ public class QueryBuilderTest {
         queryBuilder.appendFilters(Collections.singletonList(new FilterOption(TestObject.class, "age", 25, FilterOperationType.GREATER_OR_EQUALS)), null,
                 false);
         //then
-        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.age >= 25)");
+        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.age >= :filterParam0)");
     }
 
     @Test
@@ -229,7 +244,7 @@ public class QueryBuilderTest {
         queryBuilder.appendFilters(Collections.singletonList(new FilterOption(TestObject.class, "age", 25, FilterOperationType.GREATER)), null,
                 false);
         //then
-        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.age > 25)");
+        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.age > :filterParam0)");
     }
 
     @Test
@@ -240,21 +255,22 @@ public class QueryBuilderTest {
         queryBuilder.appendFilters(Collections.singletonList(new FilterOption(TestObject.class, "age", 25, FilterOperationType.LESS)), null,
                 false);
         //then
-        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.age < 25)");
+        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.age < :filterParam0)");
     }
 
     @Test
-    public void should_escapeString_escape_quote() {
-        final String s = createBaseQueryBuilder().escapeString("toto'toto");
-
-        assertThat(s).isEqualTo("toto''toto");
+    public void should_convert_value_to_the_type_of_the_field() {
+        assertThat(QueryBuilder.convert("12", LongType.INSTANCE)).isEqualTo(12L);
+        assertThat(QueryBuilder.convert(12, LongType.INSTANCE)).isEqualTo(12L);
+        assertThat(QueryBuilder.convert(12L, IntegerType.INSTANCE)).isEqualTo(12);
+        assertThat(QueryBuilder.convert("true", BooleanType.INSTANCE)).isEqualTo(true);
+        assertThat(QueryBuilder.convert(12L, StringType.INSTANCE)).isEqualTo("12");
     }
 
     @Test
-    public void should_escapeString_do_not_escape_like_wildcard() {
-        final String s = createBaseQueryBuilder().escapeString("%to'to%t_oto%");
-
-        assertThat(s).isEqualTo("%to''to%t_oto%");
+    public void should_not_convert_value_that_can_not_be_converted() {
+        assertThat(QueryBuilder.convert("abc", LongType.INSTANCE)).isEqualTo("abc");
+        assertThat(QueryBuilder.convert("abc", null)).isEqualTo("abc");
     }
 
     private QueryBuilder createBaseQueryBuilder() {
@@ -264,19 +280,23 @@ public class QueryBuilderTest {
     @Test
     public void should_getQueryFilters_append_OR_clause_when_wordSearch_is_enabled() {
         final StringBuilder queryBuilder = new StringBuilder();
-        createBaseQueryBuilder().buildLikeClauseForOneFieldOneTerm(queryBuilder, "myField", "foo", true);
+        final QueryBuilder baseQueryBuilder = createBaseQueryBuilder();
+        baseQueryBuilder.buildLikeClauseForOneFieldOneTerm(queryBuilder, "myField", "foo", true);
 
         assertThat(queryBuilder.toString())
                 .as("query should contains like to check if the field start with foo and if the field contains a word starting by foo")
-                .contains("LIKE 'foo%'").contains("LIKE '% foo%'");
+                .contains("LIKE :filterParam0").contains("LIKE :filterParam1");
+        assertThat(baseQueryBuilder.getFilterParameters()).containsExactly(entry("filterParam0", "foo%"), entry("filterParam1", "% foo%"));
     }
 
     @Test
     public void should_getQueryFilters_append_OR_clause_when_wordSearch_is_not_enabled() {
         final StringBuilder queryBuilder = new StringBuilder();
-        createBaseQueryBuilder().buildLikeClauseForOneFieldOneTerm(queryBuilder, "myField", "foo", false);
+        final QueryBuilder baseQueryBuilder = createBaseQueryBuilder();
+        baseQueryBuilder.buildLikeClauseForOneFieldOneTerm(queryBuilder, "myField", "foo", false);
 
-        assertThat(queryBuilder.toString()).contains("LIKE 'foo%'").doesNotContain("LIKE '% foo%'");
+        assertThat(queryBuilder.toString()).contains("LIKE :filterParam0").doesNotContain("LIKE :filterParam1");
+        assertThat(baseQueryBuilder.getFilterParameters()).containsOnly(entry("filterParam0", "foo%"));
     }
 
     @Test
@@ -287,7 +307,7 @@ public class QueryBuilderTest {
         queryBuilder.appendFilters(Collections.singletonList(new FilterOption(TestObject.class, "age", 25, FilterOperationType.LESS_OR_EQUALS)), null,
                 false);
         //then
-        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.age <= 25)");
+        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.age <= :filterParam0)");
     }
 
     @Test
@@ -298,7 +318,7 @@ public class QueryBuilderTest {
         queryBuilder.appendFilters(Collections.singletonList(new FilterOption(TestObject.class, "age", 25, FilterOperationType.DIFFERENT)), null,
                 false);
         //then
-        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.age != 25)");
+        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.age != :filterParam0)");
     }
 
     @Test
@@ -309,7 +329,8 @@ public class QueryBuilderTest {
         queryBuilder.appendFilters(Collections.singletonList(new FilterOption(TestObject.class, "age", 25, 27)), null,
                 false);
         //then
-        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE ((25 <= testObj.age AND testObj.age <= 27))");
+        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE ((:filterParam0 <= testObj.age AND testObj.age <= :filterParam1))");
+        assertThat(queryBuilder.getFilterParameters()).containsExactly(entry("filterParam0", 25), entry("filterParam1", 27));
     }
 
     @Test
@@ -324,7 +345,8 @@ public class QueryBuilderTest {
                 false);
         //then
         assertThat(queryBuilder.getQuery())
-                .isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.age in (25,26,27))");
+                .isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.age in (:filterParam0))");
+        assertThat(queryBuilder.getFilterParameters()).containsOnly(entry("filterParam0", Arrays.asList(25, 26, 27)));
     }
 
     @Test
@@ -342,7 +364,7 @@ public class QueryBuilderTest {
                 false);
         //then
         assertThat(queryBuilder.getQuery())
-                .isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.age = 12 AND  (testObj.lastname = 'john' OR testObj.lastname = 'jack' ))");
+                .isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.age = :filterParam0 AND  (testObj.lastname = :filterParam1 OR testObj.lastname = :filterParam2 ))");
     }
 
     @Test
@@ -353,7 +375,8 @@ public class QueryBuilderTest {
         queryBuilder.appendFilters(Collections.singletonList(new FilterOption(TestObject.class, "lastname", "jack", FilterOperationType.LIKE)), null,
                 false);
         //then
-        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.lastname LIKE '%jack%')");
+        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.lastname LIKE :filterParam0)");
+        assertThat(queryBuilder.getFilterParameters()).containsOnly(entry("filterParam0", "%jack%"));
     }
 
     @Test
@@ -365,6 +388,7 @@ public class QueryBuilderTest {
                 false);
         //then
         assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.lastname IS NULL)");
+        assertThat(queryBuilder.getFilterParameters()).isEmpty();
     }
 
     @Test
@@ -375,7 +399,43 @@ public class QueryBuilderTest {
         queryBuilder.appendFilters(Collections.singletonList(new FilterOption(TestObject.class, "lastname", TEST_ENUM.TEST1, FilterOperationType.EQUALS)), null,
                 false);
         //then
-        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.lastname = 0)");
+        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.lastname = :filterParam0)");
+        assertThat(queryBuilder.getFilterParameters()).containsOnly(entry("filterParam0", 0));
+    }
+
+    @Test
+    public void should_generate_query_selecting_results_after_keyset_values() throws Exception {
+        //given
+        QueryBuilder queryBuilder = createQueryBuilder("SELECT testObj.* FROM test_object testObj");
+        List<OrderByOption> keysetOrder = KeysetCursor.getKeysetOrder(Arrays.asList(new OrderByOption(TestObject.class, "lastname", OrderByType.ASC),
+                new OrderByOption(TestObject.class, "age", OrderByType.DESC)), TestObject.class);
+        //when
+        queryBuilder.appendFilters(Collections.singletonList(new FilterOption(TestObject.class, "enabled", true)), null, false);
+        queryBuilder.appendKeysetClause(keysetOrder, Arrays.<Serializable> asList("jack", 25, 12L), TestObject.class);
+        queryBuilder.appendOrderByClause(keysetOrder, TestObject.class);
+        //then
+        assertThat(queryBuilder.getQuery()).isEqualTo("SELECT testObj.* FROM test_object testObj WHERE (testObj.enabled = :filterParam0)"
+                + " AND ((testObj.lastname > :filterParam1 OR (testObj.lastname = :filterParam1 AND (testObj.age < :filterParam2"
+                + " OR (testObj.age = :filterParam2 AND testObj.id > :filterParam3)))))"
+                + " ORDER BY testObj.lastname ASC,testObj.age DESC,testObj.id ASC");
+        assertThat(queryBuilder.getFilterParameters()).containsExactly(entry("filterParam0", true), entry("filterParam1", "jack"),
+                entry("filterParam2", 25), entry("filterParam3", 12L));
+    }
+
+    @Test
+    public void should_not_add_keyset_condition_on_first_page() throws Exception {
+        //given
+        QueryBuilder queryBuilder = createQueryBuilder("SELECT testObj.* FROM test_object testObj");
+        //when
+        queryBuilder.appendKeysetClause(KeysetCursor.getKeysetOrder(null, TestObject.class), Collections.<Serializable> emptyList(), TestObject.class);
+        //then
+        assertThat(queryBuilder.hasChanged()).isFalse();
+    }
+
+    @Test(expected = SBonitaReadException.class)
+    public void should_throw_exception_if_keyset_values_do_not_match_the_order() throws Exception {
+        createQueryBuilder("SELECT testObj.* FROM test_object testObj").appendKeysetClause(KeysetCursor.getKeysetOrder(null, TestObject.class),
+                Arrays.<Serializable> asList("jack", 12L), TestObject.class);
     }
 
     @Test(expected = SBonitaReadException.class)
@@ -15,6 +15,8 @@
 package org.bonitasoft.engine.persistence;
 
 import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.verify;
@@ -105,7 +107,8 @@ public class SQLQueryBuilderTest {
                 false);
         queryBuilder.buildQuery(session);
         //then
-        verify(session).createSQLQuery("SELECT testObj.* FROM test_object testObj WHERE (testObj.enabled = true)");
+        verify(session).createSQLQuery("SELECT testObj.* FROM test_object testObj WHERE (testObj.enabled = :filterParam0)");
+        assertThat(queryBuilder.getFilterParameters()).containsOnly(entry("filterParam0", true));
     }
 
     @Test
@@ -120,6 +123,7 @@ public class SQLQueryBuilderTest {
                 false);
         queryBuilder.buildQuery(session);
         //then
-        verify(session).createSQLQuery("SELECT testObj.* FROM test_object testObj WHERE (testObj.enabled = 1)");
+        verify(session).createSQLQuery("SELECT testObj.* FROM test_object testObj WHERE (testObj.enabled = :filterParam0)");
+        assertThat(queryBuilder.getFilterParameters()).containsOnly(entry("filterParam0", 1));
     }
 }
@@ -13,6 +13,7 @@
  **/
 package org.bonitasoft.engine.sequence;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
@@ -24,6 +25,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
 
@@ -31,6 +33,8 @@ import org.bonitasoft.engine.commons.exceptions.SObjectNotFoundException;
 import org.bonitasoft.engine.lock.BonitaLock;
 import org.bonitasoft.engine.lock.LockService;
 import org.bonitasoft.engine.lock.SLockException;
+import org.bonitasoft.engine.sequence.TenantSequenceManagerImpl.SequenceStatistics;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -57,6 +61,8 @@ public class SequenceManagerImplTest {
         }
     }
 
+    private SequenceMappingProvider sequenceMappingProvider;
+
     private final Connection connection = mock(Connection.class);
 
     private LockService lockService;
@@ -79,7 +85,7 @@ public class SequenceManagerImplTest {
         datasource = mock(DataSource.class);
         lock = mock(BonitaLock.class);
         when(lockService.lock(anyLong(), anyString(), eq(TENANTID))).thenReturn(lock);
-        final SequenceMappingProvider sequenceMappingProvider = new SequenceMappingProvider();
+        sequenceMappingProvider = new SequenceMappingProvider();
         sequenceMappingProvider.setSequenceMappings(Collections.singletonList(new SequenceMapping("myClass", SEQUENCE_ID, RANGE_SIZE)));
         sequenceManager = new SequenceManagerImpl(lockService, sequenceMappingProvider, datasource, 2, 1,
                 1);
@@ -91,6 +97,11 @@ public class SequenceManagerImplTest {
         when(preparedStatement.executeQuery()).thenReturn(resultSet);
     }
 
+    @After
+    public void closeSequenceManager() throws SQLException {
+        sequenceManager.close();
+    }
+
     @Test
     public void testGetNextId() throws Exception {
         when(resultSet.next()).thenAnswer(new TrueThenFalse());
@@ -132,4 +143,59 @@ public class SequenceManagerImplTest {
         assertEquals(110, sequenceManager.getNextId("myClass", 1));
     }
 
+    @Test
+    public void should_fetch_next_range_in_background_when_threshold_is_reached() throws Exception {
+        sequenceManager = new SequenceManagerImpl(lockService, sequenceMappingProvider, datasource, 2, 1, 1, 0.5, 1);
+        when(resultSet.next()).thenAnswer(new TrueThenFalse());
+        when(resultSet.getLong(TenantSequenceManagerImpl.NEXTID)).thenReturn(110L, 310L);
+
+        assertEquals(110, sequenceManager.getNextId("myClass", TENANTID));
+        verify(lockService, times(1)).lock(anyLong(), anyString(), eq(TENANTID));
+        assertEquals(111, sequenceManager.getNextId("myClass", TENANTID));
+        verify(lockService, timeout(1000).times(2)).lock(anyLong(), anyString(), eq(TENANTID));
+        verify(connection, timeout(1000).times(2)).commit();
+
+        assertEquals(112, sequenceManager.getNextId("myClass", TENANTID));
+        assertEquals(310, sequenceManager.getNextId("myClass", TENANTID));
+        final SequenceStatistics statistics = sequenceManager.getStatistics(TENANTID, SEQUENCE_ID);
+        assertThat(statistics.getFetchCount()).isEqualTo(2);
+        // only the first range was fetched while the caller waited
+        assertThat(statistics.getBlockedRefills()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_not_fetch_next_range_in_background_when_prefetch_is_disabled() throws Exception {
+        sequenceManager = new SequenceManagerImpl(lockService, sequenceMappingProvider, datasource, 2, 1, 1, 1, 10);
+        when(resultSet.next()).thenAnswer(new TrueThenFalse());
+        when(resultSet.getLong(TenantSequenceManagerImpl.NEXTID)).thenReturn(110L, 310L);
+
+        for (int i = 0; i < RANGE_SIZE; i++) {
+            assertEquals(i + 110, sequenceManager.getNextId("myClass", TENANTID));
+        }
+
+        verify(lockService, after(100).times(1)).lock(anyLong(), anyString(), eq(TENANTID));
+        assertEquals(310, sequenceManager.getNextId("myClass", TENANTID));
+        assertThat(sequenceManager.getStatistics(TENANTID, SEQUENCE_ID).getBlockedRefills()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_grow_range_size_up_to_max_factor_when_ranges_are_consumed_quickly() throws Exception {
+        sequenceManager = new SequenceManagerImpl(lockService, sequenceMappingProvider, datasource, 2, 1, 1, 0.5, 2);
+        when(resultSet.next()).thenAnswer(new TrueThenFalse());
+        when(resultSet.getLong(TenantSequenceManagerImpl.NEXTID)).thenReturn(110L, 113L, 119L);
+
+        // first range of the configured size: 110..112, next one twice bigger: 113..118
+        for (int i = 0; i < 9; i++) {
+            assertEquals(i + 110, sequenceManager.getNextId("myClass", TENANTID));
+        }
+        verify(connection, timeout(1000).times(3)).commit();
+
+        verify(preparedStatement).setObject(1, 113L);
+        verify(preparedStatement).setObject(1, 119L);
+        // range size is capped to 2 times the configured one
+        verify(preparedStatement).setObject(1, 125L);
+        assertThat(sequenceManager.getStatistics(TENANTID, SEQUENCE_ID).getRangeSize()).isEqualTo(RANGE_SIZE * 2);
+        assertThat(sequenceManager.getStatistics(TENANTID, SEQUENCE_ID).getTotalFetchTime(TimeUnit.NANOSECONDS)).isPositive();
+    }
+
 }
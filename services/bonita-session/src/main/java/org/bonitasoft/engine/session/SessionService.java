@@ -79,7 +79,8 @@ public interface SessionService {
     boolean isValid(long sessionId) throws SSessionNotFoundException;
 
     /**
-     * Retrieve a session by its id
+     * Retrieve a session by its id. The returned session is the one held by the service and must not be modified, use
+     * {@link #renewSession(long)} to update it.
      *
      * @param sessionId
      *        the session's id
@@ -13,10 +13,8 @@
  **/
 package org.bonitasoft.engine.session.impl;
 
-import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import org.bonitasoft.engine.session.SSessionAlreadyExistsException;
 import org.bonitasoft.engine.session.SSessionNotFoundException;
@@ -24,28 +22,27 @@ import org.bonitasoft.engine.session.SessionProvider;
 import org.bonitasoft.engine.session.model.SSession;
 
 /**
+ * Keeps the sessions in a concurrent map: lookups take no lock. Stored sessions must not be modified, updating a session replaces it.
+ *
  * @author Baptiste Mesta
- * 
  */
 public abstract class AbstractSessionProvider implements SessionProvider {
 
-    protected abstract Map<Long, SSession> getSessions();
+    protected abstract ConcurrentMap<Long, SSession> getSessions();
 
-    protected SSession putSession(final SSession session, final long id) {
-        return getSessions().put(id, session);
-    }
+    protected abstract SessionExpiryWheel getExpiryWheel();
 
     @Override
-    public synchronized void addSession(final SSession session) throws SSessionAlreadyExistsException {
+    public void addSession(final SSession session) throws SSessionAlreadyExistsException {
         final long id = session.getId();
-        if (getSessions().containsKey(id)) {
+        if (getSessions().putIfAbsent(id, session) != null) {
             throw new SSessionAlreadyExistsException("A session wih id \"" + id + "\" already exists");
         }
-        putSession(session, id);
+        getExpiryWheel().schedule(session);
     }
 
     @Override
-    public synchronized void removeSession(final long sessionId) throws SSessionNotFoundException {
+    public void removeSession(final long sessionId) throws SSessionNotFoundException {
         final SSession session = getSessions().remove(sessionId);
         if (session == null) {
             throw new SSessionNotFoundException("No session found with id \"" + sessionId + "\"");
@@ -53,7 +50,7 @@ public abstract class AbstractSessionProvider implements SessionProvider {
     }
 
     @Override
-    public synchronized SSession getSession(final long sessionId) throws SSessionNotFoundException {
+    public SSession getSession(final long sessionId) throws SSessionNotFoundException {
         final SSession session = getSessions().get(sessionId);
         if (session == null) {
             throw new SSessionNotFoundException("No session found with id \"" + sessionId + "\"");
@@ -62,34 +59,27 @@ public abstract class AbstractSessionProvider implements SessionProvider {
     }
 
     @Override
-    public synchronized void updateSession(final SSession session) throws SSessionNotFoundException {
+    public void updateSession(final SSession session) throws SSessionNotFoundException {
         final long id = session.getId();
-        if (!getSessions().containsKey(id)) {
+        if (getSessions().replace(id, session) == null) {
             throw new SSessionNotFoundException("No session found with id \"" + id + "\"");
         }
-        putSession(session, id);
+        getExpiryWheel().schedule(session);
     }
 
     @Override
-    public synchronized void cleanInvalidSessions() {
-        final List<Long> invalidSessionIds = new ArrayList<Long>();
-        for (final SSession session : getSessions().values()) {
-            if (!session.isValid()) {
-                invalidSessionIds.add(session.getId());
-            }
-        }
-        for (final Long invalidSessionId : invalidSessionIds) {
-            getSessions().remove(invalidSessionId);
-        }
+    public void cleanInvalidSessions() {
+        getExpiryWheel().expire(getSessions(), System.currentTimeMillis());
     }
 
     @Override
-    public synchronized void removeSessions() {
+    public void removeSessions() {
         getSessions().clear();
+        getExpiryWheel().clear();
     }
 
     @Override
-    public synchronized void deleteSessionsOfTenant(final long tenantId, final boolean keepTechnicalSessions) {
+    public void deleteSessionsOfTenant(final long tenantId, final boolean keepTechnicalSessions) {
         Iterator<SSession> iterator = getSessions().values().iterator();
         while (iterator.hasNext()) {
             SSession sSession = iterator.next();
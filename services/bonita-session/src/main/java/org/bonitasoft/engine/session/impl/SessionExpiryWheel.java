@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.session.impl;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.bonitasoft.engine.session.model.SSession;
+
+/**
+ * Hashed timing wheel giving the ids of the sessions that may have expired, so that invalid sessions are cleaned without scanning all of them.
+ * <p>
+ * A session id is put in the slot of the tick of its expiration date. When a session is renewed, it is put in its new slot and is removed lazily from the
+ * old one when that slot is expired. Sessions expiring more than one revolution later stay in their slot until the revolution of their expiration.
+ */
+public class SessionExpiryWheel {
+
+    private final long tickDurationInMillis;
+    private final Set<Long>[] slots;
+    private long lastExpiredTick = -1;
+
+    @SuppressWarnings("unchecked")
+    public SessionExpiryWheel(final long tickDurationInMillis, final int wheelSize) {
+        this.tickDurationInMillis = tickDurationInMillis;
+        slots = new Set[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            slots[i] = ConcurrentHashMap.newKeySet();
+        }
+    }
+
+    public void schedule(final SSession session) {
+        // sessions without renew date never expire
+        if (session.getLastRenewDate() != null) {
+            slots[slotOf(getExpirationTime(session))].add(session.getId());
+        }
+    }
+
+    /**
+     * Remove from the given sessions the ones that are expired, looking only at the slots of the ticks elapsed since the previous call.
+     */
+    public synchronized void expire(final ConcurrentMap<Long, SSession> sessions, final long now) {
+        final long currentTick = now / tickDurationInMillis;
+        final long firstTick = lastExpiredTick < 0 ? currentTick - slots.length + 1 : Math.max(lastExpiredTick + 1, currentTick - slots.length + 1);
+        for (long tick = firstTick; tick <= currentTick; tick++) {
+            expireSlot((int) Math.floorMod(tick, (long) slots.length), sessions, now);
+        }
+        // the current tick is not over, sessions expiring later in it will be found by the next call
+        lastExpiredTick = currentTick - 1;
+    }
+
+    private void expireSlot(final int slot, final ConcurrentMap<Long, SSession> sessions, final long now) {
+        final Iterator<Long> iterator = slots[slot].iterator();
+        while (iterator.hasNext()) {
+            final Long sessionId = iterator.next();
+            final SSession session = sessions.get(sessionId);
+            if (session == null || session.getLastRenewDate() == null) {
+                iterator.remove();
+                continue;
+            }
+            final long expirationTime = getExpirationTime(session);
+            if (expirationTime <= now) {
+                sessions.remove(sessionId, session);
+                iterator.remove();
+            } else if (slotOf(expirationTime) != slot) {
+                // renewed: already scheduled in its new slot
+                iterator.remove();
+            }
+        }
+    }
+
+    public void clear() {
+        for (final Set<Long> slot : slots) {
+            slot.clear();
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (final Set<Long> slot : slots) {
+            size += slot.size();
+        }
+        return size;
+    }
+
+    private int slotOf(final long time) {
+        return (int) Math.floorMod(time / tickDurationInMillis, (long) slots.length);
+    }
+
+    private static long getExpirationTime(final SSession session) {
+        return session.getLastRenewDate().getTime() + session.getDuration();
+    }
+
+}
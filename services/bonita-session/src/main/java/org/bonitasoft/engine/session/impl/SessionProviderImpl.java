@@ -13,8 +13,9 @@
  **/
 package org.bonitasoft.engine.session.impl;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import org.bonitasoft.engine.session.model.SSession;
 
@@ -24,11 +25,19 @@ import org.bonitasoft.engine.session.model.SSession;
  */
 public final class SessionProviderImpl extends AbstractSessionProvider {
 
-    static Map<Long, SSession> sessions = new HashMap<Long, SSession>();
+    static ConcurrentMap<Long, SSession> sessions = new ConcurrentHashMap<>();
+
+    // one minute ticks, a revolution covers a bit more than 4 hours
+    static SessionExpiryWheel expiryWheel = new SessionExpiryWheel(TimeUnit.MINUTES.toMillis(1), 256);
 
     @Override
-    protected Map<Long, SSession> getSessions() {
+    protected ConcurrentMap<Long, SSession> getSessions() {
         return sessions;
     }
 
+    @Override
+    protected SessionExpiryWheel getExpiryWheel() {
+        return expiryWheel;
+    }
+
 }
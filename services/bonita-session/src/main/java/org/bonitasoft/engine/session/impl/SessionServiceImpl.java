@@ -93,8 +93,7 @@ public class SessionServiceImpl implements SessionService {
             }
             throw e;
         }
-        final Date now = new Date();
-        final boolean isValid = session.getExpirationDate().getTime() > now.getTime();
+        final boolean isValid = session.isValid();
         if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.TRACE)) {
             logger.log(this.getClass(), TechnicalLogSeverity.TRACE, LogUtil.getLogAfterMethod(this.getClass(), "isValid"));
         }
@@ -110,7 +109,8 @@ public class SessionServiceImpl implements SessionService {
         if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.TRACE)) {
             logger.log(this.getClass(), TechnicalLogSeverity.TRACE, LogUtil.getLogAfterMethod(this.getClass(), "getSession"));
         }
-        return BuilderFactory.get(SSessionBuilderFactory.class).copy(session);
+        // stored sessions are never modified, no need to copy them
+        return session;
     }
 
     @Override
@@ -154,7 +154,7 @@ public class SessionServiceImpl implements SessionService {
         if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.TRACE)) {
             logger.log(this.getClass(), TechnicalLogSeverity.TRACE, LogUtil.getLogBeforeMethod(this.getClass(), "renewSession"));
         }
-        final SSession session = getSession(sessionId);
+        final SSession session = BuilderFactory.get(SSessionBuilderFactory.class).copy(getSession(sessionId));
         try {
             ClassReflector.invokeSetter(session, "setLastRenewDate", Date.class, new Date());
             sessionProvider.updateSession(session);
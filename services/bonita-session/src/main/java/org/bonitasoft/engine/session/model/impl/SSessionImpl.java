@@ -166,7 +166,7 @@ public class SSessionImpl implements SSession {
 
     @Override
     public boolean isValid() {
-        return getExpirationDate().getTime() > System.currentTimeMillis();
+        return lastRenewDate.getTime() + duration > System.currentTimeMillis();
     }
 
     @Override
@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.session.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.bonitasoft.engine.session.model.SSession;
+import org.bonitasoft.engine.session.model.impl.SSessionImpl;
+import org.junit.Test;
+
+public class SessionExpiryWheelTest {
+
+    private static final long TICK = 1000;
+
+    private final SessionExpiryWheel wheel = new SessionExpiryWheel(TICK, 16);
+    private final ConcurrentMap<Long, SSession> sessions = new ConcurrentHashMap<>();
+
+    private SSession session(final long id, final long lastRenewDate, final long duration) {
+        final SSessionImpl session = new SSessionImpl(id, 1, "john", "TEST", 12);
+        session.setLastRenewDate(new Date(lastRenewDate));
+        session.setDuration(duration);
+        sessions.put(id, session);
+        wheel.schedule(session);
+        return session;
+    }
+
+    @Test
+    public void expire_should_remove_expired_sessions_only() {
+        session(1, 0, 5000);
+        session(2, 0, 8000);
+
+        wheel.expire(sessions, 6000);
+
+        assertThat(sessions).containsOnlyKeys(2L);
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void expire_should_remove_sessions_expired_earlier_in_the_current_tick() {
+        wheel.expire(sessions, 5000);
+        session(1, 0, 5200);
+
+        wheel.expire(sessions, 5500);
+
+        assertThat(sessions).isEmpty();
+    }
+
+    @Test
+    public void expire_should_keep_renewed_sessions() {
+        session(1, 0, 5000);
+        final SSessionImpl renewed = new SSessionImpl(sessions.get(1L));
+        renewed.setLastRenewDate(new Date(4000));
+        sessions.put(1L, renewed);
+        wheel.schedule(renewed);
+
+        wheel.expire(sessions, 6000);
+        assertThat(sessions).containsOnlyKeys(1L);
+        assertThat(wheel.size()).isEqualTo(1);
+
+        wheel.expire(sessions, 9500);
+        assertThat(sessions).isEmpty();
+    }
+
+    @Test
+    public void expire_should_keep_sessions_expiring_after_more_than_one_revolution() {
+        session(1, 0, 3000);
+        session(2, 0, 3000 + 16 * TICK);
+
+        wheel.expire(sessions, 3500);
+        assertThat(sessions).containsOnlyKeys(2L);
+
+        wheel.expire(sessions, 3500 + 16 * TICK);
+        assertThat(sessions).isEmpty();
+    }
+
+    @Test
+    public void expire_should_forget_removed_sessions() {
+        session(1, 0, 5000);
+        sessions.remove(1L);
+
+        wheel.expire(sessions, 1000);
+
+        assertThat(wheel.size()).isZero();
+    }
+
+}
@@ -13,9 +13,12 @@
  **/
 package org.bonitasoft.engine.session.impl;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
 
+import java.util.Date;
+
 import org.bonitasoft.engine.session.SSessionNotFoundException;
 import org.bonitasoft.engine.session.SessionProvider;
 import org.bonitasoft.engine.session.model.impl.SSessionImpl;
@@ -86,4 +89,27 @@ public class SessionProviderImplTest {
         }
     }
 
+    @Test
+    public void cleanInvalidSessions_should_remove_expired_sessions() throws Exception {
+        sessionProvider.removeSessions();
+        final SSessionImpl expired = new SSessionImpl(60, 3, "john", "TEST", 12);
+        expired.setLastRenewDate(new Date(System.currentTimeMillis() - 2000));
+        expired.setDuration(1000);
+        sessionProvider.addSession(expired);
+        final SSessionImpl valid = new SSessionImpl(61, 3, "john", "TEST", 12);
+        valid.setLastRenewDate(new Date());
+        valid.setDuration(3600000);
+        sessionProvider.addSession(valid);
+
+        sessionProvider.cleanInvalidSessions();
+
+        assertThat(sessionProvider.getSession(61)).isSameAs(valid);
+        try {
+            sessionProvider.getSession(60);
+            fail("session 60 should be deleted because it is expired");
+        } catch (SSessionNotFoundException e) {
+
+        }
+    }
+
 }
@@ -20,14 +20,18 @@ import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.util.Date;
+
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
 import org.bonitasoft.engine.session.SSessionNotFoundException;
 import org.bonitasoft.engine.session.SessionProvider;
+import org.bonitasoft.engine.session.model.SSession;
 import org.bonitasoft.engine.session.model.impl.SSessionImpl;
 import org.bonitasoft.engine.sessionaccessor.ReadSessionAccessor;
 import org.bonitasoft.engine.sessionaccessor.SessionIdNotSetException;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -146,4 +150,26 @@ public class SessionServiceImplTest {
         assertThat(loggedUserFromSession).isEqualTo(-1);
 
     }
+
+    @Test
+    public final void getSession_should_return_the_stored_session() throws Exception {
+        doReturn(sSession).when(sessionProvider).getSession(SESSION_ID);
+
+        assertThat(sessionServiceImpl.getSession(SESSION_ID)).isSameAs(sSession);
+    }
+
+    @Test
+    public final void renewSession_should_replace_the_stored_session_by_a_renewed_copy() throws Exception {
+        final Date lastRenewDate = new Date(System.currentTimeMillis() - 1000);
+        sSession.setLastRenewDate(lastRenewDate);
+        doReturn(sSession).when(sessionProvider).getSession(SESSION_ID);
+
+        sessionServiceImpl.renewSession(SESSION_ID);
+
+        final ArgumentCaptor<SSession> renewed = ArgumentCaptor.forClass(SSession.class);
+        verify(sessionProvider).updateSession(renewed.capture());
+        assertThat(renewed.getValue()).isNotSameAs(sSession);
+        assertThat(renewed.getValue().getLastRenewDate()).isAfter(lastRenewDate);
+        assertThat(sSession.getLastRenewDate()).isEqualTo(lastRenewDate);
+    }
 }
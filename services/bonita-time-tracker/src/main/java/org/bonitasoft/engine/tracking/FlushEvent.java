@@ -15,19 +15,31 @@ package org.bonitasoft.engine.tracking;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public final class FlushEvent {
 
     private final List<Record> records;
 
+    private final Map<TimeTrackerRecords, LatencySnapshot> latencies;
+
     private final long flushTime;
 
     public FlushEvent(final long flushTime, final List<Record> records) {
+        this(flushTime, records, null);
+    }
+
+    public FlushEvent(final long flushTime, final List<Record> records, final Map<TimeTrackerRecords, LatencySnapshot> latencies) {
         if (records != null) {
             this.records = records;
         } else {
             this.records = Collections.emptyList();
         }
+        if (latencies != null) {
+            this.latencies = latencies;
+        } else {
+            this.latencies = Collections.emptyMap();
+        }
         this.flushTime = flushTime;
     }
 
@@ -35,6 +47,13 @@ public final class FlushEvent {
         return records;
     }
 
+    /**
+     * @return the latency histograms of the flushed interval, empty if the time tracker is not in histogram mode
+     */
+    public Map<TimeTrackerRecords, LatencySnapshot> getLatencies() {
+        return latencies;
+    }
+
     public long getFlushTime() {
         return flushTime;
     }
@@ -43,6 +62,7 @@ public final class FlushEvent {
     public String toString() {
         return "FlushEvent{" +
                 "records.size=" + records.size() +
+                ", latencies.size=" + latencies.size() +
                 ", flushTime=" + flushTime +
                 '}';
     }
@@ -0,0 +1,170 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.tracking;
+
+import java.lang.ref.WeakReference;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed size latency histograms, one per {@link TimeTrackerRecords}.
+ * <p>
+ * Each thread records in its own array of counters: a recorder has a single writer, so recording a duration is lock-free and does not allocate anything.
+ * Durations are counted in log-scale buckets, each power of two being split in {@value #SUB_BUCKET_COUNT} buckets, which gives percentiles with a relative
+ * error lower than 12.5%.
+ * <p>
+ * {@link #snapshot()} sums the recorders and returns what was recorded since the previous snapshot.
+ */
+public class LatencyHistograms {
+
+    static final int SUB_BUCKET_BITS = 3;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // durations greater than 2^MAX_EXPONENT are counted in the last bucket
+    private static final int MAX_EXPONENT = 40;
+    static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private static final int SUM = BUCKET_COUNT;
+    private static final int MAX = BUCKET_COUNT + 1;
+    private static final int SLOT_COUNT = BUCKET_COUNT + 2;
+    private static final TimeTrackerRecords[] RECORDS = TimeTrackerRecords.values();
+
+    private final List<Recorder> recorders = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Recorder> recorder = ThreadLocal.withInitial(this::newRecorder);
+    // totals of the recorders of terminated threads
+    private final long[] retiredTotals = new long[RECORDS.length * SLOT_COUNT];
+    private final long[] previousTotals = new long[RECORDS.length * SLOT_COUNT];
+
+    private Recorder newRecorder() {
+        final Recorder newRecorder = new Recorder(Thread.currentThread());
+        recorders.add(newRecorder);
+        return newRecorder;
+    }
+
+    public void record(final TimeTrackerRecords recordName, final long duration) {
+        final long value = Math.max(0, duration);
+        final AtomicLongArray slots = recorder.get().slots;
+        final int offset = recordName.ordinal() * SLOT_COUNT;
+        // only the owner thread writes in its recorder, lazySet is enough to publish the values to the snapshot
+        final int bucket = offset + bucketIndex(value);
+        slots.lazySet(bucket, slots.get(bucket) + 1);
+        slots.lazySet(offset + SUM, slots.get(offset + SUM) + value);
+        if (value > slots.get(offset + MAX)) {
+            slots.lazySet(offset + MAX, value);
+        }
+    }
+
+    /**
+     * @return the histograms of the durations recorded since the previous call, only for records having at least one duration
+     */
+    public synchronized Map<TimeTrackerRecords, LatencySnapshot> snapshot() {
+        final long[] totals = retiredTotals.clone();
+        final Iterator<Recorder> iterator = recorders.iterator();
+        while (iterator.hasNext()) {
+            final Recorder current = iterator.next();
+            final boolean terminated = current.isTerminated();
+            final AtomicLongArray slots = current.slots;
+            for (int i = 0; i < totals.length; i++) {
+                if (i % SLOT_COUNT == MAX) {
+                    totals[i] = Math.max(totals[i], slots.get(i));
+                } else {
+                    totals[i] += slots.get(i);
+                }
+            }
+            if (terminated) {
+                retire(current);
+            }
+        }
+        final Map<TimeTrackerRecords, LatencySnapshot> snapshots = new EnumMap<>(TimeTrackerRecords.class);
+        for (final TimeTrackerRecords recordName : RECORDS) {
+            final int offset = recordName.ordinal() * SLOT_COUNT;
+            final long[] counts = new long[BUCKET_COUNT];
+            long count = 0;
+            int highestBucket = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] = totals[offset + i] - previousTotals[offset + i];
+                count += counts[i];
+                if (counts[i] > 0) {
+                    highestBucket = i;
+                }
+            }
+            if (count > 0) {
+                final long sum = totals[offset + SUM] - previousTotals[offset + SUM];
+                // the max is cumulated since the start, keep it inside the highest bucket of this interval
+                final long max = Math.min(totals[offset + MAX], highestValue(highestBucket));
+                snapshots.put(recordName, new LatencySnapshot(recordName, counts, count, sum, max));
+            }
+        }
+        System.arraycopy(totals, 0, previousTotals, 0, totals.length);
+        return snapshots;
+    }
+
+    private void retire(final Recorder terminated) {
+        for (int i = 0; i < retiredTotals.length; i++) {
+            if (i % SLOT_COUNT == MAX) {
+                retiredTotals[i] = Math.max(retiredTotals[i], terminated.slots.get(i));
+            } else {
+                retiredTotals[i] += terminated.slots.get(i);
+            }
+        }
+        recorders.remove(terminated);
+    }
+
+    int getRecorderCount() {
+        return recorders.size();
+    }
+
+    static int bucketIndex(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return SUB_BUCKET_COUNT + (exponent - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * @return the highest duration counted in the given bucket
+     */
+    static long highestValue(final int bucketIndex) {
+        if (bucketIndex < SUB_BUCKET_COUNT) {
+            return bucketIndex;
+        }
+        final int shift = (bucketIndex - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        final int subBucket = (bucketIndex - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return ((SUB_BUCKET_COUNT + subBucket + 1L) << shift) - 1;
+    }
+
+    private static final class Recorder {
+
+        private final WeakReference<Thread> owner;
+        private final AtomicLongArray slots = new AtomicLongArray(RECORDS.length * SLOT_COUNT);
+
+        private Recorder(final Thread owner) {
+            this.owner = new WeakReference<>(owner);
+        }
+
+        private boolean isTerminated() {
+            final Thread thread = owner.get();
+            return thread == null || !thread.isAlive();
+        }
+    }
+
+}
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import org.apache.commons.collections4.queue.CircularFifoQueue;
 import org.bonitasoft.engine.commons.TenantLifecycleService;
@@ -37,6 +38,8 @@ public class TimeTracker implements TenantLifecycleService {
     private final Map<String, FlushEventListener> flushEventListeners;
     private final TechnicalLoggerService logger;
     private final Queue<Record> records;
+    private final LatencyHistograms histograms;
+    private final boolean histogramMode;
     private final Clock clock;
 
     private long flushIntervalInMS;
@@ -53,7 +56,24 @@ public class TimeTracker implements TenantLifecycleService {
             final int maxSize,
             final int flushIntervalInSeconds,
             final String... activatedRecords) {
-        this(logger, new ThreadSleepClockImpl(), startTracking, flushEventListeners, maxSize, flushIntervalInSeconds * 1000, activatedRecords);
+        this(logger, startTracking, false, flushEventListeners, maxSize, flushIntervalInSeconds, activatedRecords);
+    }
+
+    /**
+     * @param histogramMode when true, durations are only counted in per-record latency histograms, see {@link LatencyHistograms}. Descriptions are not
+     *        kept and nothing is logged when tracking, so that tracking can be left on in production. The histograms of each interval are given to the
+     *        listeners in {@link FlushEvent#getLatencies()}.
+     */
+    public TimeTracker(
+            final TechnicalLoggerService logger,
+            final boolean startTracking,
+            final boolean histogramMode,
+            final List<FlushEventListener> flushEventListeners,
+            final int maxSize,
+            final int flushIntervalInSeconds,
+            final String... activatedRecords) {
+        this(logger, new ThreadSleepClockImpl(), startTracking, histogramMode, flushEventListeners, maxSize, flushIntervalInSeconds * 1000,
+                activatedRecords);
     }
 
     public TimeTracker(
@@ -64,8 +84,22 @@ public class TimeTracker implements TenantLifecycleService {
             final int maxSize,
             final int flushIntervalInMS,
             final String... activatedRecords) {
+        this(logger, clock, startTracking, false, flushEventListeners, maxSize, flushIntervalInMS, activatedRecords);
+    }
+
+    public TimeTracker(
+            final TechnicalLoggerService logger,
+            final Clock clock,
+            final boolean startTracking,
+            final boolean histogramMode,
+            final List<FlushEventListener> flushEventListeners,
+            final int maxSize,
+            final int flushIntervalInMS,
+            final String... activatedRecords) {
         super();
         this.startTracking = startTracking;
+        this.histogramMode = histogramMode;
+        histograms = new LatencyHistograms();
         this.clock = clock;
         this.flushIntervalInMS = flushIntervalInMS;
         records = new CircularFifoQueue<>(maxSize);
@@ -160,7 +194,12 @@ public class TimeTracker implements TenantLifecycleService {
             for (final FlushEventListener listener : getActiveFlushEventListeners()) {
                 listener.notifyStartTracking();
             }
-            log(TechnicalLogSeverity.WARNING, "Time tracker tracking is activated. This may not be used in production as performances may be strongly impacted.");
+            if (histogramMode) {
+                log(TechnicalLogSeverity.INFO, "Time tracker tracking is activated in histogram mode.");
+            } else {
+                log(TechnicalLogSeverity.WARNING,
+                        "Time tracker tracking is activated. This may not be used in production as performances may be strongly impacted.");
+            }
         }
     }
 
@@ -187,6 +226,10 @@ public class TimeTracker implements TenantLifecycleService {
         return flushThread != null && flushThread.isStarted();
     }
 
+    public boolean isHistogramMode() {
+        return histogramMode;
+    }
+
     public long getFlushIntervalInMS() {
         return flushIntervalInMS;
     }
@@ -217,6 +260,10 @@ public class TimeTracker implements TenantLifecycleService {
         sb.append(isTracking());
         sb.append("\n");
 
+        sb.append("  - histogramMode: ");
+        sb.append(histogramMode);
+        sb.append("\n");
+
         sb.append("  - flushIntervalInSeconds: ");
         sb.append(flushIntervalInMS);
         sb.append("\n");
@@ -260,6 +307,31 @@ public class TimeTracker implements TenantLifecycleService {
         if (!isTrackable(recordName)) {
             return;
         }
+        record(recordName, recordDescription, duration);
+    }
+
+    /**
+     * Track a duration without description.
+     */
+    public void track(final TimeTrackerRecords recordName, final long duration) {
+        track(recordName, "", duration);
+    }
+
+    /**
+     * Track a duration, the description is only built when it is kept, i.e. when not in histogram mode.
+     */
+    public void track(final TimeTrackerRecords recordName, final Supplier<String> recordDescription, final long duration) {
+        if (!isTrackable(recordName)) {
+            return;
+        }
+        record(recordName, histogramMode ? "" : recordDescription.get(), duration);
+    }
+
+    private void record(final TimeTrackerRecords recordName, final String recordDescription, final long duration) {
+        if (histogramMode) {
+            histograms.record(recordName, duration);
+            return;
+        }
         final long timestamp = System.currentTimeMillis();
         final Record record = new Record(timestamp, recordName, recordDescription, duration);
         log(TechnicalLogSeverity.DEBUG, "Tracking record: " + record);
@@ -284,7 +356,8 @@ public class TimeTracker implements TenantLifecycleService {
             records = getRecordsCopy();
             clearRecords();
         }
-        final FlushEvent flushEvent = new FlushEvent(lastFlushTimestamp, records);
+        final Map<TimeTrackerRecords, LatencySnapshot> latencies = histogramMode ? histograms.snapshot() : null;
+        final FlushEvent flushEvent = new FlushEvent(lastFlushTimestamp, records, latencies);
 
         flushListeners(flushEvent, flushEventListenerResults);
         log(TechnicalLogSeverity.INFO, "Flush finished: " + flushEvent);
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.tracking.histogram;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.bonitasoft.engine.log.technical.TechnicalLogSeverity;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.tracking.AbstractFlushEventListener;
+import org.bonitasoft.engine.tracking.FlushEvent;
+import org.bonitasoft.engine.tracking.FlushEventListenerResult;
+import org.bonitasoft.engine.tracking.LatencySnapshot;
+import org.bonitasoft.engine.tracking.TimeTrackerRecords;
+
+/**
+ * Exports the latency histograms of each flush interval in the technical logs, and keeps the last ones in memory.
+ */
+public class LatencyLogFlushEventListener extends AbstractFlushEventListener {
+
+    private Map<TimeTrackerRecords, LatencySnapshot> lastLatencies = Collections.emptyMap();
+
+    public LatencyLogFlushEventListener(final boolean activateAtStart, final TechnicalLoggerService logger) {
+        super(activateAtStart, logger);
+    }
+
+    @Override
+    public synchronized FlushEventListenerResult flush(final FlushEvent flushEvent) throws Exception {
+        if (flushEvent.getLatencies().isEmpty()) {
+            return new FlushEventListenerResult(flushEvent);
+        }
+        lastLatencies = flushEvent.getLatencies();
+        for (final LatencySnapshot latency : lastLatencies.values()) {
+            log(TechnicalLogSeverity.INFO, "Latency: " + latency);
+        }
+        return new FlushEventListenerResult(flushEvent);
+    }
+
+    @Override
+    public String getStatus() {
+        return super.getStatus() + "\n" + "lastLatencies: " + getLastLatencies().values();
+    }
+
+    @Override
+    public void notifyStopTracking() {
+        clear();
+    }
+
+    @Override
+    public void notifyStartTracking() {
+        //nothing to do
+    }
+
+    public synchronized Map<TimeTrackerRecords, LatencySnapshot> getLastLatencies() {
+        return lastLatencies;
+    }
+
+    public synchronized void clear() {
+        lastLatencies = Collections.emptyMap();
+    }
+
+}
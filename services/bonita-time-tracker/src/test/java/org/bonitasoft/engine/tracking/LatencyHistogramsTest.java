@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.tracking;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class LatencyHistogramsTest {
+
+    private static final TimeTrackerRecords REC1 = TimeTrackerRecords.EVALUATE_EXPRESSION;
+    private static final TimeTrackerRecords REC2 = TimeTrackerRecords.EXECUTE_CONNECTOR_WORK;
+
+    private final LatencyHistograms histograms = new LatencyHistograms();
+
+    @Test
+    public void each_value_should_be_in_a_bucket_whose_highest_value_is_close_above_it() {
+        for (long value = 0; value < 100000; value++) {
+            final long highestValue = LatencyHistograms.highestValue(LatencyHistograms.bucketIndex(value));
+            assertThat(highestValue).isGreaterThanOrEqualTo(value);
+            assertThat(highestValue - value).isLessThanOrEqualTo(value / LatencyHistograms.SUB_BUCKET_COUNT);
+        }
+    }
+
+    @Test
+    public void huge_values_should_be_counted_in_last_bucket() {
+        assertThat(LatencyHistograms.bucketIndex(Long.MAX_VALUE)).isEqualTo(LatencyHistograms.BUCKET_COUNT - 1);
+    }
+
+    @Test
+    public void snapshot_should_give_percentiles_of_recorded_durations() {
+        for (int i = 1; i <= 100; i++) {
+            histograms.record(REC1, i);
+        }
+
+        final LatencySnapshot snapshot = histograms.snapshot().get(REC1);
+
+        assertThat(snapshot.getCount()).isEqualTo(100);
+        assertThat(snapshot.getSum()).isEqualTo(5050);
+        assertThat(snapshot.getMax()).isEqualTo(100);
+        assertThat(snapshot.getMean()).isEqualTo(50.5);
+        assertThat(snapshot.getPercentile(50)).isBetween(50L, 55L);
+        assertThat(snapshot.getPercentile(99)).isBetween(99L, 100L);
+        assertThat(snapshot.getPercentile(100)).isEqualTo(100);
+    }
+
+    @Test
+    public void snapshot_should_only_contain_durations_recorded_since_previous_snapshot() {
+        histograms.record(REC1, 1000);
+        histograms.record(REC2, 5);
+        histograms.snapshot();
+        histograms.record(REC1, 3);
+
+        final Map<TimeTrackerRecords, LatencySnapshot> snapshots = histograms.snapshot();
+
+        assertThat(snapshots).containsOnlyKeys(REC1);
+        assertThat(snapshots.get(REC1).getCount()).isEqualTo(1);
+        assertThat(snapshots.get(REC1).getMax()).isEqualTo(3);
+        assertThat(histograms.snapshot()).isEmpty();
+    }
+
+    @Test
+    public void snapshot_should_sum_durations_of_all_threads_and_keep_those_of_terminated_threads() throws Exception {
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    histograms.record(REC1, i);
+                }
+            }));
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        histograms.record(REC1, 2000);
+
+        final LatencySnapshot snapshot = histograms.snapshot().get(REC1);
+
+        assertThat(snapshot.getCount()).isEqualTo(4001);
+        assertThat(snapshot.getSum()).isEqualTo(4 * 499500 + 2000);
+        assertThat(snapshot.getMax()).isEqualTo(2000);
+        assertThat(histograms.getRecorderCount()).isEqualTo(1);
+        histograms.record(REC1, 1);
+        assertThat(histograms.snapshot().get(REC1).getCount()).isEqualTo(1);
+    }
+
+}
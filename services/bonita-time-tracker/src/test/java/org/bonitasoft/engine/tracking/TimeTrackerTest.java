@@ -29,6 +29,7 @@ import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
 import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -145,6 +146,55 @@ public class TimeTrackerTest extends AbstractTimeTrackerTest {
         assertTrue(tracker.getRecordsCopy().isEmpty());
     }
 
+    @Test
+    public void should_only_count_durations_in_histograms_when_in_histogram_mode() throws Exception {
+        when(flushThread.isStarted()).thenReturn(true);
+        final FlushEventListener listener = mock(FlushEventListener.class);
+        when(listener.isActive()).thenReturn(true);
+        when(listener.getName()).thenReturn("listener");
+        tracker = new TimeTracker(logger, true, true, Collections.singletonList(listener), 10, 2, REC1.name()) {
+
+            @Override
+            FlushThread createFlushThread() {
+                return flushThread;
+            }
+        };
+        tracker.start();
+        tracker.track(REC1, "rec11Desc", 100);
+        tracker.track(REC1, 200);
+        tracker.track(REC1, () -> {
+            throw new AssertionError("the description must not be built in histogram mode");
+        }, 50);
+        tracker.track(INACTIVATED_REC, 1000);
+        assertTrue(tracker.getRecordsCopy().isEmpty());
+
+        tracker.flush();
+
+        final ArgumentCaptor<FlushEvent> flushEvent = ArgumentCaptor.forClass(FlushEvent.class);
+        verify(listener).flush(flushEvent.capture());
+        assertThat(flushEvent.getValue().getRecords()).isEmpty();
+        assertThat(flushEvent.getValue().getLatencies()).containsOnlyKeys(REC1);
+        assertThat(flushEvent.getValue().getLatencies().get(REC1).getCount()).isEqualTo(3);
+        assertThat(flushEvent.getValue().getLatencies().get(REC1).getSum()).isEqualTo(350);
+    }
+
+    @Test
+    public void should_track_description_given_by_a_supplier() {
+        when(flushThread.isStarted()).thenReturn(true);
+        tracker = createTimeTracker(true, null, 10, 2, REC1);
+        tracker.start();
+
+        tracker.track(REC1, () -> "rec1" + "Desc", 100);
+        tracker.track(REC2, () -> {
+            throw new AssertionError("the description of an inactivated record must not be built");
+        }, 100);
+
+        final List<Record> records = tracker.getRecordsCopy();
+        assertEquals(1, records.size());
+        assertEquals("rec1Desc", records.get(0).getDescription());
+        tracker.stop();
+    }
+
     @Test
     public void timestamp() throws Exception {
         when(flushThread.isStarted()).thenReturn(true);
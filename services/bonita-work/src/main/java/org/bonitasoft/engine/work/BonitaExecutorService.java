@@ -13,6 +13,7 @@
  **/
 package org.bonitasoft.engine.work;
 
+import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -41,6 +42,18 @@ public interface BonitaExecutorService {
      */
     void submit(WorkDescriptor work);
 
+    /**
+     * Execute all the works described by the work descriptors
+     * @param works
+     */
+    void submit(Collection<WorkDescriptor> works);
+
+    /**
+     * @param workCount number of works about to be submitted
+     * @return true if the given number of works can be submitted without exceeding the capacity of the queue
+     */
+    boolean hasCapacityFor(int workCount);
+
     boolean awaitTermination(long workTerminationTimeout, TimeUnit seconds) throws InterruptedException;
 
 }
@@ -13,9 +13,12 @@
  **/
 package org.bonitasoft.engine.work;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -31,11 +34,16 @@ import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
  */
 public class BonitaThreadPoolExecutor extends ThreadPoolExecutor implements BonitaExecutorService {
 
+    private static final int MAILBOX_DRAIN_BATCH_SIZE = 10;
+
     private final BlockingQueue<Runnable> workQueue;
     private final WorkFactory workFactory;
     private final TechnicalLoggerService logger;
     private final EngineClock engineClock;
     private final WorkExecutionCallback workExecutionCallback;
+    private final DelayedWorkQueue delayedWorkQueue;
+    private final WorkMailboxes workMailboxes;
+    private final WorkOverflowFeeder overflowFeeder;
 
     public BonitaThreadPoolExecutor(final int corePoolSize,
             final int maximumPoolSize,
@@ -45,17 +53,62 @@ public class BonitaThreadPoolExecutor extends ThreadPoolExecutor implements Boni
             final ThreadFactory threadFactory,
             final RejectedExecutionHandler handler, WorkFactory workFactory, final TechnicalLoggerService logger,
             EngineClock engineClock, WorkExecutionCallback workExecutionCallback) {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler, workFactory, logger, engineClock,
+                workExecutionCallback, null);
+    }
+
+    public BonitaThreadPoolExecutor(final int corePoolSize,
+            final int maximumPoolSize,
+            final long keepAliveTime,
+            final TimeUnit unit,
+            final BlockingQueue<Runnable> workQueue,
+            final ThreadFactory threadFactory,
+            final RejectedExecutionHandler handler, WorkFactory workFactory, final TechnicalLoggerService logger,
+            EngineClock engineClock, WorkExecutionCallback workExecutionCallback, String mailboxKeyParameter) {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler, workFactory, logger, engineClock,
+                workExecutionCallback, mailboxKeyParameter, null);
+    }
+
+    /**
+     * @param mailboxKeyParameter when not null, works having this parameter are executed one at a time for a given value
+     *        of the parameter, see {@link WorkMailboxes}
+     * @param overflowStore when not null, works rejected because the queue is full are stored in it and submitted again
+     *        when the queue has room, see {@link WorkOverflowFeeder}
+     */
+    public BonitaThreadPoolExecutor(final int corePoolSize,
+            final int maximumPoolSize,
+            final long keepAliveTime,
+            final TimeUnit unit,
+            final BlockingQueue<Runnable> workQueue,
+            final ThreadFactory threadFactory,
+            final RejectedExecutionHandler handler, WorkFactory workFactory, final TechnicalLoggerService logger,
+            EngineClock engineClock, WorkExecutionCallback workExecutionCallback, String mailboxKeyParameter,
+            WorkOverflowStore overflowStore) {
         super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler);
         this.workQueue = workQueue;
         this.workFactory = workFactory;
         this.logger = logger;
         this.engineClock = engineClock;
         this.workExecutionCallback = workExecutionCallback;
+        this.delayedWorkQueue = new DelayedWorkQueue(engineClock, this::releaseDelayedWork, "Bonita-Work-Delay");
+        this.workMailboxes = mailboxKeyParameter == null ? null
+                : new WorkMailboxes(mailboxKeyParameter, MAILBOX_DRAIN_BATCH_SIZE, this::submit, this::executeWork,
+                        overflowStore == null ? null : this::spill);
+        this.overflowFeeder = overflowStore == null ? null
+                : new WorkOverflowFeeder(overflowStore, this::getFreeCapacity, this::dispatch, logger, "Bonita-Work-Overflow-Feeder");
+        if (overflowFeeder != null) {
+            overflowFeeder.start();
+        }
     }
 
     @Override
     public void clearAllQueues() {
         workQueue.clear();
+        delayedWorkQueue.clear();
+        clearMailboxes();
+        if (overflowFeeder != null) {
+            overflowFeeder.clear();
+        }
     }
 
     @Override
@@ -71,28 +124,122 @@ public class BonitaThreadPoolExecutor extends ThreadPoolExecutor implements Boni
     public void shutdownAndEmptyQueue() {
         super.shutdown();
         logger.log(getClass(), TechnicalLogSeverity.INFO,
-                "Clearing queue of work, had " + workQueue.size() + " elements");
+                "Clearing queue of work, had " + workQueue.size() + " elements and "
+                        + delayedWorkQueue.getParkedWorkCount() + " delayed elements");
         workQueue.clear();
+        delayedWorkQueue.stop();
+        clearMailboxes();
+        if (overflowFeeder != null) {
+            // stored works are kept, they will be fed back when the executor is started again
+            overflowFeeder.stop();
+        }
+    }
+
+    private void clearMailboxes() {
+        if (workMailboxes != null) {
+            workMailboxes.clear();
+        }
     }
 
     @Override
     public void submit(WorkDescriptor work) {
-        submit(() -> {
-            if (work.getExecutionThreshold() != null && work.getExecutionThreshold().isAfter(engineClock.now())) {
-                // Future implementation should use a real delay e.g. using a ScheduledThreadPoolExecutor
-                // Will be executed later
-                submit(work);
-                return;
+        submit(work, engineClock.now());
+    }
+
+    @Override
+    public void submit(Collection<WorkDescriptor> works) {
+        if (isShutdown()) {
+            return;
+        }
+        // all the works are submitted against the same instant, the clock is read once for the batch
+        Instant now = engineClock.now();
+        for (WorkDescriptor work : works) {
+            submit(work, now);
+        }
+    }
+
+    private void submit(WorkDescriptor work, Instant now) {
+        if (work.getExecutionThreshold() != null && work.getExecutionThreshold().isAfter(now)) {
+            // Will be submitted when the threshold is reached, without holding a worker thread until then
+            delayedWorkQueue.park(work);
+            return;
+        }
+        dispatch(work);
+    }
+
+    private void dispatch(WorkDescriptor work) {
+        if (overflowFeeder != null && getFreeCapacity() == 0) {
+            overflowFeeder.spill(work);
+            return;
+        }
+        try {
+            if (workMailboxes != null && workMailboxes.accepts(work)) {
+                workMailboxes.submit(work);
+            } else {
+                submit(() -> executeWork(work));
             }
-            BonitaWork bonitaWork = workFactory.create(work);
-            HashMap<String, Object> context = new HashMap<>();
-            try {
-                bonitaWork.work(context);
-                workExecutionCallback.onSuccess(work);
-            } catch (Exception e) {
-                workExecutionCallback.onFailure(work, bonitaWork, context, e);
+        } catch (RejectedExecutionException e) {
+            if (overflowFeeder == null) {
+                throw e;
             }
-        });
+            overflowFeeder.spill(work);
+        }
+    }
+
+    private void spill(WorkDescriptor work) {
+        // the mailboxes are created before the overflow feeder, so they cannot reference it directly
+        overflowFeeder.spill(work);
+    }
+
+    private int getFreeCapacity() {
+        // when the queue is full, new threads are still created up to the maximum pool size
+        return workQueue.remainingCapacity() + Math.max(getMaximumPoolSize() - getPoolSize(), 0);
+    }
+
+    @Override
+    public boolean hasCapacityFor(int workCount) {
+        return getFreeCapacity() >= workCount;
+    }
+
+    private void releaseDelayedWork(WorkDescriptor work) {
+        try {
+            dispatch(work);
+        } catch (RejectedExecutionException e) {
+            logger.log(getClass(), TechnicalLogSeverity.WARNING,
+                    "Unable to submit delayed work " + work + ", it will be restarted with the node", e);
+        }
+    }
+
+    private void executeWork(WorkDescriptor work) {
+        BonitaWork bonitaWork = workFactory.create(work);
+        HashMap<String, Object> context = new HashMap<>();
+        try {
+            bonitaWork.work(context);
+            workExecutionCallback.onSuccess(work);
+        } catch (Exception e) {
+            workExecutionCallback.onFailure(work, bonitaWork, context, e);
+        }
+    }
+
+    /**
+     * @return the queue holding works waiting for their execution threshold, mainly to read its statistics
+     */
+    public DelayedWorkQueue getDelayedWorkQueue() {
+        return delayedWorkQueue;
+    }
+
+    /**
+     * @return the mailboxes serializing the execution of works, or null if works are not serialized
+     */
+    public WorkMailboxes getWorkMailboxes() {
+        return workMailboxes;
+    }
+
+    /**
+     * @return the feeder of works that overflowed the queue, or null if overflowing works are rejected
+     */
+    public WorkOverflowFeeder getOverflowFeeder() {
+        return overflowFeeder;
     }
 
 }
@@ -38,6 +38,8 @@ import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
  */
 public class DefaultBonitaExecutorServiceFactory implements BonitaExecutorServiceFactory {
 
+    static final String PROCESS_INSTANCE_ID_PARAMETER = "processInstanceId";
+
     private final int corePoolSize;
     private final int queueCapacity;
     private final int maximumPoolSize;
@@ -46,11 +48,39 @@ public class DefaultBonitaExecutorServiceFactory implements BonitaExecutorServic
     private final TechnicalLoggerService logger;
     private WorkFactory workFactory;
     private final long tenantId;
+    private final boolean serializeByProcessInstance;
+    private final WorkOverflowStore workOverflowStore;
 
     public DefaultBonitaExecutorServiceFactory(final TechnicalLoggerService logger, WorkFactory workFactory, final long tenantId, final int corePoolSize, final int queueCapacity,
             final int maximumPoolSize,
             final long keepAliveTimeSeconds,
             EngineClock engineClock) {
+        this(logger, workFactory, tenantId, corePoolSize, queueCapacity, maximumPoolSize, keepAliveTimeSeconds, engineClock, false);
+    }
+
+    /**
+     * @param serializeByProcessInstance when true, works of a same process instance are executed one at a time instead of
+     *        competing for the lock of the process instance
+     */
+    public DefaultBonitaExecutorServiceFactory(final TechnicalLoggerService logger, WorkFactory workFactory, final long tenantId, final int corePoolSize, final int queueCapacity,
+            final int maximumPoolSize,
+            final long keepAliveTimeSeconds,
+            EngineClock engineClock, final boolean serializeByProcessInstance) {
+        this(logger, workFactory, tenantId, corePoolSize, queueCapacity, maximumPoolSize, keepAliveTimeSeconds, engineClock,
+                serializeByProcessInstance, false, null);
+    }
+
+    /**
+     * @param overflowEnabled when true, works that do not fit in the queue are stored in the workOverflowStore until there
+     *        is room in the queue instead of being rejected
+     */
+    public DefaultBonitaExecutorServiceFactory(final TechnicalLoggerService logger, WorkFactory workFactory, final long tenantId, final int corePoolSize, final int queueCapacity,
+            final int maximumPoolSize,
+            final long keepAliveTimeSeconds,
+            EngineClock engineClock, final boolean serializeByProcessInstance, final boolean overflowEnabled,
+            final WorkOverflowStore workOverflowStore) {
+        this.workOverflowStore = overflowEnabled ? workOverflowStore : null;
+        this.serializeByProcessInstance = serializeByProcessInstance;
         this.logger = logger;
         this.workFactory = workFactory;
         this.tenantId = tenantId;
@@ -67,7 +97,8 @@ public class DefaultBonitaExecutorServiceFactory implements BonitaExecutorServic
         final RejectedExecutionHandler handler = new QueueRejectedExecutionHandler();
         final WorkerThreadFactory threadFactory = new WorkerThreadFactory("Bonita-Worker", tenantId, maximumPoolSize);
         return new BonitaThreadPoolExecutor(corePoolSize, maximumPoolSize, keepAliveTimeSeconds, TimeUnit.SECONDS, workQueue,
-                threadFactory, handler, workFactory, logger, engineClock, workExecutionCallback);
+                threadFactory, handler, workFactory, logger, engineClock, workExecutionCallback,
+                serializeByProcessInstance ? PROCESS_INSTANCE_ID_PARAMETER : null, workOverflowStore);
     }
 
     private final class QueueRejectedExecutionHandler implements RejectedExecutionHandler {
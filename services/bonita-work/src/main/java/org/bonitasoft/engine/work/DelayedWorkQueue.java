@@ -0,0 +1,205 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+
+package org.bonitasoft.engine.work;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.bonitasoft.engine.commons.time.EngineClock;
+
+/**
+ * Holds works that must not be executed before their {@link WorkDescriptor#getExecutionThreshold()} and releases them
+ * to the given consumer once the threshold is reached.
+ * <p>
+ * Works are kept ordered by threshold and a single daemon thread sleeps until the earliest one is due, so parked works
+ * do not use any worker thread. The {@link EngineClock} is checked at least every {@link #MAX_CHECK_INTERVAL} to
+ * follow clocks that do not move at the wall clock pace.
+ */
+public class DelayedWorkQueue implements Runnable {
+
+    static final Duration MAX_CHECK_INTERVAL = Duration.ofSeconds(1);
+
+    private final Object lock = new Object();
+    private final PriorityQueue<ParkedWork> parkedWorks = new PriorityQueue<>(
+            Comparator.comparing((ParkedWork p) -> p.work.getExecutionThreshold()).thenComparingLong(p -> p.sequence));
+    private final EngineClock engineClock;
+    private final Consumer<WorkDescriptor> releaseAction;
+    private final String threadName;
+    private Thread thread;
+    private boolean stopped;
+    private long sequence;
+
+    private final AtomicLong totalParkedWorks = new AtomicLong();
+    private final AtomicLong totalReleasedWorks = new AtomicLong();
+    private final AtomicLong totalWaitTimeMillis = new AtomicLong();
+    private final AtomicLong maxWaitTimeMillis = new AtomicLong();
+
+    public DelayedWorkQueue(EngineClock engineClock, Consumer<WorkDescriptor> releaseAction, String threadName) {
+        this.engineClock = engineClock;
+        this.releaseAction = releaseAction;
+        this.threadName = threadName;
+    }
+
+    /**
+     * Park the work until its execution threshold is reached
+     *
+     * @param work the work to park, must have an execution threshold
+     */
+    public void park(WorkDescriptor work) {
+        synchronized (lock) {
+            if (stopped) {
+                return;
+            }
+            startIfNeeded();
+            ParkedWork parkedWork = new ParkedWork(work, sequence++, System.currentTimeMillis());
+            parkedWorks.add(parkedWork);
+            totalParkedWorks.incrementAndGet();
+            if (parkedWorks.peek() == parkedWork) {
+                // new earliest work: wake up the thread so that it recomputes its delay
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void startIfNeeded() {
+        if (thread == null) {
+            thread = new Thread(this, threadName);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            List<ParkedWork> dueWorks;
+            try {
+                dueWorks = awaitDueWorks();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (dueWorks == null) {
+                return;
+            }
+            for (ParkedWork dueWork : dueWorks) {
+                long waitTime = System.currentTimeMillis() - dueWork.parkedAt;
+                totalReleasedWorks.incrementAndGet();
+                totalWaitTimeMillis.addAndGet(waitTime);
+                maxWaitTimeMillis.accumulateAndGet(waitTime, Math::max);
+                releaseAction.accept(dueWork.work);
+            }
+        }
+    }
+
+    private List<ParkedWork> awaitDueWorks() throws InterruptedException {
+        synchronized (lock) {
+            while (!stopped) {
+                ParkedWork earliest = parkedWorks.peek();
+                if (earliest == null) {
+                    lock.wait();
+                    continue;
+                }
+                Instant now = engineClock.now();
+                long delay = Duration.between(now, earliest.work.getExecutionThreshold()).toMillis();
+                if (delay > 0) {
+                    lock.wait(Math.min(delay, MAX_CHECK_INTERVAL.toMillis()));
+                    continue;
+                }
+                List<ParkedWork> dueWorks = new ArrayList<>();
+                while (!parkedWorks.isEmpty() && !parkedWorks.peek().work.getExecutionThreshold().isAfter(now)) {
+                    dueWorks.add(parkedWorks.poll());
+                }
+                return dueWorks;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Remove all parked works without executing them
+     */
+    public void clear() {
+        synchronized (lock) {
+            parkedWorks.clear();
+        }
+    }
+
+    /**
+     * Stop releasing works and drop all parked works, they will be restarted with the node
+     */
+    public void stop() {
+        synchronized (lock) {
+            stopped = true;
+            parkedWorks.clear();
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * @return the number of works currently waiting for their execution threshold
+     */
+    public int getParkedWorkCount() {
+        synchronized (lock) {
+            return parkedWorks.size();
+        }
+    }
+
+    /**
+     * @return the number of works that were parked since the creation of this queue
+     */
+    public long getTotalParkedWorkCount() {
+        return totalParkedWorks.get();
+    }
+
+    /**
+     * @return the number of works that were released to execution since the creation of this queue
+     */
+    public long getTotalReleasedWorkCount() {
+        return totalReleasedWorks.get();
+    }
+
+    /**
+     * @return the sum of the time spent parked by released works, in milliseconds
+     */
+    public long getTotalWaitTimeMillis() {
+        return totalWaitTimeMillis.get();
+    }
+
+    /**
+     * @return the longest time a released work spent parked, in milliseconds
+     */
+    public long getMaxWaitTimeMillis() {
+        return maxWaitTimeMillis.get();
+    }
+
+    private static final class ParkedWork {
+
+        private final WorkDescriptor work;
+        private final long sequence;
+        private final long parkedAt;
+
+        private ParkedWork(WorkDescriptor work, long sequence, long parkedAt) {
+            this.work = work;
+            this.sequence = sequence;
+            this.parkedAt = parkedAt;
+        }
+    }
+}
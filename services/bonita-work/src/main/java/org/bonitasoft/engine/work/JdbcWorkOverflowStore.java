@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+/**
+ * Stores overflowing works in the work_overflow table of the tenant, as serialized {@link WorkDescriptor}s.
+ * <p>
+ * Works are stored after the transaction that registered them is completed, so the given datasource must not be bound
+ * to a JTA transaction (the one of the sequence manager is used).
+ * Polled works are deleted in the same local transaction they are read, a work deleted by another node in the meantime
+ * is not returned.
+ */
+public class JdbcWorkOverflowStore implements WorkOverflowStore {
+
+    static final String INSERT = "INSERT INTO work_overflow (tenantid, id, created, descriptor) VALUES (?, ?, ?, ?)";
+
+    static final String SELECT_OLDEST = "SELECT id, descriptor FROM work_overflow WHERE tenantid = ? ORDER BY created, id";
+
+    static final String DELETE_BY_ID = "DELETE FROM work_overflow WHERE tenantid = ? AND id = ?";
+
+    static final String DELETE_ALL = "DELETE FROM work_overflow WHERE tenantid = ?";
+
+    private final DataSource datasource;
+
+    private final long tenantId;
+
+    public JdbcWorkOverflowStore(final DataSource datasource, final long tenantId) {
+        this.datasource = datasource;
+        this.tenantId = tenantId;
+    }
+
+    @Override
+    public void store(final WorkDescriptor work) throws SWorkException {
+        try (Connection connection = datasource.getConnection();
+                PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            connection.setAutoCommit(true);
+            insert.setLong(1, tenantId);
+            insert.setString(2, work.getUuid());
+            insert.setLong(3, System.currentTimeMillis());
+            insert.setBytes(4, serialize(work));
+            insert.executeUpdate();
+        } catch (final SQLException | IOException e) {
+            throw new SWorkException("Unable to store the overflowing work " + work, e);
+        }
+    }
+
+    @Override
+    public List<WorkDescriptor> poll(final int maxWorks) throws SWorkException {
+        final List<WorkDescriptor> works = new ArrayList<>();
+        try (Connection connection = datasource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                final List<WorkDescriptor> oldest = selectOldest(connection, maxWorks);
+                try (PreparedStatement delete = connection.prepareStatement(DELETE_BY_ID)) {
+                    for (final WorkDescriptor work : oldest) {
+                        delete.setLong(1, tenantId);
+                        delete.setString(2, work.getUuid());
+                        if (delete.executeUpdate() == 1) {
+                            works.add(work);
+                        }
+                    }
+                }
+                connection.commit();
+            } catch (final SQLException | IOException | ClassNotFoundException e) {
+                connection.rollback();
+                throw new SWorkException("Unable to poll the overflowing works", e);
+            }
+        } catch (final SQLException e) {
+            throw new SWorkException("Unable to poll the overflowing works", e);
+        }
+        return works;
+    }
+
+    private List<WorkDescriptor> selectOldest(final Connection connection, final int maxWorks)
+            throws SQLException, IOException, ClassNotFoundException {
+        final List<WorkDescriptor> works = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(SELECT_OLDEST)) {
+            select.setLong(1, tenantId);
+            select.setMaxRows(maxWorks);
+            try (ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    works.add(deserialize(resultSet.getBytes("descriptor")));
+                }
+            }
+        }
+        return works;
+    }
+
+    @Override
+    public void clear() throws SWorkException {
+        try (Connection connection = datasource.getConnection();
+                PreparedStatement delete = connection.prepareStatement(DELETE_ALL)) {
+            connection.setAutoCommit(true);
+            delete.setLong(1, tenantId);
+            delete.executeUpdate();
+        } catch (final SQLException e) {
+            throw new SWorkException("Unable to clear the overflowing works", e);
+        }
+    }
+
+    private static byte[] serialize(final WorkDescriptor work) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(work);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static WorkDescriptor deserialize(final byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (WorkDescriptor) input.readObject();
+        }
+    }
+
+}
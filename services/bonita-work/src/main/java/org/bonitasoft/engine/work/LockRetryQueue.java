@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+
+package org.bonitasoft.engine.work;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Parks works that failed with a {@link LockTimeoutException} until they can be retried.
+ * <p>
+ * A parked work is retried either when the lock it was waiting for is released (see {@link #lockReleased(String)}),
+ * or when its backoff delay expires, whichever comes first. The backoff grows exponentially with
+ * {@link WorkDescriptor#getRetryCount()}, is capped by the maximum delay and is randomized to avoid all works waiting
+ * on the same lock to be retried at the same time.
+ * Each lock release only retries the oldest work waiting for that lock: it will most likely take the lock and release
+ * the next one when it is done.
+ */
+public class LockRetryQueue {
+
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+    private final Consumer<WorkDescriptor> retryAction;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentMap<String, ArrayDeque<ParkedRetry>> parkedByLock = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> retriesByWorkType = new ConcurrentHashMap<>();
+    private final AtomicInteger parkedCount = new AtomicInteger();
+
+    public LockRetryQueue(long initialDelayMillis, long maxDelayMillis, Consumer<WorkDescriptor> retryAction) {
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.retryAction = retryAction;
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "Bonita-Work-Lock-Retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.scheduler = executor;
+    }
+
+    /**
+     * Park the work until the lock is released or its backoff delay expires
+     *
+     * @param work the work that was not able to acquire the lock
+     * @param lockKey key of the lock the work was waiting for, can be null if unknown: only the backoff delay applies
+     */
+    public void park(WorkDescriptor work, String lockKey) {
+        work.incrementRetryCount();
+        retriesByWorkType.computeIfAbsent(work.getType(), k -> new LongAdder()).increment();
+        ParkedRetry parkedRetry = new ParkedRetry(work, lockKey);
+        parkedCount.incrementAndGet();
+        if (lockKey != null) {
+            parkedByLock.compute(lockKey, (key, parked) -> {
+                ArrayDeque<ParkedRetry> queue = parked == null ? new ArrayDeque<>() : parked;
+                queue.add(parkedRetry);
+                return queue;
+            });
+        }
+        scheduler.schedule(() -> release(parkedRetry), computeDelay(work.getRetryCount()), TimeUnit.MILLISECONDS);
+    }
+
+    long computeDelay(int retryCount) {
+        int shift = Math.min(Math.max(retryCount - 1, 0), 30);
+        long delay = Math.min(initialDelayMillis << shift, maxDelayMillis);
+        // equal jitter: wait at least half of the delay
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    /**
+     * Notify that the lock having the given key was released, the oldest work waiting on it is retried immediately
+     *
+     * @param lockKey the key of the released lock
+     */
+    public void lockReleased(String lockKey) {
+        ParkedRetry[] next = new ParkedRetry[1];
+        parkedByLock.computeIfPresent(lockKey, (key, parked) -> {
+            next[0] = parked.poll();
+            return parked.isEmpty() ? null : parked;
+        });
+        if (next[0] != null) {
+            retry(next[0]);
+        }
+    }
+
+    private void release(ParkedRetry parkedRetry) {
+        if (parkedRetry.lockKey != null) {
+            parkedByLock.computeIfPresent(parkedRetry.lockKey, (key, parked) -> {
+                parked.remove(parkedRetry);
+                return parked.isEmpty() ? null : parked;
+            });
+        }
+        retry(parkedRetry);
+    }
+
+    private void retry(ParkedRetry parkedRetry) {
+        if (parkedRetry.released.compareAndSet(false, true)) {
+            parkedCount.decrementAndGet();
+            retryAction.accept(parkedRetry.work);
+        }
+    }
+
+    /**
+     * Drop all parked works and stop the retry thread, dropped works will be restarted with the node
+     */
+    public void stop() {
+        scheduler.shutdownNow();
+        parkedByLock.clear();
+        parkedCount.set(0);
+    }
+
+    /**
+     * @return the number of works currently waiting to be retried
+     */
+    public int getParkedWorkCount() {
+        return parkedCount.get();
+    }
+
+    /**
+     * @return the number of retries done since the creation of this queue, by type of work
+     */
+    public Map<String, Long> getRetryCountByWorkType() {
+        Map<String, Long> counts = new HashMap<>();
+        retriesByWorkType.forEach((type, count) -> counts.put(type, count.sum()));
+        return Collections.unmodifiableMap(counts);
+    }
+
+    private static final class ParkedRetry {
+
+        private final WorkDescriptor work;
+        private final String lockKey;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ParkedRetry(WorkDescriptor work, String lockKey) {
+            this.work = work;
+            this.lockKey = lockKey;
+        }
+    }
+}
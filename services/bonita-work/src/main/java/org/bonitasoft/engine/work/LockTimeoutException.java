@@ -19,7 +19,22 @@ package org.bonitasoft.engine.work;
  */
 public class LockTimeoutException extends Exception {
 
+    private final String lockKey;
+
     public LockTimeoutException(String message) {
+        this(message, null);
+    }
+
+    /**
+     * @param message the error message
+     * @param lockKey the key of the lock that was not obtained, used to retry the work when this lock is released
+     */
+    public LockTimeoutException(String message, String lockKey) {
         super(message);
+        this.lockKey = lockKey;
+    }
+
+    public String getLockKey() {
+        return lockKey;
     }
 }
@@ -67,6 +67,10 @@ public class WorkDescriptor implements Serializable {
         return parameters.get(key);
     }
 
+    public boolean hasParameter(String key) {
+        return parameters.containsKey(key);
+    }
+
     public Long getLong(String key) {
         return (Long) getParameter(key);
     }
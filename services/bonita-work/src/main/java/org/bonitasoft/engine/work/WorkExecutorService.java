@@ -14,6 +14,8 @@
 
 package org.bonitasoft.engine.work;
 
+import java.util.Collection;
+
 import org.bonitasoft.engine.commons.TenantLifecycleService;
 
 /**
@@ -29,4 +31,26 @@ public interface WorkExecutorService extends TenantLifecycleService {
     void notifyNodeStopped(String nodeName);
 
     void execute(WorkDescriptor work);
+
+    /**
+     * Trigger the execution of all the given works at once, e.g. the ones registered by a transaction
+     *
+     * @param works the works to execute
+     */
+    void execute(Collection<WorkDescriptor> works);
+
+    /**
+     * Called by the thread of a transaction before it commits, to slow it down while the work queue is too full to
+     * accept the works it registered
+     *
+     * @param workCount number of works registered by the transaction
+     */
+    void awaitCapacity(int workCount);
+
+    /**
+     * Notify that a lock was released, works that failed to acquire it can be retried right away
+     *
+     * @param lockKey the key of the released lock, as given in {@link LockTimeoutException#getLockKey()}
+     */
+    void notifyLockReleased(String lockKey);
 }
@@ -16,6 +16,7 @@ package org.bonitasoft.engine.work;
 
 import static java.lang.String.format;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -27,15 +28,42 @@ import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
  */
 public class WorkExecutorServiceImpl implements WorkExecutorService, WorkExecutionCallback {
 
+    private static final long BACK_PRESSURE_CHECK_INTERVAL = 10;
+
     private BonitaExecutorServiceFactory bonitaExecutorServiceFactory;
     private BonitaExecutorService executor;
     private TechnicalLoggerService loggerService;
     private long workTerminationTimeout;
+    private final long lockRetryInitialDelay;
+    private final long lockRetryMaxDelay;
+    private final long backPressureMaxWait;
+    private LockRetryQueue lockRetryQueue;
 
     public WorkExecutorServiceImpl(BonitaExecutorServiceFactory bonitaExecutorServiceFactory, TechnicalLoggerService loggerService, long workTerminationTimeout) {
+        this(bonitaExecutorServiceFactory, loggerService, workTerminationTimeout, 10, 1000);
+    }
+
+    /**
+     * @param lockRetryInitialDelay delay in milliseconds before the first retry of a work that failed to acquire a lock
+     * @param lockRetryMaxDelay maximum delay in milliseconds between two retries of a work that failed to acquire a lock
+     */
+    public WorkExecutorServiceImpl(BonitaExecutorServiceFactory bonitaExecutorServiceFactory, TechnicalLoggerService loggerService,
+            long workTerminationTimeout, long lockRetryInitialDelay, long lockRetryMaxDelay) {
+        this(bonitaExecutorServiceFactory, loggerService, workTerminationTimeout, lockRetryInitialDelay, lockRetryMaxDelay, 0);
+    }
+
+    /**
+     * @param backPressureMaxWait maximum time in milliseconds a transaction waits before committing when the work queue
+     *        can't accept its works, 0 to never wait
+     */
+    public WorkExecutorServiceImpl(BonitaExecutorServiceFactory bonitaExecutorServiceFactory, TechnicalLoggerService loggerService,
+            long workTerminationTimeout, long lockRetryInitialDelay, long lockRetryMaxDelay, long backPressureMaxWait) {
         this.bonitaExecutorServiceFactory = bonitaExecutorServiceFactory;
         this.loggerService = loggerService;
         this.workTerminationTimeout = workTerminationTimeout;
+        this.lockRetryInitialDelay = lockRetryInitialDelay;
+        this.lockRetryMaxDelay = lockRetryMaxDelay;
+        this.backPressureMaxWait = backPressureMaxWait;
     }
 
     @Override
@@ -49,14 +77,50 @@ public class WorkExecutorServiceImpl implements WorkExecutorService, WorkExecuti
         }
     }
 
+    @Override
+    public void execute(Collection<WorkDescriptor> works) {
+        if (!isStopped()) {
+            loggerService.log(getClass(), TechnicalLogSeverity.DEBUG, format("Submitted works %s", works));
+            executor.submit(works);
+        } else {
+            loggerService.log(getClass(), TechnicalLogSeverity.DEBUG,
+                    format("Ignored work submission (service stopped) %s", works));
+        }
+    }
+
+    @Override
+    public void awaitCapacity(int workCount) {
+        if (backPressureMaxWait <= 0) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + backPressureMaxWait;
+        BonitaExecutorService currentExecutor = executor;
+        while (currentExecutor != null && !currentExecutor.hasCapacityFor(workCount) && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(BACK_PRESSURE_CHECK_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            currentExecutor = executor;
+        }
+    }
+
     public void onSuccess(WorkDescriptor work) {
         loggerService.log(getClass(), TechnicalLogSeverity.DEBUG, format("Completed work %s", work));
     }
 
     public void onFailure(WorkDescriptor work, BonitaWork bonitaWork, Map<String, Object> context, Exception thrown) {
         if (thrown instanceof LockTimeoutException) {
-            //retry the work
-            execute(work);
+            //retry the work when the lock is released or after a backoff delay
+            LockRetryQueue retryQueue = lockRetryQueue;
+            if (retryQueue != null) {
+                retryQueue.park(work, ((LockTimeoutException) thrown).getLockKey());
+            } else {
+                // the executor is stopping: the work is not failed, its flow node is restarted with the node
+                loggerService.log(getClass(), TechnicalLogSeverity.INFO,
+                        format("Work %s could not acquire its lock while the work service is stopped, it will be restarted with the node", work));
+            }
             return;
         }
         try {
@@ -67,6 +131,21 @@ public class WorkExecutorServiceImpl implements WorkExecutorService, WorkExecuti
         }
     }
 
+    @Override
+    public void notifyLockReleased(String lockKey) {
+        LockRetryQueue retryQueue = lockRetryQueue;
+        if (retryQueue != null) {
+            retryQueue.lockReleased(lockKey);
+        }
+    }
+
+    /**
+     * @return the queue of works waiting to be retried after a lock timeout, mainly to read its statistics
+     */
+    public LockRetryQueue getLockRetryQueue() {
+        return lockRetryQueue;
+    }
+
     @Override
     public synchronized void stop() {
         // we don't throw exception just stop it and log if something happens
@@ -89,6 +168,7 @@ public class WorkExecutorServiceImpl implements WorkExecutorService, WorkExecuti
     public synchronized void start() {
         if (isStopped()) {
             executor = bonitaExecutorServiceFactory.createExecutorService(this);
+            lockRetryQueue = new LockRetryQueue(lockRetryInitialDelay, lockRetryMaxDelay, this::execute);
         }
     }
 
@@ -120,6 +200,8 @@ public class WorkExecutorServiceImpl implements WorkExecutorService, WorkExecuti
     }
 
     private void shutdownExecutor() {
+        lockRetryQueue.stop();
+        lockRetryQueue = null;
         executor.shutdownAndEmptyQueue();
         loggerService.log(getClass(), TechnicalLogSeverity.INFO, "Stopped executor service");
     }
@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+
+package org.bonitasoft.engine.work;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Serializes the execution of works sharing the same value for a given parameter, e.g. the process instance id.
+ * <p>
+ * Each value has its own mailbox, only one task draining a mailbox is submitted to the thread pool at a time. Works of
+ * the same mailbox are executed one after the other, in submission order, so they never compete for the same lock
+ * while works of different mailboxes are executed in parallel.
+ * A draining task executes at most {@code drainBatchSize} works before giving its thread back to the pool, so that a
+ * busy mailbox does not starve the others.
+ */
+public class WorkMailboxes {
+
+    private final ConcurrentMap<Serializable, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final String keyParameter;
+    private final int drainBatchSize;
+    private final Consumer<Runnable> taskSubmitter;
+    private final Consumer<WorkDescriptor> workRunner;
+    private final Consumer<WorkDescriptor> rejectedWorkHandler;
+
+    /**
+     * @param keyParameter name of the parameter of the {@link WorkDescriptor} used to select the mailbox
+     * @param drainBatchSize maximum number of works executed by a draining task
+     * @param taskSubmitter submits draining tasks to the thread pool
+     * @param workRunner executes a work
+     */
+    public WorkMailboxes(String keyParameter, int drainBatchSize, Consumer<Runnable> taskSubmitter, Consumer<WorkDescriptor> workRunner) {
+        this(keyParameter, drainBatchSize, taskSubmitter, workRunner, null);
+    }
+
+    /**
+     * @param rejectedWorkHandler when not null, receives the works left in a mailbox when the task continuing to drain it
+     *        is rejected, otherwise these works stay in the mailbox until the next submission for the same key
+     */
+    public WorkMailboxes(String keyParameter, int drainBatchSize, Consumer<Runnable> taskSubmitter, Consumer<WorkDescriptor> workRunner,
+            Consumer<WorkDescriptor> rejectedWorkHandler) {
+        this.keyParameter = keyParameter;
+        this.drainBatchSize = drainBatchSize;
+        this.taskSubmitter = taskSubmitter;
+        this.workRunner = workRunner;
+        this.rejectedWorkHandler = rejectedWorkHandler;
+    }
+
+    /**
+     * @return true if the work has a value for the key parameter and can be put in a mailbox
+     */
+    public boolean accepts(WorkDescriptor work) {
+        return work.hasParameter(keyParameter) && work.getParameter(keyParameter) != null;
+    }
+
+    /**
+     * Add the work to its mailbox, and submit a task draining this mailbox if none is already running
+     *
+     * @throws RejectedExecutionException if the draining task is rejected, the work is then removed from the mailbox
+     */
+    public void submit(WorkDescriptor work) {
+        Serializable key = work.getParameter(keyParameter);
+        boolean[] mustDrain = new boolean[1];
+        mailboxes.compute(key, (k, mailbox) -> {
+            Mailbox current = mailbox == null ? new Mailbox() : mailbox;
+            current.works.add(work);
+            if (!current.draining) {
+                current.draining = true;
+                mustDrain[0] = true;
+            }
+            return current;
+        });
+        if (mustDrain[0]) {
+            try {
+                submitDrain(key);
+            } catch (RejectedExecutionException e) {
+                // the caller handles the rejection of this work, it must not be executed from the mailbox as well
+                mailboxes.computeIfPresent(key, (k, mailbox) -> {
+                    mailbox.works.removeLastOccurrence(work);
+                    return mailbox.works.isEmpty() ? null : mailbox;
+                });
+                throw e;
+            }
+        }
+    }
+
+    private void submitDrain(Serializable key) {
+        try {
+            taskSubmitter.accept(() -> drain(key));
+        } catch (RejectedExecutionException e) {
+            mailboxes.computeIfPresent(key, (k, mailbox) -> {
+                mailbox.draining = false;
+                return mailbox;
+            });
+            throw e;
+        }
+    }
+
+    private void drain(Serializable key) {
+        for (int i = 0; i < drainBatchSize; i++) {
+            WorkDescriptor next = pollOrRemove(key);
+            if (next == null) {
+                return;
+            }
+            try {
+                workRunner.accept(next);
+            } catch (RuntimeException e) {
+                // do not leave the mailbox marked as draining without any task draining it
+                continueDrain(key);
+                throw e;
+            }
+        }
+        // still draining: let other mailboxes run before continuing with this one
+        continueDrain(key);
+    }
+
+    private void continueDrain(Serializable key) {
+        try {
+            submitDrain(key);
+        } catch (RejectedExecutionException e) {
+            // queue is full or executor is shutting down
+            if (rejectedWorkHandler != null) {
+                handOverRemainingWorks(key);
+            }
+            // otherwise works stay in the mailbox until the next submission for this key
+        }
+    }
+
+    private void handOverRemainingWorks(Serializable key) {
+        ArrayDeque<WorkDescriptor> remaining = new ArrayDeque<>();
+        mailboxes.computeIfPresent(key, (k, mailbox) -> {
+            if (mailbox.draining) {
+                // a submission for this key already started a new draining task
+                return mailbox;
+            }
+            remaining.addAll(mailbox.works);
+            return null;
+        });
+        remaining.forEach(rejectedWorkHandler);
+    }
+
+    private WorkDescriptor pollOrRemove(Serializable key) {
+        WorkDescriptor[] next = new WorkDescriptor[1];
+        mailboxes.computeIfPresent(key, (k, mailbox) -> {
+            next[0] = mailbox.works.poll();
+            // an empty mailbox is removed: the next submission will create a new one and drain it
+            return next[0] == null ? null : mailbox;
+        });
+        return next[0];
+    }
+
+    /**
+     * Remove all works waiting in mailboxes
+     */
+    public void clear() {
+        mailboxes.clear();
+    }
+
+    /**
+     * @return the number of mailboxes having works waiting or being executed
+     */
+    public int getMailboxCount() {
+        return mailboxes.size();
+    }
+
+    /**
+     * @return the number of works waiting in all mailboxes
+     */
+    public int getQueuedWorkCount() {
+        int[] count = new int[1];
+        mailboxes.forEach((key, mailbox) -> mailboxes.computeIfPresent(key, (k, m) -> {
+            count[0] += m.works.size();
+            return m;
+        }));
+        return count[0];
+    }
+
+    private static final class Mailbox {
+
+        // only accessed inside the compute methods of the map, that are atomic for a given key
+        private final ArrayDeque<WorkDescriptor> works = new ArrayDeque<>();
+        private boolean draining;
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+import org.bonitasoft.engine.log.technical.TechnicalLogSeverity;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+
+/**
+ * Spills works rejected by a full work queue to a {@link WorkOverflowStore} and feeds them back to the executor when
+ * the queue has room again.
+ * <p>
+ * The store is only polled when works were spilled since the last poll that emptied it (or once at start, to get back
+ * works spilled before the node stopped), and at most half of the free capacity of the queue is used at each poll so
+ * that newly registered works still find room.
+ */
+public class WorkOverflowFeeder {
+
+    static final long POLL_INTERVAL_MILLIS = 500;
+    static final int MAX_BATCH_SIZE = 1000;
+
+    private final WorkOverflowStore store;
+    private final IntSupplier freeCapacity;
+    private final Consumer<WorkDescriptor> feedAction;
+    private final TechnicalLoggerService logger;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean pending = new AtomicBoolean(true);
+    private final LongAdder spilledCount = new LongAdder();
+    private final LongAdder fedCount = new LongAdder();
+
+    /**
+     * @param freeCapacity gives the number of works the executor can accept without rejecting them
+     * @param feedAction submits a work polled from the store to the executor
+     */
+    public WorkOverflowFeeder(WorkOverflowStore store, IntSupplier freeCapacity, Consumer<WorkDescriptor> feedAction,
+            TechnicalLoggerService logger, String threadName) {
+        this.store = store;
+        this.freeCapacity = freeCapacity;
+        this.feedAction = feedAction;
+        this.logger = logger;
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler = executor;
+    }
+
+    /**
+     * Start polling the store periodically
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::feedSafely, POLL_INTERVAL_MILLIS, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Store a work that the executor rejected
+     *
+     * @throws RejectedExecutionException if the work can't be stored either
+     */
+    public void spill(WorkDescriptor work) {
+        try {
+            store.store(work);
+        } catch (SWorkException e) {
+            throw new RejectedExecutionException("Work queue is full and the work " + work + " could not be stored to be executed later", e);
+        }
+        spilledCount.increment();
+        pending.set(true);
+    }
+
+    private void feedSafely() {
+        try {
+            feed();
+        } catch (Exception e) {
+            logger.log(getClass(), TechnicalLogSeverity.WARNING, "Unable to feed overflowing works back to the work queue", e);
+        }
+    }
+
+    /**
+     * Give back to the executor as many stored works as it can currently accept
+     */
+    void feed() throws SWorkException {
+        if (!pending.get()) {
+            return;
+        }
+        int maxWorks = Math.min(freeCapacity.getAsInt() / 2, MAX_BATCH_SIZE);
+        if (maxWorks <= 0) {
+            return;
+        }
+        // reset before polling: a work spilled during the poll sets it again
+        pending.set(false);
+        List<WorkDescriptor> works = store.poll(maxWorks);
+        if (works.size() == maxWorks) {
+            pending.set(true);
+        }
+        for (WorkDescriptor work : works) {
+            feedAction.accept(work);
+            fedCount.increment();
+        }
+    }
+
+    /**
+     * Remove all the works waiting in the store
+     */
+    public void clear() {
+        try {
+            store.clear();
+        } catch (SWorkException e) {
+            logger.log(getClass(), TechnicalLogSeverity.WARNING, "Unable to clear overflowing works", e);
+        }
+    }
+
+    /**
+     * Stop feeding works, works still in the store will be fed back by the next executor
+     */
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @return the number of works stored because the work queue was full
+     */
+    public long getSpilledWorkCount() {
+        return spilledCount.sum();
+    }
+
+    /**
+     * @return the number of stored works given back to the executor
+     */
+    public long getFedWorkCount() {
+        return fedCount.sum();
+    }
+}
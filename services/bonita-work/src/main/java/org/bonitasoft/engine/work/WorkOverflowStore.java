@@ -0,0 +1,42 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import java.util.List;
+
+/**
+ * Keeps works that could not be queued because the work queue was full, until there is room for them again.
+ */
+public interface WorkOverflowStore {
+
+    /**
+     * Store a work rejected by the executor
+     *
+     * @param work the rejected work
+     */
+    void store(WorkDescriptor work) throws SWorkException;
+
+    /**
+     * Remove and return the oldest stored works
+     *
+     * @param maxWorks maximum number of works to return
+     * @return the removed works, in the order they were stored
+     */
+    List<WorkDescriptor> poll(int maxWorks) throws SWorkException;
+
+    /**
+     * Remove all stored works
+     */
+    void clear() throws SWorkException;
+}
@@ -28,8 +28,6 @@ import org.bonitasoft.engine.transaction.UserTransactionService;
  */
 public class WorkServiceImpl implements WorkService {
 
-    private final Object getSynchroLock = new Object();
-
     private final UserTransactionService transactionService;
 
     private final ThreadLocal<WorkSynchronization> synchronizations = new ThreadLocal<>();
@@ -75,20 +73,21 @@ public class WorkServiceImpl implements WorkService {
                 + ", but the work service is stopped.");
     }
 
+    /**
+     * The synchronization is only visible to the thread of the transaction it is registered on, so no lock is needed.
+     */
     private WorkSynchronization getContinuationSynchronization() throws SWorkRegisterException {
-        synchronized (getSynchroLock) {
-            WorkSynchronization synchro = synchronizations.get();
-            if (synchro == null) {
-                synchro = new WorkSynchronization(workExecutorService, sessionAccessor, this);
-                try {
-                    transactionService.registerBonitaSynchronization(synchro);
-                } catch (final STransactionNotFoundException e) {
-                    throw new SWorkRegisterException(e.getMessage(), e);
-                }
-                synchronizations.set(synchro);
+        WorkSynchronization synchro = synchronizations.get();
+        if (synchro == null) {
+            synchro = new WorkSynchronization(workExecutorService, sessionAccessor, this);
+            try {
+                transactionService.registerBonitaSynchronization(synchro);
+            } catch (final STransactionNotFoundException e) {
+                throw new SWorkRegisterException(e.getMessage(), e);
             }
-            return synchro;
+            synchronizations.set(synchro);
         }
+        return synchro;
     }
 
     @Override
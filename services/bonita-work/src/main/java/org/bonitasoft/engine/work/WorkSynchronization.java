@@ -13,8 +13,8 @@
  **/
 package org.bonitasoft.engine.work;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 
 import org.bonitasoft.engine.sessionaccessor.STenantIdNotSetException;
 import org.bonitasoft.engine.sessionaccessor.SessionAccessor;
@@ -34,7 +34,7 @@ public class WorkSynchronization implements BonitaTransactionSynchronization {
                         WorkServiceImpl workService) {
         super();
         this.workService = workService;
-        works = new HashSet<>();
+        works = new ArrayList<>();
         try {
             // Instead of doing this which is not so clear using sessionAccessor, we should add the tenantId as a parameter of the class
             tenantId = sessionAccessor.getTenantId();
@@ -55,6 +55,9 @@ public class WorkSynchronization implements BonitaTransactionSynchronization {
 
     @Override
     public void beforeCommit() {
+        if (!works.isEmpty()) {
+            workExecutorService.awaitCapacity(works.size());
+        }
     }
 
     @Override
@@ -62,7 +65,9 @@ public class WorkSynchronization implements BonitaTransactionSynchronization {
         if (TransactionState.COMMITTED == transactionStatus) {
             for (WorkDescriptor work : works) {
                 work.setTenantId(tenantId);
-                workExecutorService.execute(work);
+            }
+            if (!works.isEmpty()) {
+                workExecutorService.execute(works);
             }
         }
         workService.removeSynchronization();
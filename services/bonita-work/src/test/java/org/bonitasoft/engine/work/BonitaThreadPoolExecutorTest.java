@@ -17,10 +17,15 @@ package org.bonitasoft.engine.work;
 import static java.time.temporal.ChronoUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -118,6 +123,99 @@ public class BonitaThreadPoolExecutorTest {
         await().until(() -> workExecutionCallback.isOnSuccessCalled());
     }
 
+    @Test
+    public void should_execute_all_works_of_a_batch_and_delay_the_future_ones() throws Exception {
+        WorkDescriptor delayedWork = WorkDescriptor.create("NORMAL");
+        delayedWork.mustBeExecutedAfter(Instant.now().plus(5, SECONDS));
+
+        bonitaThreadPoolExecutor.submit(Arrays.asList(WorkDescriptor.create("EXCEPTION"), delayedWork));
+
+        await().until(() -> workExecutionCallback.isOnFailureCalled());
+        assertThat(bonitaThreadPoolExecutor.getDelayedWorkQueue().getParkedWorkCount()).isEqualTo(1);
+        engineClock.addTime(6, SECONDS);
+        await().until(() -> workExecutionCallback.isOnSuccessCalled());
+    }
+
+    @Test
+    public void should_spill_work_to_overflow_store_when_queue_is_full() throws Exception {
+        WorkOverflowStore overflowStore = mock(WorkOverflowStore.class);
+        CountDownLatch blockWorkers = new CountDownLatch(1);
+        BonitaThreadPoolExecutor executor = new BonitaThreadPoolExecutor(1, 1, 1000, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1), new WorkerThreadFactory("test-worker", 1, 1),
+                (r, e) -> {
+                    throw new RejectedExecutionException("full");
+                }, workDescriptor -> new BonitaWork() {
+
+                    @Override
+                    public String getDescription() {
+                        return workDescriptor.toString();
+                    }
+
+                    @Override
+                    public void work(Map<String, Object> context) throws Exception {
+                        blockWorkers.await();
+                    }
+
+                    @Override
+                    public void handleFailure(Exception e, Map<String, Object> context) {
+                    }
+                }, technicalLoggerService, engineClock, workExecutionCallback, null, overflowStore);
+        WorkDescriptor overflowingWork = WorkDescriptor.create("NORMAL");
+
+        executor.submit(WorkDescriptor.create("NORMAL"));
+        executor.submit(WorkDescriptor.create("NORMAL"));
+        executor.submit(overflowingWork);
+
+        verify(overflowStore).store(overflowingWork);
+        assertThat(executor.getOverflowFeeder().getSpilledWorkCount()).isEqualTo(1);
+        blockWorkers.countDown();
+        executor.shutdownAndEmptyQueue();
+    }
+
+    @Test
+    public void should_spill_work_of_a_mailbox_to_overflow_store_when_its_drain_is_rejected() throws Exception {
+        WorkOverflowStore overflowStore = mock(WorkOverflowStore.class);
+        CountDownLatch blockWorkers = new CountDownLatch(1);
+        // reports room in the queue even when full, like a queue filled by another thread right after the check
+        ArrayBlockingQueue<Runnable> queue = new ArrayBlockingQueue<Runnable>(1) {
+
+            @Override
+            public int remainingCapacity() {
+                return 1;
+            }
+        };
+        BonitaThreadPoolExecutor executor = new BonitaThreadPoolExecutor(1, 1, 1000, TimeUnit.SECONDS,
+                queue, new WorkerThreadFactory("test-worker", 1, 1),
+                (r, e) -> {
+                    throw new RejectedExecutionException("full");
+                }, workDescriptor -> new BonitaWork() {
+
+                    @Override
+                    public String getDescription() {
+                        return workDescriptor.toString();
+                    }
+
+                    @Override
+                    public void work(Map<String, Object> context) throws Exception {
+                        blockWorkers.await();
+                    }
+
+                    @Override
+                    public void handleFailure(Exception e, Map<String, Object> context) {
+                    }
+                }, technicalLoggerService, engineClock, workExecutionCallback, "processInstanceId", overflowStore);
+        WorkDescriptor overflowingWork = WorkDescriptor.create("NORMAL").withParameter("processInstanceId", 12L);
+
+        executor.submit(WorkDescriptor.create("NORMAL"));
+        executor.submit(WorkDescriptor.create("NORMAL"));
+        executor.submit(overflowingWork);
+
+        verify(overflowStore).store(overflowingWork);
+        assertThat(executor.getWorkMailboxes().getMailboxCount()).isEqualTo(0);
+        blockWorkers.countDown();
+        executor.shutdownAndEmptyQueue();
+    }
+
     private static class MyWorkExecutionCallback implements WorkExecutionCallback {
 
         private final AtomicBoolean onSuccessCalled = new AtomicBoolean(false);
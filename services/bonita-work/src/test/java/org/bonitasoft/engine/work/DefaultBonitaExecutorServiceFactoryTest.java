@@ -43,4 +43,17 @@ public class DefaultBonitaExecutorServiceFactoryTest {
         String name = ((ThreadPoolExecutor) createExecutorService).getThreadFactory().newThread(r).getName();
         assertThat(name).as("thread name should contains the tenantId").contains(Long.toString(tenantId));
     }
+
+    @Test
+    public void should_serialize_works_by_process_instance_when_enabled() {
+        DefaultBonitaExecutorServiceFactory defaultBonitaExecutorServiceFactory = new DefaultBonitaExecutorServiceFactory(null, workFactory, 1, 1,
+                20, 15, 10, new DefaultEngineClock(), true);
+
+        BonitaThreadPoolExecutor executorService = (BonitaThreadPoolExecutor) defaultBonitaExecutorServiceFactory
+                .createExecutorService(workExecutionCallback);
+
+        assertThat(executorService.getWorkMailboxes()).isNotNull();
+        assertThat(executorService.getWorkMailboxes().accepts(WorkDescriptor.create("EXECUTE_FLOWNODE")
+                .withParameter(DefaultBonitaExecutorServiceFactory.PROCESS_INSTANCE_ID_PARAMETER, 12L))).isTrue();
+    }
 }
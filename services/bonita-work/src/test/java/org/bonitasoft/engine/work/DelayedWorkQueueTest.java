@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+
+package org.bonitasoft.engine.work;
+
+import static java.time.temporal.ChronoUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.bonitasoft.engine.commons.time.FixedEngineClock;
+import org.junit.After;
+import org.junit.Test;
+
+public class DelayedWorkQueueTest {
+
+    private FixedEngineClock engineClock = new FixedEngineClock(Instant.now());
+    private List<WorkDescriptor> releasedWorks = new CopyOnWriteArrayList<>();
+    private DelayedWorkQueue delayedWorkQueue = new DelayedWorkQueue(engineClock, releasedWorks::add, "test-delay");
+
+    @After
+    public void after() {
+        delayedWorkQueue.stop();
+    }
+
+    @Test
+    public void should_release_works_in_threshold_order() throws Exception {
+        WorkDescriptor late = WorkDescriptor.create("LATE").mustBeExecutedAfter(engineClock.now().plus(3, SECONDS));
+        WorkDescriptor early = WorkDescriptor.create("EARLY").mustBeExecutedAfter(engineClock.now().plus(2, SECONDS));
+
+        delayedWorkQueue.park(late);
+        delayedWorkQueue.park(early);
+        engineClock.addTime(5, SECONDS);
+
+        await().until(() -> releasedWorks.size() == 2);
+        assertThat(releasedWorks).containsExactly(early, late);
+    }
+
+    @Test
+    public void should_keep_works_parked_until_threshold_is_reached() throws Exception {
+        WorkDescriptor work = WorkDescriptor.create("NORMAL").mustBeExecutedAfter(engineClock.now().plus(5, SECONDS));
+
+        delayedWorkQueue.park(work);
+        engineClock.addTime(1, SECONDS);
+        Thread.sleep(50);
+
+        assertThat(releasedWorks).isEmpty();
+        assertThat(delayedWorkQueue.getParkedWorkCount()).isEqualTo(1);
+        assertThat(delayedWorkQueue.getTotalParkedWorkCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_update_statistics_when_releasing_works() throws Exception {
+        delayedWorkQueue.park(WorkDescriptor.create("NORMAL").mustBeExecutedAfter(engineClock.now().plus(1, SECONDS)));
+        engineClock.addTime(2, SECONDS);
+
+        await().until(() -> delayedWorkQueue.getTotalReleasedWorkCount() == 1);
+        assertThat(delayedWorkQueue.getParkedWorkCount()).isZero();
+        assertThat(delayedWorkQueue.getMaxWaitTimeMillis()).isLessThanOrEqualTo(delayedWorkQueue.getTotalWaitTimeMillis());
+    }
+
+    @Test
+    public void should_drop_parked_works_when_stopped() throws Exception {
+        delayedWorkQueue.park(WorkDescriptor.create("NORMAL").mustBeExecutedAfter(engineClock.now().plus(1, SECONDS)));
+
+        delayedWorkQueue.stop();
+        engineClock.addTime(2, SECONDS);
+        delayedWorkQueue.park(WorkDescriptor.create("NORMAL").mustBeExecutedAfter(engineClock.now().plus(1, SECONDS)));
+
+        assertThat(delayedWorkQueue.getParkedWorkCount()).isZero();
+        assertThat(releasedWorks).isEmpty();
+    }
+}
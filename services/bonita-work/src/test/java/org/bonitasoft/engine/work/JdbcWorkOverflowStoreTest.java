@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JdbcWorkOverflowStoreTest {
+
+    private JdbcDataSource dataSource;
+    private Connection keepAliveConnection;
+    private JdbcWorkOverflowStore store;
+
+    @Before
+    public void before() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:work_overflow_test");
+        // the in-memory database lives as long as a connection is open
+        keepAliveConnection = dataSource.getConnection();
+        try (Statement statement = keepAliveConnection.createStatement()) {
+            statement.execute("CREATE TABLE work_overflow (tenantid BIGINT NOT NULL, id VARCHAR(50) NOT NULL, created BIGINT NOT NULL, "
+                    + "descriptor BLOB NOT NULL, PRIMARY KEY (tenantid, id))");
+        }
+        store = new JdbcWorkOverflowStore(dataSource, 1L);
+    }
+
+    @After
+    public void after() throws SQLException {
+        try (Statement statement = keepAliveConnection.createStatement()) {
+            statement.execute("DROP TABLE work_overflow");
+        }
+        keepAliveConnection.close();
+    }
+
+    @Test
+    public void should_poll_stored_works_in_storing_order() throws Exception {
+        WorkDescriptor work1 = WorkDescriptor.create("EXECUTE_FLOWNODE").withParameter("processInstanceId", 12L);
+        WorkDescriptor work2 = WorkDescriptor.create("EXECUTE_MESSAGE");
+        WorkDescriptor work3 = WorkDescriptor.create("EXECUTE_CONNECTOR");
+        store.store(work1);
+        Thread.sleep(2);
+        store.store(work2);
+        Thread.sleep(2);
+        store.store(work3);
+
+        assertThat(store.poll(2)).containsExactly(work1, work2);
+        assertThat(store.poll(2)).containsExactly(work3);
+        assertThat(store.poll(2)).isEmpty();
+    }
+
+    @Test
+    public void should_only_poll_works_of_its_tenant() throws Exception {
+        WorkDescriptor work = WorkDescriptor.create("EXECUTE_FLOWNODE");
+        new JdbcWorkOverflowStore(dataSource, 2L).store(work);
+
+        assertThat(store.poll(10)).isEmpty();
+        assertThat(new JdbcWorkOverflowStore(dataSource, 2L).poll(10)).containsExactly(work);
+    }
+
+    @Test
+    public void should_remove_all_works_of_its_tenant_on_clear() throws Exception {
+        store.store(WorkDescriptor.create("EXECUTE_FLOWNODE"));
+        store.store(WorkDescriptor.create("EXECUTE_FLOWNODE"));
+
+        store.clear();
+
+        assertThat(store.poll(10)).isEmpty();
+    }
+}
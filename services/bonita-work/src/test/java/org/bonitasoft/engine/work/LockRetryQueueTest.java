@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+
+package org.bonitasoft.engine.work;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.awaitility.Awaitility.await;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class LockRetryQueueTest {
+
+    private List<WorkDescriptor> retriedWorks = new CopyOnWriteArrayList<>();
+    private LockRetryQueue lockRetryQueue = new LockRetryQueue(60000, 60000, retriedWorks::add);
+
+    @After
+    public void after() {
+        lockRetryQueue.stop();
+    }
+
+    @Test
+    public void should_retry_oldest_work_waiting_on_a_lock_when_it_is_released() {
+        WorkDescriptor first = WorkDescriptor.create("EXECUTE_FLOWNODE");
+        WorkDescriptor second = WorkDescriptor.create("EXECUTE_FLOWNODE");
+        lockRetryQueue.park(first, "PROCESS_1");
+        lockRetryQueue.park(second, "PROCESS_1");
+
+        lockRetryQueue.lockReleased("PROCESS_1");
+
+        assertThat(retriedWorks).containsExactly(first);
+        assertThat(lockRetryQueue.getParkedWorkCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_not_retry_works_waiting_on_another_lock() {
+        lockRetryQueue.park(WorkDescriptor.create("EXECUTE_FLOWNODE"), "PROCESS_1");
+
+        lockRetryQueue.lockReleased("PROCESS_2");
+
+        assertThat(retriedWorks).isEmpty();
+    }
+
+    @Test
+    public void should_retry_work_after_backoff_delay() {
+        lockRetryQueue = new LockRetryQueue(1, 10, retriedWorks::add);
+        WorkDescriptor work = WorkDescriptor.create("EXECUTE_FLOWNODE");
+
+        lockRetryQueue.park(work, "PROCESS_1");
+
+        await().until(() -> retriedWorks.contains(work));
+        // already retried, releasing the lock must not retry it again
+        lockRetryQueue.lockReleased("PROCESS_1");
+        assertThat(retriedWorks).containsExactly(work);
+    }
+
+    @Test
+    public void should_increase_delay_exponentially_up_to_max_delay() {
+        lockRetryQueue = new LockRetryQueue(10, 1000, retriedWorks::add);
+
+        assertThat(lockRetryQueue.computeDelay(1)).isBetween(5L, 10L);
+        assertThat(lockRetryQueue.computeDelay(4)).isBetween(40L, 80L);
+        assertThat(lockRetryQueue.computeDelay(50)).isBetween(500L, 1000L);
+    }
+
+    @Test
+    public void should_count_retries_by_work_type() {
+        WorkDescriptor work = WorkDescriptor.create("EXECUTE_FLOWNODE");
+        lockRetryQueue.park(work, "PROCESS_1");
+        lockRetryQueue.park(work, "PROCESS_1");
+        lockRetryQueue.park(WorkDescriptor.create("FINISH_FLOWNODE"), null);
+
+        assertThat(work.getRetryCount()).isEqualTo(2);
+        assertThat(lockRetryQueue.getRetryCountByWorkType()).containsOnly(entry("EXECUTE_FLOWNODE", 2L),
+                entry("FINISH_FLOWNODE", 1L));
+    }
+}
@@ -16,9 +16,11 @@ package org.bonitasoft.engine.work;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.*;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.concurrent.TimeUnit;
 
@@ -65,6 +67,34 @@ public class WorkExecutorServiceImplTest {
         verify(bonitaExecutorService).submit(eq(workDescriptor));
     }
 
+    @Test
+    public void awaitCapacity_should_wait_at_most_the_back_pressure_max_wait() throws Exception {
+        workExecutorService = new WorkExecutorServiceImpl(bonitaExecutorServiceFactory, loggerService, WORK_TERMINATION_TIMEOUT, 10, 1000, 100);
+        workExecutorService.start();
+        doReturn(false, false, true).when(bonitaExecutorService).hasCapacityFor(3);
+
+        workExecutorService.awaitCapacity(3);
+
+        verify(bonitaExecutorService, times(3)).hasCapacityFor(3);
+    }
+
+    @Test
+    public void awaitCapacity_should_not_wait_when_back_pressure_is_disabled() throws Exception {
+        workExecutorService.awaitCapacity(3);
+
+        verify(bonitaExecutorService, never()).hasCapacityFor(anyInt());
+    }
+
+    @Test
+    public void should_submit_all_works_at_once_on_the_executor() throws Exception {
+        WorkDescriptor otherWorkDescriptor = WorkDescriptor.create("myOtherWork");
+
+        workExecutorService.execute(Arrays.asList(workDescriptor, otherWorkDescriptor));
+
+        verify(bonitaExecutorService).submit(Arrays.asList(workDescriptor, otherWorkDescriptor));
+        verify(bonitaExecutorService, never()).submit(any(WorkDescriptor.class));
+    }
+
     @Test
     public void should_pause_shutdown_ThreadPool_and_clear_queue() throws InterruptedException, SBonitaException {
         final InOrder inOrder = inOrder(bonitaExecutorService);
@@ -221,9 +251,45 @@ public class WorkExecutorServiceImplTest {
         workExecutorService.onFailure(workDescriptor, bonitaWork, Collections.emptyMap(),
                 new LockTimeoutException("lock timeout"));
 
+        verify(bonitaExecutorService, timeout(1000)).submit(eq(workDescriptor));
+        assertThat(workDescriptor.getRetryCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_not_reexecute_work_immediately_when_it_fails_because_of_lock() throws Exception {
+        workExecutorService = new WorkExecutorServiceImpl(bonitaExecutorServiceFactory, loggerService, WORK_TERMINATION_TIMEOUT, 10000, 10000);
+        workExecutorService.start();
+
+        workExecutorService.onFailure(workDescriptor, bonitaWork, Collections.emptyMap(),
+                new LockTimeoutException("lock timeout", "PROCESS_12"));
+
+        verify(bonitaExecutorService, never()).submit(eq(workDescriptor));
+        assertThat(workExecutorService.getLockRetryQueue().getParkedWorkCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_reexecute_work_when_the_lock_it_waits_for_is_released() throws Exception {
+        workExecutorService = new WorkExecutorServiceImpl(bonitaExecutorServiceFactory, loggerService, WORK_TERMINATION_TIMEOUT, 10000, 10000);
+        workExecutorService.start();
+        workExecutorService.onFailure(workDescriptor, bonitaWork, Collections.emptyMap(),
+                new LockTimeoutException("lock timeout", "PROCESS_12"));
+
+        workExecutorService.notifyLockReleased("PROCESS_12");
+
         verify(bonitaExecutorService).submit(eq(workDescriptor));
     }
 
+    @Test
+    public void should_log_work_failing_because_of_lock_while_stopped() throws Exception {
+        workExecutorService.stop();
+
+        workExecutorService.onFailure(workDescriptor, bonitaWork, Collections.emptyMap(),
+                new LockTimeoutException("lock timeout", "PROCESS_12"));
+
+        verify(loggerService).log(any(), eq(TechnicalLogSeverity.INFO), contains("will be restarted with the node"));
+        verify(bonitaWork, never()).handleFailure(any(), any());
+    }
+
     @Test
     public void should_log_on_success() throws Exception {
         workExecutorService.onSuccess(workDescriptor);
@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+
+package org.bonitasoft.engine.work;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class WorkMailboxesTest {
+
+    private ExecutorService executorService = Executors.newFixedThreadPool(4);
+    private List<WorkDescriptor> executedWorks = new CopyOnWriteArrayList<>();
+
+    @After
+    public void after() {
+        executorService.shutdownNow();
+    }
+
+    private WorkDescriptor work(long processInstanceId) {
+        return WorkDescriptor.create("EXECUTE_FLOWNODE").withParameter("processInstanceId", processInstanceId);
+    }
+
+    @Test
+    public void should_only_accept_works_having_the_key_parameter() {
+        WorkMailboxes workMailboxes = new WorkMailboxes("processInstanceId", 10, executorService::execute, executedWorks::add);
+
+        assertThat(workMailboxes.accepts(work(12L))).isTrue();
+        assertThat(workMailboxes.accepts(WorkDescriptor.create("EXECUTE_MESSAGE"))).isFalse();
+    }
+
+    @Test
+    public void should_execute_works_of_a_same_key_one_at_a_time_in_submission_order() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        WorkMailboxes workMailboxes = new WorkMailboxes("processInstanceId", 3, executorService::execute, work -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            executedWorks.add(work);
+            running.decrementAndGet();
+        });
+        List<WorkDescriptor> works = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            works.add(work(12L));
+        }
+
+        works.forEach(workMailboxes::submit);
+
+        await().until(() -> executedWorks.size() == 50);
+        assertThat(executedWorks).containsExactlyElementsOf(works);
+        assertThat(maxRunning.get()).isEqualTo(1);
+        await().until(() -> workMailboxes.getMailboxCount() == 0);
+    }
+
+    @Test
+    public void should_execute_works_of_different_keys_in_parallel() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        WorkMailboxes workMailboxes = new WorkMailboxes("processInstanceId", 10, executorService::execute, work -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            await().until(() -> maxRunning.get() >= 2 || executedWorks.size() > 0);
+            executedWorks.add(work);
+            running.decrementAndGet();
+        });
+
+        workMailboxes.submit(work(1L));
+        workMailboxes.submit(work(2L));
+
+        await().until(() -> executedWorks.size() == 2);
+        assertThat(maxRunning.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_keep_executing_a_mailbox_when_a_work_throws_an_exception() {
+        WorkMailboxes workMailboxes = new WorkMailboxes("processInstanceId", 10, executorService::execute, work -> {
+            executedWorks.add(work);
+            if (executedWorks.size() == 1) {
+                throw new IllegalStateException("failing work");
+            }
+        });
+
+        workMailboxes.submit(work(12L));
+        workMailboxes.submit(work(12L));
+
+        await().dontCatchUncaughtExceptions().until(() -> executedWorks.size() == 2);
+    }
+
+    @Test
+    public void should_remove_work_from_its_mailbox_when_drain_is_rejected() {
+        AtomicInteger rejections = new AtomicInteger(1);
+        WorkMailboxes workMailboxes = new WorkMailboxes("processInstanceId", 10, task -> {
+            if (rejections.getAndDecrement() > 0) {
+                throw new RejectedExecutionException("queue full");
+            }
+            task.run();
+        }, executedWorks::add);
+        WorkDescriptor rejectedWork = work(12L);
+        WorkDescriptor acceptedWork = work(12L);
+
+        assertThatThrownBy(() -> workMailboxes.submit(rejectedWork)).isInstanceOf(RejectedExecutionException.class);
+        assertThat(workMailboxes.getMailboxCount()).isEqualTo(0);
+        workMailboxes.submit(acceptedWork);
+
+        assertThat(executedWorks).containsExactly(acceptedWork);
+    }
+
+    @Test
+    public void should_hand_over_remaining_works_when_continuing_the_drain_is_rejected() {
+        List<Runnable> submittedTasks = new ArrayList<>();
+        List<WorkDescriptor> rejectedWorks = new ArrayList<>();
+        WorkMailboxes workMailboxes = new WorkMailboxes("processInstanceId", 1, task -> {
+            if (!submittedTasks.isEmpty()) {
+                throw new RejectedExecutionException("queue full");
+            }
+            submittedTasks.add(task);
+        }, executedWorks::add, rejectedWorks::add);
+        WorkDescriptor first = work(12L);
+        WorkDescriptor second = work(12L);
+        WorkDescriptor third = work(12L);
+        workMailboxes.submit(first);
+        workMailboxes.submit(second);
+        workMailboxes.submit(third);
+
+        submittedTasks.get(0).run();
+
+        assertThat(executedWorks).containsExactly(first);
+        assertThat(rejectedWorks).containsExactly(second, third);
+        assertThat(workMailboxes.getMailboxCount()).isEqualTo(0);
+    }
+}
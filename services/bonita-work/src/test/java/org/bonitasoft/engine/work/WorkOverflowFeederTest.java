@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2018 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.junit.After;
+import org.junit.Test;
+
+public class WorkOverflowFeederTest {
+
+    private WorkOverflowStore store = mock(WorkOverflowStore.class);
+    private AtomicInteger freeCapacity = new AtomicInteger(100);
+    private List<WorkDescriptor> fedWorks = new ArrayList<>();
+    private WorkOverflowFeeder feeder = new WorkOverflowFeeder(store, freeCapacity::get, fedWorks::add,
+            mock(TechnicalLoggerService.class), "test-feeder");
+
+    @After
+    public void after() {
+        feeder.stop();
+    }
+
+    @Test
+    public void should_feed_stored_works_using_half_of_the_free_capacity() throws Exception {
+        WorkDescriptor work1 = WorkDescriptor.create("work1");
+        WorkDescriptor work2 = WorkDescriptor.create("work2");
+        doReturn(Arrays.asList(work1, work2)).when(store).poll(50);
+
+        feeder.feed();
+
+        assertThat(fedWorks).containsExactly(work1, work2);
+        assertThat(feeder.getFedWorkCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_not_poll_the_store_when_there_is_no_free_capacity() throws Exception {
+        freeCapacity.set(1);
+
+        feeder.feed();
+
+        verify(store, never()).poll(anyInt());
+    }
+
+    @Test
+    public void should_not_poll_the_store_again_until_a_work_is_spilled_once_it_is_empty() throws Exception {
+        doReturn(Collections.emptyList()).when(store).poll(anyInt());
+        feeder.feed();
+        feeder.feed();
+        verify(store, times(1)).poll(anyInt());
+
+        feeder.spill(WorkDescriptor.create("work"));
+        feeder.feed();
+
+        verify(store, times(2)).poll(anyInt());
+        assertThat(feeder.getSpilledWorkCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_poll_again_when_the_store_had_more_works_than_the_free_capacity() throws Exception {
+        freeCapacity.set(4);
+        doReturn(Arrays.asList(WorkDescriptor.create("work1"), WorkDescriptor.create("work2"))).when(store).poll(2);
+        feeder.feed();
+        feeder.feed();
+
+        verify(store, times(2)).poll(2);
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void should_reject_work_when_it_can_not_be_stored() throws Exception {
+        doThrow(new SWorkException("database down")).when(store).store(any());
+
+        feeder.spill(WorkDescriptor.create("work"));
+    }
+}
@@ -16,9 +16,13 @@ package org.bonitasoft.engine.work;
 
 import static org.bonitasoft.engine.transaction.TransactionState.COMMITTED;
 import static org.bonitasoft.engine.transaction.TransactionState.ROLLEDBACK;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import org.bonitasoft.engine.sessionaccessor.SessionAccessor;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -52,7 +56,7 @@ public class WorkSynchronizationTest {
 
         workSynchronization.afterCompletion(COMMITTED);
 
-        verify(workExecutorService).execute(workDescriptor1);
+        verify(workExecutorService).execute(Collections.singletonList(workDescriptor1));
     }
 
     @Test
@@ -62,8 +66,7 @@ public class WorkSynchronizationTest {
 
         workSynchronization.afterCompletion(COMMITTED);
 
-        verify(workExecutorService).execute(workDescriptor1);
-        verify(workExecutorService).execute(workDescriptor2);
+        verify(workExecutorService).execute(Arrays.asList(workDescriptor1, workDescriptor2));
     }
 
     @Test
@@ -72,7 +75,24 @@ public class WorkSynchronizationTest {
 
         workSynchronization.afterCompletion(ROLLEDBACK);
 
-        verify(workExecutorService, never()).execute(workDescriptor1);
+        verify(workExecutorService, never()).execute(anyCollection());
+    }
+
+    @Test
+    public void should_wait_for_capacity_of_registered_works_before_commit() throws Exception {
+        workSynchronization.addWork(workDescriptor1);
+        workSynchronization.addWork(workDescriptor2);
+
+        workSynchronization.beforeCommit();
+
+        verify(workExecutorService).awaitCapacity(2);
+    }
+
+    @Test
+    public void should_not_submit_anything_when_no_work_was_registered() throws Exception {
+        workSynchronization.afterCompletion(COMMITTED);
+
+        verify(workExecutorService, never()).execute(anyCollection());
     }
 
 }